@@ -15,6 +15,7 @@ plugins {
     id("io.freefair.lombok") version "9.5.0"
     alias(libs.plugins.blossom)
     alias(libs.plugins.indragit)
+    alias(libs.plugins.jmh)
     id("checkstyle")
     id("io.ebean") version "19.3.0"
     id("net.cytonic.migration-generator") version "1.0-SNAPSHOT"
@@ -81,6 +82,14 @@ dependencies {
     annotationProcessor(libs.ebean.query)
     //shuts Gradle up about how lombok goes above and beyond (jakarta bind XML)
     compileOnly(libs.lombokwarningfix)
+
+    testImplementation(platform(libs.junit.bom))
+    testImplementation(libs.junit.jupiter)
+    testRuntimeOnly(libs.junit.platform.launcher)
+}
+
+tasks.test {
+    useJUnitPlatform()
 }
 
 buildscript {
@@ -344,6 +353,12 @@ tasks.register<Copy>("copyThinToLibs") {
     rename { "cytosis.jar" }
 }
 
+// benchmarks live in src/jmh/java, run them with ./gradlew jmh
+jmh {
+    jmhVersion = libs.versions.jmh
+    resultFormat = "JSON"
+}
+
 jandex {
     toolVersion = "3.6.0"
 }
@@ -6,6 +6,8 @@ plugins {
     `java-library`
     java
     id("com.github.vlsi.jandex") version "3.0.2"
+    // the version comes from the root project, which already has the plugin on its classpath
+    id("me.champeau.jmh")
 }
 
 group = "net.cytonic"
@@ -24,6 +26,15 @@ dependencies {
     implementation(libs.jnats)
     implementation(libs.log4j.core)
     implementation(libs.log4j.slf4j2.impl)
+
+    testImplementation(libs.codec)
+    testImplementation(platform(libs.junit.bom))
+    testImplementation(libs.junit.jupiter)
+    testRuntimeOnly(libs.junit.platform.launcher)
+}
+
+tasks.test {
+    useJUnitPlatform()
 }
 
 java {
@@ -34,6 +45,12 @@ java {
     }
 }
 
+// benchmarks live in src/jmh/java, run them with ./gradlew :protocol:jmh
+jmh {
+    jmhVersion = libs.versions.jmh
+    resultFormat = "JSON"
+}
+
 jandex {
     toolVersion = "3.6.0"
 }
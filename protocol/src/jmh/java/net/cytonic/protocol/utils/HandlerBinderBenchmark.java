@@ -0,0 +1,88 @@
+package net.cytonic.protocol.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of calling a handler through each way of binding it: the reflective call used before, the
+ * {@link java.lang.invoke.LambdaMetafactory} binding, the {@link MethodHandle} fallback of {@link HandlerBinder}, and a
+ * plain method reference as the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HandlerBinderBenchmark {
+
+    private final Handler handler = new Handler();
+    private final Object event = new Object();
+    private Method method;
+    private Consumer<Object> bound;
+    private Consumer<Object> methodHandle;
+    private Consumer<Object> direct;
+
+    @Setup(Level.Trial)
+    public void setup() throws ReflectiveOperationException {
+        method = Handler.class.getDeclaredMethod("handle", Object.class);
+        method.setAccessible(true);
+        bound = HandlerBinder.bindConsumer(method, handler);
+        // built the same way as the fallback of HandlerBinder#bindConsumer
+        MethodHandle generic = MethodHandles.lookup().unreflect(method).bindTo(handler)
+            .asType(MethodType.methodType(void.class, Object.class));
+        methodHandle = arg -> {
+            try {
+                generic.invokeExact(arg);
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        };
+        direct = handler::handle;
+    }
+
+    @Benchmark
+    public void reflective() throws ReflectiveOperationException {
+        method.invoke(handler, event);
+    }
+
+    @Benchmark
+    public void lambdaMetafactory() {
+        bound.accept(event);
+    }
+
+    @Benchmark
+    public void methodHandle() {
+        methodHandle.accept(event);
+    }
+
+    @Benchmark
+    public void methodReference() {
+        direct.accept(event);
+    }
+
+    public static final class Handler {
+
+        private int handled;
+
+        private void handle(Object event) {
+            handled += event.hashCode();
+        }
+    }
+}
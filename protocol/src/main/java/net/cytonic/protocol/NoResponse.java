@@ -4,8 +4,6 @@ import java.util.function.BiConsumer;
 
 import net.minestom.server.codec.Codec;
 
-import net.cytonic.protocol.utils.NatsAPI;
-
 public abstract class NoResponse<T> extends ProtocolObject<T, Void> {
 
     @Override
@@ -18,7 +16,7 @@ public abstract class NoResponse<T> extends ProtocolObject<T, Void> {
     }
 
     public void publish(String subject, T message) {
-        NatsAPI.INSTANCE.publish(subject, serializeToString(message));
+        publishMessage(subject, message);
     }
 
     @Override
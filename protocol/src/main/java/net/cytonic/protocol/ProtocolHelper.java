@@ -9,6 +9,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import net.cytonic.protocol.notify.NotifyHandlerListener;
 import net.cytonic.protocol.notify.NotifyListener;
+import net.cytonic.protocol.serializer.WireNegotiator;
 import net.cytonic.protocol.utils.JandexUtils;
 import net.cytonic.protocol.utils.NatsAPI;
 import net.cytonic.protocol.utils.NotifyHandler;
@@ -48,7 +49,8 @@ public class ProtocolHelper {
     private static <T, R> void registerEndpoint(Endpoint<T, R> endpoint) {
         NatsAPI.INSTANCE.subscribe(endpoint.getSubject(), message -> {
             try {
-                T packet = endpoint.getProtocolObject().deserializeFromString(new String(message.getData()));
+                T packet = endpoint.getProtocolObject()
+                    .deserializeFromBytes(message.getData(), WireNegotiator.observe(message));
 
                 CompletableFuture<R> responseFuture = endpoint.onMessage(packet, new NotifyData(message));
                 if (responseFuture == null) {
@@ -63,7 +65,7 @@ public class ProtocolHelper {
                         return;
                     }
                     NatsAPI.INSTANCE.publish(message.getReplyTo(),
-                        endpoint.getProtocolObject().serializeReturnToString(response));
+                        endpoint.getProtocolObject().serializeReturnToBytes(response), null);
                 }));
             } catch (Exception e) {
                 log.error("Error publishing response for endpoint {}", endpoint.getClass().getName(), e);
@@ -76,7 +78,8 @@ public class ProtocolHelper {
         NatsAPI.INSTANCE.subscribe(notifyListener.getSubject(), (message) -> {
             try {
                 notifyListener.onMessage(
-                    protocolObject.deserializeFromString(new String(message.getData())), new NotifyData(message));
+                    protocolObject.deserializeFromBytes(message.getData(), WireNegotiator.observe(message)),
+                    new NotifyData(message));
             } catch (Exception e) {
                 log.error("Error handling message for notify listener {}", notifyListener.getClass().getName(), e);
             }
@@ -6,6 +6,8 @@ import org.jetbrains.annotations.Nullable;
 
 import net.cytonic.protocol.serializer.ReturnSerializable;
 import net.cytonic.protocol.serializer.Serializable;
+import net.cytonic.protocol.serializer.WireFormat;
+import net.cytonic.protocol.serializer.WireNegotiator;
 import net.cytonic.protocol.utils.NatsAPI;
 
 public abstract class ProtocolObject<T, R> implements Serializable<T>, ReturnSerializable<R>, Subject {
@@ -15,7 +17,18 @@ public abstract class ProtocolObject<T, R> implements Serializable<T>, ReturnSer
     }
 
     public void request(String subject, T message, BiConsumer<R, @Nullable Throwable> onResponse) {
-        NatsAPI.INSTANCE.request(subject, serializeToString(message),
-            (bytes, throwable) -> onResponse.accept(deserializeReturnFromString(new String(bytes)), throwable));
+        NatsAPI.INSTANCE.request(subject, serializeToBytes(message, WireFormat.JSON),
+            (bytes, throwable) -> onResponse.accept(deserializeReturnFromBytes(bytes), throwable));
+    }
+
+    /**
+     * Publishes a message without expecting a response, in the wire format negotiated for the subject
+     *
+     * @param subject the subject to publish on
+     * @param message the message
+     */
+    public void publishMessage(String subject, T message) {
+        WireFormat format = WireNegotiator.negotiate(NatsAPI.INSTANCE.resolveSubject(subject), this);
+        NatsAPI.INSTANCE.publish(subject, serializeToBytes(message, format), format.headers());
     }
 }
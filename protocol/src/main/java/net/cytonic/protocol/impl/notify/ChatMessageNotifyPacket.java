@@ -11,6 +11,7 @@ import org.jetbrains.annotations.Nullable;
 import net.cytonic.protocol.Message;
 import net.cytonic.protocol.NoResponse;
 import net.cytonic.protocol.impl.notify.ChatMessageNotifyPacket.Packet;
+import net.cytonic.protocol.serializer.BinaryCodec;
 import net.cytonic.protocol.utils.ProtocolCodecUtils;
 
 public class ChatMessageNotifyPacket extends NoResponse<Packet> {
@@ -25,6 +26,11 @@ public class ChatMessageNotifyPacket extends NoResponse<Packet> {
         return Packet.CODEC;
     }
 
+    @Override
+    public BinaryCodec<Packet> getBinaryCodec() {
+        return Packet.BINARY_CODEC;
+    }
+
     public record Packet(
         @Nullable Set<UUID> recipients,
         String channel,
@@ -40,6 +46,24 @@ public class ChatMessageNotifyPacket extends NoResponse<Packet> {
             Packet::new
         );
 
+        private static final BinaryCodec<@Nullable Set<UUID>> RECIPIENTS = BinaryCodec.UUID.set().nullable();
+        private static final BinaryCodec<@Nullable UUID> SENDER = BinaryCodec.UUID.nullable();
+
+        public static final BinaryCodec<Packet> BINARY_CODEC = BinaryCodec.of(
+            (writer, packet) -> {
+                RECIPIENTS.write(writer, packet.recipients());
+                writer.writeString(packet.channel());
+                ProtocolCodecUtils.BINARY_COMPONENT.write(writer, packet.message());
+                SENDER.write(writer, packet.sender());
+            },
+            reader -> new Packet(
+                RECIPIENTS.read(reader),
+                reader.readString(),
+                ProtocolCodecUtils.BINARY_COMPONENT.read(reader),
+                SENDER.read(reader)
+            )
+        );
+
         public Packet(@Nullable Set<UUID> recipients, Enum<?> channel, Component message,
             @Nullable UUID sender) {
             this(recipients, channel.name(), message, sender);
@@ -11,7 +11,6 @@ import net.cytonic.protocol.Message;
 import net.cytonic.protocol.ProtocolObject;
 import net.cytonic.protocol.impl.notify.FriendNotifyPacket.Packet;
 import net.cytonic.protocol.impl.objects.FriendApiProtocolObject.Response;
-import net.cytonic.protocol.utils.NatsAPI;
 
 @NoArgsConstructor
 @AllArgsConstructor
@@ -44,7 +43,7 @@ public class FriendNotifyPacket extends ProtocolObject<Packet, Response> {
 
         @Override
         public void publish(String subject) {
-            NatsAPI.INSTANCE.publish(subject, getProtocolObject().serializeToString(this));
+            getProtocolObject().publishMessage(subject, this);
         }
     }
 }
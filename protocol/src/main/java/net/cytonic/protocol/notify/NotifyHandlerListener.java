@@ -7,6 +7,8 @@ import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -14,6 +16,7 @@ import net.cytonic.protocol.NotifyData;
 import net.cytonic.protocol.ProtocolHelper;
 import net.cytonic.protocol.ProtocolObject;
 import net.cytonic.protocol.utils.ExcludeFromIndex;
+import net.cytonic.protocol.utils.HandlerBinder;
 import net.cytonic.protocol.utils.InstanceResolver;
 import net.cytonic.protocol.utils.NotifyHandler;
 import net.cytonic.protocol.utils.ReflectionUtils;
@@ -25,6 +28,8 @@ public class NotifyHandlerListener<T> implements NotifyListener<T> {
     private final Method method;
     private final NotifyHandler handler;
     private final ProtocolObject<T, ?> protocolObject;
+    // bound on the first message for instance methods
+    private volatile BiConsumer<T, NotifyData> bound;
 
     @SuppressWarnings("unchecked")
     public NotifyHandlerListener(Method method, NotifyHandler handler) {
@@ -36,6 +41,10 @@ public class NotifyHandlerListener<T> implements NotifyListener<T> {
         if (paramTypes.length == 0) {
             throw new IllegalArgumentException("Method must have at least one parameter " + format(method));
         }
+        checkSignature(method);
+        if (Modifier.isStatic(method.getModifiers())) {
+            bound = bind(method, null);
+        }
 
         String className = getTypeNameFromType(paramTypes[0]);
         ProtocolObject<T, ?> test = ProtocolHelper.getProtocolObject(className);
@@ -84,27 +93,43 @@ public class NotifyHandlerListener<T> implements NotifyListener<T> {
 
     @Override
     public void onMessage(T message, NotifyData notifyData) {
-        try {
-            Object instance = Modifier.isStatic(method.getModifiers())
-                ? null
-                : Objects.requireNonNull(InstanceResolver.INSTANCE).resolve(method.getDeclaringClass());
-            method.setAccessible(true);
-            if (method.getParameterCount() == 1) {
-                method.invoke(instance, message);
-                return;
-            }
+        handler().accept(message, notifyData);
+    }
 
-            if (method.getParameterCount() != 2) {
-                throw new IllegalArgumentException(
-                    "Method " + method.getName() + " must have exactly two parameters");
-            }
-            if (method.getParameterTypes()[1] != NotifyData.class) {
-                throw new IllegalArgumentException(
-                    "Method " + method.getName() + "'s second parameter must be NotifyData");
+    /**
+     * Gets the bound handler, binding it to an instance of the declaring class on the first message. Instances are
+     * resolved lazily since the components they may belong to aren't registered yet when the handlers are.
+     */
+    private BiConsumer<T, NotifyData> handler() {
+        BiConsumer<T, NotifyData> bound = this.bound;
+        if (bound != null) return bound;
+        synchronized (this) {
+            if (this.bound != null) return this.bound;
+            try {
+                Object instance = Objects.requireNonNull(InstanceResolver.INSTANCE)
+                    .resolve(method.getDeclaringClass());
+                this.bound = bind(method, instance);
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to resolve an instance for " + format(method), e);
             }
-            method.invoke(instance, message, notifyData);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            return this.bound;
+        }
+    }
+
+    private static <T> BiConsumer<T, NotifyData> bind(Method method, Object instance) {
+        if (method.getParameterCount() == 1) {
+            Consumer<T> consumer = HandlerBinder.bindConsumer(method, instance);
+            return (message, _) -> consumer.accept(message);
+        }
+        return HandlerBinder.bindBiConsumer(method, instance);
+    }
+
+    private static void checkSignature(Method method) {
+        if (method.getParameterCount() > 2) {
+            throw new IllegalArgumentException("Method must have at most two parameters " + format(method));
+        }
+        if (method.getParameterCount() == 2 && method.getParameterTypes()[1] != NotifyData.class) {
+            throw new IllegalArgumentException("Method's second parameter must be NotifyData " + format(method));
         }
     }
 
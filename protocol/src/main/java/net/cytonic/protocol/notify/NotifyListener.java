@@ -1,11 +1,13 @@
 package net.cytonic.protocol.notify;
 
 import net.minestom.server.codec.Codec;
+import org.jetbrains.annotations.Nullable;
 
 import net.cytonic.protocol.NotifyData;
 import net.cytonic.protocol.ProtocolHelper;
 import net.cytonic.protocol.ProtocolObject;
 import net.cytonic.protocol.Subject;
+import net.cytonic.protocol.serializer.BinaryCodec;
 import net.cytonic.protocol.serializer.Serializable;
 
 public interface NotifyListener<T> extends Subject, Serializable<T> {
@@ -19,6 +21,11 @@ public interface NotifyListener<T> extends Subject, Serializable<T> {
         return getProtocolObject().getCodec();
     }
 
+    @Override
+    default @Nullable BinaryCodec<T> getBinaryCodec() {
+        return getProtocolObject().getBinaryCodec();
+    }
+
     void onMessage(T message, NotifyData notifyData);
 
     @Override
@@ -0,0 +1,101 @@
+package net.cytonic.protocol.serializer;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A compact binary codec that reads and writes directly over a {@code byte[]}, without building an intermediate
+ * JSON tree. Protocol objects may expose one through {@link Serializable#getBinaryCodec()} to opt into the binary
+ * wire format once it has been negotiated for their subject.
+ *
+ * @param <T> the type this codec handles
+ */
+public interface BinaryCodec<T> {
+
+    BinaryCodec<String> STRING = of(BinaryWriter::writeString, BinaryReader::readString);
+    BinaryCodec<java.util.UUID> UUID = of(BinaryWriter::writeUuid, BinaryReader::readUuid);
+    BinaryCodec<Integer> VAR_INT = of(BinaryWriter::writeVarInt, BinaryReader::readVarInt);
+    BinaryCodec<Long> LONG = of(BinaryWriter::writeLong, BinaryReader::readLong);
+    BinaryCodec<Boolean> BOOLEAN = of(BinaryWriter::writeBoolean, BinaryReader::readBoolean);
+
+    static <T> BinaryCodec<T> of(Writer<T> writer, Function<BinaryReader, T> reader) {
+        return new BinaryCodec<>() {
+            @Override
+            public void write(BinaryWriter out, T value) {
+                writer.write(out, value);
+            }
+
+            @Override
+            public T read(BinaryReader in) {
+                return reader.apply(in);
+            }
+        };
+    }
+
+    void write(BinaryWriter writer, T value);
+
+    T read(BinaryReader reader);
+
+    /**
+     * Wraps this codec so that a presence flag is written before the value
+     *
+     * @return a codec accepting {@code null}
+     */
+    default BinaryCodec<@Nullable T> nullable() {
+        BinaryCodec<T> self = this;
+        return new BinaryCodec<>() {
+            @Override
+            public void write(BinaryWriter writer, @Nullable T value) {
+                writer.writeBoolean(value != null);
+                if (value != null) self.write(writer, value);
+            }
+
+            @Override
+            public @Nullable T read(BinaryReader reader) {
+                return reader.readBoolean() ? self.read(reader) : null;
+            }
+        };
+    }
+
+    /**
+     * Creates a length-prefixed set codec using this codec for the elements
+     *
+     * @return the set codec
+     */
+    default BinaryCodec<Set<T>> set() {
+        BinaryCodec<T> self = this;
+        return new BinaryCodec<>() {
+            @Override
+            public void write(BinaryWriter writer, Set<T> value) {
+                writeCollection(writer, value, self);
+            }
+
+            @Override
+            public Set<T> read(BinaryReader reader) {
+                int size = reader.readVarInt();
+                Set<T> set = new HashSet<>(Math.max(16, (int) (size / .75f) + 1));
+                for (int i = 0; i < size; i++) {
+                    set.add(self.read(reader));
+                }
+                return set;
+            }
+        };
+    }
+
+    private static <T> void writeCollection(BinaryWriter writer, Collection<T> values, BinaryCodec<T> codec) {
+        writer.writeVarInt(values.size());
+        for (T value : values) {
+            codec.write(writer, value);
+        }
+    }
+
+    @FunctionalInterface
+    interface Writer<T> {
+
+        void write(BinaryWriter writer, T value);
+    }
+}
@@ -0,0 +1,83 @@
+package net.cytonic.protocol.serializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Reads values written by a {@link BinaryWriter} directly from a {@code byte[]}, without copying the input.
+ */
+public class BinaryReader {
+
+    private final byte[] buffer;
+    private int position;
+
+    public BinaryReader(byte[] buffer) {
+        this(buffer, 0);
+    }
+
+    public BinaryReader(byte[] buffer, int offset) {
+        this.buffer = buffer;
+        this.position = offset;
+    }
+
+    public int readByte() {
+        require(1);
+        return buffer[position++];
+    }
+
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    public int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalStateException("VarInt is too big");
+    }
+
+    public long readLong() {
+        require(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (buffer[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    public UUID readUuid() {
+        return new UUID(readLong(), readLong());
+    }
+
+    public byte[] readBytes() {
+        int length = readLength();
+        byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return bytes;
+    }
+
+    public String readString() {
+        int length = readLength();
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    private int readLength() {
+        int length = readVarInt();
+        if (length < 0) throw new IllegalStateException("Negative length " + length);
+        require(length);
+        return length;
+    }
+
+    private void require(int bytes) {
+        if (position + bytes > buffer.length) {
+            throw new IllegalStateException(
+                "Tried to read " + bytes + " bytes at " + position + " but only " + buffer.length + " are available");
+        }
+    }
+}
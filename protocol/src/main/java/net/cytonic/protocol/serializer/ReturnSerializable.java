@@ -1,5 +1,9 @@
 package net.cytonic.protocol.serializer;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
 import com.google.gson.JsonParser;
 import net.minestom.server.codec.Codec;
 import net.minestom.server.codec.Transcoder;
@@ -15,4 +19,13 @@ public interface ReturnSerializable<T> {
     default T deserializeReturnFromString(String string) {
         return getReturnCodec().decode(Transcoder.JSON, JsonParser.parseString(string)).orElseThrow();
     }
+
+    default byte[] serializeReturnToBytes(T message) {
+        return serializeReturnToString(message).getBytes(StandardCharsets.UTF_8);
+    }
+
+    default T deserializeReturnFromBytes(byte[] bytes) {
+        return getReturnCodec().decode(Transcoder.JSON, JsonParser.parseReader(
+            new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8))).orElseThrow();
+    }
 }
@@ -1,13 +1,28 @@
 package net.cytonic.protocol.serializer;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
 import com.google.gson.JsonParser;
 import net.minestom.server.codec.Codec;
 import net.minestom.server.codec.Transcoder;
+import org.jetbrains.annotations.Nullable;
 
 public interface Serializable<T> {
 
     Codec<T> getCodec();
 
+    /**
+     * The binary codec for this type, used instead of {@link #getCodec()} once the binary wire format has been
+     * negotiated for the subject. Types without one are always sent as JSON.
+     *
+     * @return the binary codec, or null if unsupported
+     */
+    default @Nullable BinaryCodec<T> getBinaryCodec() {
+        return null;
+    }
+
     default String serializeToString(T message) {
         return getCodec().encode(Transcoder.JSON, message).orElseThrow().toString();
     }
@@ -15,4 +30,33 @@ public interface Serializable<T> {
     default T deserializeFromString(String string) {
         return getCodec().decode(Transcoder.JSON, JsonParser.parseString(string)).orElseThrow();
     }
+
+    default byte[] serializeToBytes(T message, WireFormat format) {
+        BinaryCodec<T> binaryCodec = getBinaryCodec();
+        if (format == WireFormat.BINARY && binaryCodec != null) {
+            BinaryWriter writer = new BinaryWriter();
+            binaryCodec.write(writer, message);
+            return writer.toByteArray();
+        }
+        return serializeToString(message).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes a message body straight from the bytes received over NATS
+     *
+     * @param bytes  the message body
+     * @param format the format of the body
+     * @return the decoded message
+     */
+    default T deserializeFromBytes(byte[] bytes, WireFormat format) {
+        if (format == WireFormat.BINARY) {
+            BinaryCodec<T> binaryCodec = getBinaryCodec();
+            if (binaryCodec == null) {
+                throw new IllegalStateException("Received a binary message for a type without a binary codec");
+            }
+            return binaryCodec.read(new BinaryReader(bytes));
+        }
+        return getCodec().decode(Transcoder.JSON, JsonParser.parseReader(
+            new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8))).orElseThrow();
+    }
 }
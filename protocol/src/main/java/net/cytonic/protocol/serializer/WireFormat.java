@@ -0,0 +1,78 @@
+package net.cytonic.protocol.serializer;
+
+import io.nats.client.Message;
+import io.nats.client.impl.Headers;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The encodings a protocol message body can be sent in. The format is carried in the {@link #FORMAT_HEADER} NATS
+ * header; messages without it are JSON, which keeps peers that predate the binary format working.
+ */
+public enum WireFormat {
+    JSON("json"),
+    BINARY("binary");
+
+    /**
+     * The header naming the format of the message body
+     */
+    public static final String FORMAT_HEADER = "Cytonic-Wire-Format";
+    /**
+     * The header a peer sets on every message to advertise that it can decode {@link #BINARY} bodies, once binary is
+     * enabled for the deployment
+     */
+    public static final String ACCEPT_HEADER = "Cytonic-Wire-Accept";
+    /**
+     * The header identifying the sending process, so a node can ignore its own echoed messages
+     */
+    public static final String NODE_HEADER = "Cytonic-Wire-Node";
+
+    private final String id;
+
+    WireFormat(String id) {
+        this.id = id;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    /**
+     * Resolves the format of a received message from its headers
+     *
+     * @param message the NATS message
+     * @return the format of the body, {@link #JSON} when unspecified
+     */
+    public static WireFormat of(Message message) {
+        String value = header(message, FORMAT_HEADER);
+        return BINARY.id.equals(value) ? BINARY : JSON;
+    }
+
+    /**
+     * Checks if the sender of this message advertised support for binary bodies
+     *
+     * @param message the NATS message
+     * @return true if the sender can decode binary bodies
+     */
+    public static boolean acceptsBinary(Message message) {
+        return BINARY.id.equals(header(message, ACCEPT_HEADER));
+    }
+
+    /**
+     * Creates the headers for an outgoing message in this format
+     *
+     * @return the headers
+     */
+    public Headers headers() {
+        Headers headers = new Headers()
+            .put(FORMAT_HEADER, id)
+            .put(NODE_HEADER, WireNegotiator.NODE_ID);
+        // a node that hasn't opted in must not make its peers switch to binary
+        if (WireNegotiator.isEnabled()) headers.put(ACCEPT_HEADER, BINARY.id);
+        return headers;
+    }
+
+    static @Nullable String header(Message message, String key) {
+        if (!message.hasHeaders()) return null;
+        return message.getHeaders().getFirst(key);
+    }
+}
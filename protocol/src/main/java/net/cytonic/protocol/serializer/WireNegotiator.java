@@ -0,0 +1,80 @@
+package net.cytonic.protocol.serializer;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.nats.client.Message;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Tracks, per subject, whether every peer seen on it understands the binary wire format.
+ * <p>
+ * JSON is the default. Only senders can be observed, and a node that only subscribes to a subject never advertises
+ * anything, so seeing binary capable senders doesn't prove every receiver can decode binary. Binary is therefore an
+ * explicit deployment opt-in, enabled with the {@code protocol_enable_binary} system property once every node on the
+ * network, including subscribe-only ones like the proxy, understands it.
+ * <p>
+ * Once enabled, every message we send advertises {@link WireFormat#ACCEPT_HEADER}. A subject switches to binary once a
+ * message advertising binary support has been received on it from another node, and falls back to JSON for five
+ * minutes whenever a message without the header (an older peer) shows up.
+ */
+@UtilityClass
+public class WireNegotiator {
+
+    static final String NODE_ID = UUID.randomUUID().toString();
+
+    private static final long LEGACY_HOLD_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final boolean ENABLED = Boolean.getBoolean("protocol_enable_binary");
+
+    private static final Map<String, Long> binarySeen = new ConcurrentHashMap<>();
+    private static final Map<String, Long> legacySeen = new ConcurrentHashMap<>();
+
+    /**
+     * Checks if binary was enabled for this deployment
+     *
+     * @return true if the {@code protocol_enable_binary} system property is set
+     */
+    static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Records the capabilities advertised by the sender of a received message
+     *
+     * @param message the received message
+     * @return the format of the message body
+     */
+    public static WireFormat observe(Message message) {
+        String subject = message.getSubject();
+        if (subject == null || NODE_ID.equals(WireFormat.header(message, WireFormat.NODE_HEADER))) {
+            return WireFormat.of(message);
+        }
+        if (WireFormat.acceptsBinary(message)) {
+            binarySeen.putIfAbsent(subject, System.currentTimeMillis());
+        } else {
+            legacySeen.put(subject, System.currentTimeMillis());
+        }
+        return WireFormat.of(message);
+    }
+
+    /**
+     * Picks the format to publish with on a subject
+     *
+     * @param subject      the fully resolved subject
+     * @param serializable the serializer of the message being sent
+     * @return {@link WireFormat#BINARY} if binary is enabled for the deployment, the message supports it and all peers
+     * seen on the subject do too
+     */
+    public static WireFormat negotiate(String subject, Serializable<?> serializable) {
+        if (!ENABLED || serializable.getBinaryCodec() == null) return WireFormat.JSON;
+        if (!binarySeen.containsKey(subject)) return WireFormat.JSON;
+        Long legacy = legacySeen.get(subject);
+        if (legacy != null) {
+            if (System.currentTimeMillis() - legacy < LEGACY_HOLD_MILLIS) return WireFormat.JSON;
+            legacySeen.remove(subject, legacy);
+        }
+        return WireFormat.BINARY;
+    }
+}
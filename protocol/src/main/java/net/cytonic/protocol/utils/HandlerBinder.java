@@ -0,0 +1,148 @@
+package net.cytonic.protocol.utils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Binds annotated handler methods to functional interfaces once, so calling a handler is a plain interface call
+ * instead of a reflective {@link Method#invoke(Object, Object...)}. The binding is generated with the
+ * {@link LambdaMetafactory}, exactly like a method reference would be. If the declaring class can't be accessed with
+ * full privileges, as for classes of another module, a {@link MethodHandle} is bound instead. Exceptions thrown by the
+ * handler are rethrown as they are, without being wrapped.
+ */
+@Slf4j
+@UtilityClass
+public class HandlerBinder {
+
+    /**
+     * Binds a method taking one parameter
+     *
+     * @param method   the method
+     * @param receiver the instance to call the method on, ignored if the method is static
+     * @param <T>      the parameter type
+     * @return the bound handler
+     * @throws IllegalArgumentException if the method doesn't take exactly one parameter, or the receiver is missing
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Consumer<T> bindConsumer(Method method, @Nullable Object receiver) {
+        checkSignature(method, 1, receiver);
+        Object bound = metafactory(method, Consumer.class, "accept", receiver);
+        if (bound != null) return (Consumer<T>) bound;
+
+        MethodHandle generic = bindReceiver(method, unreflect(method), receiver)
+            .asType(MethodType.methodType(void.class, Object.class));
+        return arg -> invoke(generic, arg);
+    }
+
+    /**
+     * Binds a method taking two parameters
+     *
+     * @param method   the method
+     * @param receiver the instance to call the method on, ignored if the method is static
+     * @param <T>      the first parameter type
+     * @param <U>      the second parameter type
+     * @return the bound handler
+     * @throws IllegalArgumentException if the method doesn't take exactly two parameters, or the receiver is missing
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, U> BiConsumer<T, U> bindBiConsumer(Method method, @Nullable Object receiver) {
+        checkSignature(method, 2, receiver);
+        Object bound = metafactory(method, BiConsumer.class, "accept", receiver);
+        if (bound != null) return (BiConsumer<T, U>) bound;
+
+        MethodHandle generic = bindReceiver(method, unreflect(method), receiver)
+            .asType(MethodType.methodType(void.class, Object.class, Object.class));
+        return (first, second) -> invoke(generic, first, second);
+    }
+
+    /**
+     * Formats a method for error messages
+     *
+     * @param method the method
+     * @return the declaring class and the method name
+     */
+    public static String describe(Method method) {
+        return method.getDeclaringClass().getName() + "#" + method.getName();
+    }
+
+    private static void checkSignature(Method method, int parameters, @Nullable Object receiver) {
+        if (method.getParameterCount() != parameters) {
+            throw new IllegalArgumentException(
+                describe(method) + " must have exactly " + parameters + " parameter(s)");
+        }
+        if (!Modifier.isStatic(method.getModifiers()) && !method.getDeclaringClass().isInstance(receiver)) {
+            throw new IllegalArgumentException("No instance of " + method.getDeclaringClass().getName()
+                + " to call " + describe(method) + " on");
+        }
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        method.setAccessible(true);
+        try {
+            return MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access " + describe(method), e);
+        }
+    }
+
+    /**
+     * Generates an implementation of a functional interface calling the method, capturing the receiver
+     *
+     * @return the implementation, or null if the declaring class can't be accessed with full privileges
+     */
+    @Nullable
+    private static Object metafactory(Method method, Class<?> functionalInterface, String name,
+        @Nullable Object receiver) {
+        Class<?> owner = method.getDeclaringClass();
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        Class<?>[] erased = new Class<?>[method.getParameterCount()];
+        Arrays.fill(erased, Object.class);
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+            MethodHandle target = lookup.unreflect(method);
+            CallSite site = LambdaMetafactory.metafactory(
+                lookup,
+                name,
+                isStatic ? MethodType.methodType(functionalInterface)
+                    : MethodType.methodType(functionalInterface, owner),
+                MethodType.methodType(void.class, erased),
+                target,
+                MethodType.methodType(void.class, method.getParameterTypes())
+            );
+            return isStatic ? site.getTarget().invoke() : site.getTarget().invoke(receiver);
+        } catch (IllegalAccessException | LambdaConversionException e) {
+            log.debug("Falling back to a method handle for {}", describe(method), e);
+            return null;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Failed to bind " + describe(method), t);
+        }
+    }
+
+    private static MethodHandle bindReceiver(Method method, MethodHandle handle, @Nullable Object receiver) {
+        return Modifier.isStatic(method.getModifiers()) ? handle : handle.bindTo(receiver);
+    }
+
+    @SneakyThrows
+    private static void invoke(MethodHandle handle, Object arg) {
+        handle.invokeExact(arg);
+    }
+
+    @SneakyThrows
+    private static void invoke(MethodHandle handle, Object first, Object second) {
+        handle.invokeExact(first, second);
+    }
+}
@@ -1,11 +1,14 @@
 package net.cytonic.protocol.utils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ServiceLoader;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import io.nats.client.Message;
+import io.nats.client.impl.Headers;
 import net.kyori.adventure.util.Services;
+import org.jetbrains.annotations.Nullable;
 
 public interface NatsAPI {
 
@@ -16,7 +19,25 @@ public interface NatsAPI {
 
     void subscribe(String channel, Consumer<Message> consumer);
 
-    void publish(String channel, String data);
+    void publish(String channel, byte[] data, @Nullable Headers headers);
 
-    void request(String channel, String data, BiConsumer<byte[], Throwable> consumer);
+    default void publish(String channel, String data) {
+        publish(channel, data.getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    void request(String channel, byte[] data, BiConsumer<byte[], Throwable> consumer);
+
+    default void request(String channel, String data, BiConsumer<byte[], Throwable> consumer) {
+        request(channel, data.getBytes(StandardCharsets.UTF_8), consumer);
+    }
+
+    /**
+     * Resolves a channel to the subject it is actually published on, e.g. by applying an environment prefix
+     *
+     * @param channel the channel
+     * @return the resolved subject, matching {@link Message#getSubject()} on the receiving side
+     */
+    default String resolveSubject(String channel) {
+        return channel;
+    }
 }
@@ -14,6 +14,8 @@ import net.minestom.server.codec.Result;
 import net.minestom.server.codec.Transcoder;
 import org.jspecify.annotations.Nullable;
 
+import net.cytonic.protocol.serializer.BinaryCodec;
+
 @UtilityClass
 public class ProtocolCodecUtils {
 
@@ -28,6 +30,13 @@ public class ProtocolCodecUtils {
         string -> JSONComponentSerializer.json().deserialize(string),
         component -> JSONComponentSerializer.json().serialize(component)
     );
+    /**
+     * Writes the component's JSON form once as raw UTF-8, instead of escaping it inside another JSON document
+     */
+    public static final BinaryCodec<Component> BINARY_COMPONENT = BinaryCodec.of(
+        (writer, component) -> writer.writeString(JSONComponentSerializer.json().serialize(component)),
+        reader -> JSONComponentSerializer.json().deserialize(reader.readString())
+    );
 
     public static <T> Codec<@Nullable T> nullSafeOptional(Codec<T> inner) {
         return new Codec<T>() {
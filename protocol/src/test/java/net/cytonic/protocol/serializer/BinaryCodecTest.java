@@ -0,0 +1,76 @@
+package net.cytonic.protocol.serializer;
+
+import java.util.Set;
+import java.util.UUID;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.junit.jupiter.api.Test;
+
+import net.cytonic.protocol.impl.notify.ChatMessageNotifyPacket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BinaryCodecTest {
+
+    @Test
+    void roundTripsPrimitives() {
+        for (int value : new int[]{0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, -1, Integer.MIN_VALUE}) {
+            assertEquals(value, roundTrip(BinaryCodec.VAR_INT, value));
+        }
+        for (long value : new long[]{0, 1, -1, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertEquals(value, roundTrip(BinaryCodec.LONG, value));
+        }
+        assertEquals(true, roundTrip(BinaryCodec.BOOLEAN, true));
+        assertEquals(false, roundTrip(BinaryCodec.BOOLEAN, false));
+        for (String value : new String[]{"", "friend add", "ünïcödé 🎭", "x".repeat(70_000)}) {
+            assertEquals(value, roundTrip(BinaryCodec.STRING, value));
+        }
+        UUID uuid = UUID.randomUUID();
+        assertEquals(uuid, roundTrip(BinaryCodec.UUID, uuid));
+    }
+
+    @Test
+    void roundTripsNullablesAndSets() {
+        BinaryCodec<UUID> nullable = BinaryCodec.UUID.nullable();
+        UUID uuid = UUID.randomUUID();
+        assertEquals(uuid, roundTrip(nullable, uuid));
+        assertNull(roundTrip(nullable, null));
+
+        BinaryCodec<Set<String>> set = BinaryCodec.STRING.set();
+        assertEquals(Set.of(), roundTrip(set, Set.of()));
+        assertEquals(Set.of("a", "b", "c"), roundTrip(set, Set.of("a", "b", "c")));
+    }
+
+    @Test
+    void readsValuesInSequence() {
+        BinaryWriter writer = new BinaryWriter();
+        writer.writeVarInt(300);
+        writer.writeString("between");
+        writer.writeLong(42);
+        BinaryReader reader = new BinaryReader(writer.toByteArray());
+        assertEquals(300, reader.readVarInt());
+        assertEquals("between", reader.readString());
+        assertEquals(42, reader.readLong());
+    }
+
+    @Test
+    void roundTripsChatMessages() {
+        BinaryCodec<ChatMessageNotifyPacket.Packet> codec = ChatMessageNotifyPacket.Packet.BINARY_CODEC;
+        Component message = Component.text("Hello ", NamedTextColor.GOLD).append(Component.text("world"));
+
+        ChatMessageNotifyPacket.Packet full = new ChatMessageNotifyPacket.Packet(
+            Set.of(UUID.randomUUID(), UUID.randomUUID()), "PARTY", message, UUID.randomUUID());
+        assertEquals(full, roundTrip(codec, full));
+
+        ChatMessageNotifyPacket.Packet empty = new ChatMessageNotifyPacket.Packet(null, "ALL", Component.empty(), null);
+        assertEquals(empty, roundTrip(codec, empty));
+    }
+
+    private static <T> T roundTrip(BinaryCodec<T> codec, T value) {
+        BinaryWriter writer = new BinaryWriter();
+        codec.write(writer, value);
+        return codec.read(new BinaryReader(writer.toByteArray()));
+    }
+}
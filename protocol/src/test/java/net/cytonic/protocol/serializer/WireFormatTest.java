@@ -0,0 +1,43 @@
+package net.cytonic.protocol.serializer;
+
+import io.nats.client.Message;
+import io.nats.client.impl.Headers;
+import io.nats.client.impl.NatsMessage;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class WireFormatTest {
+
+    @Test
+    void readsTheFormatItWrote() {
+        for (WireFormat format : WireFormat.values()) {
+            assertEquals(format, WireFormat.of(message(format.headers())));
+        }
+    }
+
+    @Test
+    void defaultsToJson() {
+        assertEquals(WireFormat.JSON, WireFormat.of(message(null)));
+        assertEquals(WireFormat.JSON, WireFormat.of(message(new Headers())));
+        assertEquals(WireFormat.JSON, WireFormat.of(message(new Headers().put(WireFormat.FORMAT_HEADER, "xml"))));
+    }
+
+    @Test
+    void onlyAdvertisesBinaryWhenEnabled() {
+        // the tests run without protocol_enable_binary
+        assertFalse(WireNegotiator.isEnabled());
+        for (WireFormat format : WireFormat.values()) {
+            assertFalse(WireFormat.acceptsBinary(message(format.headers())));
+        }
+    }
+
+    private static Message message(Headers headers) {
+        return NatsMessage.builder()
+            .subject("cytonic.test")
+            .headers(headers)
+            .data(new byte[0])
+            .build();
+    }
+}
@@ -0,0 +1,159 @@
+package net.cytonic.cytosis.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.export.CollectionRegistration;
+import io.opentelemetry.sdk.metrics.export.MetricReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.cytonic.cytosis.Cytosis;
+
+/**
+ * The cost of recording a value, before and after the hot path was reworked. The "before" methods repeat what
+ * {@link MetricsManager} used to do on every record: validate the name with a regex, look the instrument up by name and
+ * merge the attributes with the base ones. The other methods go through the real {@link MetricsManager} and
+ * {@link BoundMetric}, registered in the context. Run with {@code -prof gc} to see the allocations per record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsBenchmark {
+
+    private static final String NAME = "cytosis.network.packets_in";
+    private static final Pattern NAME_PATTERN = Pattern.compile("[a-z_][a-z0-9_.]*");
+
+    // only the class of a packet is counted, so stand-ins do
+    private final Object[] packets = {new KeepAlive(1), new Position(0, 64, 0), new Rotation(0, 0)};
+    private final Map<String, LongCounter> counters = new ConcurrentHashMap<>();
+    private SdkMeterProvider provider;
+    private Attributes base;
+    private Attributes extra;
+    private MetricsManager metrics;
+    private BoundMetric bound;
+    private ClassCounter classCounter;
+    private int packet;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        provider = SdkMeterProvider.builder().registerMetricReader(new IdleReader()).build();
+        Meter meter = provider.get("cytosis");
+        counters.put(NAME, meter.counterBuilder(NAME).build());
+        base = Attributes.of(AttributeKey.stringKey("server_id"), "benchmark",
+            AttributeKey.stringKey("server_type"), "lobby",
+            AttributeKey.stringKey("environment"), "development");
+        extra = Attributes.of(AttributeKey.stringKey("database"), "global");
+
+        // the manager is put in the context directly, as initializing it would set up the real exporter
+        Cytosis.CONTEXT.setMetricsEnabled(true);
+        metrics = new MetricsManager(meter, base);
+        metrics.createLongCounter(NAME, "Benchmark counter", "packets");
+        Cytosis.CONTEXT.getComponents().put(MetricsManager.class, metrics);
+        bound = new BoundMetric(NAME, extra);
+        classCounter = new ClassCounter(Metrics.PACKET_TYPE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Cytosis.CONTEXT.getComponents().remove(MetricsManager.class);
+        provider.close();
+    }
+
+    @Benchmark
+    public void counterBefore() {
+        if (!NAME_PATTERN.matcher(NAME).matches()) throw new IllegalArgumentException();
+        counters.get(NAME).add(1, base.toBuilder().putAll(extra).build());
+    }
+
+    /**
+     * The name based path, with the merged attributes cached by the manager
+     */
+    @Benchmark
+    public void counterManager() {
+        metrics.addToLongCounter(NAME, 1, extra);
+    }
+
+    @Benchmark
+    public void counterBound() {
+        bound.add(1);
+    }
+
+    @Benchmark
+    public void packetBefore() {
+        Object next = nextPacket();
+        if (!NAME_PATTERN.matcher(NAME).matches()) throw new IllegalArgumentException();
+        counters.get(NAME).add(1, base.toBuilder()
+            .putAll(Attributes.of(Metrics.PACKET_TYPE, next.getClass().getSimpleName())).build());
+    }
+
+    @Benchmark
+    public void packetClassCounter() {
+        classCounter.increment(nextPacket());
+    }
+
+    private Object nextPacket() {
+        packet = packet == packets.length - 1 ? 0 : packet + 1;
+        return packets[packet];
+    }
+
+    private record KeepAlive(long id) {
+
+    }
+
+    private record Position(double x, double y, double z) {
+
+    }
+
+    private record Rotation(float yaw, float pitch) {
+
+    }
+
+    /**
+     * A reader that never collects, so the meter provider keeps real instruments without exporting anything
+     */
+    private static final class IdleReader implements MetricReader {
+
+        @Override
+        public void register(CollectionRegistration registration) {
+        }
+
+        @Override
+        public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+            return AggregationTemporality.CUMULATIVE;
+        }
+
+        @Override
+        public CompletableResultCode forceFlush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}
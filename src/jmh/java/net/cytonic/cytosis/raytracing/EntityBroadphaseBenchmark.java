@@ -0,0 +1,103 @@
+package net.cytonic.cytosis.raytracing;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.coordinate.Pos;
+import net.minestom.server.coordinate.Vec;
+import net.minestom.server.entity.Entity;
+import net.minestom.server.entity.EntityType;
+import net.minestom.server.instance.InstanceContainer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Traces a ray against the entities of an instance, with the broadphase snapshot already built for the tick, with it
+ * built by the trace, and against every entity like the tracer did before the broadphase.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityBroadphaseBenchmark {
+
+    private static final double RANGE = 64;
+    private static final int SPREAD = 128;
+
+    @Param({"50", "500", "5000"})
+    private int entities;
+
+    private InstanceContainer instance;
+    private Vec[] origins;
+    private Vec[] directions;
+    private int ray;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MinecraftServer.init();
+        instance = MinecraftServer.getInstanceManager().createInstanceContainer();
+        Random random = new Random(42);
+        for (int i = 0; i < entities; i++) {
+            Entity entity = new Entity(EntityType.ZOMBIE);
+            entity.setInstance(instance, new Pos(random.nextDouble(SPREAD), 64 + random.nextDouble(8),
+                random.nextDouble(SPREAD))).join();
+        }
+        origins = new Vec[1024];
+        directions = new Vec[origins.length];
+        for (int i = 0; i < origins.length; i++) {
+            origins[i] = new Vec(random.nextDouble(SPREAD), 65, random.nextDouble(SPREAD));
+            directions[i] = new Vec(random.nextGaussian(), random.nextGaussian() * 0.1, random.nextGaussian())
+                .normalize();
+        }
+    }
+
+    @Benchmark
+    public Object broadphase() {
+        int i = next();
+        return RayTracer.rayTraceEntities(instance, directions[i], origins[i], RANGE);
+    }
+
+    @Benchmark
+    public Object broadphaseWithBuild() {
+        int i = next();
+        instance.removeTag(EntityBroadphase.TAG);
+        return RayTracer.rayTraceEntities(instance, directions[i], origins[i], RANGE);
+    }
+
+    @Benchmark
+    public Object everyEntity() {
+        int i = next();
+        Entity closest = null;
+        double closestDistance = Double.MAX_VALUE;
+        for (Entity entity : instance.getEntities()) {
+            Pos position = entity.getPosition();
+            if (!entity.getBoundingBox().boundingBoxRayIntersectionCheck(origins[i], directions[i], position)) {
+                continue;
+            }
+            double distance = position.distance(origins[i]);
+            if (distance <= RANGE && distance < closestDistance) {
+                closestDistance = distance;
+                closest = entity;
+            }
+        }
+        return closest;
+    }
+
+    private int next() {
+        ray = (ray + 1) & (origins.length - 1);
+        return ray;
+    }
+}
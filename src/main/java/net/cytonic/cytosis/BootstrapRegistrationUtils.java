@@ -1,17 +1,15 @@
 package net.cytonic.cytosis;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 import net.minestom.server.event.Event;
@@ -23,6 +21,7 @@ import net.cytonic.cytosis.events.api.Async;
 import net.cytonic.cytosis.events.api.Listener;
 import net.cytonic.cytosis.events.api.Priority;
 import net.cytonic.cytosis.logging.Logger;
+import net.cytonic.protocol.utils.HandlerBinder;
 import net.cytonic.protocol.utils.InstanceResolver;
 import net.cytonic.protocol.utils.JandexUtils;
 
@@ -35,9 +34,11 @@ public final class BootstrapRegistrationUtils {
     }
 
     /**
-     * Scan for annotated classes and register them as components in the cytosis context. Using Kahn's Algorithm for
-     * Topological Sorting, sort the components by their dependencies. Register them in the order they were sorted.
+     * Scan for annotated classes and register them as components in the cytosis context. The components are
+     * initialized by a {@link ComponentScheduler}, which starts each one as soon as its dependencies are initialized,
+     * running independent components concurrently.
      *
+     * @throws IllegalStateException if the dependencies contain a cycle, or a component timed out
      * @see <a href="https://en.wikipedia.org/wiki/Topological_sorting">Topological Sorting</a>
      */
     public static void registerCytosisComponents(CytosisContext cytosisContext) {
@@ -57,10 +58,8 @@ public final class BootstrapRegistrationUtils {
         buildDependencyGraph(candidates, annotatedComponents, dependencies, reverseDependencies, componentNeighbours,
             cytosisContext);
 
-        PriorityQueue<Class<?>> ready = initializeReadyQueue(candidates, annotatedComponents, componentNeighbours);
-
-        Set<Class<?>> registered = processComponentRegistration(ready, reverseDependencies, componentNeighbours,
-            cytosisContext);
+        Set<Class<?>> registered = new ComponentScheduler(cytosisContext, annotatedComponents, dependencies,
+            reverseDependencies, componentNeighbours).run();
 
         validateRegistration(candidates, registered, dependencies, cytosisContext);
     }
@@ -155,71 +154,13 @@ public final class BootstrapRegistrationUtils {
         return required;
     }
 
-    /**
-     * Initializes the priority queue with components that have no dependencies.
-     *
-     * @param candidates          list of candidate classes
-     * @param annotatedComponents map of classes to their annotations
-     * @param componentNeighbours map of neighbour counts
-     * @return priority queue of ready components
-     */
-    private static PriorityQueue<Class<?>> initializeReadyQueue(
-        Set<Class<?>> candidates,
-        Map<Class<?>, CytosisComponent> annotatedComponents,
-        Map<Class<?>, Integer> componentNeighbours) {
-
-        Comparator<Class<?>> componentsComparator = (a, b) -> {
-            int componentPriorityA = annotatedComponents.get(a).priority();
-            int componentPriorityB = annotatedComponents.get(b).priority();
-            int compared = Integer.compare(componentPriorityA, componentPriorityB);
-            return compared != 0 ? compared : a.getName().compareTo(b.getName());
-        };
-
-        PriorityQueue<Class<?>> ready = new PriorityQueue<>(componentsComparator);
-        for (Class<?> candidate : candidates) {
-            if (componentNeighbours.get(candidate) == 0) {
-                ready.add(candidate);
-            }
-        }
-
-        return ready;
-    }
-
-    /**
-     * Processes component registration using topological sorting.
-     *
-     * @param ready               priority queue of ready components
-     * @param reverseDependencies map of reverse dependencies
-     * @param componentNeighbours map of neighbour counts
-     * @return set of successfully registered components
-     */
-    private static Set<Class<?>> processComponentRegistration(
-        PriorityQueue<Class<?>> ready,
-        Map<Class<?>, List<Class<?>>> reverseDependencies,
-        Map<Class<?>, Integer> componentNeighbours,
-        CytosisContext cytosisContext) {
-
-        Set<Class<?>> registered = new HashSet<>();
-
-        while (!ready.isEmpty()) {
-            Class<?> c = ready.poll();
-
-            if (registerComponent(cytosisContext, c)) {
-                registered.add(c);
-                updateDependentComponents(c, reverseDependencies, componentNeighbours, ready);
-            }
-        }
-
-        return registered;
-    }
-
     /**
      * Registers a single component.
      *
      * @param componentClass the component class to register
      * @return true if registration was successful
      */
-    private static boolean registerComponent(CytosisContext cytosisContext, Class<?> componentClass) {
+    static boolean registerComponent(CytosisContext cytosisContext, Class<?> componentClass) {
         try {
             var ctor = componentClass.getDeclaredConstructor();
             ctor.setAccessible(true);
@@ -232,30 +173,6 @@ public final class BootstrapRegistrationUtils {
         }
     }
 
-    /**
-     * Updates dependent components after a component is registered.
-     *
-     * @param registeredComponent the component that was just registered
-     * @param reverseDependencies map of reverse dependencies
-     * @param componentNeighbours map of neighbour counts
-     * @param ready               priority queue of ready components
-     */
-    private static void updateDependentComponents(
-        Class<?> registeredComponent,
-        Map<Class<?>, List<Class<?>>> reverseDependencies,
-        Map<Class<?>, Integer> componentNeighbours,
-        PriorityQueue<Class<?>> ready) {
-
-        List<Class<?>> componentReverseDependencies = reverseDependencies.getOrDefault(registeredComponent,
-            Collections.emptyList());
-        for (Class<?> dependency : componentReverseDependencies) {
-            int mergeResult = componentNeighbours.merge(dependency, -1, Integer::sum);
-            if (mergeResult == 0) {
-                ready.add(dependency);
-            }
-        }
-    }
-
     /**
      * Validates the registration results and logs any unresolved dependencies.
      *
@@ -351,12 +268,14 @@ public final class BootstrapRegistrationUtils {
     }
 
     /**
-     * Registers a single listener method.
+     * Registers a single listener method. The method is bound to the instance once, so dispatching an event doesn't go
+     * through reflection.
      *
      * @param method       the method to register
      * @param instance     instance containing the method
      * @param eventHandler the event handler to register the listener with
      * @param counter      atomic counter for listener naming
+     * @throws IllegalArgumentException if the method doesn't take exactly one event as a parameter
      */
     private static void registerListenerMethod(
         Method method,
@@ -364,17 +283,14 @@ public final class BootstrapRegistrationUtils {
         EventHandler eventHandler,
         AtomicInteger counter) {
 
-        method.setAccessible(true);
         int priority = extractListenerPriority(method);
         boolean async = method.isAnnotationPresent(Async.class);
 
         Class<? extends Event> eventClass = extractEventClass(method);
-        if (eventClass == null) {
-            return;
-        }
+        Consumer<Event> handler = HandlerBinder.bindConsumer(method, instance);
 
         eventHandler.registerListener(createEventListener(
-            method, instance, eventClass, async, priority, counter
+            method, handler, eventClass, async, priority, counter
         ));
     }
 
@@ -394,26 +310,27 @@ public final class BootstrapRegistrationUtils {
      * Extracts the event class from a listener method's parameter.
      *
      * @param method the method to extract the event class from
-     * @return the event class, or null if extraction failed
+     * @return the event class
+     * @throws IllegalArgumentException if the method doesn't take exactly one event as a parameter
      */
     private static Class<? extends Event> extractEventClass(Method method) {
-        try {
-            return (Class<? extends Event>) method.getParameterTypes()[0];
-        } catch (ClassCastException e) {
-            Logger.error(
-                "The parameter of a method annotated with @Listener must be a valid event!", e);
-            return null;
-        } catch (ArrayIndexOutOfBoundsException e) {
-            Logger.error("Methods annotated with @Listener must have a valid event as a parameter!", e);
-            return null;
+        Class<?>[] parameters = method.getParameterTypes();
+        if (parameters.length != 1) {
+            throw new IllegalArgumentException("Methods annotated with @Listener must have a valid event as their "
+                + "only parameter: " + HandlerBinder.describe(method));
+        }
+        if (!Event.class.isAssignableFrom(parameters[0])) {
+            throw new IllegalArgumentException("The parameter of a method annotated with @Listener must be a valid "
+                + "event: " + HandlerBinder.describe(method));
         }
+        return parameters[0].asSubclass(Event.class);
     }
 
     /**
      * Creates an EventListener for a method.
      *
      * @param method     the listener method
-     * @param instance   instance containing the method
+     * @param handler    the method, bound to its instance
      * @param eventClass the event class
      * @param async      whether the listener is async
      * @param priority   the listener priority
@@ -423,7 +340,7 @@ public final class BootstrapRegistrationUtils {
     @SuppressWarnings("unchecked")
     private static EventListener<Event> createEventListener(
         Method method,
-        Object instance,
+        Consumer<Event> handler,
         Class<? extends Event> eventClass,
         boolean async,
         int priority,
@@ -434,29 +351,13 @@ public final class BootstrapRegistrationUtils {
             async,
             priority,
             (Class<Event>) eventClass,
-            event -> invokeListenerMethod(method, instance, event)
-        );
-    }
-
-    /**
-     * Invokes a listener method with the given event.
-     *
-     * @param method   the method to invoke
-     * @param instance the instance to invoke the method on
-     * @param event    the event to pass to the method
-     */
-    private static void invokeListenerMethod(Method method, Object instance, Event event) {
-        try {
-            method.invoke(instance, event);
-        } catch (IllegalAccessException e) {
-            Logger.error("Failed to call @Listener!", e);
-        } catch (InvocationTargetException e) {
-            Throwable cause = e.getCause();
-            if (cause != null) {
-                Logger.error("Exception in @Listener method: ", cause);
-            } else {
-                Logger.error("Unknown error in @Listener method.", e);
+            event -> {
+                try {
+                    handler.accept(event);
+                } catch (Throwable t) {
+                    Logger.error("Exception in @Listener method " + HandlerBinder.describe(method) + ": ", t);
+                }
             }
-        }
+        );
     }
 }
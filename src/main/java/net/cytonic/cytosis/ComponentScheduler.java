@@ -0,0 +1,334 @@
+package net.cytonic.cytosis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.cytonic.cytosis.bootstrap.annotations.CytosisComponent;
+import net.cytonic.cytosis.logging.Logger;
+
+/**
+ * Initializes the Cytosis components concurrently. A component starts as soon as every component it depends on is
+ * initialized, so the components of a layer of the dependency graph initialize in parallel, at most
+ * {@link #PARALLELISM} at a time. Fetching a component that is still initializing waits for it, so components that
+ * use another without declaring it still see it initialized. Startup fails with a report if the dependencies contain a
+ * cycle or if a component takes longer than its timeout.
+ */
+final class ComponentScheduler {
+
+    private static final int PARALLELISM = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private static final long POLL_MILLIS = 100;
+
+    private final CytosisContext context;
+    private final Map<Class<?>, CytosisComponent> annotations;
+    private final Map<Class<?>, Set<Class<?>>> dependencies;
+    private final Map<Class<?>, List<Class<?>>> dependents;
+    private final Comparator<Class<?>> byPriority;
+    // guarded by this
+    private final Map<Class<?>, Integer> remaining;
+    private final Map<Class<?>, Pending> pending = new ConcurrentHashMap<>();
+    // the worker threads holding a permit, and the component they initialize
+    private final Map<Thread, Pending> owners = new ConcurrentHashMap<>();
+    private final Semaphore permits = new Semaphore(PARALLELISM);
+
+    ComponentScheduler(CytosisContext context, Map<Class<?>, CytosisComponent> annotations,
+        Map<Class<?>, Set<Class<?>>> dependencies, Map<Class<?>, List<Class<?>>> dependents,
+        Map<Class<?>, Integer> neighbours) {
+        this.context = context;
+        this.annotations = annotations;
+        this.dependencies = dependencies;
+        this.dependents = dependents;
+        this.remaining = new HashMap<>(neighbours);
+        this.byPriority = Comparator.<Class<?>>comparingInt(c -> annotations.get(c).priority())
+            .thenComparing(Class::getName);
+    }
+
+    /**
+     * Initializes every component whose dependencies can be satisfied
+     *
+     * @return the components that were registered
+     * @throws IllegalStateException if the dependencies contain a cycle, or a component timed out
+     */
+    Set<Class<?>> run() {
+        Map<Class<?>, Integer> layers = computeLayers();
+        for (Class<?> component : annotations.keySet()) {
+            pending.put(component, new Pending(component, layers.getOrDefault(component, -1)));
+        }
+        // components missing an external dependency never start
+        annotations.keySet().stream().filter(c -> !layers.containsKey(c)).forEach(c -> pending.get(c).skip());
+
+        long start = System.nanoTime();
+        context.setScheduler(this);
+        try {
+            List<Class<?>> ready;
+            synchronized (this) {
+                ready = annotations.keySet().stream().filter(c -> remaining.get(c) == 0).sorted(byPriority).toList();
+            }
+            ready.forEach(this::start);
+            awaitAll();
+        } finally {
+            context.setScheduler(null);
+        }
+
+        printReport(System.nanoTime() - start);
+        Set<Class<?>> registered = new HashSet<>();
+        pending.forEach((component, p) -> {
+            if (p.future.join() != null) registered.add(component);
+        });
+        return registered;
+    }
+
+    /**
+     * Determines if a component is still initializing, from the point of view of the current thread
+     *
+     * @param component the component
+     * @return if fetching the component should wait for it
+     */
+    boolean isPending(Class<?> component) {
+        Pending p = pending.get(component);
+        return p != null && !p.future.isDone() && p.owner != Thread.currentThread();
+    }
+
+    /**
+     * Waits for a component to finish initializing. The permit of the current worker is released while waiting, so
+     * the component it waits for can run.
+     *
+     * @param component the component
+     * @return the component, or null if it failed to initialize
+     */
+    @Nullable
+    Object await(Class<?> component) {
+        Pending p = pending.get(component);
+        if (p == null) return null;
+        Thread current = Thread.currentThread();
+        Pending waiter = owners.remove(current);
+        if (waiter != null) {
+            waiter.waitingOn = component;
+            permits.release();
+        }
+        try {
+            return p.future.join();
+        } finally {
+            if (waiter != null) {
+                permits.acquireUninterruptibly();
+                waiter.waitingOn = null;
+                owners.put(current, waiter);
+            }
+        }
+    }
+
+    private void start(Class<?> component) {
+        Pending p = pending.get(component);
+        // skipped because another of its dependencies failed
+        if (p.future.isDone()) return;
+        Thread.ofVirtual().name("CytosisBootstrap-" + component.getSimpleName()).start(() -> {
+            permits.acquireUninterruptibly();
+            Thread current = Thread.currentThread();
+            p.owner = current;
+            owners.put(current, p);
+            p.startedAt = System.nanoTime();
+            boolean registered = false;
+            try {
+                registered = BootstrapRegistrationUtils.registerComponent(context, component);
+            } finally {
+                p.finishedAt = System.nanoTime();
+                owners.remove(current);
+                permits.release();
+            }
+            if (registered) {
+                p.future.complete(context.getComponents().get(component));
+                release(component);
+            } else {
+                p.skip();
+                skipDependents(component);
+            }
+        });
+    }
+
+    private void release(Class<?> component) {
+        List<Class<?>> ready = new ArrayList<>();
+        synchronized (this) {
+            for (Class<?> dependent : dependents.getOrDefault(component, Collections.emptyList())) {
+                if (remaining.merge(dependent, -1, Integer::sum) == 0) ready.add(dependent);
+            }
+        }
+        ready.sort(byPriority);
+        ready.forEach(this::start);
+    }
+
+    private void skipDependents(Class<?> component) {
+        for (Class<?> dependent : dependents.getOrDefault(component, Collections.emptyList())) {
+            Pending p = pending.get(dependent);
+            if (p.skip()) skipDependents(dependent);
+        }
+    }
+
+    /**
+     * Waits for every component, failing if one of them runs for longer than its timeout
+     */
+    private void awaitAll() {
+        CompletableFuture<?> all = CompletableFuture.allOf(
+            pending.values().stream().map(p -> p.future).toArray(CompletableFuture[]::new));
+        while (!all.isDone()) {
+            try {
+                all.get(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException _) {
+                checkTimeouts();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while initializing the Cytosis components", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to initialize the Cytosis components", e.getCause());
+            }
+        }
+    }
+
+    private void checkTimeouts() {
+        long now = System.nanoTime();
+        List<String> timedOut = new ArrayList<>();
+        for (Pending p : pending.values()) {
+            if (p.future.isDone() || p.startedAt == 0) continue;
+            long timeout = TimeUnit.SECONDS.toNanos(annotations.get(p.component).timeout());
+            if (now - p.startedAt > timeout) timedOut.add(p.component.getSimpleName());
+        }
+        if (timedOut.isEmpty()) return;
+
+        StringBuilder report = new StringBuilder("Cytosis components timed out while initializing: ")
+            .append(timedOut);
+        for (Pending p : pending.values()) {
+            if (p.future.isDone() || p.startedAt == 0) continue;
+            report.append("\n  ").append(p.component.getSimpleName()).append(" running for ")
+                .append(TimeUnit.NANOSECONDS.toMillis(now - p.startedAt)).append("ms");
+            Class<?> waitingOn = p.waitingOn;
+            if (waitingOn != null) report.append(", waiting on ").append(waitingOn.getSimpleName());
+        }
+        List<String> queued = pending.values().stream()
+            .filter(p -> !p.future.isDone() && p.startedAt == 0)
+            .map(p -> p.component.getSimpleName())
+            .sorted()
+            .toList();
+        if (!queued.isEmpty()) report.append("\n  not started: ").append(queued);
+        throw new IllegalStateException(report.toString());
+    }
+
+    /**
+     * Computes the layer of each component, being one more than the deepest of its dependencies. Components missing an
+     * external dependency, or depending on one that is, have no layer.
+     *
+     * @throws IllegalStateException if the dependencies contain a cycle
+     */
+    private Map<Class<?>, Integer> computeLayers() {
+        Map<Class<?>, Integer> layers = new HashMap<>();
+        Map<Class<?>, Integer> counts = new HashMap<>(remaining);
+        Deque<Class<?>> queue = new ArrayDeque<>();
+        counts.forEach((component, count) -> {
+            if (count == 0) {
+                queue.add(component);
+                layers.put(component, 0);
+            }
+        });
+        while (!queue.isEmpty()) {
+            Class<?> component = queue.poll();
+            for (Class<?> dependent : dependents.getOrDefault(component, Collections.emptyList())) {
+                layers.merge(dependent, layers.get(component) + 1, Math::max);
+                if (counts.merge(dependent, -1, Integer::sum) == 0) queue.add(dependent);
+            }
+        }
+        layers.keySet().retainAll(counts.entrySet().stream().filter(e -> e.getValue() == 0).map(Map.Entry::getKey)
+            .toList());
+
+        List<Class<?>> cycle = findCycle(layers.keySet());
+        if (cycle != null) {
+            throw new IllegalStateException("Cytosis components depend on each other in a cycle: "
+                + String.join(" -> ", cycle.stream().map(Class::getSimpleName).toList()));
+        }
+        return layers;
+    }
+
+    @Nullable
+    private List<Class<?>> findCycle(Set<Class<?>> resolved) {
+        Set<Class<?>> visited = new HashSet<>();
+        for (Class<?> component : annotations.keySet()) {
+            if (resolved.contains(component)) continue;
+            List<Class<?>> cycle = findCycle(component, resolved, visited, new ArrayList<>());
+            if (cycle != null) return cycle;
+        }
+        return null;
+    }
+
+    @Nullable
+    private List<Class<?>> findCycle(Class<?> component, Set<Class<?>> resolved, Set<Class<?>> visited,
+        List<Class<?>> path) {
+        int index = path.indexOf(component);
+        if (index >= 0) {
+            List<Class<?>> cycle = new ArrayList<>(path.subList(index, path.size()));
+            cycle.add(component);
+            return cycle;
+        }
+        if (!visited.add(component)) return null;
+        path.add(component);
+        for (Class<?> dependency : dependencies.getOrDefault(component, Collections.emptySet())) {
+            if (!annotations.containsKey(dependency) || resolved.contains(dependency)) continue;
+            List<Class<?>> cycle = findCycle(dependency, resolved, visited, path);
+            if (cycle != null) return cycle;
+        }
+        path.removeLast();
+        return null;
+    }
+
+    private void printReport(long totalNanos) {
+        List<Pending> ran = pending.values().stream()
+            .filter(p -> p.startedAt != 0)
+            .sorted(Comparator.comparingLong(Pending::duration).reversed())
+            .toList();
+        long sum = ran.stream().mapToLong(Pending::duration).sum();
+        StringBuilder report = new StringBuilder("Initialized ").append(ran.size()).append(" components in ")
+            .append(TimeUnit.NANOSECONDS.toMillis(totalNanos)).append("ms (")
+            .append(TimeUnit.NANOSECONDS.toMillis(sum)).append("ms if run one at a time):");
+        for (Pending p : ran) {
+            report.append("\n  ").append(String.format("%-32s layer %-2d %6dms", p.component.getSimpleName(), p.layer,
+                TimeUnit.NANOSECONDS.toMillis(p.duration())));
+        }
+        Logger.info(report.toString().replace("%", "%%"));
+    }
+
+    private static final class Pending {
+
+        private final Class<?> component;
+        private final int layer;
+        // completes with the component, or null if it wasn't registered
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+        private volatile Thread owner;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private volatile Class<?> waitingOn;
+
+        private Pending(Class<?> component, int layer) {
+            this.component = component;
+            this.layer = layer;
+        }
+
+        private boolean skip() {
+            return future.complete(null);
+        }
+
+        private long duration() {
+            return finishedAt == 0 ? 0 : finishedAt - startedAt;
+        }
+    }
+}
@@ -1,22 +1,26 @@
 package net.cytonic.cytosis;
 
-import java.time.Instant;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.timer.TaskSchedule;
 
 import net.cytonic.cytosis.bootstrap.annotations.CytosisComponent;
 import net.cytonic.cytosis.data.GlobalDatabase;
-import net.cytonic.cytosis.data.GlobalDatabase.PlayerEntry;
+import net.cytonic.cytosis.data.GlobalDatabase.ActivePunishments;
 import net.cytonic.cytosis.data.RedisDatabase;
 import net.cytonic.cytosis.data.enums.PlayerRank;
 import net.cytonic.cytosis.data.objects.BanData;
 import net.cytonic.cytosis.data.objects.BiMap;
 import net.cytonic.cytosis.data.objects.CytonicServer;
+import net.cytonic.cytosis.data.objects.PlayerProfile;
 import net.cytonic.cytosis.logging.Logger;
+import net.cytonic.cytosis.managers.PlayerDirectory;
+import net.cytonic.cytosis.managers.PlayerProfileManager;
 import net.cytonic.cytosis.managers.RankManager;
 import net.cytonic.protocol.impl.notify.PlayerChangeServerNotifyPacket;
 import net.cytonic.protocol.utils.NotifyHandler;
@@ -27,33 +31,39 @@ import net.cytonic.protocol.utils.NotifyHandler;
  */
 @Getter
 @NoArgsConstructor
-@CytosisComponent(dependsOn = {RankManager.class, RedisDatabase.class, GlobalDatabase.class})
+@CytosisComponent(dependsOn = {RankManager.class, RedisDatabase.class, GlobalDatabase.class,
+    PlayerDirectory.class})
 public class CytonicNetwork implements Bootstrappable {
 
-    private final BiMap<UUID, String> lifetimePlayers = new BiMap<>();
-    private final BiMap<UUID, String> lifetimeFlattened = new BiMap<>(); // uuid, lowercased name
-    //          ** This is for reference and should not be used to set data **
-    private final Map<UUID, PlayerRank> cachedPlayerRanks = new ConcurrentHashMap<>(); // <player, rank>
     private final BiMap<UUID, String> onlinePlayers = new BiMap<>();
     private final BiMap<UUID, String> onlineFlattened = new BiMap<>(); // uuid, lowercased name
     private final Map<String, CytonicServer> servers = new ConcurrentHashMap<>(); // online servers
     private final Map<UUID, String> networkPlayersOnServers = new ConcurrentHashMap<>(); // uuid, server id
+    // only active punishments, kept up to date by the sweeper
     private final Map<UUID, BanData> bannedPlayers = new ConcurrentHashMap<>();
     private final Map<UUID, Boolean> mutedPlayers = new ConcurrentHashMap<>();
 
     private CytosisContext cytosisContext;
     private GlobalDatabase gdb;
+    private PlayerDirectory directory;
 
     @Override
     public void init() {
         this.cytosisContext = Cytosis.CONTEXT;
         this.gdb = cytosisContext.getComponent(GlobalDatabase.class);
+        this.directory = cytosisContext.getComponent(PlayerDirectory.class);
         importData();
         getServers().put(cytosisContext.SERVER_ID, cytosisContext.currentServer());
+        MinecraftServer.getSchedulerManager().buildTask(this::sweepPunishments)
+            .delay(TaskSchedule.minutes(1))
+            .repeat(TaskSchedule.minutes(1))
+            .schedule();
     }
 
     /**
-     * Adds a player to the cache
+     * Adds a player to the cache. This never touches the database, as it runs on every server for every player joining
+     * the network. Their rank, ban and mute status are filled in by the {@link PlayerProfileManager} once they join
+     * this server, or fetched on demand.
      *
      * @param name The player's name
      * @param uuid The player's UUID
@@ -61,30 +71,26 @@ public class CytonicNetwork implements Bootstrappable {
     public void addPlayer(String name, UUID uuid) {
         onlinePlayers.put(uuid, name);
         onlineFlattened.put(uuid, name.toLowerCase());
-        lifetimePlayers.put(uuid, name);
-        lifetimeFlattened.put(uuid, name.toLowerCase());
-        // the player has not played before
-        cachedPlayerRanks.putIfAbsent(uuid, PlayerRank.DEFAULT);
-
-        gdb.getPlayerRank(uuid).thenAccept(playerRank -> {
-                cachedPlayerRanks.put(uuid, playerRank);
-                cytosisContext.getComponent(RedisDatabase.class)
-                    .addToGlobalHash("player_ranks", uuid.toString(), playerRank.name());
-            })
-            .exceptionally((throwable) -> {
-                Logger.error("An error occurred whilst loading ranks!", throwable);
-                return null;
-            });
-
-        gdb.isBanned(uuid).thenAccept(banData -> bannedPlayers.put(uuid, banData)).exceptionally(throwable -> {
-            Logger.error("An error occurred whilst loading bans!", throwable);
-            return null;
-        });
+        directory.rememberName(uuid, name);
+    }
 
-        gdb.isMuted(uuid).thenAccept(aBoolean -> mutedPlayers.put(uuid, aBoolean)).exceptionally(throwable -> {
-            Logger.error("An error occurred whilst loading mutes!", throwable);
-            return null;
-        });
+    /**
+     * Caches the rank, ban and mute status from a freshly loaded profile
+     *
+     * @param profile the player's profile
+     */
+    public void applyProfile(PlayerProfile profile) {
+        directory.updateRank(profile.uuid(), profile.rank());
+        if (profile.banData().isBanned()) {
+            bannedPlayers.put(profile.uuid(), profile.banData());
+        } else {
+            bannedPlayers.remove(profile.uuid());
+        }
+        if (profile.muted()) {
+            mutedPlayers.put(profile.uuid(), true);
+        } else {
+            mutedPlayers.remove(profile.uuid());
+        }
     }
 
     /**
@@ -94,7 +100,7 @@ public class CytonicNetwork implements Bootstrappable {
      * @param rank The player's new rank
      */
     public void updateCachedPlayerRank(UUID uuid, PlayerRank rank) {
-        cachedPlayerRanks.put(uuid, rank);
+        directory.updateRank(uuid, rank);
     }
 
     /**
@@ -117,7 +123,7 @@ public class CytonicNetwork implements Bootstrappable {
      * @return if the player has played on the network before.
      */
     public boolean hasPlayedBefore(UUID uuid) {
-        return lifetimePlayers.containsKey(uuid);
+        return directory.hasPlayed(uuid);
     }
 
     @NotifyHandler
@@ -145,31 +151,27 @@ public class CytonicNetwork implements Bootstrappable {
         redis.getHash("player_servers")
             .forEach((id, server) -> networkPlayersOnServers.put(UUID.fromString(id), server));
 
-        importPlayers();
+        sweepPunishments();
     }
 
-    private void importPlayers() {
-        for (PlayerEntry p : gdb.loadPlayers()) {
-            lifetimePlayers.put(p.uuid(), p.username());
-            lifetimeFlattened.put(p.uuid(), p.username().toLowerCase());
-            cachedPlayerRanks.put(p.uuid(), p.rank());
-
-            if (p.banData() != null) {
-                if (p.banData().expiry() != null && p.banData().expiry().isBefore(Instant.now())) {
-                    this.gdb.unbanPlayer(p.uuid());
-                    RedisDatabase redis = cytosisContext.getComponent(RedisDatabase.class);
-                    redis.removeFromGlobalHash("banned_players", p.uuid().toString());
-                } else {
-                    bannedPlayers.put(p.uuid(), p.banData());
-                }
+    /**
+     * Deletes expired bans and mutes, and refreshes the active punishments
+     */
+    public void sweepPunishments() {
+        gdb.sweepPunishments().whenComplete((active, throwable) -> {
+            if (throwable != null) {
+                Logger.error("Failed to sweep punishments!", throwable);
+                return;
             }
+            applyPunishments(active);
+        });
+    }
 
-            if (p.muteExpiry() != null && p.muteExpiry().isBefore(Instant.now())) {
-                this.gdb.unmutePlayer(p.uuid());
-            } else {
-                mutedPlayers.put(p.uuid(), true);
-            }
-        }
+    private void applyPunishments(ActivePunishments active) {
+        bannedPlayers.keySet().retainAll(active.bans().keySet());
+        bannedPlayers.putAll(active.bans());
+        mutedPlayers.keySet().retainAll(active.mutes());
+        active.mutes().forEach(uuid -> mutedPlayers.put(uuid, true));
     }
 
     /**
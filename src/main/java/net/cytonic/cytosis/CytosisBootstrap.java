@@ -75,7 +75,10 @@ public class CytosisBootstrap {
         try {
             BootstrapRegistrationUtils.registerCytosisComponents(cytosisContext);
         } catch (Exception ex) {
+            // a cycle or a hung component leaves the server half initialized, so don't start it
             Logger.error("failed to register components!", ex);
+            System.exit(123);
+            return;
         }
 
         // register commands after every component is registered to avoid missing dependencies
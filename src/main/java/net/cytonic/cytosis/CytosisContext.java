@@ -5,8 +5,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.jetbrains.annotations.Nullable;
@@ -26,12 +29,22 @@ public class CytosisContext {
     // The instance ID is used to identify the server
     public final String SERVER_ID = generateID();
 
-    // map for bootstrappable services
-    private Map<Class<?>, Object> components = new HashMap<>();
+    // map for bootstrappable services. Components are initialized concurrently, so it must be thread safe.
+    private Map<Class<?>, Object> components = new ConcurrentHashMap<>();
 
-    // consumers that should run when a component becomes available
+    // components whose init() is still running, published to the map above once it returns
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<Class<?>, Initializing> initializing = new ConcurrentHashMap<>();
+
+    // consumers that should run when a component becomes available, guarded by itself
     private Map<Class<?>, List<Consumer<?>>> availabilityConsumers = new HashMap<>();
 
+    // set while the components are being initialized, so fetching one that is still initializing waits for it
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.PACKAGE)
+    private volatile ComponentScheduler scheduler;
+
     // Misc
     private boolean metricsEnabled = false;
     private boolean stopping = false;
@@ -75,10 +88,20 @@ public class CytosisContext {
      * @return the instance of the requested component, or null if it does not exist and createIfMissing is false
      */
     public <T> T getComponent(Class<T> clazz, boolean createIfMissing) {
+        ComponentScheduler pending = scheduler;
+        if (pending != null && pending.isPending(clazz)) {
+            Object awaited = pending.await(clazz);
+            if (awaited != null) return clazz.cast(awaited);
+        }
         Object existing = components.get(clazz);
         if (existing != null) {
             return clazz.cast(existing);
         }
+        // a component reaching itself, or a component it registers, while it initializes
+        Initializing own = initializing.get(clazz);
+        if (own != null && own.thread() == Thread.currentThread()) {
+            return clazz.cast(own.component());
+        }
         if (!createIfMissing) {
             Logger.warn("Attempted to fetch missing component '%s'!", clazz.getSimpleName());
             return null;
@@ -106,8 +129,9 @@ public class CytosisContext {
     /**
      * Registers a component in the context. If a component with the specified class type is already registered, the
      * existing instance is returned. If the new component implements {@code Bootstrappable}, its {@code init()} method
-     * is invoked during the registration process. Additionally, notifies all registered consumers that this component
-     * is now available.
+     * is invoked during the registration process, and the component is only visible to other threads once it returns.
+     * Another thread registering the same key meanwhile waits for the initialization to finish and gets the published
+     * instance. Additionally, notifies all registered consumers that this component is now available.
      *
      * @param <T>       the type of the component being registered
      * @param key       the class type or a superclass of the component
@@ -115,17 +139,35 @@ public class CytosisContext {
      * @return the registered component instance, or the existing instance if one is already registered
      */
     public <T> T registerComponent(Class<? super T> key, T component) {
-        Object existing = components.putIfAbsent(key, component);
-        if (existing == null) {
+        Object existing = components.get(key);
+        if (existing != null) return (T) existing;
+        Initializing own = new Initializing(component, Thread.currentThread(), new CompletableFuture<>());
+        Initializing racing = initializing.putIfAbsent(key, own);
+        if (racing != null) {
+            // the initializing thread reaching its own component can't wait for itself
+            if (racing.thread() == Thread.currentThread()) return (T) racing.component();
+            return (T) racing.published().join();
+        }
+        try {
+            existing = components.get(key); // published between the two lookups
+            if (existing != null) {
+                own.published().complete(existing);
+                return (T) existing;
+            }
             if (component instanceof Bootstrappable bootstrappableComponent) {
                 bootstrappableComponent.init();
             }
-
-            notifyAvailable(key, component);
-            return component;
+            components.put(key, component);
+            own.published().complete(component);
+        } catch (Throwable t) {
+            own.published().completeExceptionally(t);
+            throw t;
+        } finally {
+            initializing.remove(key);
         }
 
-        return (T) existing;
+        notifyAvailable(key, component);
+        return component;
     }
 
     /**
@@ -145,14 +187,17 @@ public class CytosisContext {
      * registered, the consumer is executed immediately.
      */
     public <T> void whenAvailable(Class<T> componentClass, Consumer<T> consumer) {
-        T existing = getComponent(componentClass);
-        if (existing != null) {
-            consumer.accept(existing);
-            return;
+        Object existing;
+        synchronized (availabilityConsumers) {
+            existing = components.get(componentClass);
+            if (existing == null) {
+                availabilityConsumers
+                    .computeIfAbsent(componentClass, _ -> new ArrayList<>())
+                    .add(consumer);
+                return;
+            }
         }
-        availabilityConsumers
-            .computeIfAbsent(componentClass, _ -> new ArrayList<>())
-            .add(consumer);
+        consumer.accept(componentClass.cast(existing));
     }
 
     /**
@@ -163,7 +208,10 @@ public class CytosisContext {
      */
     @SuppressWarnings({"unchecked", "rawtypes"})
     private void notifyAvailable(Class<?> componentClass, Object instance) {
-        List<Consumer<?>> listeners = availabilityConsumers.remove(componentClass);
+        List<Consumer<?>> listeners;
+        synchronized (availabilityConsumers) {
+            listeners = availabilityConsumers.remove(componentClass);
+        }
         if (listeners == null || listeners.isEmpty()) {
             return;
         }
@@ -183,4 +231,8 @@ public class CytosisContext {
             Cytosis.getServer().serverType()
         );
     }
-}
\ No newline at end of file
+
+    private record Initializing(Object component, Thread thread, CompletableFuture<Object> published) {
+
+    }
+}
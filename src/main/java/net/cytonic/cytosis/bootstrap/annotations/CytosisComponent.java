@@ -16,4 +16,9 @@ public @interface CytosisComponent {
     int priority() default 50;
 
     Class<?>[] dependsOn() default {};
+
+    /**
+     * The number of seconds the component may take to initialize before startup fails
+     */
+    int timeout() default 60;
 }
\ No newline at end of file
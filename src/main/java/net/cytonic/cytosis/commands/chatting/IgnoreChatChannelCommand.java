@@ -76,7 +76,7 @@ public class IgnoreChatChannelCommand extends CytosisCommand {
                 "You are no longer ignoring the <gold>" + channel.name() + "</gold> chat."));
         } else {
             player.sendMessage(
-                Msg.greySplash("IGNORED!", "You successfully muted <gold>" + channel.name() + "</gold> chat."));
+                Msg.greySplash("IGNORED!", "You successfully muted <gold>%s</gold> chat.", channel.name()));
         }
     }
 }
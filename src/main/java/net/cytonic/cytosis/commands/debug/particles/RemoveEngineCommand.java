@@ -0,0 +1,22 @@
+package net.cytonic.cytosis.commands.debug.particles;
+
+import net.cytonic.cytosis.commands.utils.CytosisCommand;
+import net.cytonic.cytosis.commands.utils.SubCommand;
+import net.cytonic.cytosis.particles.ParticleEngine;
+import net.cytonic.cytosis.player.CytosisPlayer;
+
+@SubCommand(ParticleCommand.class)
+class RemoveEngineCommand extends CytosisCommand {
+
+    RemoveEngineCommand() {
+        super("removeengine");
+        setDefaultExecutor((sender, _) -> {
+            if (!(sender instanceof CytosisPlayer player)) return;
+            if (!ParticleEngine.remove(player.getInstance())) {
+                player.whoops("Your instance does not have a particle engine!");
+                return;
+            }
+            player.success("The particle engine of your instance has been removed!");
+        });
+    }
+}
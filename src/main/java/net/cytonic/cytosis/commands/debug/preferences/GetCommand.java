@@ -37,11 +37,11 @@ class GetCommand extends CytosisCommand {
             PreferenceManager manager = Cytosis.get(PreferenceManager.class);
             Object preference = manager.getPlayerPreference_UNSAFE(player.getUuid(), node);
             if (preference == null) {
-                player.sendMessage(Msg.red("Preference node <yellow>" + node.asString() + "</yellow> does not exist!"));
+                player.sendMessage(Msg.red("Preference node <yellow>%s</yellow> does not exist!", node.asString()));
                 return;
             }
             player.sendMessage(
-                Msg.pink("Preference node <yellow>" + node.asString() + "</yellow> has a value of '<aqua>%s</aqua>'",
+                Msg.pink("Preference node <yellow>%s</yellow> has a value of '<aqua>%s</aqua>'", node.asString(),
                     preference.toString()));
         }, nodeArg);
     }
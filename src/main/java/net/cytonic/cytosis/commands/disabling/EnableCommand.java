@@ -50,7 +50,7 @@ public class EnableCommand extends CytosisCommand {
                     command,
                     subcommand -> commandDisablingManager.enableCommandGlobally(subcommand.getName()));
                 sender.sendMessage(
-                    Msg.greenSplash("ENABLED!", "enabled the '" + rawCommand + "' command on every server."));
+                    Msg.greenSplash("ENABLED!", "enabled the '%s' command on every server.", rawCommand));
                 return;
             }
 
@@ -63,7 +63,7 @@ public class EnableCommand extends CytosisCommand {
                 command,
                 commandDisablingManager::enableCommandLocally);
             sender.sendMessage(
-                Msg.greenSplash("ENABLED!", "enabled the '" + rawCommand + "' command on this server."));
+                Msg.greenSplash("ENABLED!", "enabled the '%s' command on this server.", rawCommand));
 
         }, global, cmd);
     }
@@ -6,6 +6,7 @@ import net.cytonic.cytosis.CytonicNetwork;
 import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.commands.utils.CytosisCommand;
 import net.cytonic.cytosis.commands.utils.SubCommand;
+import net.cytonic.cytosis.logging.Logger;
 import net.cytonic.cytosis.player.CytosisPlayer;
 import net.cytonic.cytosis.player.OfflinePlayer;
 import net.cytonic.cytosis.utils.Players;
@@ -53,12 +54,19 @@ class AddCommand extends CytosisCommand {
                 return;
             }
 
-            if (!targetObj.getPreference(Preferences.ACCEPT_FRIEND_REQUESTS)) {
-                player.whoops("%s does not accept friend requests!", name);
-                return;
-            }
-
-            player.sendFriendRequest(uuid);
+            UUID target = uuid;
+            targetObj.fetchPreference(Preferences.ACCEPT_FRIEND_REQUESTS).whenComplete((accepts, throwable) -> {
+                if (throwable != null) {
+                    Logger.error("Failed to fetch the preferences of " + target, throwable);
+                    player.error("An error occurred whilst processing your request.");
+                    return;
+                }
+                if (!accepts) {
+                    player.whoops("%s does not accept friend requests!", name);
+                    return;
+                }
+                player.sendFriendRequest(target);
+            });
         }, FriendCommand.NON_FRIEND_ARG);
     }
 }
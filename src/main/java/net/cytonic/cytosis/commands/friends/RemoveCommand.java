@@ -6,10 +6,10 @@ import net.minestom.server.command.builder.arguments.ArgumentType;
 import net.minestom.server.command.builder.arguments.ArgumentWord;
 import net.minestom.server.command.builder.suggestion.SuggestionEntry;
 
-import net.cytonic.cytosis.CytonicNetwork;
 import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.commands.utils.CytosisCommand;
 import net.cytonic.cytosis.commands.utils.SubCommand;
+import net.cytonic.cytosis.managers.PlayerDirectory;
 import net.cytonic.cytosis.player.CytosisPlayer;
 import net.cytonic.cytosis.player.OfflinePlayer;
 import net.cytonic.cytosis.utils.Msg;
@@ -23,10 +23,8 @@ class RemoveCommand extends CytosisCommand {
         ArgumentWord playerArg = ArgumentType.Word("player");
         playerArg.setSuggestionCallback((sender, _, suggestion) -> {
             if (!(sender instanceof CytosisPlayer player)) return;
-            for (UUID networkPlayer : player.getFriends()) {
-                suggestion.addEntry(new SuggestionEntry(
-                    Cytosis.get(CytonicNetwork.class).getLifetimePlayers()
-                        .getByKey(networkPlayer)));
+            for (String name : Cytosis.get(PlayerDirectory.class).getNames(player.getFriends())) {
+                suggestion.addEntry(new SuggestionEntry(name));
             }
         });
 
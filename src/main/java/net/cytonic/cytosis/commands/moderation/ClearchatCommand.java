@@ -34,7 +34,7 @@ public class ClearchatCommand extends CytosisCommand {
                     }
                 }
                 Component snoop = player.formattedName()
-                    .append(Msg.mm("<gray> cleared the chat in server " + Cytosis.CONTEXT.SERVER_ID + "."));
+                    .append(Msg.mm("<gray> cleared the chat in server %s.", Cytosis.CONTEXT.SERVER_ID));
                 Cytosis.get(SnooperManager.class)
                     .sendSnoop(Snoops.CHAT_CLEAR, Msg.snoop(snoop));
             } else {
@@ -6,12 +6,12 @@ import net.kyori.adventure.text.Component;
 import net.minestom.server.command.builder.arguments.ArgumentStringArray;
 import net.minestom.server.command.builder.arguments.ArgumentType;
 
-import net.cytonic.cytosis.CytonicNetwork;
 import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.commands.utils.CommandUtils;
 import net.cytonic.cytosis.commands.utils.CytosisCommand;
 import net.cytonic.cytosis.config.Snoops;
 import net.cytonic.cytosis.data.enums.PlayerRank;
+import net.cytonic.cytosis.managers.PlayerDirectory;
 import net.cytonic.cytosis.managers.SnooperManager;
 import net.cytonic.cytosis.player.CytosisPlayer;
 import net.cytonic.cytosis.utils.Msg;
@@ -45,7 +45,7 @@ public class KickCommand extends CytosisCommand {
                 return;
             }
 
-            PlayerRank rank = Cytosis.get(CytonicNetwork.class).getCachedPlayerRanks().get(uuid);
+            PlayerRank rank = Cytosis.get(PlayerDirectory.class).getRank(uuid);
             if (rank == null) {
                 actor.whoops("Failed to fine %s's rank!", player);
                 return;
@@ -58,11 +58,11 @@ public class KickCommand extends CytosisCommand {
 
             Component snoop = actor.formattedName().append(Msg.grey("kicked "))
                 .append(SnoopUtils.toTarget(uuid))
-                .append(Msg.grey("for <yellow>" + reason + "</yellow>."));
+                .append(Msg.grey("for <yellow>%s</yellow>.", reason));
             Cytosis.get(SnooperManager.class)
                 .sendSnoop(Snoops.PLAYER_KICK, Msg.snoop(snoop));
             new PlayerKickNotifyPacket.Packet(uuid, KickReason.COMMAND,
-                Msg.red("\nYou have been kicked. \n<aqua>Reason: " + reason)).publish();
+                Msg.red("\nYou have been kicked. \n<aqua>Reason: %s", reason)).publish();
 
         }, CommandUtils.NETWORK_PLAYERS, reasonArg);
     }
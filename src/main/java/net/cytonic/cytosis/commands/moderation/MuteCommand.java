@@ -10,13 +10,13 @@ import net.minestom.server.command.builder.arguments.ArgumentType;
 import net.minestom.server.command.builder.arguments.ArgumentWord;
 import net.minestom.server.command.builder.suggestion.SuggestionEntry;
 
-import net.cytonic.cytosis.CytonicNetwork;
 import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.commands.utils.CommandUtils;
 import net.cytonic.cytosis.commands.utils.CytosisCommand;
 import net.cytonic.cytosis.config.Snoops;
 import net.cytonic.cytosis.data.GlobalDatabase;
 import net.cytonic.cytosis.logging.Logger;
+import net.cytonic.cytosis.managers.PlayerDirectory;
 import net.cytonic.cytosis.managers.SnooperManager;
 import net.cytonic.cytosis.metrics.Metrics;
 import net.cytonic.cytosis.metrics.MetricsManager;
@@ -32,12 +32,12 @@ public class MuteCommand extends CytosisCommand {
         setCondition(CommandUtils.IS_MODERATOR);
         setDefaultExecutor((sender, ignored) -> sender.sendMessage(Msg.red("Usage: /mute (player) (duration)")));
         ArgumentWord playerArg = ArgumentType.Word("target");
-        playerArg.setSuggestionCallback((sender, ignored, suggestion) -> {
+        playerArg.setSuggestionCallback((sender, context, suggestion) -> {
             if (sender instanceof CytosisPlayer player) {
                 player.sendActionBar(Msg.mm("<green>Fetching players..."));
             }
-            Cytosis.get(CytonicNetwork.class).getLifetimePlayers()
-                .forEach((uuid, name) -> suggestion.addEntry(new SuggestionEntry(name)));
+            CommandUtils.completeLifetimePlayers(context.get(playerArg))
+                .forEach(name -> suggestion.addEntry(new SuggestionEntry(name)));
         });
         ArgumentWord durationArg = ArgumentType.Word("duration");
         durationArg.setSuggestionCallback((_, _, suggestion) -> {
@@ -64,13 +64,12 @@ public class MuteCommand extends CytosisCommand {
     }
 
     private void mutePlayer(CytosisPlayer actor, String target, Instant duration) {
-        CytonicNetwork network = Cytosis.get(CytonicNetwork.class);
-        if (!network.getLifetimePlayers().containsValue(target)) {
+        UUID uuid = Cytosis.get(PlayerDirectory.class).getUuid(target);
+        if (uuid == null) {
             actor.whoops("The player %s doesn't exist!", target);
             return;
         }
         GlobalDatabase db = Cytosis.get(GlobalDatabase.class);
-        UUID uuid = network.getLifetimeFlattened().getByValue(target.toLowerCase());
         db.isMuted(uuid).whenComplete((muted, throwable1) -> {
             if (throwable1 != null) {
                 actor.error("An error occurred whilst finding if %s is muted!", target);
@@ -93,7 +92,7 @@ public class MuteCommand extends CytosisCommand {
                 }
                 Component snoop = actor.formattedName().append(Msg.grey(" muted "))
                     .append(SnoopUtils.toTarget(uuid))
-                    .append(Msg.grey(" for " + DurationParser.unparseFull(duration) + "."));
+                    .append(Msg.grey(" for %s.", DurationParser.unparseFull(duration)));
 
                 Cytosis.get(SnooperManager.class).sendSnoop(Snoops.PLAYER_MUTE, Msg.snoop(snoop));
                 Cytosis.get(MetricsManager.class).addToLongCounter(Metrics.PLAYER_MUTES, 1, Attributes.of(
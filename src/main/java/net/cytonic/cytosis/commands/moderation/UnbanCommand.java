@@ -14,6 +14,7 @@ import net.cytonic.cytosis.commands.utils.CommandUtils;
 import net.cytonic.cytosis.commands.utils.CytosisCommand;
 import net.cytonic.cytosis.config.Snoops;
 import net.cytonic.cytosis.data.GlobalDatabase;
+import net.cytonic.cytosis.managers.PlayerDirectory;
 import net.cytonic.cytosis.managers.SnooperManager;
 import net.cytonic.cytosis.player.CytosisPlayer;
 import net.cytonic.cytosis.utils.Msg;
@@ -31,11 +32,11 @@ public class UnbanCommand extends CytosisCommand {
 
             final String player = context.get(playerArg);
             CytonicNetwork network = Cytosis.get(CytonicNetwork.class);
-            if (!network.getLifetimePlayers().containsValue(player)) {
+            UUID uuid = Cytosis.get(PlayerDirectory.class).getUuid(player);
+            if (uuid == null) {
                 sender.sendMessage(Msg.whoops("The player %s doesn't exist!", player));
                 return;
             }
-            UUID uuid = network.getLifetimePlayers().getByValue(player);
             if (!network.getBannedPlayers().containsKey(uuid)) {
                 sender.sendMessage(Msg.whoops("%s is not banned!", player));
                 return;
@@ -56,11 +57,9 @@ public class UnbanCommand extends CytosisCommand {
         playerArg.setSuggestionCallback((sender, ignored, suggestion) -> {
             if (sender instanceof CytosisPlayer player) {
                 player.sendActionBar(Msg.mm("<green>Fetching banned players..."));
-                Cytosis.get(CytonicNetwork.class).getBannedPlayers()
-                    .forEach((uuid, ignored1) -> suggestion.addEntry(
-                        new SuggestionEntry(Cytosis.get(CytonicNetwork.class)
-                            .getLifetimePlayers()
-                            .getByKey(uuid))));
+                Cytosis.get(PlayerDirectory.class)
+                    .getNames(Cytosis.get(CytonicNetwork.class).getBannedPlayers().keySet())
+                    .forEach(name -> suggestion.addEntry(new SuggestionEntry(name)));
             }
         });
         return playerArg;
@@ -12,6 +12,7 @@ import net.cytonic.cytosis.commands.utils.CommandUtils;
 import net.cytonic.cytosis.commands.utils.CytosisCommand;
 import net.cytonic.cytosis.config.Snoops;
 import net.cytonic.cytosis.data.GlobalDatabase;
+import net.cytonic.cytosis.managers.PlayerDirectory;
 import net.cytonic.cytosis.managers.SnooperManager;
 import net.cytonic.cytosis.player.CytosisPlayer;
 import net.cytonic.cytosis.utils.Msg;
@@ -27,11 +28,9 @@ public class UnmuteCommand extends CytosisCommand {
         playerArg.setSuggestionCallback((sender, ignored, suggestion) -> {
             if (sender instanceof CytosisPlayer player) {
                 player.sendActionBar(Msg.mm("<green>Fetching muted players..."));
-                CytonicNetwork network = Cytosis.get(CytonicNetwork.class);
-                network.getMutedPlayers()
-                    .forEach((uuid, ignored1) -> suggestion.addEntry(new SuggestionEntry(network
-                        .getLifetimePlayers()
-                        .getByKey(uuid))));
+                Cytosis.get(PlayerDirectory.class)
+                    .getNames(Cytosis.get(CytonicNetwork.class).getMutedPlayers().keySet())
+                    .forEach(name -> suggestion.addEntry(new SuggestionEntry(name)));
             }
         });
         addSyntax((sender, context) -> {
@@ -39,11 +38,11 @@ public class UnmuteCommand extends CytosisCommand {
 
             final String player = context.get(playerArg);
             CytonicNetwork network = Cytosis.get(CytonicNetwork.class);
-            if (!network.getLifetimePlayers().containsValue(player)) {
+            UUID uuid = Cytosis.get(PlayerDirectory.class).getUuid(player);
+            if (uuid == null) {
                 sender.sendMessage(Msg.whoops("The player %s doesn't exist!", player));
                 return;
             }
-            UUID uuid = network.getLifetimePlayers().getByValue(player);
             if (!network.getMutedPlayers().containsKey(uuid)) {
                 sender.sendMessage(Msg.whoops("%s is not muted!", player));
                 return;
@@ -38,31 +38,40 @@ class InviteCommand extends CytosisCommand {
                 return;
             }
 
-            if (!op.getPreference(Preferences.ACCEPT_PARTY_INVITES)) {
-                player.whoops("That player has party invites disabled!");
-                return;
-            }
-
-            Cytosis.get(PartyPacketsPublisher.class).sendInvite(player.getUuid(), op.uuid())
-                .exceptionally(throwable -> {
-                    Logger.error("Failed to process party invite: ", throwable);
-                    return new GenericResponse(false, "INTERNAL_ERROR");
-                })
-                .thenAccept(p -> {
-                    if (p.success()) return;
-                    switch (p.message()) {
-                        case "INTERNAL_ERROR" -> player.error("An error occurred whilst processing your request.");
-                        case "ERR_SEND_TO_SELF" -> player.whoops("You cannot invite yourself!");
-                        case "ERR_ALREADY_IN_PARTY" -> player.whoops("%s<gray> is already in the party.",
-                            Players.miniName(op.uuid()));
-                        case "ERR_NO_PERMISSION" -> player.whoops("You don't have permission to send invitations.");
-                        case "ERR_ALREADY_INVITED" -> player.whoops("%s<gray> has already been invited to the party.",
-                            Players.miniName(op.uuid()));
-                        default -> player.whoops("An unknown error occurred while processing your request <red>(%s)",
-                            p.message());
-                    }
-                });
-
+            op.fetchPreference(Preferences.ACCEPT_PARTY_INVITES).whenComplete((accepts, throwable) -> {
+                if (throwable != null) {
+                    Logger.error("Failed to fetch the preferences of " + op.uuid(), throwable);
+                    player.error("An error occurred whilst processing your request.");
+                    return;
+                }
+                if (!accepts) {
+                    player.whoops("That player has party invites disabled!");
+                    return;
+                }
+                sendInvite(player, op);
+            });
         }, CommandUtils.NETWORK_PLAYERS);
     }
+
+    private static void sendInvite(CytosisPlayer player, OfflinePlayer op) {
+        Cytosis.get(PartyPacketsPublisher.class).sendInvite(player.getUuid(), op.uuid())
+            .exceptionally(throwable -> {
+                Logger.error("Failed to process party invite: ", throwable);
+                return new GenericResponse(false, "INTERNAL_ERROR");
+            })
+            .thenAccept(p -> {
+                if (p.success()) return;
+                switch (p.message()) {
+                    case "INTERNAL_ERROR" -> player.error("An error occurred whilst processing your request.");
+                    case "ERR_SEND_TO_SELF" -> player.whoops("You cannot invite yourself!");
+                    case "ERR_ALREADY_IN_PARTY" -> player.whoops("%s<gray> is already in the party.",
+                        Players.miniName(op.uuid()));
+                    case "ERR_NO_PERMISSION" -> player.whoops("You don't have permission to send invitations.");
+                    case "ERR_ALREADY_INVITED" -> player.whoops("%s<gray> has already been invited to the party.",
+                        Players.miniName(op.uuid()));
+                    default -> player.whoops("An unknown error occurred while processing your request <red>(%s)",
+                        p.message());
+                }
+            });
+    }
 }
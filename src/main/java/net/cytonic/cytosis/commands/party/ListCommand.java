@@ -74,7 +74,7 @@ class ListCommand extends CytosisCommand {
             }
             msg.append(PartyManager.LINE);
 
-            sender.sendMessage(Msg.mm(msg.toString()));
+            sender.sendMessage(Msg.parse(msg.toString()));
         });
     }
 }
@@ -1,15 +1,16 @@
 package net.cytonic.cytosis.commands.party;
 
+import java.util.List;
 import java.util.UUID;
 
 import net.minestom.server.MinecraftServer;
 import net.minestom.server.command.builder.arguments.ArgumentWord;
 import net.minestom.server.command.builder.suggestion.SuggestionEntry;
 
-import net.cytonic.cytosis.CytonicNetwork;
 import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.commands.utils.CommandUtils;
 import net.cytonic.cytosis.commands.utils.CytosisCommand;
+import net.cytonic.cytosis.managers.PlayerDirectory;
 import net.cytonic.cytosis.parties.PartyManager;
 import net.cytonic.cytosis.player.CytosisPlayer;
 import net.cytonic.protocol.data.objects.Party;
@@ -22,12 +23,11 @@ public class PartyCommand extends CytosisCommand {
         PARTY_PLAYER.setSuggestionCallback((sender, _, suggestion) -> {
             if (!(sender instanceof CytosisPlayer player)) return;
             PartyManager pm = Cytosis.get(PartyManager.class);
-            CytonicNetwork cn = Cytosis.get(CytonicNetwork.class);
             Party party = pm.getPlayerParty(player.getUuid());
             if (party == null) return;
-            for (UUID p : party.getAllPlayers()) {
-                if (p.equals(player.getUuid())) return;
-                suggestion.addEntry(new SuggestionEntry(cn.getLifetimePlayers().getByKey(p)));
+            List<UUID> others = party.getAllPlayers().stream().filter(p -> !p.equals(player.getUuid())).toList();
+            for (String name : Cytosis.get(PlayerDirectory.class).getNames(others)) {
+                suggestion.addEntry(new SuggestionEntry(name));
             }
         });
     }
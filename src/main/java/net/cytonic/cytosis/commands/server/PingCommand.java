@@ -16,7 +16,7 @@ public class PingCommand extends CytosisCommand {
         super("ping");
         setDefaultExecutor((sender, cmdc) -> {
             if (sender instanceof final CytosisPlayer player) {
-                player.sendMessage(Msg.yellowSplash("Pong!", "Your ping is " + player.getLatency() + "ms."));
+                player.sendMessage(Msg.yellowSplash("Pong!", "Your ping is %sms.", player.getLatency()));
             }
         });
     }
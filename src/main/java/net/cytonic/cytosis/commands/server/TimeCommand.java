@@ -68,7 +68,7 @@ public class TimeCommand extends CytosisCommand {
             if (!(sender instanceof CytosisPlayer player)) return;
             Instance instance = player.getInstance();
             instance.setTime(context.get(timeInteger)); // Set time to input
-            sender.sendMessage(Msg.green("Time set to " + context.get(timeInteger) + "."));
+            sender.sendMessage(Msg.green("Time set to %s.", context.get(timeInteger)));
         }, timeInteger);
     }
 }
\ No newline at end of file
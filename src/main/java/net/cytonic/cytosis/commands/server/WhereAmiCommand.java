@@ -12,20 +12,20 @@ public class WhereAmiCommand extends CytosisCommand {
         super("whereami", "version");
         setDefaultExecutor((sender, _) ->
             sender.sendMessage(Msg.yellowSplash("SERVER INFO!", "Here is some basic server information:")
-                .appendNewline().append(Msg.mm("<gold>Server ID: </gold><gray>" + Cytosis.CONTEXT.SERVER_ID))
+                .appendNewline().append(Msg.mm("<gold>Server ID: </gold><gray>%s", Cytosis.CONTEXT.SERVER_ID))
                 .appendNewline()
-                .append(Msg.gold("Server Type: <gray>" + Cytosis.getServer().serverType().asString()))
+                .append(Msg.gold("Server Type: <gray>%s", Cytosis.getServer().serverType().asString()))
                 .appendNewline()
-                .append(Msg.gold("Server Version: <gray>" + Cytosis.getServer().version()))
+                .append(Msg.gold("Server Version: <gray>%s", Cytosis.getServer().version()))
                 .appendNewline()
                 .appendNewline()
                 .append(Msg.gold("""
                     Cytosis Commit: <gray><hover:show_text:'<gold><b>Click to copy Commit Hash!'>\
                     <click:copy_to_clipboard:%s>%s
                     """, BuildInfo.GIT_COMMIT, BuildInfo.GIT_COMMIT))
-                .append(Msg.gold("Cytosis Version: <gray>" + BuildInfo.BUILD_VERSION))
+                .append(Msg.gold("Cytosis Version: <gray>%s", BuildInfo.BUILD_VERSION))
                 .appendNewline()
-                .append(Msg.gold("Cytosis Built: <gray>" + DurationParser.unparseFull(BuildInfo.BUILT_AT) + " ago"))
+                .append(Msg.gold("Cytosis Built: <gray>%s ago", DurationParser.unparseFull(BuildInfo.BUILT_AT)))
                 .appendNewline()));
     }
 }
\ No newline at end of file
@@ -13,6 +13,7 @@ import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.commands.utils.CommandUtils;
 import net.cytonic.cytosis.commands.utils.CytosisCommand;
 import net.cytonic.cytosis.data.enums.ChatChannel;
+import net.cytonic.cytosis.managers.PlayerDirectory;
 import net.cytonic.cytosis.player.CytosisPlayer;
 import net.cytonic.cytosis.protocol.publishers.SendPlayerToServerPacketPublisher;
 import net.cytonic.cytosis.utils.Msg;
@@ -38,7 +39,7 @@ public class YoinkCommand extends CytosisCommand {
 
             String playerName = context.get(playerArgument);
             CytonicNetwork network = Cytosis.get(CytonicNetwork.class);
-            UUID uuid = network.getLifetimeFlattened().getByValue(playerName.toLowerCase());
+            UUID uuid = Cytosis.get(PlayerDirectory.class).getUuid(playerName);
             if (uuid == null) {
                 player.whoops("The player %s doesn't exist!", playerName);
                 return;
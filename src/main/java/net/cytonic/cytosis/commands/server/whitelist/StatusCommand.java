@@ -9,7 +9,6 @@ import net.minestom.server.command.builder.arguments.ArgumentWord;
 import net.minestom.server.utils.mojang.MojangUtils;
 import org.jetbrains.annotations.NotNull;
 
-import net.cytonic.cytosis.CytonicNetwork;
 import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.commands.utils.CommandUtils;
 import net.cytonic.cytosis.commands.utils.CytosisCommand;
@@ -17,6 +16,7 @@ import net.cytonic.cytosis.commands.utils.SubCommand;
 import net.cytonic.cytosis.data.RedisDatabase;
 import net.cytonic.cytosis.data.enums.PlayerRank;
 import net.cytonic.cytosis.environments.Environment;
+import net.cytonic.cytosis.managers.PlayerDirectory;
 import net.cytonic.cytosis.player.CytosisPlayer;
 import net.cytonic.cytosis.utils.Msg;
 import net.cytonic.cytosis.utils.Utils;
@@ -62,7 +62,7 @@ class StatusCommand extends CytosisCommand {
     }
 
     private void hasWhiteList(UUID uuid, String msg, CytosisPlayer player, Environment environment) {
-        PlayerRank rank = Cytosis.get(CytonicNetwork.class).getCachedPlayerRanks().get(uuid);
+        PlayerRank rank = Cytosis.get(PlayerDirectory.class).getRank(uuid);
         if (rank != null && rank.isStaff()) {
             player.whoops("'%s' bypasses the whitelist!", msg);
             return;
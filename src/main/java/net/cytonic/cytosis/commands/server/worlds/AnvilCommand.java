@@ -55,7 +55,7 @@ class AnvilCommand extends CytosisCommand {
             Key key = context.get(keyArgument);
             Cytosis.get(WorldManager.class).saveWorld(key, world).whenComplete((_, throwable) -> {
                 if (throwable != null) {
-                    player.whoops("An error occurred! " + throwable.getMessage());
+                    player.whoops("An error occurred! %s", throwable.getMessage());
                     Logger.error("An error occurred!", throwable);
                     return;
                 }
@@ -12,6 +12,7 @@ import net.cytonic.cytosis.CytonicNetwork;
 import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.commands.utils.CommandUtils;
 import net.cytonic.cytosis.commands.utils.CytosisCommand;
+import net.cytonic.cytosis.managers.PlayerDirectory;
 import net.cytonic.cytosis.player.CytosisPlayer;
 import net.cytonic.cytosis.utils.Msg;
 
@@ -31,7 +32,7 @@ public class FindCommand extends CytosisCommand {
             if (sender instanceof final CytosisPlayer player) {
                 String playerName = context.get(CommandUtils.NETWORK_PLAYERS);
                 CytonicNetwork network = Cytosis.get(CytonicNetwork.class);
-                UUID uuid = network.getLifetimeFlattened().getByValue(playerName.toLowerCase());
+                UUID uuid = Cytosis.get(PlayerDirectory.class).getUuid(playerName);
                 if (uuid == null) {
                     player.whoops("The player %s doesn't exist!", playerName);
                     return;
@@ -9,7 +9,6 @@ import net.minestom.server.command.builder.arguments.ArgumentEnum;
 import net.minestom.server.command.builder.arguments.ArgumentType;
 import net.minestom.server.command.builder.suggestion.SuggestionEntry;
 
-import net.cytonic.cytosis.CytonicNetwork;
 import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.commands.utils.CommandUtils;
 import net.cytonic.cytosis.commands.utils.CytosisCommand;
@@ -17,6 +16,7 @@ import net.cytonic.cytosis.config.Snoops;
 import net.cytonic.cytosis.data.GlobalDatabase;
 import net.cytonic.cytosis.data.enums.PlayerRank;
 import net.cytonic.cytosis.logging.Logger;
+import net.cytonic.cytosis.managers.PlayerDirectory;
 import net.cytonic.cytosis.managers.SnooperManager;
 import net.cytonic.cytosis.player.CytosisPlayer;
 import net.cytonic.cytosis.utils.Msg;
@@ -51,7 +51,7 @@ public class RankCommand extends CytosisCommand {
             UUID target = Players.resolveUuid(name);
             if (target == null) {
                 sender.sendMessage(
-                    Msg.red("The player " + context.get(CommandUtils.LIFETIME_PLAYERS) + " doesn't exist!"));
+                    Msg.red("The player %s doesn't exist!", context.get(CommandUtils.LIFETIME_PLAYERS)));
                 return;
             }
 
@@ -78,7 +78,7 @@ public class RankCommand extends CytosisCommand {
         if (!(sender instanceof CytosisPlayer player)) return;
         actor = player.trueFormattedName();
 
-        String usr = Cytosis.get(CytonicNetwork.class).getLifetimePlayers().getByKey(uuid);
+        String usr = Cytosis.get(PlayerDirectory.class).getName(uuid);
         Component usrComp = oldRank.getPrefix().append(Component.text(usr, oldRank.getTeamColor().textColor()));
 
         Component snoop = actor.append(Msg.mm("<gray> changed ")).append(usrComp).append(Msg.mm("<gray>'s rank to "))
@@ -88,7 +88,7 @@ public class RankCommand extends CytosisCommand {
         Cytosis.get(SnooperManager.class).sendSnoop(Snoops.CHANGE_RANK, Msg.snoop(snoop));
         Cytosis.get(GlobalDatabase.class).setPlayerRank(uuid, rank).thenAccept(_ -> {
             new PlayerRankUpdateNotifyPacket.Packet(uuid, rank.name()).publish();
-            sender.sendMessage(Msg.mm("<green>Successfully updated " + usr + "'s rank!"));
+            sender.sendMessage(Msg.mm("<green>Successfully updated %s's rank!", usr));
         }).exceptionally(throwable -> {
             sender.sendMessage(Msg.mm(
                 "<red>An error occurred whilst setting " + uuid + "'s rank! Check the console for more details."));
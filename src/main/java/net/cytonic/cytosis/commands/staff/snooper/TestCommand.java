@@ -32,13 +32,13 @@ class TestCommand extends CytosisCommand {
             SnooperManager snooperManager = Cytosis.get(SnooperManager.class);
             SnooperChannel realChannel = snooperManager.getChannel(Key.key(rawChannel));
             if (realChannel == null) {
-                player.whoops("The channel '" + rawChannel + "' doesn't exist!");
+                player.whoops("The channel '%s' doesn't exist!", rawChannel);
                 return;
             }
 
             String rawMessage = ctx.getRaw(message);
-            Component component = Msg.mm("<reset>" + rawMessage).appendNewline()
-                .append(Msg.mm("<reset><dark_gray><i>Sent by " + player.getUsername() + " via /snooper test"));
+            Component component = Msg.parse("<reset>" + rawMessage).appendNewline()
+                .append(Msg.mm("<reset><dark_gray><i>Sent by %s via /snooper test", player.getUsername()));
             snooperManager.sendSnoop(realChannel, Msg.snoop(component));
             player.success("Sent snoop!");
         }, SnooperCommand.CHANNELS, message);
@@ -5,12 +5,16 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 
 import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.common.Attributes;
 import lombok.NoArgsConstructor;
 import net.minestom.server.command.CommandManager;
 import net.minestom.server.entity.Player;
+import net.minestom.server.network.packet.server.CachedPacket;
 import org.jetbrains.annotations.Nullable;
 
 import net.cytonic.cytosis.Bootstrappable;
@@ -32,6 +36,12 @@ public class CommandHandler implements Bootstrappable {
 
     private final List<CytosisCommand> COMMANDS = JandexUtils.getExtendedClasses(CytosisCommand.class);
     private final Map<Class<? extends CytosisCommand>, CytosisCommand> commandMap = new HashMap<>();
+    private final List<Function<CytosisPlayer, @Nullable Object>> profileKeys = new CopyOnWriteArrayList<>();
+    // the declared commands, built once per permission profile. Replaced rather than cleared, so a packet built from
+    // the old command tree while invalidating can't end up in the new cache
+    private volatile Map<List<Object>, CachedPacket> declaredCommands = new ConcurrentHashMap<>();
+    @Nullable
+    private volatile CommandTrie trie;
 
     private CommandManager commandManager;
 
@@ -91,6 +101,7 @@ public class CommandHandler implements Bootstrappable {
 
         // special case
         commandManager.register(DummyCommand.INSTANCE);
+        invalidateCommandTree();
     }
 
     /**
@@ -107,6 +118,7 @@ public class CommandHandler implements Bootstrappable {
         commandManager.unregister(DummyCommand.INSTANCE);
         commandMap.get(parent).addSubcommands(subs);
         commandManager.register(DummyCommand.INSTANCE);
+        invalidateCommandTree();
         return true;
     }
 
@@ -117,11 +129,72 @@ public class CommandHandler implements Bootstrappable {
     }
 
     /**
-     * Sends a packet to the player to recalculate command permissions
+     * Sends a packet to the player to recalculate command permissions. The packet is built once per permission profile
+     * and shared by every player with that profile, see {@link #addProfileKey(Function)}.
      *
      * @param player The player to send the packet to
      */
     public void recalculateCommands(Player player) {
-        player.sendPacket(commandManager.createDeclareCommandsPacket(player));
+        if (!(player instanceof CytosisPlayer cytosisPlayer)) {
+            player.sendPacket(commandManager.createDeclareCommandsPacket(player));
+            return;
+        }
+        player.sendPacket(declaredCommands.computeIfAbsent(profile(cytosisPlayer),
+            _ -> new CachedPacket(commandManager.createDeclareCommandsPacket(player))));
+    }
+
+    /**
+     * Adds an input to the permission profile of players. Players with the same profile are sent the same commands, so
+     * any command condition that checks something other than the player's true rank must have its input added here.
+     * For example, a condition on party membership would add {@code CytosisPlayer::isInParty}.
+     *
+     * @param key the function supplying the input for a player
+     */
+    public void addProfileKey(Function<CytosisPlayer, @Nullable Object> key) {
+        profileKeys.add(key);
+        invalidateCommands();
+    }
+
+    /**
+     * Discards the declared commands built so far. Must be called whenever the result of a command condition changes,
+     * like when a command is enabled or disabled.
+     */
+    public void invalidateCommands() {
+        declaredCommands = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Discards the declared commands and the command index built so far. Must be called whenever the command tree
+     * changes, like when commands are registered directly with the {@link CommandManager}.
+     */
+    public void invalidateCommandTree() {
+        trie = null;
+        invalidateCommands();
+    }
+
+    /**
+     * Resolves a space separated command path, like {@code friend add}, to the command it names
+     *
+     * @param path the path of the command
+     * @return the command, or null if there is no Cytosis command at the path
+     */
+    @Nullable
+    public CytosisCommand resolve(String path) {
+        CommandTrie current = trie;
+        if (current == null) {
+            current = new CommandTrie(commandManager.getCommands());
+            trie = current;
+        }
+        return current.resolve(path);
+    }
+
+    private List<Object> profile(CytosisPlayer player) {
+        Object[] profile = new Object[profileKeys.size() + 1];
+        // every built-in command condition only checks the true rank
+        profile[0] = player.getTrueRank();
+        for (int i = 1; i < profile.length; i++) {
+            profile[i] = profileKeys.get(i - 1).apply(player);
+        }
+        return Arrays.asList(profile);
     }
 }
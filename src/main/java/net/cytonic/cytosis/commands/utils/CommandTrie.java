@@ -0,0 +1,60 @@
+package net.cytonic.cytosis.commands.utils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import net.minestom.server.command.builder.Command;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The registered commands, indexed by the names and aliases of every command and subcommand, so a command path like
+ * {@code friend add} resolves with one map lookup per part. Built from a snapshot of the command tree, so it has to be
+ * rebuilt whenever commands are registered.
+ */
+final class CommandTrie {
+
+    private final Map<String, Node> roots = new HashMap<>();
+
+    CommandTrie(Collection<Command> commands) {
+        for (Command command : commands) {
+            if (!(command instanceof CytosisCommand cytosisCommand)) continue;
+            Node node = new Node(cytosisCommand);
+            for (String name : command.getNames()) {
+                // root commands are looked up ignoring case, like the command manager does
+                roots.putIfAbsent(name.toLowerCase(Locale.ROOT), node);
+            }
+        }
+    }
+
+    /**
+     * Resolves a space separated command path
+     *
+     * @param path the path, like {@code friend add}
+     * @return the command at the path, or null if there is none
+     */
+    @Nullable
+    CytosisCommand resolve(String path) {
+        String[] parts = path.split(" ", -1);
+        Node node = roots.get(parts[0].toLowerCase(Locale.ROOT));
+        for (int i = 1; i < parts.length && node != null; i++) {
+            node = node.children.get(parts[i]);
+        }
+        return node == null ? null : node.command;
+    }
+
+    private record Node(CytosisCommand command, Map<String, Node> children) {
+
+        private Node(CytosisCommand command) {
+            this(command, new HashMap<>());
+            for (Command subcommand : command.getSubcommands()) {
+                if (!(subcommand instanceof CytosisCommand sub)) continue;
+                Node node = new Node(sub);
+                for (String name : subcommand.getNames()) {
+                    children.putIfAbsent(name, node);
+                }
+            }
+        }
+    }
+}
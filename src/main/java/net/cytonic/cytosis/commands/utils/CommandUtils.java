@@ -15,6 +15,7 @@ import net.minestom.server.utils.StringUtils;
 import net.cytonic.cytosis.CytonicNetwork;
 import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.data.enums.PlayerRank;
+import net.cytonic.cytosis.managers.PlayerDirectory;
 import net.cytonic.cytosis.nicknames.NicknameManager;
 import net.cytonic.cytosis.player.CytosisPlayer;
 import net.cytonic.cytosis.utils.Utils;
@@ -49,6 +50,7 @@ public class CommandUtils {
         }
         return player.isStaff();
     };
+    public static final int LIFETIME_SUGGESTION_LIMIT = 100;
     public static final ArgumentWord LIFETIME_PLAYERS = ArgumentType.Word("lifetime_player");
     public static final ArgumentWord NETWORK_PLAYERS = ArgumentType.Word("network_player");
     public static final ArgumentPlayer ONLINE_PLAYERS = new ArgumentPlayer();
@@ -56,11 +58,12 @@ public class CommandUtils {
     static {
         LIFETIME_PLAYERS.setSuggestionCallback((_, ctx, suggestion) -> {
             List<SuggestionEntry> options = new ArrayList<>();
-            Cytosis.get(CytonicNetwork.class).getLifetimePlayers()
-                .forEach((uuid, name) -> options.add(new SuggestionEntry(name)));
+            String input = ctx.get(LIFETIME_PLAYERS);
             Cytosis.get(NicknameManager.class).getNetworkNicknames()
                 .forEach(s -> options.add(new SuggestionEntry(s)));
-            filterEntries(ctx.get(LIFETIME_PLAYERS), options).forEach(suggestion::addEntry);
+            filterEntries(input, options).forEach(suggestion::addEntry);
+            // lifetime names are only matched by prefix, as there are far too many to filter one by one
+            completeLifetimePlayers(input).forEach(name -> suggestion.addEntry(new SuggestionEntry(name)));
         });
         NETWORK_PLAYERS.setSuggestionCallback((_, ctx, suggestion) -> {
             List<SuggestionEntry> options = new ArrayList<>();
@@ -72,6 +75,17 @@ public class CommandUtils {
         });
     }
 
+    /**
+     * Completes the names of every player who has joined the network
+     *
+     * @param input the argument input
+     * @return up to {@link #LIFETIME_SUGGESTION_LIMIT} names starting with the input
+     */
+    public static List<String> completeLifetimePlayers(String input) {
+        String prefix = input.equals("\u0000") ? "" : input;
+        return Cytosis.get(PlayerDirectory.class).complete(prefix, LIFETIME_SUGGESTION_LIMIT);
+    }
+
     public static List<SuggestionEntry> filterEntries(String input, Collection<SuggestionEntry> entries) {
         return entries.stream().filter(s -> {
             if (input.equals("\u0000")) {
@@ -14,7 +14,7 @@ public class MiniMessageCommand extends CytosisCommand {
         ArgumentStringArray stringArg = ArgumentType.StringArray("message");
         addSyntax((sender, context) -> {
             String toParse = String.join(" ", context.get(stringArg));
-            sender.sendMessage(Msg.mm(toParse));
+            sender.sendMessage(Msg.parse(toParse));
         }, stringArg);
     }
 
@@ -95,11 +95,21 @@ public record CytosisConfig(
         }
     }
 
+    /**
+     * @param dispatchers   the number of dispatchers subscriptions are sharded across
+     * @param queueCapacity the number of messages each dispatcher queues before applying the overflow policy
+     * @param bufferSize    the number of publishes and requests held while disconnected
+     * @param bufferSeconds how long publishes and requests are held while disconnected before being dropped
+     */
     public record NatsConfig(
         @Env String host,
         @Env int port,
         @Env String username,
-        @Env String password
+        @Env String password,
+        @Env int dispatchers,
+        @Env int queueCapacity,
+        @Env int bufferSize,
+        @Env int bufferSeconds
     ) {
 
         public static final Codec<NatsConfig> CODEC = StructCodec.struct(
@@ -107,6 +117,10 @@ public record CytosisConfig(
             "port", Codec.INT, NatsConfig::port,
             "username", Codec.STRING, NatsConfig::username,
             "password", Codec.STRING, NatsConfig::password,
+            "dispatchers", Codec.INT.optional(4), NatsConfig::dispatchers,
+            "queue_capacity", Codec.INT.optional(8192), NatsConfig::queueCapacity,
+            "buffer_size", Codec.INT.optional(1024), NatsConfig::bufferSize,
+            "buffer_seconds", Codec.INT.optional(30), NatsConfig::bufferSeconds,
             NatsConfig::new
         );
     }
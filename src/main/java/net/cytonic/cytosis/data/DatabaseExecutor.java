@@ -0,0 +1,109 @@
+package net.cytonic.cytosis.data;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+
+import net.cytonic.cytosis.logging.Logger;
+import net.cytonic.cytosis.metrics.Metrics;
+import net.cytonic.cytosis.metrics.BoundMetric;
+
+/**
+ * Runs database work on a fixed number of serial lanes, sized to the connection pool. Work for the same player always
+ * runs on the same lane, so their writes keep their order while different players are handled in parallel.
+ */
+public class DatabaseExecutor {
+
+    private final ExecutorService[] lanes;
+    private final AtomicInteger nextLane = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final BoundMetric queueWait;
+    private final BoundMetric executionTime;
+
+    /**
+     * Creates a new executor
+     *
+     * @param name     the name of the worker threads
+     * @param database the database name attached to the recorded metrics
+     * @param lanes    the number of lanes, usually the maximum size of the connection pool
+     */
+    public DatabaseExecutor(String name, String database, int lanes) {
+        this.lanes = new ExecutorService[lanes];
+        Attributes attributes = Attributes.of(AttributeKey.stringKey("database"), database);
+        this.queueWait = new BoundMetric(Metrics.DATABASE_QUEUE_WAIT, attributes);
+        this.executionTime = new BoundMetric(Metrics.DATABASE_EXECUTION_TIME, attributes);
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = Executors.newSingleThreadExecutor(Thread.ofVirtual().name(name + "-" + i)
+                .uncaughtExceptionHandler(
+                    (t, e) -> Logger.error("An uncaught exception occurred on the database worker thread: "
+                        + t.getName(), e)).factory());
+        }
+    }
+
+    /**
+     * Submits work that must stay ordered with the other work of a player
+     *
+     * @param key  the player the work belongs to
+     * @param task the work
+     */
+    public void submit(UUID key, Runnable task) {
+        execute(lanes[Math.floorMod(key.hashCode(), lanes.length)], task);
+    }
+
+    /**
+     * Submits work that doesn't belong to a player, and may run on any lane
+     *
+     * @param task the work
+     */
+    public void submit(Runnable task) {
+        execute(lanes[Math.floorMod(nextLane.getAndIncrement(), lanes.length)], task);
+    }
+
+    /**
+     * Gets the amount of submitted work that hasn't started yet
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * Stops accepting work and waits a short while for queued work to finish
+     */
+    public void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        try {
+            for (ExecutorService lane : lanes) {
+                if (!lane.awaitTermination(5, TimeUnit.SECONDS)) {
+                    Logger.warn("Timed out waiting for the database workers to finish!");
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void execute(ExecutorService lane, Runnable task) {
+        long submitted = System.nanoTime();
+        queued.incrementAndGet();
+        lane.execute(() -> {
+            queued.decrementAndGet();
+            long started = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                queueWait.record((started - submitted) / 1e6);
+                executionTime.record((System.nanoTime() - started) / 1e6);
+            }
+        });
+    }
+}
@@ -7,8 +7,6 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
@@ -32,7 +30,7 @@ import net.cytonic.cytosis.logging.Logger;
 @CytosisComponent
 public class EnvironmentDatabase implements Bootstrappable {
 
-    private final ExecutorService worker;
+    private final DatabaseExecutor worker;
     @Getter
     private HikariDataSource dataSource;
 
@@ -41,10 +39,8 @@ public class EnvironmentDatabase implements Bootstrappable {
      */
     public EnvironmentDatabase() {
         String prefix = Cytosis.get(Environment.class).getPrefix();
-        this.worker = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("CytosisDatabaseWorker")
-            .uncaughtExceptionHandler(
-                (t, e) -> Logger.error("An uncaught exception occurred on the database worker thread: " + t.getName(),
-                    e)).factory());
+        this.worker = new DatabaseExecutor("CytosisEnvironmentDatabaseWorker", "environment",
+            GlobalDatabase.POOL_SIZE);
     }
 
     @Override
@@ -55,9 +51,19 @@ public class EnvironmentDatabase implements Bootstrappable {
 
     @Override
     public void shutdown() {
+        worker.shutdown();
         disconnect();
     }
 
+    /**
+     * Gets the amount of queued database work
+     *
+     * @return the amount of queued work
+     */
+    public int getQueueDepth() {
+        return worker.getQueueDepth();
+    }
+
     /**
      * Connects to the database, blocking until completed
      */
@@ -141,7 +147,7 @@ public class EnvironmentDatabase implements Bootstrappable {
     public void logPlayerJoin(UUID uuid, SocketAddress ip) {
         checkConditions();
 
-        worker.submit(() -> {
+        worker.submit(uuid, () -> {
             try (Connection conn = getConnection()) {
                 PreparedStatement ps = conn.prepareStatement(
                     "INSERT INTO cytonic_player_joins (joined, uuid, ip) VALUES (CURRENT_TIMESTAMP,?,?)");
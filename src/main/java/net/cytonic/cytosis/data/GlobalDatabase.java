@@ -1,19 +1,24 @@
 package net.cytonic.cytosis.data;
 
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
@@ -43,7 +48,15 @@ import net.cytonic.cytosis.utils.Utils;
 @CytosisComponent
 public class GlobalDatabase implements Bootstrappable {
 
-    private final ExecutorService worker;
+    static final int POOL_SIZE = 10; // Adjust depending on our needs
+    private static final long PREFERENCE_DEBOUNCE_MILLIS = 2_000;
+    private static final String UNDEFINED_TABLE = "42P01";
+
+    private final DatabaseExecutor worker;
+    private final WriteBehindQueue writeBehind;
+    private final WriteBehindQueue.Upsert preferenceWrites;
+    // friendship writes that haven't finished, by both of their players
+    private final Map<UUID, CompletableFuture<Void>> friendshipWrites = new ConcurrentHashMap<>();
     @Getter
     private HikariDataSource dataSource;
 
@@ -51,9 +64,12 @@ public class GlobalDatabase implements Bootstrappable {
      * Creates and initializes a new Global Database
      */
     public GlobalDatabase() {
-        this.worker = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("CytosisDatabaseWorker")
-            .uncaughtExceptionHandler(
-                (t, e) -> Logger.error("An uncaught exception occurred on the thread: " + t.getName(), e)).factory());
+        this.worker = new DatabaseExecutor("CytosisDatabaseWorker", "global", POOL_SIZE);
+        this.writeBehind = new WriteBehindQueue(this::getConnection);
+        this.preferenceWrites = writeBehind.register("cytonic_preferences", """
+            INSERT INTO cytonic_preferences (uuid, preferences)
+            VALUES (?, ?) ON CONFLICT (uuid) DO UPDATE SET preferences = EXCLUDED.preferences
+            """, PREFERENCE_DEBOUNCE_MILLIS);
     }
 
     protected static HikariConfig getHikariConfig() {
@@ -68,7 +84,7 @@ public class GlobalDatabase implements Bootstrappable {
 
         // HikariCP optimizations
         config.setDriverClassName("org.postgresql.Driver");
-        config.setMaximumPoolSize(10); // Adjust depending on our needs
+        config.setMaximumPoolSize(POOL_SIZE);
         config.setMinimumIdle(2);
         config.setConnectionTimeout(30000); // 30 seconds
         config.setIdleTimeout(600000); // 10 minutes
@@ -92,13 +108,25 @@ public class GlobalDatabase implements Bootstrappable {
     public void init() {
         connect();
         createTables();
+        writeBehind.start();
     }
 
     @Override
     public void shutdown() {
+        worker.shutdown();
+        writeBehind.shutdown();
         disconnect();
     }
 
+    /**
+     * Gets the amount of queued database work, including rows waiting to be written
+     *
+     * @return the amount of queued work
+     */
+    public int getQueueDepth() {
+        return worker.getQueueDepth() + writeBehind.getPending();
+    }
+
     /**
      * Connects to the database, blocking until completed
      */
@@ -167,14 +195,19 @@ public class GlobalDatabase implements Bootstrappable {
             "CREATE INDEX IF NOT EXISTS idx_bans_expiry ON cytonic_bans(to_expire)",
             "CREATE INDEX IF NOT EXISTS idx_mutes_expiry ON cytonic_mutes(to_expire)",
             "CREATE INDEX IF NOT EXISTS idx_players_name ON cytonic_players(name)",
+            "CREATE INDEX IF NOT EXISTS idx_players_name_lower ON cytonic_players(lower(name))",
         };
 
-        for (String sql : indexes) {
-            try (PreparedStatement ps = getConnection().prepareStatement(sql)) {
-                ps.execute();
-            } catch (Exception e) {
-                Logger.error("Failed to create index", e);
+        try (Connection conn = getConnection()) {
+            for (String sql : indexes) {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.execute();
+                } catch (SQLException e) {
+                    Logger.error("Failed to create index", e);
+                }
             }
+        } catch (SQLException e) {
+            Logger.error("Failed to create the indexes", e);
         }
     }
 
@@ -251,20 +284,100 @@ public class GlobalDatabase implements Bootstrappable {
         }
     }
 
+    /**
+     * Creates the friendships table. Each friendship is stored as two rows, one in each direction, so the friends of a
+     * player are a primary key range scan.
+     */
     public void createFriendTable() {
         try (Connection conn = getConnection()) {
             conn.prepareStatement("""
-                CREATE TABLE IF NOT EXISTS cytonic_friends (
+                CREATE TABLE IF NOT EXISTS cytonic_friendships (
                     uuid UUID,
-                    friends TEXT,
-                    PRIMARY KEY (uuid)
+                    friend UUID,
+                    PRIMARY KEY (uuid, friend)
                 )
                 """).executeUpdate();
         } catch (SQLException e) {
-            Logger.error("An error occurred whilst creating the \"cytonic_friends\" table.", e);
+            Logger.error("An error occurred whilst creating the \"cytonic_friendships\" table.", e);
+            return;
+        }
+        migrateFriends();
+    }
+
+    /**
+     * Moves the friends stored as JSON sets in the old {@code cytonic_friends} table into friendship rows. The old
+     * table is renamed to {@code cytonic_friends_migrated} in the same transaction, so the migration only runs once,
+     * even if several servers start at the same time.
+     */
+    private void migrateFriends() {
+        try (Connection conn = getConnection()) {
+            if (!friendsTableExists(conn)) return;
+
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement lock = conn.prepareStatement(
+                    "LOCK TABLE cytonic_friends IN ACCESS EXCLUSIVE MODE")) {
+                    lock.execute();
+                }
+                // a server that held the lock before us has migrated and renamed the table by now
+                if (!friendsTableExists(conn)) {
+                    conn.rollback();
+                    return;
+                }
+                int friendships = 0;
+                try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO cytonic_friendships (uuid, friend) VALUES (?, ?), (?, ?) ON CONFLICT DO NOTHING");
+                     PreparedStatement select = conn.prepareStatement("SELECT uuid, friends FROM cytonic_friends");
+                     ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        UUID uuid = UUID.fromString(rs.getString("uuid"));
+                        String json = rs.getString("friends");
+                        Set<UUID> friends = json == null ? null : Utils.parseJson(json, Utils.UUID_SET_SAFE);
+                        if (friends == null) continue;
+                        for (UUID friend : friends) {
+                            if (friend.equals(uuid)) continue;
+                            bindFriendship(insert, uuid, friend);
+                            insert.addBatch();
+                            friendships++;
+                        }
+                    }
+                    insert.executeBatch();
+                }
+                try (PreparedStatement rename = conn.prepareStatement(
+                    "ALTER TABLE cytonic_friends RENAME TO cytonic_friends_migrated")) {
+                    rename.execute();
+                }
+                conn.commit();
+                Logger.info("Migrated %d friendships to the \"cytonic_friendships\" table.", friendships);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            if (UNDEFINED_TABLE.equals(e.getSQLState())) {
+                Logger.info("The \"cytonic_friends\" table was already migrated by another server.");
+                return;
+            }
+            Logger.error("An error occurred whilst migrating the \"cytonic_friends\" table.", e);
+        }
+    }
+
+    private static boolean friendsTableExists(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT to_regclass('cytonic_friends') IS NOT NULL");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() && rs.getBoolean(1);
         }
     }
 
+    private static void bindFriendship(PreparedStatement ps, UUID player, UUID friend) throws SQLException {
+        ps.setObject(1, player);
+        ps.setObject(2, friend);
+        ps.setObject(3, friend);
+        ps.setObject(4, player);
+    }
+
     /**
      * Creates the bans table
      */
@@ -291,7 +404,7 @@ public class GlobalDatabase implements Bootstrappable {
      */
     public CompletableFuture<Void> mutePlayer(UUID uuid, Instant toExpire) {
         CompletableFuture<Void> future = new CompletableFuture<>();
-        worker.submit(() -> {
+        worker.submit(uuid, () -> {
             if (!isConnected()) {
                 throw new IllegalStateException("The database must be connected to mute players.");
             }
@@ -322,7 +435,7 @@ public class GlobalDatabase implements Bootstrappable {
             throw new IllegalStateException("The database must be connected.");
         }
         CompletableFuture<Boolean> future = new CompletableFuture<>();
-        worker.submit(() -> {
+        worker.submit(uuid, () -> {
             try (Connection conn = getConnection()) {
                 PreparedStatement ps = conn.prepareStatement("SELECT * FROM cytonic_mutes WHERE uuid = ?");
                 ps.setObject(1, uuid);
@@ -357,7 +470,7 @@ public class GlobalDatabase implements Bootstrappable {
             throw new IllegalStateException("The database must be connected.");
         }
         CompletableFuture<Void> future = new CompletableFuture<>();
-        worker.submit(() -> {
+        worker.submit(uuid, () -> {
             try (Connection conn = getConnection()) {
                 Cytosis.get(CytonicNetwork.class).getMutedPlayers().remove(uuid);
                 PreparedStatement ps = conn.prepareStatement("DELETE FROM cytonic_mutes WHERE uuid = ?");
@@ -385,7 +498,7 @@ public class GlobalDatabase implements Bootstrappable {
         if (!isConnected()) {
             throw new IllegalStateException("The database must have an open connection to fetch a player's rank!");
         }
-        worker.submit(() -> {
+        worker.submit(uuid, () -> {
             try (Connection conn = getConnection()) {
                 PreparedStatement ps = conn.prepareStatement("SELECT \"rank\" FROM cytonic_players WHERE uuid = ?");
                 ps.setObject(1, uuid);
@@ -416,7 +529,7 @@ public class GlobalDatabase implements Bootstrappable {
             throw new IllegalStateException("The database must have an open connection to set a player's rank!");
         }
         CompletableFuture<Void> future = new CompletableFuture<>();
-        worker.submit(() -> {
+        worker.submit(uuid, () -> {
             try (Connection conn = getConnection()) {
                 PreparedStatement ps = conn.prepareStatement("""
                     INSERT INTO cytonic_players (uuid, "rank")
@@ -449,7 +562,7 @@ public class GlobalDatabase implements Bootstrappable {
     public CompletableFuture<Void> banPlayer(UUID uuid, String reason, Instant toExpire) {
         CompletableFuture<Void> future = new CompletableFuture<>();
 
-        worker.submit(() -> {
+        worker.submit(uuid, () -> {
             if (!isConnected()) {
                 throw new IllegalStateException("The database must be connected to ban players.");
             }
@@ -486,7 +599,7 @@ public class GlobalDatabase implements Bootstrappable {
             throw new IllegalStateException("The database must be connected.");
         }
         CompletableFuture<BanData> future = new CompletableFuture<>();
-        worker.submit(() -> {
+        worker.submit(uuid, () -> {
             try (Connection conn = getConnection()) {
                 PreparedStatement ps = conn.prepareStatement("SELECT * FROM cytonic_bans WHERE uuid = ?");
                 ps.setObject(1, uuid);
@@ -528,7 +641,7 @@ public class GlobalDatabase implements Bootstrappable {
             throw new IllegalStateException("The database must be connected.");
         }
         CompletableFuture<Void> future = new CompletableFuture<>();
-        worker.submit(() -> {
+        worker.submit(uuid, () -> {
             try (Connection conn = getConnection()) {
                 PreparedStatement ps = conn.prepareStatement("DELETE FROM cytonic_bans WHERE uuid = ?");
                 ps.setObject(1, uuid);
@@ -587,7 +700,7 @@ public class GlobalDatabase implements Bootstrappable {
             throw new IllegalStateException("The database must be connected.");
         }
         CompletableFuture<Void> future = new CompletableFuture<>();
-        worker.submit(() -> {
+        worker.submit(player.getUuid(), () -> {
             try (Connection conn = getConnection()) {
                 PreparedStatement ps = conn.prepareStatement("""
                     INSERT INTO cytonic_players (name, uuid, "rank", last_seen, first_join)
@@ -607,50 +720,289 @@ public class GlobalDatabase implements Bootstrappable {
         return future;
     }
 
-    public List<PlayerEntry> loadPlayers() {
-        List<PlayerEntry> list = new ArrayList<>();
+    /**
+     * Looks up a player by UUID
+     *
+     * @param uuid the player's UUID
+     * @return the player's name and rank, or null if they have never joined
+     */
+    @Blocking
+    @Nullable
+    public DirectoryEntry findPlayer(UUID uuid) {
+        try (Connection conn = getConnection()) {
+            PreparedStatement ps = conn.prepareStatement(
+                "SELECT uuid, name, \"rank\" FROM cytonic_players WHERE uuid = ?");
+            ps.setObject(1, uuid);
+            return readDirectoryEntry(ps.executeQuery());
+        } catch (SQLException e) {
+            throw new RuntimeException("An error occurred whilst looking up the player " + uuid + "!", e);
+        }
+    }
+
+    /**
+     * Looks up a player by name, ignoring case
+     *
+     * @param name the player's name
+     * @return the player's UUID and rank, or null if no player by that name has joined
+     */
+    @Blocking
+    @Nullable
+    public DirectoryEntry findPlayer(String name) {
+        try (Connection conn = getConnection()) {
+            // matches idx_players_name_lower
+            PreparedStatement ps = conn.prepareStatement(
+                "SELECT uuid, name, \"rank\" FROM cytonic_players WHERE lower(name) = lower(?) "
+                    + "ORDER BY last_seen DESC NULLS LAST LIMIT 1");
+            ps.setString(1, name);
+            return readDirectoryEntry(ps.executeQuery());
+        } catch (SQLException e) {
+            throw new RuntimeException("An error occurred whilst looking up the player " + name + "!", e);
+        }
+    }
+
+    /**
+     * Looks up many players by UUID in a single query
+     *
+     * @param uuids the players' UUIDs
+     * @return the entries of the players who have joined before, by UUID
+     */
+    @Blocking
+    public Map<UUID, DirectoryEntry> findPlayers(Collection<UUID> uuids) {
+        Map<UUID, DirectoryEntry> entries = new HashMap<>();
+        if (uuids.isEmpty()) return entries;
+        try (Connection conn = getConnection()) {
+            PreparedStatement ps = conn.prepareStatement(
+                "SELECT uuid, name, \"rank\" FROM cytonic_players WHERE uuid = ANY(?::uuid[])");
+            ps.setArray(1, conn.createArrayOf("uuid", uuids.toArray()));
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                String name = rs.getString("name");
+                if (name == null) continue;
+                String rank = rs.getString("rank");
+                UUID uuid = UUID.fromString(rs.getString("uuid"));
+                entries.put(uuid, new DirectoryEntry(uuid, name,
+                    rank == null ? PlayerRank.DEFAULT : PlayerRank.valueOf(rank)));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("An error occurred whilst looking up " + uuids.size() + " players!", e);
+        }
+        return entries;
+    }
+
+    /**
+     * Looks up a player by UUID, without blocking the caller
+     *
+     * @param uuid the player's UUID
+     * @return a future completing with the player's name and rank, or null if they have never joined
+     */
+    public CompletableFuture<DirectoryEntry> findPlayerAsync(UUID uuid) {
+        CompletableFuture<DirectoryEntry> future = new CompletableFuture<>();
+        worker.submit(uuid, () -> {
+            try {
+                future.complete(findPlayer(uuid));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Looks up a player by name, ignoring case, without blocking the caller
+     *
+     * @param name the player's name
+     * @return a future completing with the player's UUID and rank, or null if no player by that name has joined
+     */
+    public CompletableFuture<DirectoryEntry> findPlayerAsync(String name) {
+        CompletableFuture<DirectoryEntry> future = new CompletableFuture<>();
+        worker.submit(() -> {
+            try {
+                future.complete(findPlayer(name));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Looks up many players by UUID in a single query, without blocking the caller
+     *
+     * @param uuids the players' UUIDs
+     * @return a future completing with the entries of the players who have joined before, by UUID
+     */
+    public CompletableFuture<Map<UUID, DirectoryEntry>> findPlayersAsync(Collection<UUID> uuids) {
+        if (uuids.isEmpty()) return CompletableFuture.completedFuture(new HashMap<>());
+        CompletableFuture<Map<UUID, DirectoryEntry>> future = new CompletableFuture<>();
+        worker.submit(() -> {
+            try {
+                future.complete(findPlayers(uuids));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    @Nullable
+    private DirectoryEntry readDirectoryEntry(ResultSet rs) throws SQLException {
+        if (!rs.next() || rs.getString("name") == null) return null;
+        String rank = rs.getString("rank");
+        return new DirectoryEntry(UUID.fromString(rs.getString("uuid")), rs.getString("name"),
+            rank == null ? PlayerRank.DEFAULT : PlayerRank.valueOf(rank));
+    }
+
+    /**
+     * Loads a page of every player who has joined, in UUID order
+     *
+     * @param after the last UUID of the previous page, or null for the first page
+     * @param limit the maximum size of the page
+     * @return the players following {@code after}
+     */
+    @Blocking
+    public List<IndexedPlayer> loadDirectoryPage(@Nullable UUID after, int limit) {
+        List<IndexedPlayer> players = new ArrayList<>();
+        try (Connection conn = getConnection()) {
+            // keyset pagination over the primary key
+            PreparedStatement ps = conn.prepareStatement(
+                "SELECT uuid, name, \"rank\", last_seen FROM cytonic_players WHERE uuid > ? ORDER BY uuid LIMIT ?");
+            ps.setObject(1, after == null ? new UUID(0, 0) : after); // the nil UUID sorts first
+            ps.setInt(2, limit);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                UUID uuid = UUID.fromString(rs.getString("uuid"));
+                String name = rs.getString("name");
+                if (name == null) {
+                    // still advance the page past it
+                    players.add(new IndexedPlayer(uuid, null, PlayerRank.DEFAULT, Long.MIN_VALUE));
+                    continue;
+                }
+                String rank = rs.getString("rank");
+                Timestamp lastSeen = rs.getTimestamp("last_seen");
+                players.add(new IndexedPlayer(uuid, name, rank == null ? PlayerRank.DEFAULT : PlayerRank.valueOf(rank),
+                    lastSeen == null ? Long.MIN_VALUE : lastSeen.getTime()));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("An error occurred whilst loading the player directory!", e);
+        }
+        return players;
+    }
+
+    /**
+     * Deletes every expired ban and mute, then loads the punishments that are still active
+     *
+     * @return a future completing with the active punishments
+     */
+    public CompletableFuture<ActivePunishments> sweepPunishments() {
+        if (!isConnected()) {
+            throw new IllegalStateException("The database must be connected.");
+        }
+        CompletableFuture<ActivePunishments> future = new CompletableFuture<>();
+        worker.submit(() -> {
+            try (Connection conn = getConnection()) {
+                // to_expire holds Instant#toString, which sorts like the instant itself, except that fractions sort
+                // before the 'Z' of a whole second. Comparing against the second before the current one keeps every
+                // match in the past, and lets idx_bans_expiry and idx_mutes_expiry serve the range.
+                String cutoff = Instant.now().truncatedTo(ChronoUnit.SECONDS).minusSeconds(1).toString();
+                PreparedStatement bans = conn.prepareStatement(
+                    "DELETE FROM cytonic_bans WHERE to_expire < ? RETURNING uuid");
+                bans.setString(1, cutoff);
+                ResultSet expired = bans.executeQuery();
+                RedisDatabase redis = Cytosis.get(RedisDatabase.class);
+                while (expired.next()) {
+                    redis.removeFromGlobalHash("banned_players", expired.getString("uuid"));
+                }
+                PreparedStatement mutes = conn.prepareStatement("DELETE FROM cytonic_mutes WHERE to_expire < ?");
+                mutes.setString(1, cutoff);
+                mutes.executeUpdate();
+
+                Map<UUID, BanData> active = new HashMap<>();
+                ResultSet rs = conn.prepareStatement("SELECT uuid, reason, to_expire FROM cytonic_bans")
+                    .executeQuery();
+                while (rs.next()) {
+                    active.put(UUID.fromString(rs.getString("uuid")),
+                        new BanData(rs.getString("reason"), Instant.parse(rs.getString("to_expire")), true));
+                }
+                Set<UUID> muted = new HashSet<>();
+                rs = conn.prepareStatement("SELECT uuid FROM cytonic_mutes").executeQuery();
+                while (rs.next()) {
+                    muted.add(UUID.fromString(rs.getString("uuid")));
+                }
+                future.complete(new ActivePunishments(active, muted));
+            } catch (SQLException e) {
+                Logger.error("An error occurred whilst sweeping expired punishments!", e);
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Loads the rank, ban, mute, friends and preferences of every given player in a single round trip
+     *
+     * @param players the players to load
+     * @return the loaded rows, keyed by UUID. Every requested player has an entry, even if they have no data stored.
+     */
+    @Blocking
+    public Map<UUID, ProfileEntry> loadProfiles(Collection<UUID> players) {
+        Map<UUID, ProfileEntry> profiles = new HashMap<>();
+        writeBehind.flush(players);
+        CompletableFuture.allOf(players.stream().map(this::pendingFriendshipWrites)
+            .toArray(CompletableFuture[]::new)).join();
         try (Connection conn = getConnection()) {
-            ResultSet rs = conn.prepareStatement("""
+            PreparedStatement ps = conn.prepareStatement("""
                 SELECT
-                    p.uuid,
-                    p.name,
+                    q.uuid,
                     p.rank,
                     b.reason as ban_reason,
                     b.to_expire as ban_expiry,
-                    m.to_expire as mute_expiry
-                FROM cytonic_players p
-                LEFT JOIN cytonic_bans b ON p.uuid = b.uuid
-                LEFT JOIN cytonic_mutes m ON p.uuid = m.uuid
-                """).executeQuery();
+                    m.to_expire as mute_expiry,
+                    f.friends,
+                    pr.preferences
+                FROM unnest(?::uuid[]) AS q(uuid)
+                LEFT JOIN cytonic_players p ON p.uuid = q.uuid
+                LEFT JOIN cytonic_bans b ON b.uuid = q.uuid
+                LEFT JOIN cytonic_mutes m ON m.uuid = q.uuid
+                LEFT JOIN LATERAL (
+                    SELECT array_agg(fs.friend) AS friends FROM cytonic_friendships fs WHERE fs.uuid = q.uuid
+                ) f ON true
+                LEFT JOIN cytonic_preferences pr ON pr.uuid = q.uuid
+                """);
+            ps.setArray(1, conn.createArrayOf("uuid", players.toArray()));
+            ResultSet rs = ps.executeQuery();
             while (rs.next()) {
                 UUID uuid = UUID.fromString(rs.getString("uuid"));
-                String name = rs.getString("name");
-                PlayerRank rank = PlayerRank.valueOf(rs.getString("rank"));
+                String rank = rs.getString("rank");
 
-                // Ban data (if exists)
                 BanData banData = null;
-                String banReason = rs.getString("ban_reason");
-                if (banReason != null) {
-                    Instant banExpiry = Instant.parse(rs.getString("ban_expiry"));
-                    banData = new BanData(banReason, banExpiry, true);
+                String banExpiry = rs.getString("ban_expiry");
+                if (banExpiry != null) {
+                    banData = new BanData(rs.getString("ban_reason"), Instant.parse(banExpiry), true);
                 }
 
-                Instant muteExpiry = null;
-                if (rs.getString("mute_expiry") != null) {
-                    muteExpiry = Instant.parse(rs.getString("mute_expiry"));
-                }
+                String muteExpiry = rs.getString("mute_expiry");
+                Array friends = rs.getArray("friends");
+                String preferences = rs.getString("preferences");
 
-                list.add(new PlayerEntry(uuid, name, rank, banData, muteExpiry));
+                profiles.put(uuid, new ProfileEntry(
+                    uuid,
+                    rank == null ? null : PlayerRank.valueOf(rank),
+                    banData,
+                    muteExpiry == null ? null : Instant.parse(muteExpiry),
+                    friends == null ? null : new HashSet<>(Arrays.asList((UUID[]) friends.getArray())),
+                    preferences == null ? null : PreferenceData.deserialize(preferences)
+                ));
             }
         } catch (SQLException e) {
-            Logger.error("An error occurred whilst loading players!", e);
+            throw new RuntimeException("An error occurred whilst loading player profiles!", e);
         }
-        return list;
+        return profiles;
     }
 
     @Blocking
     @Nullable
     public PreferenceData loadPlayerPreferences(UUID player) {
+        preferenceWrites.flush(player);
         try (Connection conn = getConnection()) {
             PreparedStatement load = conn.prepareStatement(
                 "SELECT * FROM cytonic_preferences WHERE uuid = ?");
@@ -666,77 +1018,160 @@ public class GlobalDatabase implements Bootstrappable {
         }
     }
 
+    /**
+     * Loads a player's friends, once the friendship writes involving them have finished
+     *
+     * @param player the player
+     * @return a future completing with the player's friends
+     */
     public CompletableFuture<Set<UUID>> loadFriends(UUID player) {
         CompletableFuture<Set<UUID>> future = new CompletableFuture<>();
-        worker.submit(() -> {
+        pendingFriendshipWrites(player).whenComplete((_, _) -> worker.submit(player, () -> {
             try (Connection conn = getConnection()) {
                 PreparedStatement ps = conn.prepareStatement(
-                    "SELECT * FROM cytonic_friends WHERE uuid = ?");
+                    "SELECT friend FROM cytonic_friendships WHERE uuid = ?");
                 ps.setObject(1, player);
                 ResultSet rs = ps.executeQuery();
-                if (rs.next()) {
-                    future.complete(Objects.requireNonNullElse(
-                        Utils.parseJson(rs.getString("friends"), Utils.UUID_SET_SAFE),
-                        Set.of()
-                    ));
-                } else {
-                    future.complete(new HashSet<>());
+                Set<UUID> friends = new HashSet<>();
+                while (rs.next()) {
+                    friends.add(rs.getObject("friend", UUID.class));
                 }
+                future.complete(friends);
             } catch (Exception exception) {
                 future.completeExceptionally(exception);
             }
-        });
+        }));
         return future;
     }
 
-    public void updateFriends(UUID player, Set<UUID> friends) {
-        worker.submit(() -> {
-
+    /**
+     * Stores a friendship, inserting both directions in one statement
+     *
+     * @param player the player
+     * @param friend the friend
+     */
+    public void addFriendship(UUID player, UUID friend) {
+        if (player.equals(friend)) return; // prevent self as a friend somehow
+        submitFriendshipWrite(player, friend, () -> {
             try (Connection conn = getConnection()) {
-                PreparedStatement ps = conn.prepareStatement("""
-                    INSERT INTO cytonic_friends (uuid, friends)
-                    VALUES (?, ?) ON CONFLICT (uuid) DO UPDATE SET friends = EXCLUDED.friends
-                    """);
-                friends.remove(player); // prevent self as a friend somehow
-                ps.setObject(1, player);
-                ps.setString(2, Utils.toJson(friends, Utils.UUID_SET));
+                PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO cytonic_friendships (uuid, friend) VALUES (?, ?), (?, ?) ON CONFLICT DO NOTHING");
+                bindFriendship(ps, player, friend);
                 ps.executeUpdate();
-            } catch (Exception e) {
-                Logger.error("Failed to persist friend data!", e);
+            } catch (SQLException e) {
+                Logger.error("An error occurred whilst adding the friendship of " + player + " and " + friend + ".", e);
             }
         });
     }
 
-    public void addNewPlayerPreferences(UUID player, PreferenceData data) {
-        worker.submit(() -> {
+    /**
+     * Deletes a friendship, removing both directions in one statement
+     *
+     * @param player the player
+     * @param friend the friend
+     */
+    public void removeFriendship(UUID player, UUID friend) {
+        submitFriendshipWrite(player, friend, () -> {
             try (Connection conn = getConnection()) {
                 PreparedStatement ps = conn.prepareStatement(
-                    "INSERT INTO cytonic_preferences VALUES(?,?)");
-                ps.setObject(1, player);
-                ps.setString(2, data.serialize());
+                    "DELETE FROM cytonic_friendships WHERE (uuid, friend) IN ((?, ?), (?, ?))");
+                bindFriendship(ps, player, friend);
                 ps.executeUpdate();
-            } catch (Exception e) {
-                Logger.error("An error occurred whilst adding a new player's preferences!", e);
+            } catch (SQLException e) {
+                Logger.error("An error occurred whilst removing the friendship of " + player + " and " + friend + ".",
+                    e);
             }
         });
     }
 
-    public void persistPlayerPreferences(UUID player, PreferenceData data) {
-        worker.submit(() -> {
-            try (Connection conn = getConnection()) {
-                PreparedStatement ps = conn.prepareStatement(
-                    "UPDATE cytonic_preferences SET preferences = ? WHERE uuid = ?");
-                ps.setString(1, data.serialize());
-                ps.setObject(2, player);
-                ps.executeUpdate();
-            } catch (Exception e) {
-                Logger.error("An error occurred whilst adding a new player's preferences!", e);
+    /**
+     * Runs a friendship write on the lane shared by both directions of the friendship, so adding and removing it stay
+     * in order. Until it finishes, the write is tracked for both players, so loads of either player's friends see it.
+     */
+    private void submitFriendshipWrite(UUID player, UUID friend, Runnable write) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        trackFriendshipWrite(player, done);
+        trackFriendshipWrite(friend, done);
+        worker.submit(friendshipKey(player, friend), () -> {
+            try {
+                write.run();
+            } finally {
+                done.complete(null);
             }
         });
     }
 
-    public record PlayerEntry(UUID uuid, String username, PlayerRank rank, @Nullable BanData banData,
-                              @Nullable Instant muteExpiry) {
+    private void trackFriendshipWrite(UUID player, CompletableFuture<Void> write) {
+        CompletableFuture<Void> pending = friendshipWrites.merge(player, write, CompletableFuture::allOf);
+        pending.whenComplete((_, _) -> friendshipWrites.remove(player, pending));
+    }
+
+    private CompletableFuture<Void> pendingFriendshipWrites(UUID player) {
+        return friendshipWrites.getOrDefault(player, CompletableFuture.completedFuture(null));
+    }
+
+    private static UUID friendshipKey(UUID player, UUID friend) {
+        return player.compareTo(friend) < 0 ? player : friend;
+    }
+
+    /**
+     * Queues the initial preferences of a player. The write is coalesced with any later preference writes.
+     *
+     * @param player the player
+     * @param data   the player's preferences
+     */
+    public void addNewPlayerPreferences(UUID player, PreferenceData data) {
+        persistPlayerPreferences(player, data);
+    }
+
+    /**
+     * Marks a player's preferences as changed. They are serialized and written once the player stops changing them for
+     * a moment, so a burst of changes costs a single write.
+     *
+     * @param player the player
+     * @param data   the player's preferences
+     */
+    public void persistPlayerPreferences(UUID player, PreferenceData data) {
+        preferenceWrites.queue(player, data::serialize);
+    }
+
+    /**
+     * Determines if a player has preference changes that haven't been written yet
+     *
+     * @param player the player
+     * @return if the player's preferences are dirty
+     */
+    public boolean hasPendingPreferences(UUID player) {
+        return preferenceWrites.isPending(player);
+    }
+
+    /**
+     * Writes a player's pending preference changes without waiting for the debounce window
+     *
+     * @param player the player
+     */
+    public void flushPlayerPreferences(UUID player) {
+        worker.submit(player, () -> preferenceWrites.flush(player));
+    }
+
+    public record DirectoryEntry(UUID uuid, String name, PlayerRank rank) {
+
+    }
+
+    /**
+     * A row of the player directory, with the name null if the player never had one stored
+     */
+    public record IndexedPlayer(UUID uuid, @Nullable String name, PlayerRank rank, long lastSeen) {
+
+    }
+
+    public record ActivePunishments(Map<UUID, BanData> bans, Set<UUID> mutes) {
+
+    }
+
+    public record ProfileEntry(UUID uuid, @Nullable PlayerRank rank, @Nullable BanData banData,
+                               @Nullable Instant muteExpiry, @Nullable Set<UUID> friends,
+                               @Nullable PreferenceData preferences) {
 
     }
 }
@@ -1,12 +1,31 @@
 package net.cytonic.cytosis.data;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import redis.clients.jedis.AbstractPipeline;
 import redis.clients.jedis.DefaultJedisClientConfig;
 import redis.clients.jedis.RedisClient;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
 
 import net.cytonic.cytosis.Bootstrappable;
 import net.cytonic.cytosis.Cytosis;
@@ -15,23 +34,39 @@ import net.cytonic.cytosis.config.CytosisConfig;
 import net.cytonic.cytosis.config.CytosisConfig.RedisConfig;
 import net.cytonic.cytosis.environments.Environment;
 import net.cytonic.cytosis.logging.Logger;
+import net.cytonic.cytosis.metrics.BoundMetric;
+import net.cytonic.cytosis.metrics.Metrics;
+import net.cytonic.cytosis.metrics.MetricsManager;
 
 /**
- * A class that holds the connection to the redis cache
+ * A class that holds the connection to the redis cache. Commands are queued and sent in pipelines: everything issued
+ * while the previous pipeline is in flight goes out together in the next one, so a burst of commands costs a single
+ * round trip. The {@code Async} methods return as soon as the command is queued; the others wait for the reply.
+ * <p>
+ * The futures are completed on virtual threads rather than the pipeline thread, so a continuation that waits for
+ * another command can't stall the pipeline it waits on.
  */
-@CytosisComponent
+@CytosisComponent(dependsOn = MetricsManager.class)
 public class RedisDatabase implements Bootstrappable {
 
     /**
      * Cached global cooldowns
      */
     public static final String GLOBAL_COOLDOWNS_KEY = "global_cooldowns";
+    private static final int SCAN_COUNT = 1000;
+    private static final int MAX_PIPELINE_SIZE = 512;
+    private static final AttributeKey<String> COMMAND = AttributeKey.stringKey("command");
+
     private final String prefix;
     private final RedisClient client;
-    private final ExecutorService worker = Executors.newCachedThreadPool(Thread.ofVirtual().name("CytosisRedisWorker")
-        .uncaughtExceptionHandler(
-            (_, throwable) -> Logger.error("An error occurred on the CytosisRedisWorker", throwable))
-        .factory());
+    private final LinkedBlockingQueue<Command<?>> commands = new LinkedBlockingQueue<>();
+    // completes the futures, so their continuations never run on the pipeline thread
+    private final Executor completions = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread pipeliner;
+    private final BoundMetric roundTrip = new BoundMetric(Metrics.REDIS_ROUND_TRIP);
+    private final BoundMetric pipelineSize = new BoundMetric(Metrics.REDIS_PIPELINE_SIZE);
+    private final Map<String, BoundMetric> commandMetrics = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
 
     /**
      * Initializes the connection to redis using the loaded settings and the Jedis client
@@ -46,6 +81,7 @@ public class RedisDatabase implements Bootstrappable {
                 .build())
             .build();
         prefix = Cytosis.get(Environment.class).getPrefix();
+        pipeliner = Thread.ofVirtual().name("CytosisRedisPipeline").start(this::processCommands);
     }
 
     @Override
@@ -54,11 +90,17 @@ public class RedisDatabase implements Bootstrappable {
     }
 
     /**
-     * Disconnects from the redis server
+     * Disconnects from the redis server, after sending every queued command
      */
     @Override
     public void shutdown() {
-        worker.shutdown();
+        // the pipeline thread sends what is still queued before stopping
+        running = false;
+        try {
+            pipeliner.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         client.close();
         Logger.info("Disconnected from Redis!");
     }
@@ -70,7 +112,17 @@ public class RedisDatabase implements Bootstrappable {
      * @return the set
      */
     public Set<String> getSet(String key) {
-        return client.smembers(prefix + key);
+        return await(getSetAsync(key));
+    }
+
+    /**
+     * Gets a set from the redis server
+     *
+     * @param key key
+     * @return a future completing with the set
+     */
+    public CompletableFuture<Set<String>> getSetAsync(String key) {
+        return submit("smembers", p -> p.smembers(prefix + key));
     }
 
     /**
@@ -80,11 +132,31 @@ public class RedisDatabase implements Bootstrappable {
      * @param value value
      */
     public void setValue(String key, String value) {
-        client.set(prefix + key, value);
+        await(submit("set", p -> p.set(prefix + key, value)));
     }
 
     public String getValue(String key) {
-        return client.get(prefix + key);
+        return await(getValueAsync(key));
+    }
+
+    /**
+     * Gets the value of a key
+     *
+     * @param key key
+     * @return a future completing with the value, or null if the key isn't set
+     */
+    public CompletableFuture<String> getValueAsync(String key) {
+        return submit("get", p -> p.get(prefix + key));
+    }
+
+    /**
+     * Increments the number stored at a key, without waiting for the reply. A key that isn't set counts as zero.
+     *
+     * @param key key
+     * @return a future completing with the number after the increment
+     */
+    public CompletableFuture<Long> incrementAsync(String key) {
+        return submit("incr", p -> p.incr(prefix + key));
     }
 
     /**
@@ -94,7 +166,18 @@ public class RedisDatabase implements Bootstrappable {
      * @param value value(s)
      */
     public void addValue(String key, String... value) {
-        client.sadd(prefix + key, value);
+        await(addValueAsync(key, value));
+    }
+
+    /**
+     * Adds a value to a set, without waiting for the reply
+     *
+     * @param key   key
+     * @param value value(s)
+     * @return a future completing with the number of values added
+     */
+    public CompletableFuture<Long> addValueAsync(String key, String... value) {
+        return submit("sadd", p -> p.sadd(prefix + key, value));
     }
 
     /**
@@ -104,7 +187,18 @@ public class RedisDatabase implements Bootstrappable {
      * @param value value(s)
      */
     public void removeValue(String key, String... value) {
-        client.srem(prefix + key, value);
+        await(removeValueAsync(key, value));
+    }
+
+    /**
+     * Remove a value from a set, without waiting for the reply
+     *
+     * @param key   key
+     * @param value value(s)
+     * @return a future completing with the number of values removed
+     */
+    public CompletableFuture<Long> removeValueAsync(String key, String... value) {
+        return submit("srem", p -> p.srem(prefix + key, value));
     }
 
     /**
@@ -115,7 +209,19 @@ public class RedisDatabase implements Bootstrappable {
      * @param value the value of the key value pair
      */
     public void addToHash(String hash, String key, String value) {
-        client.hset(prefix + hash, key, value);
+        await(addToHashAsync(hash, key, value));
+    }
+
+    /**
+     * Adds a key and value to a hash, without waiting for the reply
+     *
+     * @param hash  the name of the hash
+     * @param key   the key of the key value pair
+     * @param value the value of the key value pair
+     * @return a future completing with the number of fields added
+     */
+    public CompletableFuture<Long> addToHashAsync(String hash, String key, String value) {
+        return submit("hset", p -> p.hset(prefix + hash, key, value));
     }
 
     /**
@@ -125,7 +231,18 @@ public class RedisDatabase implements Bootstrappable {
      * @param key  the field in the hash
      */
     public void removeFromHash(String hash, String key) {
-        client.hdel(prefix + hash, key);
+        await(removeFromHashAsync(hash, key));
+    }
+
+    /**
+     * Remove a key value pair from a hash, without waiting for the reply
+     *
+     * @param hash the name of the hash
+     * @param key  the field in the hash
+     * @return a future completing with the number of fields removed
+     */
+    public CompletableFuture<Long> removeFromHashAsync(String hash, String key) {
+        return submit("hdel", p -> p.hdel(prefix + hash, key));
     }
 
     /**
@@ -135,7 +252,40 @@ public class RedisDatabase implements Bootstrappable {
      * @return the map of values
      */
     public Map<String, String> getHash(String hash) {
-        return client.hgetAll(prefix + hash);
+        return await(getHashAsync(hash));
+    }
+
+    /**
+     * Gets the map of key value pairs stored in a hash
+     *
+     * @param hash the key tied to the hash
+     * @return a future completing with the map of values
+     */
+    public CompletableFuture<Map<String, String>> getHashAsync(String hash) {
+        return submit("hgetall", p -> p.hgetAll(prefix + hash));
+    }
+
+    /**
+     * Gets several hashes in a single round trip
+     *
+     * @param hashes the keys tied to the hashes
+     * @return the maps of values, in the same order as the hashes. Missing hashes are empty.
+     */
+    public List<Map<String, String>> getHashes(List<String> hashes) {
+        return await(getHashesAsync(hashes));
+    }
+
+    /**
+     * Gets several hashes in a single round trip
+     *
+     * @param hashes the keys tied to the hashes
+     * @return a future completing with the maps of values, in the same order as the hashes. Missing hashes are empty.
+     */
+    public CompletableFuture<List<Map<String, String>>> getHashesAsync(List<String> hashes) {
+        // the commands are queued back to back, so they end up in the same pipeline
+        List<CompletableFuture<Map<String, String>>> futures = hashes.stream().map(this::getHashAsync).toList();
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+            .thenApply(_ -> futures.stream().map(CompletableFuture::join).toList());
     }
 
     /**
@@ -146,19 +296,56 @@ public class RedisDatabase implements Bootstrappable {
      * @return the value stored in the hash
      */
     public String getFromHash(String hash, String key) {
-        return client.hget(prefix + hash, key);
+        return await(getFromHashAsync(hash, key));
+    }
+
+    /**
+     * Gets the specified field from the specified hash
+     *
+     * @param hash The hash to query
+     * @param key  the field to query from the hash
+     * @return a future completing with the value stored in the hash
+     */
+    public CompletableFuture<String> getFromHashAsync(String hash, String key) {
+        return submit("hget", p -> p.hget(prefix + hash, key));
+    }
+
+    /**
+     * Gets several fields from the specified hash in a single command
+     *
+     * @param hash The hash to query
+     * @param keys the fields to query from the hash
+     * @return a future completing with the values, in the same order as the keys. Missing fields are null.
+     */
+    public CompletableFuture<List<String>> getFromHashAsync(String hash, String... keys) {
+        return submit("hmget", p -> p.hmget(prefix + hash, keys));
     }
 
     /**
      * Gets the keys associated with the specified pattern. For example, {@code foo*} would return {@code foooooo} and
-     * {@code fooHiThisIsAKey}.
+     * {@code fooHiThisIsAKey}. The keys are iterated with {@code SCAN}, so this doesn't block redis, but it still walks
+     * the whole key space.
      * <br><strong>**This may be time-consuming, use sparingly if at all **</strong>
      *
      * @param pattern the pattern used to select the keys
      * @return the set of keys associated with the pattern
      */
     public Set<String> getKeys(String pattern) {
-        return client.keys(pattern);
+        Set<String> keys = new HashSet<>();
+        scanKeys(pattern).forEachRemaining(keys::add);
+        return keys;
+    }
+
+    /**
+     * Iterates the keys associated with the specified pattern, fetching them from redis a page at a time with
+     * {@code SCAN}. Keys added or removed during the iteration may or may not be returned, and a key may be returned
+     * more than once.
+     *
+     * @param pattern the pattern used to select the keys
+     * @return an iterator over the matching keys
+     */
+    public Iterator<String> scanKeys(String pattern) {
+        return new ScanIterator(new ScanParams().match(pattern).count(SCAN_COUNT));
     }
 
     /**
@@ -168,7 +355,7 @@ public class RedisDatabase implements Bootstrappable {
      * @return the set
      */
     public Set<String> getGlobalSet(String key) {
-        return client.smembers(key);
+        return await(submit("smembers", p -> p.smembers(key)));
     }
 
     /**
@@ -178,11 +365,11 @@ public class RedisDatabase implements Bootstrappable {
      * @param value value
      */
     public void setGlobalValue(String key, String value) {
-        client.set(key, value);
+        await(submit("set", p -> p.set(key, value)));
     }
 
     public String getGlobalValue(String key) {
-        return client.get(key);
+        return await(submit("get", p -> p.get(key)));
     }
 
     /**
@@ -192,7 +379,7 @@ public class RedisDatabase implements Bootstrappable {
      * @param value value(s)
      */
     public void addGlobalValue(String key, String... value) {
-        client.sadd(key, value);
+        await(submit("sadd", p -> p.sadd(key, value)));
     }
 
     /**
@@ -202,7 +389,7 @@ public class RedisDatabase implements Bootstrappable {
      * @param value value(s)
      */
     public void removeGlobalValue(String key, String... value) {
-        client.srem(key, value);
+        await(submit("srem", p -> p.srem(key, value)));
     }
 
     /**
@@ -213,7 +400,19 @@ public class RedisDatabase implements Bootstrappable {
      * @param value the value of the key value pair
      */
     public void addToGlobalHash(String hash, String key, String value) {
-        client.hset(hash, key, value);
+        await(addToGlobalHashAsync(hash, key, value));
+    }
+
+    /**
+     * Adds a key and value to a hash, without waiting for the reply
+     *
+     * @param hash  the name of the hash
+     * @param key   the key of the key value pair
+     * @param value the value of the key value pair
+     * @return a future completing with the number of fields added
+     */
+    public CompletableFuture<Long> addToGlobalHashAsync(String hash, String key, String value) {
+        return submit("hset", p -> p.hset(hash, key, value));
     }
 
     /**
@@ -223,7 +422,18 @@ public class RedisDatabase implements Bootstrappable {
      * @param key  the field in the hash
      */
     public void removeFromGlobalHash(String hash, String key) {
-        client.hdel(hash, key);
+        await(removeFromGlobalHashAsync(hash, key));
+    }
+
+    /**
+     * Remove a key value pair from a hash, without waiting for the reply
+     *
+     * @param hash the name of the hash
+     * @param key  the field in the hash
+     * @return a future completing with the number of fields removed
+     */
+    public CompletableFuture<Long> removeFromGlobalHashAsync(String hash, String key) {
+        return submit("hdel", p -> p.hdel(hash, key));
     }
 
     /**
@@ -233,7 +443,7 @@ public class RedisDatabase implements Bootstrappable {
      * @return the map of values
      */
     public Map<String, String> getGlobalHash(String hash) {
-        return client.hgetAll(hash);
+        return await(submit("hgetall", p -> p.hgetAll(hash)));
     }
 
     /**
@@ -244,18 +454,154 @@ public class RedisDatabase implements Bootstrappable {
      * @return the value stored in the hash
      */
     public String getFromGlobalHash(String hash, String key) {
-        return client.hget(hash, key);
+        return await(submit("hget", p -> p.hget(hash, key)));
+    }
+
+    /**
+     * Gets several fields from the specified hash in a single round trip
+     *
+     * @param hash The hash to query
+     * @param keys the fields to query from the hash
+     * @return the values stored in the hash, in the same order as the keys. Missing fields are null.
+     */
+    public List<String> getFromGlobalHash(String hash, String... keys) {
+        return await(getFromGlobalHashAsync(hash, keys));
+    }
+
+    /**
+     * Gets several fields from the specified hash in a single command
+     *
+     * @param hash The hash to query
+     * @param keys the fields to query from the hash
+     * @return a future completing with the values, in the same order as the keys. Missing fields are null.
+     */
+    public CompletableFuture<List<String>> getFromGlobalHashAsync(String hash, String... keys) {
+        return submit("hmget", p -> p.hmget(hash, keys));
     }
 
     public Set<String> getSet(String key, Environment environment) {
-        return client.smembers(environment.getPrefix() + key);
+        return await(submit("smembers", p -> p.smembers(environment.getPrefix() + key)));
     }
 
     public void removeFromSet(String key, String toRemove, Environment environment) {
-        client.srem(environment.getPrefix() + key, toRemove);
+        await(submit("srem", p -> p.srem(environment.getPrefix() + key, toRemove)));
     }
 
     public void addToSet(String key, String toAdd, Environment environment) {
-        client.sadd(environment.getPrefix() + key, toAdd);
+        await(submit("sadd", p -> p.sadd(environment.getPrefix() + key, toAdd)));
+    }
+
+    private <T> CompletableFuture<T> submit(String name, Function<AbstractPipeline, Response<T>> operation) {
+        Command<T> command = new Command<>(name, operation, new CompletableFuture<>());
+        commands.add(command);
+        return command.future();
+    }
+
+    /**
+     * Waits for a command, rethrowing its failure as is
+     *
+     * @throws IllegalStateException if called on the pipeline thread, which would wait on itself
+     */
+    private <T> T await(CompletableFuture<T> future) {
+        if (Thread.currentThread() == pipeliner) {
+            throw new IllegalStateException("Cannot wait for a redis command on the pipeline thread");
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private void processCommands() {
+        while (running || !commands.isEmpty()) {
+            List<Command<?>> batch = new ArrayList<>();
+            try {
+                Command<?> first = commands.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+            } catch (InterruptedException e) {
+                return;
+            }
+            commands.drainTo(batch, MAX_PIPELINE_SIZE - 1);
+            execute(batch);
+        }
+    }
+
+    private void execute(List<Command<?>> batch) {
+        long start = System.nanoTime();
+        List<Response<?>> responses = new ArrayList<>(batch.size());
+        try (AbstractPipeline pipeline = client.pipelined()) {
+            for (Command<?> command : batch) {
+                responses.add(command.operation().apply(pipeline));
+            }
+            pipeline.sync();
+        } catch (Exception e) {
+            Logger.error("Failed to send a pipeline of " + batch.size() + " redis commands!", e);
+            batch.forEach(command -> completions.execute(() -> command.future().completeExceptionally(e)));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Command<?> command = batch.get(i);
+            Response<?> response = responses.get(i);
+            completions.execute(() -> command.complete(response));
+        }
+        Map<String, Long> counts = new HashMap<>();
+        batch.forEach(command -> counts.merge(command.name(), 1L, Long::sum));
+        recordMetrics(counts, batch.size(), (System.nanoTime() - start) / 1e6);
+    }
+
+    private void recordMetrics(Map<String, Long> counts, int size, double millis) {
+        roundTrip.record(millis);
+        pipelineSize.record(size);
+        counts.forEach((name, count) -> commandMetrics
+            .computeIfAbsent(name, _ -> new BoundMetric(Metrics.REDIS_COMMANDS, Attributes.of(COMMAND, name)))
+            .record(count));
+    }
+
+    private record Command<T>(String name, Function<AbstractPipeline, Response<T>> operation,
+                              CompletableFuture<T> future) {
+
+        @SuppressWarnings("unchecked")
+        void complete(Response<?> response) {
+            try {
+                future.complete((T) response.get());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private final class ScanIterator implements Iterator<String> {
+
+        private final ScanParams params;
+        private Iterator<String> page = Collections.emptyIterator();
+        private String cursor = ScanParams.SCAN_POINTER_START;
+        private boolean finished;
+
+        private ScanIterator(ScanParams params) {
+            this.params = params;
+        }
+
+        @Override
+        public boolean hasNext() {
+            // a page may be empty even though the scan isn't finished
+            while (!page.hasNext() && !finished) {
+                long start = System.nanoTime();
+                ScanResult<String> result = client.scan(cursor, params);
+                recordMetrics(Map.of("scan", 1L), 1, (System.nanoTime() - start) / 1e6);
+                page = result.getResult().iterator();
+                cursor = result.getCursor();
+                finished = cursor.equals(ScanParams.SCAN_POINTER_START);
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return page.next();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,276 @@
+package net.cytonic.cytosis.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+
+import net.cytonic.cytosis.logging.Logger;
+import net.cytonic.cytosis.metrics.BoundMetric;
+import net.cytonic.cytosis.metrics.Metrics;
+
+/**
+ * Buffers upserts keyed by player and writes them as JDBC batches. Only the latest value per player and statement is
+ * kept, so a player changing a preference several times between flushes costs a single row write. Values may be
+ * supplied lazily, in which case they are only serialized once, when they are written. A connection is only borrowed
+ * when there is something due, and a statement whose batch failed backs off before it is retried.
+ */
+public class WriteBehindQueue {
+
+    private static final long FLUSH_INTERVAL_MILLIS = 250;
+    private static final int MAX_DEBOUNCES = 5;
+    private static final long MIN_RETRY_DELAY_MILLIS = 1000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 30_000;
+
+    private final Callable<Connection> connections;
+    private final List<Upsert> upserts = new CopyOnWriteArrayList<>();
+    private Thread flusher;
+
+    /**
+     * Creates a new write-behind queue
+     *
+     * @param connections the source of connections to write with
+     */
+    public WriteBehindQueue(Callable<Connection> connections) {
+        this.connections = connections;
+    }
+
+    /**
+     * Registers a statement whose writes are coalesced. The statement must take the player's UUID as its first and the
+     * value as its second parameter.
+     *
+     * @param table the table written to, used in logs and metrics
+     * @param sql   the upsert statement
+     * @return the handle to queue writes with
+     */
+    public Upsert register(String table, String sql) {
+        return register(table, sql, 0);
+    }
+
+    /**
+     * Registers a statement whose writes are coalesced and debounced. A queued write is held back until the player
+     * stopped changing it for the debounce window, but never for more than {@value #MAX_DEBOUNCES} windows in total.
+     *
+     * @param table          the table written to, used in logs and metrics
+     * @param sql            the upsert statement
+     * @param debounceMillis how long a write is held back after the last change
+     * @return the handle to queue writes with
+     */
+    public Upsert register(String table, String sql, long debounceMillis) {
+        Upsert upsert = new Upsert(table, sql, debounceMillis);
+        upserts.add(upsert);
+        return upsert;
+    }
+
+    /**
+     * Starts flushing periodically
+     */
+    public void start() {
+        flusher = Thread.ofVirtual().name("CytosisWriteBehind").start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Thread.sleep(FLUSH_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                flushDue();
+            }
+        });
+    }
+
+    /**
+     * Stops the periodic flushing and writes everything still queued
+     */
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.interrupt();
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Gets the amount of rows waiting to be written
+     *
+     * @return the amount of queued rows
+     */
+    public int getPending() {
+        int pending = 0;
+        for (Upsert upsert : upserts) {
+            pending += upsert.pending.size();
+        }
+        return pending;
+    }
+
+    /**
+     * Writes everything queued, blocking until done
+     */
+    public synchronized void flush() {
+        for (Upsert upsert : upserts) {
+            if (upsert.pending.isEmpty()) continue;
+            upsert.flush(upsert.pending.keySet(), true);
+        }
+    }
+
+    /**
+     * Writes the queued writes of some players, blocking until done. Reads that must observe queued writes should
+     * flush the players they read first.
+     *
+     * @param players the players
+     */
+    public synchronized void flush(Collection<UUID> players) {
+        for (Upsert upsert : upserts) {
+            if (upsert.pending.isEmpty()) continue;
+            List<UUID> queued = new ArrayList<>();
+            for (UUID player : players) {
+                if (upsert.pending.containsKey(player)) queued.add(player);
+            }
+            if (!queued.isEmpty()) upsert.flush(queued, true);
+        }
+    }
+
+    private synchronized void flushDue() {
+        for (Upsert upsert : upserts) {
+            if (upsert.pending.isEmpty()) continue;
+            upsert.flush(upsert.pending.keySet(), false);
+        }
+    }
+
+    /**
+     * A coalesced statement
+     */
+    public final class Upsert {
+
+        private final String table;
+        private final String sql;
+        private final long debounceMillis;
+        private final Map<UUID, PendingWrite> pending = new ConcurrentHashMap<>();
+        private final BoundMetric coalesced;
+        private final BoundMetric batchSize;
+        // the periodic flush leaves this statement alone until then after a failed batch, guarded by the queue
+        private long retryAt;
+        private long retryDelay;
+
+        private Upsert(String table, String sql, long debounceMillis) {
+            this.table = table;
+            this.sql = sql;
+            this.debounceMillis = debounceMillis;
+            Attributes attributes = Attributes.of(AttributeKey.stringKey("table"), table);
+            this.coalesced = new BoundMetric(Metrics.DATABASE_WRITES_COALESCED, attributes);
+            this.batchSize = new BoundMetric(Metrics.DATABASE_BATCH_SIZE, attributes);
+        }
+
+        /**
+         * Queues a write, replacing any queued write for the same player
+         *
+         * @param player the player
+         * @param value  the value to store
+         */
+        public void queue(UUID player, String value) {
+            queue(player, () -> value);
+        }
+
+        /**
+         * Queues a write, replacing any queued write for the same player. The value is only computed when it is
+         * written, so it must still be safe to call from the flushing thread.
+         *
+         * @param player the player
+         * @param value  the supplier of the value to store
+         */
+        public void queue(UUID player, Supplier<String> value) {
+            long now = System.currentTimeMillis();
+            PendingWrite queued = new PendingWrite(value, now, now);
+            // keep the time of the first change, so a player who keeps changing something is still written eventually
+            PendingWrite merged = pending.merge(player, queued,
+                (previous, next) -> new PendingWrite(next.value(), previous.firstQueued(), now));
+            if (merged != queued) {
+                coalesced.add(1);
+            }
+        }
+
+        /**
+         * Determines if a write is queued for a player
+         *
+         * @param player the player
+         * @return if the player has a queued write
+         */
+        public boolean isPending(UUID player) {
+            return pending.containsKey(player);
+        }
+
+        /**
+         * Writes the queued write of a player right away, blocking until done
+         *
+         * @param player the player
+         */
+        public void flush(UUID player) {
+            synchronized (WriteBehindQueue.this) {
+                if (pending.containsKey(player)) flush(List.of(player), true);
+            }
+        }
+
+        private void flush(Collection<UUID> candidates, boolean force) {
+            long now = System.currentTimeMillis();
+            if (!force && now < retryAt) return;
+            Map<UUID, PendingWrite> claimed = new HashMap<>();
+            Map<UUID, String> values = new HashMap<>();
+            for (UUID player : new ArrayList<>(candidates)) {
+                PendingWrite write = pending.get(player);
+                if (write == null || !force && !write.isDue(now, debounceMillis)) continue;
+                // removing the write claims it; anything queued after this point is left for the next flush
+                if (!pending.remove(player, write)) continue;
+                try {
+                    values.put(player, write.value().get());
+                } catch (Exception e) {
+                    Logger.error("Failed to serialize a row for " + player + " in " + table + "!", e);
+                    continue;
+                }
+                claimed.put(player, write);
+            }
+            if (values.isEmpty()) return;
+
+            try (Connection conn = connections.call(); PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (Map.Entry<UUID, String> row : values.entrySet()) {
+                    ps.setObject(1, row.getKey());
+                    ps.setString(2, row.getValue());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            } catch (Exception e) {
+                // put the claimed writes back for a later flush, unless a newer value was queued in the meantime
+                claimed.forEach(pending::putIfAbsent);
+                retryDelay = Math.clamp(retryDelay * 2, MIN_RETRY_DELAY_MILLIS, MAX_RETRY_DELAY_MILLIS);
+                retryAt = System.currentTimeMillis() + retryDelay;
+                Logger.error("Failed to write a batch of " + values.size() + " rows to " + table + ", retrying them in "
+                    + retryDelay + " ms!", e);
+                return;
+            }
+            retryDelay = 0;
+            retryAt = 0;
+            batchSize.record(values.size());
+        }
+    }
+
+    private record PendingWrite(Supplier<String> value, long firstQueued, long lastQueued) {
+
+        boolean isDue(long now, long debounceMillis) {
+            return now - lastQueued >= debounceMillis || now - firstQueued >= debounceMillis * MAX_DEBOUNCES;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package net.cytonic.cytosis.data.objects;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongMaps;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.kyori.adventure.key.Key;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Stores server-wide and per-player cooldowns. Keys are interned to ints and expiries are kept as epoch millis, so a
+ * player's cooldowns are a single primitive map. Expired cooldowns are dropped by a {@link TimerWheel}, which only
+ * touches the cooldowns that are actually due.
+ */
+public class CooldownStore {
+
+    private static final long WHEEL_TICK_MILLIS = 250;
+    private static final int WHEEL_SLOTS = 1024;
+
+    private final Object2IntMap<Key> keyIds = new Object2IntOpenHashMap<>();
+    private final List<Key> keys = new ArrayList<>();
+    private final Int2LongMap server = Int2LongMaps.synchronize(new Int2LongOpenHashMap());
+    private final Map<UUID, Int2LongMap> personal = new ConcurrentHashMap<>();
+    private final TimerWheel<Expiry> wheel = new TimerWheel<>(WHEEL_TICK_MILLIS, WHEEL_SLOTS);
+
+    /**
+     * Converts an expiry to epoch millis
+     *
+     * @param instant the expiry, may be null
+     * @return the epoch millis, or 0 if there is no expiry
+     */
+    public static long toMillis(@Nullable Instant instant) {
+        return instant == null ? 0 : instant.toEpochMilli();
+    }
+
+    /**
+     * Converts epoch millis to an expiry
+     *
+     * @param millis the epoch millis, 0 meaning no expiry
+     * @return the expiry, or null if there is none
+     */
+    @Nullable
+    public static Instant toInstant(long millis) {
+        return millis == 0 ? null : Instant.ofEpochMilli(millis);
+    }
+
+    /**
+     * Sets a server-wide cooldown
+     *
+     * @param key      the cooldown
+     * @param expiryAt the epoch millis the cooldown expires at
+     */
+    public void set(Key key, long expiryAt) {
+        int id = intern(key);
+        server.put(id, expiryAt);
+        wheel.schedule(new Expiry(null, id, expiryAt), expiryAt);
+    }
+
+    /**
+     * Sets a player's cooldown
+     *
+     * @param player   the player
+     * @param key      the cooldown
+     * @param expiryAt the epoch millis the cooldown expires at
+     */
+    public void set(UUID player, Key key, long expiryAt) {
+        int id = intern(key);
+        personal.computeIfAbsent(player, _ -> newMap()).put(id, expiryAt);
+        wheel.schedule(new Expiry(player, id, expiryAt), expiryAt);
+    }
+
+    /**
+     * Sets a player's cooldown, but only if the player is loaded
+     *
+     * @param player   the player
+     * @param key      the cooldown
+     * @param expiryAt the epoch millis the cooldown expires at
+     * @return if the player was loaded
+     */
+    public boolean setIfLoaded(UUID player, Key key, long expiryAt) {
+        int id = intern(key);
+        // scheduled while holding the player's entry, so an unload can't miss the timer
+        return personal.computeIfPresent(player, (_, map) -> {
+            map.put(id, expiryAt);
+            wheel.schedule(new Expiry(player, id, expiryAt), expiryAt);
+            return map;
+        }) != null;
+    }
+
+    /**
+     * Gets the expiry of a server-wide cooldown
+     *
+     * @param key the cooldown
+     * @return the epoch millis the cooldown expires at, or 0 if it isn't active
+     */
+    public long get(Key key) {
+        int id = idOf(key);
+        return id < 0 ? 0 : active(server.get(id));
+    }
+
+    /**
+     * Gets the expiry of a player's cooldown
+     *
+     * @param player the player
+     * @param key    the cooldown
+     * @return the epoch millis the cooldown expires at, or 0 if it isn't active
+     */
+    public long get(UUID player, Key key) {
+        Int2LongMap map = personal.get(player);
+        int id = idOf(key);
+        return map == null || id < 0 ? 0 : active(map.get(id));
+    }
+
+    /**
+     * Removes a server-wide cooldown
+     *
+     * @param key the cooldown
+     * @return if the cooldown was present
+     */
+    public boolean remove(Key key) {
+        int id = idOf(key);
+        return id >= 0 && server.remove(id) != 0;
+    }
+
+    /**
+     * Removes a player's cooldown
+     *
+     * @param player the player
+     * @param key    the cooldown
+     */
+    public void remove(UUID player, Key key) {
+        Int2LongMap map = personal.get(player);
+        int id = idOf(key);
+        if (map != null && id >= 0) map.remove(id);
+    }
+
+    /**
+     * Loads the cooldowns of a player. Cooldowns already held for the player were set after the given ones were read,
+     * so they are kept over the loaded ones.
+     *
+     * @param player    the player
+     * @param cooldowns the cooldowns, as epoch millis
+     */
+    public void load(UUID player, Map<Key, Long> cooldowns) {
+        long now = System.currentTimeMillis();
+        personal.compute(player, (_, existing) -> {
+            Int2LongMap map = existing == null ? newMap() : existing;
+            cooldowns.forEach((key, expiryAt) -> {
+                if (expiryAt <= now) return;
+                int id = intern(key);
+                if (map.containsKey(id)) return;
+                map.put(id, (long) expiryAt);
+                wheel.schedule(new Expiry(player, id, expiryAt), expiryAt);
+            });
+            return map;
+        });
+    }
+
+    /**
+     * Forgets every cooldown of a player, along with their pending expiries
+     *
+     * @param player the player
+     */
+    public void unload(UUID player) {
+        if (personal.remove(player) == null) return;
+        wheel.removeIf(expiry -> player.equals(expiry.player()));
+    }
+
+    /**
+     * Determines if the cooldowns of a player are held by this store
+     *
+     * @param player the player
+     * @return if the player is loaded
+     */
+    public boolean isLoaded(UUID player) {
+        return personal.containsKey(player);
+    }
+
+    /**
+     * Drops the cooldowns that expired
+     */
+    public void expire() {
+        wheel.advance(System.currentTimeMillis(), expiry -> {
+            if (expiry.player() == null) {
+                server.remove(expiry.key(), expiry.expiryAt());
+                return;
+            }
+            // a newer expiry for the same key was set in the meantime if the values don't match
+            personal.computeIfPresent(expiry.player(), (_, map) -> {
+                map.remove(expiry.key(), expiry.expiryAt());
+                return map;
+            });
+        });
+    }
+
+    /**
+     * Gets the keys of the server-wide cooldowns
+     *
+     * @return the keys
+     */
+    public Set<Key> serverKeys() {
+        Set<Key> result = new HashSet<>();
+        synchronized (server) {
+            server.keySet().forEach(id -> result.add(keyOf(id)));
+        }
+        return result;
+    }
+
+    /**
+     * Gets the keys of the cooldowns of every loaded player
+     *
+     * @return the keys
+     */
+    public Set<Key> personalKeys() {
+        Set<Key> result = new HashSet<>();
+        for (Int2LongMap map : personal.values()) {
+            synchronized (map) {
+                map.keySet().forEach(id -> result.add(keyOf(id)));
+            }
+        }
+        return result;
+    }
+
+    private synchronized int intern(Key key) {
+        int id = keyIds.getOrDefault(key, -1);
+        if (id >= 0) return id;
+        id = keys.size();
+        keys.add(key);
+        keyIds.put(key, id);
+        return id;
+    }
+
+    private synchronized int idOf(Key key) {
+        return keyIds.getOrDefault(key, -1);
+    }
+
+    private synchronized Key keyOf(int id) {
+        return keys.get(id);
+    }
+
+    private static long active(long expiryAt) {
+        return expiryAt > System.currentTimeMillis() ? expiryAt : 0;
+    }
+
+    private static Int2LongMap newMap() {
+        return Int2LongMaps.synchronize(new Int2LongOpenHashMap());
+    }
+
+    private record Expiry(@Nullable UUID player, int key, long expiryAt) {
+
+    }
+}
@@ -0,0 +1,120 @@
+package net.cytonic.cytosis.data.objects;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The friendships of the players loaded on this server. Alongside the friends of each loaded player, it keeps a
+ * reverse index from a player to the loaded players who have them as a friend, so notifying the friends of someone
+ * only visits the players that are actually their friends, instead of every online player.
+ * <p>
+ * Mutations are synchronized, reads are lock free.
+ */
+public final class FriendGraph {
+
+    private final Map<UUID, Set<UUID>> friends = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<UUID>> localFriends = new ConcurrentHashMap<>();
+
+    /**
+     * Loads a player's friends, replacing any friends previously loaded for them
+     *
+     * @param player the player
+     * @param loaded the player's friends
+     */
+    public synchronized void load(UUID player, Set<UUID> loaded) {
+        unload(player);
+        Set<UUID> set = ConcurrentHashMap.newKeySet(loaded.size());
+        for (UUID friend : loaded) {
+            if (friend.equals(player)) continue; // prevent self as a friend somehow
+            set.add(friend);
+            index(friend, player);
+        }
+        friends.put(player, set);
+    }
+
+    /**
+     * Unloads a player's friends, removing them from the reverse index
+     *
+     * @param player the player
+     */
+    public synchronized void unload(UUID player) {
+        Set<UUID> removed = friends.remove(player);
+        if (removed == null) return;
+        for (UUID friend : removed) {
+            unindex(friend, player);
+        }
+    }
+
+    /**
+     * Adds a friendship to whichever of the two players are loaded
+     *
+     * @param player the player
+     * @param friend the friend
+     */
+    public synchronized void link(UUID player, UUID friend) {
+        if (player.equals(friend)) return;
+        Set<UUID> ofPlayer = friends.get(player);
+        if (ofPlayer != null && ofPlayer.add(friend)) index(friend, player);
+        Set<UUID> ofFriend = friends.get(friend);
+        if (ofFriend != null && ofFriend.add(player)) index(player, friend);
+    }
+
+    /**
+     * Removes a friendship from whichever of the two players are loaded
+     *
+     * @param player the player
+     * @param friend the friend
+     */
+    public synchronized void unlink(UUID player, UUID friend) {
+        Set<UUID> ofPlayer = friends.get(player);
+        if (ofPlayer != null && ofPlayer.remove(friend)) unindex(friend, player);
+        Set<UUID> ofFriend = friends.get(friend);
+        if (ofFriend != null && ofFriend.remove(player)) unindex(player, friend);
+    }
+
+    /**
+     * Gets the friends of a loaded player
+     *
+     * @param player the player
+     * @return an unmodifiable view of the player's friends, empty if they aren't loaded
+     */
+    public Set<UUID> friendsOf(UUID player) {
+        Set<UUID> set = friends.get(player);
+        return set == null ? Set.of() : Collections.unmodifiableSet(set);
+    }
+
+    /**
+     * Gets the loaded players who have a player as a friend
+     *
+     * @param player the player, who doesn't need to be loaded
+     * @return an unmodifiable view of the loaded players who are friends with the player
+     */
+    public Set<UUID> localFriendsOf(UUID player) {
+        Set<UUID> set = localFriends.get(player);
+        return set == null ? Set.of() : Collections.unmodifiableSet(set);
+    }
+
+    /**
+     * Checks if a player is loaded
+     *
+     * @param player the player
+     * @return if the player's friends are loaded
+     */
+    public boolean isLoaded(UUID player) {
+        return friends.containsKey(player);
+    }
+
+    private void index(UUID friend, UUID player) {
+        localFriends.computeIfAbsent(friend, _ -> ConcurrentHashMap.newKeySet()).add(player);
+    }
+
+    private void unindex(UUID friend, UUID player) {
+        localFriends.computeIfPresent(friend, (_, set) -> {
+            set.remove(player);
+            return set.isEmpty() ? null : set;
+        });
+    }
+}
@@ -0,0 +1,23 @@
+package net.cytonic.cytosis.data.objects;
+
+import java.util.Set;
+import java.util.UUID;
+
+import net.cytonic.cytosis.data.enums.PlayerRank;
+import net.cytonic.cytosis.data.objects.preferences.PreferenceData;
+
+/**
+ * A snapshot of the state loaded for a player when they join, fetched in a single round trip. Managers seed their own
+ * caches from this instead of each querying the database for the same player.
+ *
+ * @param uuid        The player's UUID
+ * @param rank        The player's rank
+ * @param banData     The player's ban status
+ * @param muted       If the player is currently muted
+ * @param friends     The player's friends
+ * @param preferences The player's preferences
+ */
+public record PlayerProfile(UUID uuid, PlayerRank rank, BanData banData, boolean muted, Set<UUID> friends,
+                            PreferenceData preferences) {
+
+}
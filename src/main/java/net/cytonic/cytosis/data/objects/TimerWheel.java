@@ -0,0 +1,108 @@
+package net.cytonic.cytosis.data.objects;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A hashed timer wheel. Timers are hashed into slots by their deadline, so advancing the wheel only visits the slots
+ * that became due instead of every scheduled timer. Timers further away than one revolution stay in their slot until a
+ * later pass. Single timers can't be cancelled; the consumer is expected to ignore those that became stale. Timers that
+ * will never be wanted again can be dropped in bulk with {@link #removeIf(Predicate)}.
+ *
+ * @param <T> the type of the scheduled values
+ */
+public class TimerWheel<T> {
+
+    private final long tickMillis;
+    private final List<Timer<T>>[] slots;
+    private final int mask;
+    private long currentTick;
+
+    /**
+     * Creates a new wheel
+     *
+     * @param tickMillis the length of a slot, in milliseconds
+     * @param slots      the amount of slots, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickMillis, int slots) {
+        int size = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.slots = new List[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            this.slots[i] = new ArrayList<>();
+        }
+        this.currentTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    /**
+     * Schedules a value
+     *
+     * @param value    the value
+     * @param deadline the epoch millis the value is due at
+     */
+    public synchronized void schedule(T value, long deadline) {
+        // never place a timer behind the cursor, or it would wait for a full revolution
+        long tick = Math.max(deadline / tickMillis, currentTick);
+        slots[(int) (tick & mask)].add(new Timer<>(value, deadline));
+    }
+
+    /**
+     * Advances the wheel, handing every value that is due to the consumer
+     *
+     * @param now     the current epoch millis
+     * @param expired the consumer of the due values
+     */
+    public void advance(long now, Consumer<T> expired) {
+        List<T> due = new ArrayList<>();
+        synchronized (this) {
+            long target = now / tickMillis;
+            // one revolution visits every slot, so there is no need to go further after a long pause
+            long from = Math.max(currentTick, target - mask);
+            for (long tick = from; tick <= target; tick++) {
+                Iterator<Timer<T>> timers = slots[(int) (tick & mask)].iterator();
+                while (timers.hasNext()) {
+                    Timer<T> timer = timers.next();
+                    if (timer.deadline() > now) continue;
+                    due.add(timer.value());
+                    timers.remove();
+                }
+            }
+            currentTick = target;
+        }
+        due.forEach(expired);
+    }
+
+    /**
+     * Removes every scheduled value matching a filter. This visits every timer, so it is meant for dropping many timers
+     * at once rather than cancelling one.
+     *
+     * @param filter the filter of the values to remove
+     */
+    public synchronized void removeIf(Predicate<T> filter) {
+        for (List<Timer<T>> slot : slots) {
+            slot.removeIf(timer -> filter.test(timer.value()));
+        }
+    }
+
+    /**
+     * Gets the amount of scheduled values
+     *
+     * @return the amount of timers in the wheel
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (List<Timer<T>> slot : slots) {
+            size += slot.size();
+        }
+        return size;
+    }
+
+    private record Timer<T>(T value, long deadline) {
+
+    }
+}
@@ -3,8 +3,7 @@ package net.cytonic.cytosis.data.objects.preferences;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.gson.JsonParser;
 import net.kyori.adventure.key.Key;
@@ -26,7 +25,9 @@ public class PreferenceData {
     public static final Codec<PreferenceData> CODEC = StoredPreference.CODEC.list()
         .transform(PreferenceData::new, PreferenceData::toStorage);
 
-    private final Map<Key, Preference<?>> preferences;
+    private final Map<Key, Preference<?>> preferences = new ConcurrentHashMap<>();
+    // the last storage form of each preference, reused for as long as the preference isn't replaced
+    private final Map<Key, Encoded> encoded = new ConcurrentHashMap<>();
 
     /**
      * Creates a new PreferenceData object with the specified preferences
@@ -34,13 +35,13 @@ public class PreferenceData {
      * @param list the preferences
      */
     public PreferenceData(List<StoredPreference> list) {
-        this.preferences = list.stream()
-            .map(p -> {
-                Preference<?> known = pm.getPreferenceRegistry().get(p.getKey());
-                if (known == null)
-                    return p; // this instance doesn't use this preference, just keep it as a stored version
-                return known.fromStorage(p);
-            }).collect(Collectors.toMap(Preference::getKey, Function.identity()));
+        for (StoredPreference stored : list) {
+            Preference<?> known = pm.getPreferenceRegistry().get(stored.getKey());
+            // if this instance doesn't use this preference, just keep it as a stored version
+            Preference<?> preference = known == null ? stored : known.fromStorage(stored);
+            preferences.put(preference.getKey(), preference);
+            encoded.put(preference.getKey(), new Encoded(preference, stored));
+        }
     }
 
     /**
@@ -54,8 +55,22 @@ public class PreferenceData {
             .orElseThrow("Failed to parse user preferences!");
     }
 
+    /**
+     * Converts the preferences to their storage form. Preferences that haven't changed since they were last converted
+     * aren't encoded again.
+     *
+     * @return the stored preferences
+     */
     public List<StoredPreference> toStorage() {
-        return preferences.values().stream().map(Preference::toStorage).toList();
+        return preferences.values().stream().map(this::toStorage).toList();
+    }
+
+    private StoredPreference toStorage(Preference<?> preference) {
+        Encoded cached = encoded.get(preference.getKey());
+        if (cached != null && cached.source() == preference) return cached.stored();
+        StoredPreference stored = preference.toStorage();
+        encoded.put(preference.getKey(), new Encoded(preference, stored));
+        return stored;
     }
 
     @Nullable
@@ -145,4 +160,8 @@ public class PreferenceData {
     public String toString() {
         return "PreferenceData [preferences=" + preferences + "]";
     }
+
+    private record Encoded(Preference<?> source, StoredPreference stored) {
+
+    }
 }
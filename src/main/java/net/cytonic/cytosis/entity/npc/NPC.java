@@ -28,6 +28,7 @@ import net.minestom.server.network.packet.server.play.TeamsPacket.NameTagVisibil
 import net.minestom.server.network.packet.server.play.TeamsPacket.Settings;
 import net.minestom.server.timer.TaskSchedule;
 import org.jetbrains.annotations.ApiStatus.OverrideOnly;
+import org.jetbrains.annotations.Nullable;
 
 import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.data.objects.ExpiringMap;
@@ -58,6 +59,8 @@ public abstract class NPC {
 
     private final Map<UUID, ViewerData> viewers = new ExpiringMap<>();
     private final Map<UUID, Dialog<? extends CytosisPlayer>> activeDialogs = new ExpiringMap<>();
+    @Nullable
+    private volatile NPCEntityImpl sharedEntity;
 
     public NPC(NPCConfiguration config) {
         this.config = config;
@@ -92,39 +95,57 @@ public abstract class NPC {
     public void remove() {
         viewers.forEach((uuid, data) ->
             Cytosis.getPlayer(uuid).ifPresent(player -> {
-                player.sendPacket(new DestroyEntitiesPacket(List.of(data.entity().getEntityId())));
-                PlayerHolograms.removeHologram(data.hologram());
+                player.sendPacket(new DestroyEntitiesPacket(List.of(data.entity.getEntityId())));
+                PlayerHolograms.removeHologram(data.hologram);
             }));
+        viewers.values().forEach(data -> {
+            if (data.entity != sharedEntity) removeEntity(data.entity);
+        });
         viewers.clear();
+        NPCEntityImpl shared = sharedEntity;
+        if (shared != null) {
+            removeEntity(shared);
+            sharedEntity = null;
+        }
         Cytosis.get(NpcManager.class).removeNPC(this);
     }
 
-    public void updateForPlayer(CytosisPlayer player) {
-        Pos npcPos = config.position(player);
-        double distanceSquared = player.getPosition().distanceSquared(npcPos);
-        boolean inRange = distanceSquared <= SPAWN_DISTANCE_SQUARED;
+    /**
+     * Gets the position this NPC can be found at by everyone, used to index it spatially
+     *
+     * @return the position of the shared entity, or null if there is none yet or the NPC is player-specific
+     */
+    @Nullable
+    public Pos getAnchor() {
+        NPCEntityImpl shared = sharedEntity;
+        return shared == null ? null : shared.getPosition();
+    }
 
+    /**
+     * Spawns, moves or despawns this NPC for a player. Packets are only sent for what changed since the last update.
+     *
+     * @param player the player to update
+     * @return whether the player sees this NPC after the update
+     */
+    public boolean updateForPlayer(CytosisPlayer player) {
         ViewerData data = viewers.get(player.getUuid());
+        Pos npcPos;
+        if (data != null) {
+            npcPos = data.entity.getPosition();
+        } else if (!config.playerSpecific() && sharedEntity != null) {
+            npcPos = sharedEntity.getPosition();
+        } else {
+            npcPos = config.position(player);
+        }
+        double distanceSquared = player.getPosition().distanceSquared(npcPos);
+        boolean inRange = distanceSquared <= SPAWN_DISTANCE_SQUARED;
 
         if (data == null) {
-            if (!inRange) return;
+            if (!inRange) return false;
 
             // has not been loaded by player before
             List<Component> holograms = config.holograms(player);
-            String username = "";
-
-            NPCEntityImpl entity = new NPCEntityImpl(
-                username,
-                config.skin(player),
-                holograms
-            );
-            entity.setInstance(config.instance(), npcPos);
-            Path path = config.path(player);
-            if (path != null) {
-                EntityAIGroup group = new EntityAIGroup();
-                group.getGoalSelectors().add(new NavigatePathGoal(entity, path));
-                entity.addAIGroup(group);
-            }
+            NPCEntityImpl entity = config.playerSpecific() ? createEntity(player, holograms) : sharedEntity(player);
 
             sendPackets(player, entity);
 
@@ -132,51 +153,56 @@ public abstract class NPC {
                 .scheduleTask(() -> player.sendPacket(new PlayerInfoRemovePacket(entity.getUuid())),
                     TaskSchedule.tick(2), TaskSchedule.stop());
 
+            Pos pos = entity.getPosition();
             PlayerHolograms.Hologram hologram = PlayerHolograms.Hologram.builder()
-                .pos(config.position(player).add(0, 2.0, 0))
+                .pos(pos.add(0, 2.0, 0))
                 .lines(holograms)
                 .player(player)
                 .instance(config.instance())
                 .build();
 
             PlayerHolograms.addHologram(hologram);
-            viewers.put(player.getUuid(), new ViewerData(entity, hologram));
-            return;
+            viewers.put(player.getUuid(), new ViewerData(entity, hologram, pos));
+            return true;
         }
 
         // player has seen it before
-        NPCEntityImpl entity = data.entity();
-        PlayerHolograms.Hologram hologram = data.hologram();
+        NPCEntityImpl entity = data.entity;
 
         if (!inRange) {
-            player.sendPacket(new DestroyEntitiesPacket(List.of(entity.getEntityId())));
-            PlayerHolograms.removeHologram(hologram);
+            despawn(player, data);
             viewers.remove(player.getUuid());
-            return;
+            return false;
         }
 
-        player.sendPacket(new EntityTeleportPacket(entity.getEntityId(), entity.getPosition(), Vec.ZERO, 0, false));
-        PlayerHolograms.updateHologram(hologram, entity.getPosition().add(0, 2.0, 0));
+        Pos pos = entity.getPosition();
+        if (!pos.samePoint(data.sentPos)) {
+            player.sendPacket(new EntityTeleportPacket(entity.getEntityId(), pos, Vec.ZERO, 0, false));
+            PlayerHolograms.updateHologram(data.hologram, pos.add(0, 2.0, 0));
+            data.sentPos = pos;
+            // the teleport carries the body rotation, so the look has to be sent again
+            data.sentYaw = Float.NaN;
+        }
 
+        Pos lookPos = pos;
         if (config.looking(player) && distanceSquared <= LOOK_DISTANCE_SQUARED) {
-            Pos lookPos = entity.getPosition().withLookAt(player.getPosition().add(0, player.getEyeHeight(), 0));
+            lookPos = pos.withLookAt(player.getPosition().add(0, player.getEyeHeight(), 0));
+        }
+        if (lookPos.yaw() != data.sentYaw || lookPos.pitch() != data.sentPitch) {
             player.sendPackets(
                 new EntityRotationPacket(entity.getEntityId(), lookPos.yaw(), lookPos.pitch(), player.isOnGround()),
                 new EntityHeadLookPacket(entity.getEntityId(), lookPos.yaw()));
-        } else {
-            player.sendPackets(
-                new EntityRotationPacket(entity.getEntityId(), entity.getPosition().yaw(),
-                    entity.getPosition().pitch(), player.isOnGround()),
-                new EntityHeadLookPacket(entity.getEntityId(), entity.getPosition().yaw()));
+            data.sentYaw = lookPos.yaw();
+            data.sentPitch = lookPos.pitch();
         }
+        return true;
     }
 
     public void removePlayer(CytosisPlayer player) {
         activeDialogs.remove(player.getUuid());
         ViewerData data = viewers.remove(player.getUuid());
         if (data != null) {
-            player.sendPacket(new DestroyEntitiesPacket(List.of(data.entity().getEntityId())));
-            PlayerHolograms.removeHologram(data.hologram());
+            despawn(player, data);
         }
     }
 
@@ -186,7 +212,38 @@ public abstract class NPC {
 
     public boolean hasEntityId(CytosisPlayer player, int entityId) {
         ViewerData data = viewers.get(player.getUuid());
-        return data != null && data.entity().getEntityId() == entityId;
+        return data != null && data.entity.getEntityId() == entityId;
+    }
+
+    private synchronized NPCEntityImpl sharedEntity(CytosisPlayer player) {
+        if (sharedEntity == null) {
+            sharedEntity = createEntity(player, config.holograms(player));
+        }
+        return sharedEntity;
+    }
+
+    private NPCEntityImpl createEntity(CytosisPlayer player, List<Component> holograms) {
+        NPCEntityImpl entity = new NPCEntityImpl("", config.skin(player), holograms);
+        entity.setInstance(config.instance(), config.position(player));
+        Path path = config.path(player);
+        if (path != null) {
+            EntityAIGroup group = new EntityAIGroup();
+            group.getGoalSelectors().add(new NavigatePathGoal(entity, path));
+            entity.addAIGroup(group);
+        }
+        Cytosis.get(NpcManager.class).indexEntity(entity.getEntityId(), this);
+        return entity;
+    }
+
+    private void removeEntity(NPCEntityImpl entity) {
+        Cytosis.get(NpcManager.class).unindexEntity(entity.getEntityId());
+        entity.remove();
+    }
+
+    private void despawn(CytosisPlayer player, ViewerData data) {
+        player.sendPacket(new DestroyEntitiesPacket(List.of(data.entity.getEntityId())));
+        PlayerHolograms.removeHologram(data.hologram);
+        if (data.entity != sharedEntity) removeEntity(data.entity);
     }
 
     private void sendPackets(CytosisPlayer player, NPCEntityImpl entity) {
@@ -235,7 +292,23 @@ public abstract class NPC {
         );
     }
 
-    private record ViewerData(NPCEntityImpl entity, PlayerHolograms.Hologram hologram) {
-
+    /**
+     * What a viewer was last sent
+     */
+    private static final class ViewerData {
+
+        private final NPCEntityImpl entity;
+        private final PlayerHolograms.Hologram hologram;
+        private Pos sentPos;
+        private float sentYaw;
+        private float sentPitch;
+
+        private ViewerData(NPCEntityImpl entity, PlayerHolograms.Hologram hologram, Pos sentPos) {
+            this.entity = entity;
+            this.hologram = hologram;
+            this.sentPos = sentPos;
+            this.sentYaw = sentPos.yaw();
+            this.sentPitch = sentPos.pitch();
+        }
     }
-}
\ No newline at end of file
+}
@@ -37,4 +37,16 @@ public interface NPCConfiguration {
     default PlayerSkin skin(CytosisPlayer player) {
         return null;
     }
+
+    /**
+     * Whether the position, skin or path of this NPC depend on the viewer. NPCs that aren't player-specific share a
+     * single entity between every viewer, created with the values of the first player to come in range. Holograms are
+     * always per viewer. Shared NPCs are indexed by chunk, while player-specific ones are checked for every player on
+     * every update, so a configuration should only return true if its position, skin or path really differ per viewer.
+     *
+     * @return true if every viewer needs their own entity
+     */
+    default boolean playerSpecific() {
+        return false;
+    }
 }
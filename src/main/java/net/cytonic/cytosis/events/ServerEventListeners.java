@@ -20,6 +20,7 @@ import net.minestom.server.entity.GameMode;
 import net.minestom.server.entity.PlayerHand;
 import net.minestom.server.event.EventDispatcher;
 import net.minestom.server.event.player.AsyncPlayerConfigurationEvent;
+import net.minestom.server.event.player.AsyncPlayerPreLoginEvent;
 import net.minestom.server.event.player.PlayerBlockPlaceEvent;
 import net.minestom.server.event.player.PlayerChatEvent;
 import net.minestom.server.event.player.PlayerCommandEvent;
@@ -49,9 +50,10 @@ import net.cytonic.cytosis.events.npcs.NPCInteractEvent;
 import net.cytonic.cytosis.logging.Logger;
 import net.cytonic.cytosis.managers.ChatManager;
 import net.cytonic.cytosis.managers.FriendManager;
+import net.cytonic.cytosis.managers.NetworkCooldownManager;
 import net.cytonic.cytosis.managers.NpcManager;
 import net.cytonic.cytosis.managers.PlayerListManager;
-import net.cytonic.cytosis.managers.PreferenceManager;
+import net.cytonic.cytosis.managers.PlayerProfileManager;
 import net.cytonic.cytosis.managers.RankManager;
 import net.cytonic.cytosis.managers.SideboardManager;
 import net.cytonic.cytosis.metrics.Metrics;
@@ -77,8 +79,8 @@ public final class ServerEventListeners {
     @Listener
     @Priority(1)
     private void onPacketIn(PlayerPacketEvent event) {
-        Cytosis.get(MetricsManager.class).addToLongCounter(Metrics.NETWORK_PACKETS_IN, 1,
-            Attributes.of(AttributeKey.stringKey("packet_type"), event.getPacket().getClass().getSimpleName()));
+        Cytosis.get(MetricsManager.class).getClassCounter(Metrics.NETWORK_PACKETS_IN, Metrics.PACKET_TYPE)
+            .increment(event.getPacket());
         if (!(event.getPlayer() instanceof CytosisPlayer player)) return;
         if (event.getPacket() instanceof ClientInteractEntityPacket p) {
             if (p.hand() == PlayerHand.OFF) return;
@@ -98,8 +100,8 @@ public final class ServerEventListeners {
 
     @Listener
     private void onPacketOut(PlayerPacketOutEvent event) {
-        Cytosis.get(MetricsManager.class).addToLongCounter(Metrics.NETWORK_PACKETS_OUT, 1,
-            Attributes.of(AttributeKey.stringKey("packet_type"), event.getPacket().getClass().getSimpleName()));
+        Cytosis.get(MetricsManager.class).getClassCounter(Metrics.NETWORK_PACKETS_OUT, Metrics.PACKET_TYPE)
+            .increment(event.getPacket());
     }
 
     @Listener
@@ -148,6 +150,18 @@ public final class ServerEventListeners {
         }
     }
 
+    @Priority(1)
+    @Listener
+    private void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        // hydrated here, off the login path, so creating the player only reads the loaded profile
+        try {
+            Cytosis.get(PlayerProfileManager.class).load(event.getGameProfile().uuid()).join();
+        } catch (Exception e) {
+            Logger.error("Failed to load the profile of " + event.getGameProfile().name() + " ("
+                + event.getGameProfile().uuid() + ")", e);
+        }
+    }
+
     @Priority(1)
     @Listener
     private void onConfig(AsyncPlayerConfigurationEvent event) {
@@ -157,10 +171,12 @@ public final class ServerEventListeners {
             return;
         }
 
-        // load things as easily as possible
-        Cytosis.get(FriendManager.class).loadFriends(player.getUuid());
-        Cytosis.get(PreferenceManager.class).loadPlayerPreferences(player.getUuid());
-
+        // the profile was loaded before login, only the cooldowns are left to load
+        try {
+            Cytosis.get(NetworkCooldownManager.class).loadPlayer(player.getUuid()).join();
+        } catch (Exception e) {
+            Logger.error("Failed to load the cooldowns of " + player.getUsername() + " (" + player.getUuid() + ")", e);
+        }
         if (Cytosis.getServer().shouldKickWithoutPolicyAgreement()) {
             if (!player.getPreference(Preferences.AGREED_TO_PRIVACY)) {
                 player.kickInternal(Msg.grey("You must agree to the privacy policy to access this server!"));
@@ -314,7 +330,11 @@ public final class ServerEventListeners {
     private void onQuit(PlayerDisconnectEvent event) {
         final CytosisPlayer player = (CytosisPlayer) event.getPlayer();
         ExpiringMap.expire(player.getUuid());
+        Cytosis.get(FriendManager.class).unload(player.getUuid());
+        // the player's next server reads their preferences, so don't leave a debounced write pending
+        Cytosis.get(GlobalDatabase.class).flushPlayerPreferences(player.getUuid());
         Cytosis.get(NpcManager.class).removePlayer(player);
+        Cytosis.get(NetworkCooldownManager.class).unloadPlayer(player.getUuid());
         PlayerHolograms.removePlayer(player);
     }
 }
\ No newline at end of file
@@ -123,9 +123,9 @@ public class ChatManager implements Bootstrappable {
 
         Component chan = channel.getPrefix();
         if (channel.isShouldDeanonymize()) {
-            message = message.append(chan).append(player.trueFormattedName()).append(Msg.mm(msg));
+            message = message.append(chan).append(player.trueFormattedName()).append(Msg.parse(msg));
         } else {
-            message = message.append(chan).append(player.formattedName()).append(Msg.mm(msg));
+            message = message.append(chan).append(player.formattedName()).append(Msg.parse(msg));
         }
 
         Set<UUID> recipients = null;
@@ -1,59 +1,78 @@
 package net.cytonic.cytosis.managers;
 
-import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
+import net.minestom.server.MinecraftServer;
 import net.minestom.server.command.CommandManager;
 import net.minestom.server.command.builder.Command;
+import net.minestom.server.timer.TaskSchedule;
 import org.jetbrains.annotations.Nullable;
 
 import net.cytonic.cytosis.Bootstrappable;
 import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.bootstrap.annotations.CytosisComponent;
+import net.cytonic.cytosis.commands.utils.CommandHandler;
 import net.cytonic.cytosis.commands.utils.CytosisCommand;
 import net.cytonic.cytosis.data.RedisDatabase;
 import net.cytonic.cytosis.logging.Logger;
 import net.cytonic.protocol.impl.notify.CommandDisableNotifyPacket;
 import net.cytonic.protocol.utils.NotifyHandler;
 
+/**
+ * Disables and enables commands, locally or on every server. The globally disabled commands are mirrored in memory, so
+ * checking them never waits on redis. The mirror is seeded on startup and kept current by the disable notifications.
+ * Every global change also bumps a version in redis, which is compared periodically to catch missed notifications.
+ * <p>
+ * The mirror is only changed while holding this manager's lock. The redis callbacks that take it run on the redis
+ * completion threads, never on its pipeline thread, so waiting for the lock there can't stall other commands.
+ */
 @CytosisComponent(priority = 1, dependsOn = {CommandManager.class, RedisDatabase.class})
 public class CommandDisablingManager implements Bootstrappable {
 
+    private static final String DISABLED_COMMANDS = "cytosis-disabled-commands";
+    private static final String DISABLED_COMMANDS_VERSION = "cytosis-disabled-commands-version";
+
+    private final Set<String> disabledGlobally = ConcurrentHashMap.newKeySet();
+    // the version of the redis set the mirror was last reconciled with, -1 until it is seeded
+    private volatile long version = -1;
+    // global changes made here whose version bump hasn't been acknowledged yet, guarded by this
+    private int unacknowledged;
+    // the highest version bumped by this server, guarded by this
+    private long acknowledged = -1;
     private RedisDatabase redis;
 
     @Override
     public void init() {
         this.redis = Cytosis.get(RedisDatabase.class);
+        MinecraftServer.getSchedulerManager().buildTask(this::reconcile).repeat(TaskSchedule.seconds(30)).schedule();
     }
 
     @NotifyHandler
-    public void onEnable(CommandDisableNotifyPacket.Packet packet) {
+    public synchronized void onEnable(CommandDisableNotifyPacket.Packet packet) {
         if (!packet.enable()) return;
         String command = packet.command();
+        disabledGlobally.remove(command);
         Logger.info("Enabling command: " + command);
-        CytosisCommand cytosisCommand = parseCommand(command);
-        if (cytosisCommand != null) {
-            cytosisCommand.setDisabled(false);
-            forAllSubcommands(cytosisCommand, subCommand -> subCommand.setDisabled(false));
-        } else {
+        if (!setDisabled(command, false)) {
             Logger.warn("Failed to parse and enable command: " + command);
         }
+        invalidateCommands();
     }
 
     @NotifyHandler
-    public void onDisable(CommandDisableNotifyPacket.Packet packet) {
+    public synchronized void onDisable(CommandDisableNotifyPacket.Packet packet) {
         if (packet.enable()) return;
         String command = packet.command();
+        disabledGlobally.add(command);
         Logger.info("Disabling command: " + command);
-        CytosisCommand cytosisCommand = parseCommand(command);
-        if (cytosisCommand != null) {
-            cytosisCommand.setDisabled(true);
-            forAllSubcommands(cytosisCommand, subCommand -> subCommand.setDisabled(true));
-        } else {
+        if (!setDisabled(command, true)) {
             Logger.warn("Failed to parse and disable command: " + command);
         }
+        invalidateCommands();
     }
 
     public void forAllSubcommands(CytosisCommand cytosisCommand, Consumer<CytosisCommand> consumer) {
@@ -72,6 +91,7 @@ public class CommandDisablingManager implements Bootstrappable {
      */
     public void disableCommandLocally(CytosisCommand cmd) {
         cmd.setDisabled(true);
+        invalidateCommands();
     }
 
     /**
@@ -81,6 +101,7 @@ public class CommandDisablingManager implements Bootstrappable {
      */
     public void enableCommandLocally(CytosisCommand cmd) {
         cmd.setDisabled(false);
+        invalidateCommands();
     }
 
     /**
@@ -88,9 +109,11 @@ public class CommandDisablingManager implements Bootstrappable {
      *
      * @param command the command to re-enable globally
      */
-    public void enableCommandGlobally(String command) {
+    public synchronized void enableCommandGlobally(String command) {
+        disabledGlobally.remove(command);
         new CommandDisableNotifyPacket.Packet(command, true).publish();
-        redis.removeValue("cytosis-disabled-commands", command);
+        redis.removeValueAsync(DISABLED_COMMANDS, command);
+        bumpVersion();
     }
 
     /**
@@ -99,57 +122,120 @@ public class CommandDisablingManager implements Bootstrappable {
      *
      * @param command the command to disable everywhere
      */
-    public void disableCommandGlobally(String command) {
+    public synchronized void disableCommandGlobally(String command) {
+        disabledGlobally.add(command);
         new CommandDisableNotifyPacket.Packet(command, false).publish();
-        redis.addValue("cytosis-disabled-commands", command);
+        redis.addValueAsync(DISABLED_COMMANDS, command);
+        bumpVersion();
     }
 
+    /**
+     * Resolves a space separated command path, like {@code friend add}
+     *
+     * @param rawCommand the path of the command
+     * @return the command, or null if there is no Cytosis command at the path
+     */
     @Nullable
     public CytosisCommand parseCommand(String rawCommand) {
-        String[] parts = rawCommand.split(" ", -1);
+        return Cytosis.get(CommandHandler.class).resolve(rawCommand);
+    }
 
-        if (!(Cytosis.get(CommandManager.class).getCommand(parts[0]) instanceof CytosisCommand command)) {
+    /**
+     * Seeds the mirror of the globally disabled commands, disabling them on this server. The set and its version are
+     * sent in the same pipeline.
+     */
+    public void loadRemotes() {
+        redis.getValueAsync(DISABLED_COMMANDS_VERSION)
+            .thenAcceptBoth(redis.getSetAsync(DISABLED_COMMANDS), this::apply)
+            .exceptionally(throwable -> {
+                Logger.error("Failed to load the globally disabled commands!", throwable);
+                return null;
+            });
+    }
+
+    /**
+     * Checks if a command is disabled on every server, from the local mirror
+     *
+     * @param command the command path
+     * @return if the command is globally disabled
+     */
+    public boolean isDisabledGlobally(String command) {
+        return disabledGlobally.contains(command);
+    }
+
+    /**
+     * Compares the version in redis with the version of the mirror, and only reloads the set if they differ
+     */
+    private void reconcile() {
+        if (version < 0) return; // not seeded yet
+        redis.getValueAsync(DISABLED_COMMANDS_VERSION).thenCompose(remote -> {
+            if (parseVersion(remote) <= version) return CompletableFuture.<Void>completedFuture(null);
+            return redis.getSetAsync(DISABLED_COMMANDS).thenAccept(commands -> apply(remote, commands));
+        }).exceptionally(throwable -> {
+            Logger.error("Failed to reconcile the globally disabled commands!", throwable);
             return null;
-        }
+        });
+    }
 
-        for (int i = 1; i < parts.length; i++) {
-            String part = parts[i];
-            CytosisCommand next = null;
-            for (Command subcommand : command.getSubcommands()) {
-                if (Arrays.asList(subcommand.getNames()).contains(part) && subcommand instanceof CytosisCommand sub) {
-                    next = sub;
-                    break;
-                }
+    /**
+     * Replaces the mirror with the set read from redis, enabling and disabling the commands that changed. A set older
+     * than one already seen is skipped, as is a set read before one of this server's own changes reached redis, which
+     * would undo that change. The next reconcile reads it again.
+     */
+    private synchronized void apply(@Nullable String remoteVersion, Set<String> commands) {
+        long remote = parseVersion(remoteVersion);
+        if (version >= 0 && (unacknowledged > 0 || remote < Math.max(version, acknowledged))) return;
+        Set<String> enabled = new HashSet<>(disabledGlobally);
+        enabled.removeAll(commands);
+        Set<String> disabled = new HashSet<>(commands);
+        disabled.removeAll(disabledGlobally);
+
+        for (String cmd : disabled) {
+            Logger.info("Disabling command: " + cmd);
+            if (!setDisabled(cmd, true)) {
+                Logger.warn("Failed to disable command: " + cmd);
             }
-            if (next == null) return null;
-            command = next;
         }
+        for (String cmd : enabled) {
+            Logger.info("Enabling command: " + cmd);
+            setDisabled(cmd, false);
+        }
+        disabledGlobally.retainAll(commands);
+        disabledGlobally.addAll(commands);
+        version = remote;
+        if (!enabled.isEmpty() || !disabled.isEmpty()) invalidateCommands();
+    }
 
-        return command;
+    private boolean setDisabled(String rawCommand, boolean disabled) {
+        CytosisCommand command = parseCommand(rawCommand);
+        if (command == null) return false;
+        command.setDisabled(disabled);
+        forAllSubcommands(command, subCommand -> subCommand.setDisabled(disabled));
+        return true;
     }
 
-    public void loadRemotes() {
-        CompletableFuture.supplyAsync(() -> {
-
-            Set<String> commands = redis.getSet("cytosis-disabled-commands");
-
-            for (String cmd : commands) {
-                CytosisCommand command = parseCommand(cmd);
-                if (command != null) {
-                    Logger.info("Disabling command: " + cmd);
-                    command.setDisabled(true);
-                    forAllSubcommands(command, subCommand -> subCommand.setDisabled(true));
-                } else {
-                    Logger.warn("Failed to disable command: " + cmd);
-                }
+    /**
+     * Bumps the version in redis after a global change. Sent after the change itself, so once the new version is
+     * acknowledged, any set read at that version includes the change.
+     */
+    private void bumpVersion() {
+        unacknowledged++;
+        redis.incrementAsync(DISABLED_COMMANDS_VERSION).whenComplete((remote, throwable) -> {
+            synchronized (this) {
+                unacknowledged--;
+                if (remote != null) acknowledged = Math.max(acknowledged, remote);
+            }
+            if (throwable != null) {
+                Logger.error("Failed to bump the version of the globally disabled commands!", throwable);
             }
-
-            return null;
         });
     }
 
-    public boolean isDisabledGlobally(String command) {
-        return redis.getSet("cytosis-disabled-commands")
-            .contains(command);
+    private static long parseVersion(@Nullable String version) {
+        return version == null ? 0 : Long.parseLong(version);
+    }
+
+    private void invalidateCommands() {
+        Cytosis.get(CommandHandler.class).invalidateCommands();
     }
 }
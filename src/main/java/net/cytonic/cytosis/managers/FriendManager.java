@@ -1,10 +1,7 @@
 package net.cytonic.cytosis.managers;
 
-import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.NoArgsConstructor;
 import net.kyori.adventure.text.Component;
@@ -15,7 +12,8 @@ import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.bootstrap.annotations.CytosisComponent;
 import net.cytonic.cytosis.data.EnvironmentDatabase;
 import net.cytonic.cytosis.data.GlobalDatabase;
-import net.cytonic.cytosis.data.objects.ExpiringMap;
+import net.cytonic.cytosis.data.objects.FriendGraph;
+import net.cytonic.cytosis.data.objects.PlayerProfile;
 import net.cytonic.cytosis.logging.Logger;
 import net.cytonic.cytosis.messaging.NatsManager;
 import net.cytonic.cytosis.player.CytosisPlayer;
@@ -31,7 +29,7 @@ import net.cytonic.cytosis.utils.Players;
     CytonicNetwork.class}, priority = 10)
 public class FriendManager implements Bootstrappable {
 
-    private final Map<UUID, Set<UUID>> friends = new ExpiringMap<>();
+    private final FriendGraph graph = new FriendGraph();
     private CytonicNetwork network;
     private GlobalDatabase db;
 
@@ -52,19 +50,49 @@ public class FriendManager implements Bootstrappable {
     public void loadFriends(UUID uuid) {
 
         db.loadFriends(uuid)
-            .thenAccept(uuids -> friends.put(uuid, new HashSet<>(uuids)))
+            .thenAccept(uuids -> graph.load(uuid, uuids))
             .exceptionally(throwable -> {
                 Logger.error("Failed to load friends!", throwable);
                 return null;
             });
     }
 
+    /**
+     * Seeds the friend cache from a freshly loaded profile
+     *
+     * @param profile the player's profile
+     */
+    public void applyProfile(PlayerProfile profile) {
+        graph.load(profile.uuid(), profile.friends());
+    }
+
+    /**
+     * Unloads a player's friends, once they leave this server
+     *
+     * @param uuid the player
+     */
+    public void unload(UUID uuid) {
+        graph.unload(uuid);
+    }
+
+    /**
+     * Adds a friendship to the cached friends of whichever of the two players are loaded on this server
+     *
+     * @param uuid   The player
+     * @param friend The friend
+     */
     public void addCachedFriend(UUID uuid, UUID friend) {
-        Set<UUID> list = friends.computeIfAbsent(uuid, _ -> ConcurrentHashMap.newKeySet());
-        list.add(friend);
+        graph.link(uuid, friend);
+    }
 
-        Set<UUID> friendList = friends.computeIfAbsent(friend, _ -> ConcurrentHashMap.newKeySet());
-        friendList.add(uuid);
+    /**
+     * Removes a friendship from the cached friends of whichever of the two players are loaded on this server
+     *
+     * @param uuid   The player
+     * @param friend The friend
+     */
+    public void removeCachedFriend(UUID uuid, UUID friend) {
+        graph.unlink(uuid, friend);
     }
 
     /**
@@ -77,18 +105,8 @@ public class FriendManager implements Bootstrappable {
         if (uuid.equals(friend)) {
             return; // you can't do that!
         }
-        addFriendRecursive(uuid, friend, true);
-    }
-
-    private void addFriendRecursive(UUID uuid, UUID friend, boolean recursive) {
-        Set<UUID> list = friends.computeIfAbsent(uuid, _ -> ConcurrentHashMap.newKeySet());
-        list.add(friend);
-
-        db.updateFriends(uuid, list);
-
-        if (recursive) { // add the other player to their friends' list
-            addFriendRecursive(friend, uuid, false);
-        }
+        graph.link(uuid, friend);
+        db.addFriendship(uuid, friend);
     }
 
     /**
@@ -99,21 +117,11 @@ public class FriendManager implements Bootstrappable {
      */
     public void removeFriend(UUID uuid, UUID friend) {
         if (uuid.equals(friend)) return;
-        removeFriendRecursive(uuid, friend, true);
+        graph.unlink(uuid, friend);
+        db.removeFriendship(uuid, friend);
         Cytosis.get(FriendPacketsPublisher.class).sendFriendRemove(uuid, friend);
     }
 
-    private void removeFriendRecursive(UUID uuid, UUID friend, boolean recursive) {
-        Set<UUID> list = friends.computeIfAbsent(uuid, _ -> ConcurrentHashMap.newKeySet());
-        list.remove(friend);
-
-        db.updateFriends(uuid, list);
-
-        if (recursive) {
-            removeFriendRecursive(friend, uuid, false);
-        }
-    }
-
     /**
      * Sends the player their list of friends
      *
@@ -127,7 +135,7 @@ public class FriendManager implements Bootstrappable {
         }
 
         player.sendMessage(
-            Msg.aquaSplash("Friends List", "(" + getFriends(player.getUuid()).size() + ") <dark_gray>»</dark_gray>"));
+            Msg.aquaSplash("Friends List", "(%s) <dark_gray>»</dark_gray>", getFriends(player.getUuid()).size()));
 
         for (UUID friend : getFriends(player.getUuid())) {
             boolean online = network.getOnlinePlayers().containsKey(friend);
@@ -140,10 +148,10 @@ public class FriendManager implements Bootstrappable {
      * Gets a player's friends
      *
      * @param uuid The player
-     * @return the set of UUIDs of the player friends
+     * @return an unmodifiable view of the UUIDs of the player's friends, empty if they aren't on this server
      */
     public Set<UUID> getFriends(UUID uuid) {
-        return friends.getOrDefault(uuid, ConcurrentHashMap.newKeySet());
+        return graph.friendsOf(uuid);
     }
 
     /**
@@ -152,12 +160,7 @@ public class FriendManager implements Bootstrappable {
      * @param uuid the player who logged out
      */
     public void sendLogoutMessage(UUID uuid) {
-        Component msg = Msg.darkAqua("Friend » %s <gray>left.", Players.trueMiniName(uuid));
-        Cytosis.getOnlinePlayers().forEach(player -> {
-            if (getFriends(player.getUuid()).contains(uuid)) {
-                player.sendMessage(msg);
-            }
-        });
+        notifyFriends(uuid, "Friend » %s <gray>left.");
     }
 
     /**
@@ -166,11 +169,19 @@ public class FriendManager implements Bootstrappable {
      * @param uuid the player who logged in
      */
     public void sendLoginMessage(UUID uuid) {
-        Component msg = Msg.darkAqua("Friend » %s <gray>joined.", Players.trueMiniName(uuid));
-        Cytosis.getOnlinePlayers().forEach(player -> {
-            if (getFriends(player.getUuid()).contains(uuid)) {
-                player.sendMessage(msg);
-            }
-        });
+        notifyFriends(uuid, "Friend » %s <gray>joined.");
+    }
+
+    /**
+     * Sends a message to the players on this server who are friends with the player. Only those players are visited,
+     * and the message is only built if there is at least one of them.
+     */
+    private void notifyFriends(UUID uuid, String message) {
+        Set<UUID> recipients = graph.localFriendsOf(uuid);
+        if (recipients.isEmpty()) return;
+        Component msg = Msg.darkAqua(message, Players.trueMiniName(uuid));
+        for (UUID recipient : recipients) {
+            Cytosis.getPlayer(recipient).ifPresent(player -> player.sendMessage(msg));
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,35 +1,49 @@
 package net.cytonic.cytosis.managers;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import net.kyori.adventure.key.Key;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.timer.TaskSchedule;
 import org.jetbrains.annotations.Nullable;
 
 import net.cytonic.cytosis.Bootstrappable;
 import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.bootstrap.annotations.CytosisComponent;
 import net.cytonic.cytosis.data.RedisDatabase;
+import net.cytonic.cytosis.data.objects.CooldownStore;
 import net.cytonic.cytosis.logging.Logger;
 import net.cytonic.cytosis.messaging.NatsManager;
 import net.cytonic.protocol.impl.notify.CooldownUpdateNotifyPacket;
 import net.cytonic.protocol.impl.notify.CooldownUpdateNotifyPacket.Type;
 
 /**
- * A class that handles network-wide cooldowns that sync across servers
+ * A class that handles network-wide cooldowns that sync across servers. Personal cooldowns are only held for the
+ * players on this server; they are loaded when a player joins and forgotten when they leave. The synchronous lookups
+ * only read what is loaded and never wait on redis, so they treat a player whose cooldowns aren't loaded as not on
+ * cooldown. Everyone else's cooldowns are read from redis by the asynchronous lookups.
  */
 @CytosisComponent(dependsOn = {RedisDatabase.class, NatsManager.class, LocalCooldownManager.class})
 public class NetworkCooldownManager implements Bootstrappable {
 
-    private final Map<Key, Instant> global = new ConcurrentHashMap<>();
-    private final Map<UUID, Map<Key, Instant>> personal = new ConcurrentHashMap<>();
+    private static final int MAX_BATCH_SIZE = 128;
+
+    private final CooldownStore cooldowns = new CooldownStore();
+    private final LinkedBlockingQueue<UUID> pending = new LinkedBlockingQueue<>();
+    private final Map<UUID, CompletableFuture<Void>> loading = new ConcurrentHashMap<>();
     private RedisDatabase redis;
     private NatsManager nats;
+    private Thread loader;
 
     public NetworkCooldownManager() {
     }
@@ -49,6 +63,39 @@ public class NetworkCooldownManager implements Bootstrappable {
         this.redis = Cytosis.get(RedisDatabase.class);
         this.nats = Cytosis.get(NatsManager.class);
         importFromRedis();
+        this.loader = Thread.ofVirtual().name("CytosisCooldownLoader").start(this::processBatches);
+        MinecraftServer.getSchedulerManager().buildTask(cooldowns::expire).repeat(TaskSchedule.seconds(1)).schedule();
+    }
+
+    @Override
+    public void shutdown() {
+        if (loader != null) loader.interrupt();
+    }
+
+    /**
+     * Loads the personal cooldowns of a player joining this server. Players joining at the same time are loaded
+     * together, in one pipelined round trip.
+     *
+     * @param uuid the player
+     * @return a future completing once the cooldowns are loaded
+     */
+    public CompletableFuture<Void> loadPlayer(UUID uuid) {
+        return loading.computeIfAbsent(uuid, _ -> {
+            pending.add(uuid);
+            return new CompletableFuture<>();
+        });
+    }
+
+    /**
+     * Forgets the personal cooldowns of a player who left this server. If they are still loading, they are dropped
+     * once they arrive instead of being kept.
+     *
+     * @param uuid the player
+     */
+    public void unloadPlayer(UUID uuid) {
+        CompletableFuture<Void> load = loading.remove(uuid);
+        if (load != null) load.complete(null);
+        cooldowns.unload(uuid);
     }
 
     /**
@@ -58,37 +105,31 @@ public class NetworkCooldownManager implements Bootstrappable {
      * @return if the specified cooldown is active
      */
     public boolean isOnGlobalCooldown(Key id) {
-        if (!global.containsKey(id)) {
-            return false;
-        }
-        Instant expire = global.get(id);
-        if (expire.isAfter(Instant.now())) {
-            return true;
-        }
-        global.remove(id);
-        return false;
+        return cooldowns.get(id) != 0;
     }
 
     /**
-     * Determines if a player is on cooldown for something
+     * Determines if a player on this server is on cooldown for something. A player whose cooldowns aren't loaded, or
+     * are still loading, isn't on cooldown; use {@link #isOnPersonalCooldownAsync(UUID, Key)} for them.
      *
      * @param uuid the player's uuid
      * @param id   the id of the cooldown
      * @return if the player is currently on cooldown for the specified cooldown
      */
     public boolean isOnPersonalCooldown(UUID uuid, Key id) {
-        if (!personal.containsKey(uuid)) {
-            return false;
-        }
-        if (!personal.get(uuid).containsKey(id)) {
-            return false;
-        }
-        Instant expire = personal.get(uuid).get(id);
-        if (expire.isAfter(Instant.now())) {
-            return true;
-        }
-        personal.get(uuid).remove(id);
-        return false;
+        return cooldowns.get(uuid, id) != 0;
+    }
+
+    /**
+     * Determines if a player is on cooldown for something. Players who aren't on this server are looked up in redis,
+     * and players whose cooldowns are still loading are answered once they are loaded.
+     *
+     * @param uuid the player's uuid
+     * @param id   the id of the cooldown
+     * @return a future completing with if the player is currently on cooldown for the specified cooldown
+     */
+    public CompletableFuture<Boolean> isOnPersonalCooldownAsync(UUID uuid, Key id) {
+        return personalExpiryAsync(uuid, id).thenApply(expiry -> expiry != 0);
     }
 
     /**
@@ -109,8 +150,7 @@ public class NetworkCooldownManager implements Bootstrappable {
      * @param notify if the server should notify other servers to update their cache
      */
     public void resetPersonalCooldown(UUID uuid, Key id, boolean notify) {
-        if (!personal.containsKey(uuid)) return;
-        personal.get(uuid).remove(id);
+        cooldowns.remove(uuid, id);
         redis.removeFromHash(toPersonalKey(uuid), id.asString());
 
         if (notify) {
@@ -134,8 +174,7 @@ public class NetworkCooldownManager implements Bootstrappable {
      * @param notify if the server should notify other servers to update their local caches
      */
     public void resetGlobalCooldown(Key id, boolean notify) {
-        if (!global.containsKey(id)) return;
-        global.remove(id);
+        if (!cooldowns.remove(id)) return;
         if (notify) {
             new CooldownUpdateNotifyPacket.Packet(id, null, null, Type.GLOBAL).publish();
         }
@@ -162,7 +201,7 @@ public class NetworkCooldownManager implements Bootstrappable {
             resetGlobalCooldown(id, false);
             return;
         }
-        global.put(id, expire);
+        cooldowns.set(id, expire.toEpochMilli());
         redis.addToHash(RedisDatabase.GLOBAL_COOLDOWNS_KEY, id.asString(), expire.toString());
         if (publish) {
             new CooldownUpdateNotifyPacket.Packet(id, expire, null, Type.GLOBAL).publish();
@@ -192,10 +231,17 @@ public class NetworkCooldownManager implements Bootstrappable {
             resetPersonalCooldown(uuid, id, false);
             return;
         }
-        if (!personal.containsKey(uuid)) {
-            personal.put(uuid, new ConcurrentHashMap<>());
-        }
-        personal.get(uuid).put(id, expire);
+        long expiry = expire.toEpochMilli();
+        // players who aren't on this server are read from redis when needed. Cooldowns set while a player is loading
+        // are kept, and win over what the load read from redis.
+        loading.compute(uuid, (_, load) -> {
+            if (load != null) {
+                cooldowns.set(uuid, id, expiry);
+            } else {
+                cooldowns.setIfLoaded(uuid, id, expiry);
+            }
+            return load;
+        });
         redis.addToHash(toPersonalKey(uuid), id.asString(), expire.toString());
         if (publish) {
             new CooldownUpdateNotifyPacket.Packet(id, expire, uuid, Type.PERSONAL).publish();
@@ -203,32 +249,22 @@ public class NetworkCooldownManager implements Bootstrappable {
     }
 
     /**
-     * Imports the current cooldowns from redis
+     * Imports the current global cooldowns from redis. Personal cooldowns are loaded as players join.
      */
     public void importFromRedis() {
         long start = System.currentTimeMillis();
-        Set<String> personalKeys = redis.getKeys("COOLDOWN_PERSONAL_KEY:*");
-        for (String personalKey : personalKeys) {
-            UUID uuid = UUID.fromString(personalKey.split("COOLDOWN_PERSONAL_KEY:")[1]);
-
-            Map<String, String> results = redis.getHash(personalKey);
-            Map<Key, Instant> personalMap = new HashMap<>();
-
-            results.forEach((key, value) -> personalMap.put(Key.key(key), Instant.parse(value)));
-            personal.put(uuid, personalMap);
+        Map<String, String> results = redis.getHash(RedisDatabase.GLOBAL_COOLDOWNS_KEY);
+        long now = System.currentTimeMillis();
+        int loaded = 0;
+        for (Map.Entry<String, String> entry : results.entrySet()) {
+            long expiry = Instant.parse(entry.getValue()).toEpochMilli();
+            if (expiry <= now) continue;
+            cooldowns.set(Key.key(entry.getKey()), expiry);
+            loaded++;
         }
         long end = System.currentTimeMillis();
-        Logger.info("Loaded " + personalKeys.size() + " players' cooldowns in " + (end - start) + " ms!");
-
-        start = System.currentTimeMillis();
-        Map<String, String> results = redis.getHash(RedisDatabase.GLOBAL_COOLDOWNS_KEY);
-        Map<Key, Instant> globalMap = new HashMap<>();
 
-        results.forEach((key, value) -> globalMap.put(Key.key(key), Instant.parse(value)));
-        global.putAll(globalMap);
-        end = System.currentTimeMillis();
-
-        Logger.info("Loaded " + globalMap.size() + " global cooldowns in " + (end - start) + " ms!");
+        Logger.info("Loaded " + loaded + " global cooldowns in " + (end - start) + " ms!");
     }
 
     /**
@@ -239,18 +275,30 @@ public class NetworkCooldownManager implements Bootstrappable {
      */
     @Nullable
     public Instant getGlobalExpiry(Key node) {
-        return global.get(node);
+        return CooldownStore.toInstant(cooldowns.get(node));
     }
 
     /**
-     * Returns the expiry of a specific personal cooldown
+     * Returns the expiry of a specific personal cooldown of a player on this server. A player whose cooldowns aren't
+     * loaded, or are still loading, has none; use {@link #getPersonalExpiryAsync(UUID, Key)} for them.
      *
      * @param node the cooldown id
      * @return the instant it expires.
      */
     @Nullable
     public Instant getPersonalExpiry(UUID uuid, Key node) {
-        return personal.get(uuid).get(node);
+        return CooldownStore.toInstant(cooldowns.get(uuid, node));
+    }
+
+    /**
+     * Returns the expiry of a specific personal cooldown. Players who aren't on this server are looked up in redis, and
+     * players whose cooldowns are still loading are answered once they are loaded.
+     *
+     * @param node the cooldown id
+     * @return a future completing with the instant it expires, or null if the player isn't on cooldown
+     */
+    public CompletableFuture<Instant> getPersonalExpiryAsync(UUID uuid, Key node) {
+        return personalExpiryAsync(uuid, node).thenApply(CooldownStore::toInstant);
     }
 
     /**
@@ -259,7 +307,7 @@ public class NetworkCooldownManager implements Bootstrappable {
      * @return the set of global keys
      */
     public Set<Key> getGlobalKeys() {
-        return global.keySet();
+        return cooldowns.serverKeys();
     }
 
     /**
@@ -269,18 +317,70 @@ public class NetworkCooldownManager implements Bootstrappable {
      */
     public Set<Key> getAllKeys() {
         Set<Key> keys = getPersonalKeys();
-        keys.addAll(global.keySet());
+        keys.addAll(getGlobalKeys());
         return keys;
     }
 
     /**
-     * Gets the keys of the currently active personal cooldowns (every player)
+     * Gets the keys of the currently active personal cooldowns of the players on this server
      *
      * @return the set of personal keys
      */
     public Set<Key> getPersonalKeys() {
-        Set<Key> personalKeys = new HashSet<>();
-        personal.forEach((uuid, map) -> map.forEach((key, instant) -> personalKeys.add(key)));
-        return personalKeys;
+        return cooldowns.personalKeys();
+    }
+
+    private CompletableFuture<Long> personalExpiryAsync(UUID uuid, Key id) {
+        CompletableFuture<Void> load = loading.get(uuid);
+        if (load != null) {
+            return load.thenApply(_ -> cooldowns.get(uuid, id));
+        }
+        if (cooldowns.isLoaded(uuid)) {
+            return CompletableFuture.completedFuture(cooldowns.get(uuid, id));
+        }
+        return redis.getFromHashAsync(toPersonalKey(uuid), id.asString()).thenApply(expiry -> {
+            if (expiry == null) return 0L;
+            long millis = Instant.parse(expiry).toEpochMilli();
+            return millis > System.currentTimeMillis() ? millis : 0L;
+        });
+    }
+
+    private void processBatches() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<UUID> batch = new ArrayList<>();
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            pending.drainTo(batch, MAX_BATCH_SIZE - 1);
+            batch = new ArrayList<>(new HashSet<>(batch));
+            try {
+                List<Map<String, String>> hashes = redis.getHashes(batch.stream()
+                    .map(NetworkCooldownManager::toPersonalKey).toList());
+                for (int i = 0; i < batch.size(); i++) {
+                    UUID uuid = batch.get(i);
+                    CompletableFuture<Void> future = loading.get(uuid);
+                    // the player left while loading, installing their cooldowns now would keep them forever
+                    if (future == null) continue;
+                    Map<Key, Long> personal = new HashMap<>();
+                    hashes.get(i).forEach((key, value) -> personal.put(Key.key(key),
+                        Instant.parse(value).toEpochMilli()));
+                    // installed under the player's loading entry, so an unload either sees them or stops the install
+                    loading.computeIfPresent(uuid, (_, current) -> {
+                        if (current != future) return current;
+                        cooldowns.load(uuid, personal);
+                        return null;
+                    });
+                    future.complete(null);
+                }
+            } catch (Exception e) {
+                Logger.error("Failed to load the cooldowns of " + batch.size() + " players!", e);
+                batch.forEach(uuid -> {
+                    CompletableFuture<Void> future = loading.remove(uuid);
+                    if (future != null) future.completeExceptionally(e);
+                });
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,11 +1,23 @@
 package net.cytonic.cytosis.managers;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import lombok.Getter;
 import net.minestom.server.MinecraftServer;
+import net.minestom.server.coordinate.CoordConversion;
+import net.minestom.server.coordinate.Pos;
+import net.minestom.server.instance.Instance;
 import net.minestom.server.timer.TaskSchedule;
 
 import net.cytonic.cytosis.Bootstrappable;
@@ -16,19 +28,32 @@ import net.cytonic.cytosis.player.CytosisPlayer;
 import net.cytonic.protocol.utils.JandexUtils;
 
 /**
- * A class that manages NPCs
+ * A class that manages NPCs. NPCs with a shared entity are indexed by the chunk they are in, so each player only checks
+ * the NPCs around them. Player-specific NPCs can be anywhere, so they are checked for every player.
  */
 @CytosisComponent
 public class NpcManager implements Bootstrappable {
 
+    // the spawn distance, in chunks
+    private static final int CHUNK_RADIUS = Math.ceilDiv(NPC.SPAWN_DISTANCE, 16);
+
     @Getter
     private static final Map<UUID, NPC> registeredNPCs = new ConcurrentHashMap<>();
 
+    private final Int2ObjectMap<NPC> entityIds = Int2ObjectMaps.synchronize(new Int2ObjectOpenHashMap<>());
+    // guarded by this
+    private final Map<Instance, Long2ObjectMap<Set<NPC>>> grid = new HashMap<>();
+    private final Map<NPC, Long> cells = new HashMap<>();
+    private final Set<NPC> unplaced = new HashSet<>();
+    // the NPCs each player currently sees
+    private final Map<UUID, Set<NPC>> visible = new ConcurrentHashMap<>();
+
     @Override
     public void init() {
         JandexUtils.getExtendedClasses(NPC.class).forEach(NPC::register);
 
         MinecraftServer.getSchedulerManager().scheduleTask(() -> {
+            registeredNPCs.values().forEach(this::place);
             for (CytosisPlayer player : Cytosis.getOnlinePlayers()) {
                 updateForPlayer(player);
             }
@@ -37,26 +62,108 @@ public class NpcManager implements Bootstrappable {
 
     public void register(NPC npc) {
         registeredNPCs.put(npc.getUuid(), npc);
+        place(npc);
     }
 
     public void removePlayer(CytosisPlayer player) {
+        visible.remove(player.getUuid());
         registeredNPCs.values().forEach(npc -> npc.removePlayer(player));
     }
 
     public void removeNPC(NPC npc) {
         registeredNPCs.remove(npc.getUuid());
+        unplace(npc);
+        visible.values().forEach(npcs -> npcs.remove(npc));
     }
 
     public void updateForPlayer(CytosisPlayer player) {
-        registeredNPCs.values().forEach(npc -> npc.updateForPlayer(player));
+        Set<NPC> seen = visible.computeIfAbsent(player.getUuid(), _ -> ConcurrentHashMap.newKeySet());
+        for (NPC npc : candidates(player, seen)) {
+            if (npc.updateForPlayer(player)) {
+                seen.add(npc);
+            } else {
+                seen.remove(npc);
+            }
+        }
     }
 
     public NPC getNPC(CytosisPlayer player, int entityId) {
-        for (NPC npc : registeredNPCs.values()) {
-            if (npc.hasEntityId(player, entityId)) {
-                return npc;
+        NPC npc = entityIds.get(entityId);
+        return npc != null && npc.hasEntityId(player, entityId) ? npc : null;
+    }
+
+    /**
+     * Maps an entity to the NPC it belongs to, for interaction lookups
+     *
+     * @param entityId the entity id
+     * @param npc      the NPC
+     */
+    public void indexEntity(int entityId, NPC npc) {
+        entityIds.put(entityId, npc);
+    }
+
+    /**
+     * Removes an entity from the interaction lookups
+     *
+     * @param entityId the entity id
+     */
+    public void unindexEntity(int entityId) {
+        entityIds.remove(entityId);
+    }
+
+    /**
+     * Gets the NPCs that may need an update for a player: those in range of their chunk, the player-specific ones and
+     * the ones they currently see, so they can be despawned.
+     */
+    private synchronized Set<NPC> candidates(CytosisPlayer player, Set<NPC> seen) {
+        Set<NPC> candidates = new LinkedHashSet<>(seen);
+        candidates.addAll(unplaced);
+        Long2ObjectMap<Set<NPC>> chunks = player.getInstance() == null ? null : grid.get(player.getInstance());
+        if (chunks == null) return candidates;
+
+        int chunkX = CoordConversion.globalToChunk(player.getPosition().x());
+        int chunkZ = CoordConversion.globalToChunk(player.getPosition().z());
+        for (int x = chunkX - CHUNK_RADIUS; x <= chunkX + CHUNK_RADIUS; x++) {
+            for (int z = chunkZ - CHUNK_RADIUS; z <= chunkZ + CHUNK_RADIUS; z++) {
+                Set<NPC> npcs = chunks.get(CoordConversion.chunkIndex(x, z));
+                if (npcs != null) candidates.addAll(npcs);
             }
         }
-        return null;
+        return candidates;
+    }
+
+    /**
+     * Moves an NPC to the cell of its current position
+     */
+    private synchronized void place(NPC npc) {
+        if (!registeredNPCs.containsKey(npc.getUuid())) return;
+        Pos anchor = npc.getAnchor();
+        if (anchor == null) {
+            unplace(npc);
+            unplaced.add(npc);
+            return;
+        }
+        long cell = CoordConversion.chunkIndex(CoordConversion.globalToChunk(anchor.x()),
+            CoordConversion.globalToChunk(anchor.z()));
+        Long previous = cells.get(npc);
+        if (previous != null && previous == cell) return;
+
+        unplace(npc);
+        cells.put(npc, cell);
+        grid.computeIfAbsent(npc.getConfig().instance(), _ -> new Long2ObjectOpenHashMap<>())
+            .computeIfAbsent(cell, _ -> new HashSet<>())
+            .add(npc);
+    }
+
+    private synchronized void unplace(NPC npc) {
+        unplaced.remove(npc);
+        Long cell = cells.remove(npc);
+        if (cell == null) return;
+        Long2ObjectMap<Set<NPC>> chunks = grid.get(npc.getConfig().instance());
+        if (chunks == null) return;
+        Set<NPC> npcs = chunks.get((long) cell);
+        if (npcs == null) return;
+        npcs.remove(npc);
+        if (npcs.isEmpty()) chunks.remove((long) cell);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,440 @@
+package net.cytonic.cytosis.managers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import lombok.NoArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+
+import net.cytonic.cytosis.Bootstrappable;
+import net.cytonic.cytosis.Cytosis;
+import net.cytonic.cytosis.bootstrap.annotations.CytosisComponent;
+import net.cytonic.cytosis.data.GlobalDatabase;
+import net.cytonic.cytosis.data.GlobalDatabase.DirectoryEntry;
+import net.cytonic.cytosis.data.GlobalDatabase.IndexedPlayer;
+import net.cytonic.cytosis.data.enums.PlayerRank;
+import net.cytonic.cytosis.logging.Logger;
+
+/**
+ * Resolves the names, UUIDs and ranks of every player who has ever joined the network. Every player is held in a
+ * compact index of sorted arrays, which is built in the background on startup, so lookups stay in memory and are safe
+ * on NATS, tick and command threads. Players who joined, changed their name or changed their rank since the index was
+ * built are kept in a map next to it, which takes precedence.
+ * <p>
+ * A player who isn't known yet, for example before the index is built, is looked up in the background, and the
+ * synchronous lookups miss until that lookup completes. Use the asynchronous lookups where waiting for the database is
+ * acceptable.
+ */
+@NoArgsConstructor
+@CytosisComponent(dependsOn = GlobalDatabase.class)
+public class PlayerDirectory implements Bootstrappable {
+
+    private static final int PAGE_SIZE = 5_000;
+    private static final PlayerRank[] RANKS = PlayerRank.values();
+
+    // players seen since the index was built, taking precedence over it
+    private final Map<UUID, DirectoryEntry> recent = new ConcurrentHashMap<>();
+    private final Map<String, UUID> recentByName = new ConcurrentHashMap<>(); // lowercased name, uuid
+    // names of players who joined after the index was built
+    private final NavigableSet<String> recentNames = new ConcurrentSkipListSet<>(String.CASE_INSENSITIVE_ORDER);
+    // background lookups in flight, by UUID or lowercased name
+    private final Map<Object, CompletableFuture<DirectoryEntry>> lookups = new ConcurrentHashMap<>();
+    private volatile Index index = Index.EMPTY;
+    private GlobalDatabase gdb;
+
+    @Override
+    public void init() {
+        this.gdb = Cytosis.get(GlobalDatabase.class);
+        Thread.ofVirtual().name("CytosisDirectoryIndexer").start(this::buildIndex);
+    }
+
+    /**
+     * Caches a player who is joining, or whose name changed
+     *
+     * @param uuid the player's UUID
+     * @param name the player's name
+     * @param rank the player's rank
+     */
+    public void remember(UUID uuid, String name, PlayerRank rank) {
+        DirectoryEntry previous = find(uuid, false);
+        cache(new DirectoryEntry(uuid, name, rank));
+        if (previous != null && !previous.name().equalsIgnoreCase(name)) {
+            recentByName.remove(previous.name().toLowerCase(), uuid);
+        }
+        if (index.indexOf(name) < 0) recentNames.add(name);
+    }
+
+    /**
+     * Records the name of a player joining the network. A known player keeps their rank, and a player who isn't known
+     * is shown with the default rank until their rank is looked up in the background.
+     *
+     * @param uuid the player's UUID
+     * @param name the player's name
+     */
+    public void rememberName(UUID uuid, String name) {
+        DirectoryEntry previous = find(uuid, false);
+        remember(uuid, name, previous == null ? PlayerRank.DEFAULT : previous.rank());
+        if (previous != null) return;
+        gdb.findPlayerAsync(uuid).whenComplete((found, throwable) -> {
+            if (throwable != null) {
+                Logger.error("Failed to look up the rank of " + uuid + "!", throwable);
+            } else if (found != null) {
+                updateRank(uuid, found.rank());
+            }
+        });
+    }
+
+    /**
+     * Updates the rank of a known player. Players who aren't known pick the rank up on their next lookup.
+     *
+     * @param uuid the player's UUID
+     * @param rank the player's new rank
+     */
+    public void updateRank(UUID uuid, PlayerRank rank) {
+        DirectoryEntry entry = find(uuid, false);
+        if (entry != null) cache(new DirectoryEntry(uuid, entry.name(), rank));
+    }
+
+    /**
+     * Looks up a player by UUID. This never touches the database; a player who isn't known is looked up in the
+     * background.
+     *
+     * @param uuid the player's UUID
+     * @return the player's entry, or null if they have never joined or aren't known yet
+     */
+    @Nullable
+    public DirectoryEntry find(UUID uuid) {
+        return find(uuid, true);
+    }
+
+    /**
+     * Looks up a player by UUID, for display. A player who isn't known is shown by their UUID and the default rank,
+     * instead of failing whoever is rendering them.
+     *
+     * @param uuid the player's UUID
+     * @return the player's entry, or a placeholder if they aren't known
+     */
+    public DirectoryEntry findOrUnknown(UUID uuid) {
+        DirectoryEntry entry = find(uuid);
+        return entry == null ? new DirectoryEntry(uuid, uuid.toString(), PlayerRank.DEFAULT) : entry;
+    }
+
+    /**
+     * Looks up a player by name, ignoring case. This never touches the database; a name that isn't known is looked up
+     * in the background.
+     *
+     * @param name the player's name
+     * @return the player's entry, or null if no player by that name has joined or they aren't known yet
+     */
+    @Nullable
+    public DirectoryEntry find(String name) {
+        DirectoryEntry entry = findByName(name);
+        if (entry == null) lookup(name);
+        return entry;
+    }
+
+    /**
+     * Looks up a player by UUID, reading the database if they aren't known
+     *
+     * @param uuid the player's UUID
+     * @return a future completing with the player's entry, or null if they have never joined
+     */
+    public CompletableFuture<DirectoryEntry> findAsync(UUID uuid) {
+        DirectoryEntry entry = find(uuid, false);
+        return entry != null ? CompletableFuture.completedFuture(entry) : lookup(uuid);
+    }
+
+    /**
+     * Looks up a player by name, ignoring case, reading the database if they aren't known
+     *
+     * @param name the player's name
+     * @return a future completing with the player's entry, or null if no player by that name has joined
+     */
+    public CompletableFuture<DirectoryEntry> findAsync(String name) {
+        DirectoryEntry entry = findByName(name);
+        return entry != null ? CompletableFuture.completedFuture(entry) : lookup(name);
+    }
+
+    /**
+     * Gets a player's name
+     *
+     * @param uuid the player's UUID
+     * @return the player's name, or null if they have never joined or aren't known yet
+     */
+    @Nullable
+    public String getName(UUID uuid) {
+        DirectoryEntry entry = find(uuid);
+        return entry == null ? null : entry.name();
+    }
+
+    /**
+     * Gets the names of many players. This never touches the database; the players who aren't known are looked up in a
+     * single background query.
+     *
+     * @param uuids the players' UUIDs
+     * @return the names of the known players, in the order of {@code uuids}
+     */
+    public List<String> getNames(Collection<UUID> uuids) {
+        List<String> result = new ArrayList<>(uuids.size());
+        List<UUID> missing = new ArrayList<>();
+        for (UUID uuid : uuids) {
+            DirectoryEntry entry = find(uuid, false);
+            if (entry != null) {
+                result.add(entry.name());
+            } else if (!lookups.containsKey(uuid)) {
+                missing.add(uuid);
+            }
+        }
+        if (!missing.isEmpty()) {
+            gdb.findPlayersAsync(missing).whenComplete((loaded, throwable) -> {
+                if (throwable != null) {
+                    Logger.error("Failed to look up " + missing.size() + " players!", throwable);
+                    return;
+                }
+                loaded.values().forEach(this::cacheIfAbsent);
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Gets a player's UUID, ignoring the case of the name
+     *
+     * @param name the player's name
+     * @return the player's UUID, or null if no player by that name has joined or they aren't known yet
+     */
+    @Nullable
+    public UUID getUuid(String name) {
+        DirectoryEntry entry = find(name);
+        return entry == null ? null : entry.uuid();
+    }
+
+    /**
+     * Gets a player's rank. This is for reference and should not be used to set data.
+     *
+     * @param uuid the player's UUID
+     * @return the player's rank, or null if they have never joined or aren't known yet
+     */
+    @Nullable
+    public PlayerRank getRank(UUID uuid) {
+        DirectoryEntry entry = find(uuid);
+        return entry == null ? null : entry.rank();
+    }
+
+    /**
+     * Determines if the specified player has joined the network before
+     *
+     * @param uuid the player's UUID
+     * @return if the player is known to have played before
+     */
+    public boolean hasPlayed(UUID uuid) {
+        return find(uuid) != null;
+    }
+
+    /**
+     * Gets the names starting with the given prefix, ignoring case. This never touches the database, so it is safe to
+     * call from suggestion callbacks.
+     *
+     * @param prefix the prefix
+     * @param limit  the maximum amount of names to return
+     * @return the matching names, in alphabetical order
+     */
+    public List<String> complete(String prefix, int limit) {
+        List<String> result = new ArrayList<>();
+        String[] names = index.names;
+        int i = Arrays.binarySearch(names, prefix, String.CASE_INSENSITIVE_ORDER);
+        for (i = i < 0 ? -i - 1 : i; i < names.length && result.size() < limit; i++) {
+            if (!names[i].regionMatches(true, 0, prefix, 0, prefix.length())) break;
+            // players who reused a name share it, the most recent one comes first
+            if (i > 0 && names[i].equalsIgnoreCase(names[i - 1])) continue;
+            result.add(names[i]);
+        }
+        for (String name : recentNames.tailSet(prefix, true)) {
+            if (result.size() >= limit || !name.regionMatches(true, 0, prefix, 0, prefix.length())) break;
+            result.add(name);
+        }
+        return result;
+    }
+
+    @Nullable
+    private DirectoryEntry find(UUID uuid, boolean lookupIfMissing) {
+        DirectoryEntry entry = recent.get(uuid);
+        if (entry != null) return entry;
+        entry = index.find(uuid);
+        if (entry == null && lookupIfMissing) lookup(uuid);
+        return entry;
+    }
+
+    @Nullable
+    private DirectoryEntry findByName(String name) {
+        UUID uuid = recentByName.get(name.toLowerCase());
+        if (uuid == null) {
+            int position = index.indexOf(name);
+            if (position < 0) return null;
+            uuid = index.uuid(position);
+        }
+        // the name may have moved on to someone else since it was indexed
+        DirectoryEntry entry = find(uuid, false);
+        return entry != null && entry.name().equalsIgnoreCase(name) ? entry : null;
+    }
+
+    private CompletableFuture<DirectoryEntry> lookup(UUID uuid) {
+        return lookup(uuid, () -> gdb.findPlayerAsync(uuid));
+    }
+
+    private CompletableFuture<DirectoryEntry> lookup(String name) {
+        return lookup(name.toLowerCase(), () -> gdb.findPlayerAsync(name));
+    }
+
+    private CompletableFuture<DirectoryEntry> lookup(Object key, Supplier<CompletableFuture<DirectoryEntry>> query) {
+        CompletableFuture<DirectoryEntry> existing = lookups.get(key);
+        if (existing != null) return existing;
+        CompletableFuture<DirectoryEntry> future = new CompletableFuture<>();
+        existing = lookups.putIfAbsent(key, future);
+        if (existing != null) return existing;
+        query.get().whenComplete((entry, throwable) -> {
+            lookups.remove(key, future);
+            if (throwable != null) {
+                Logger.error("Failed to look up the player " + key + "!", throwable);
+                future.completeExceptionally(throwable);
+                return;
+            }
+            // an entry remembered while the query ran is newer
+            future.complete(entry == null ? null : cacheIfAbsent(entry));
+        });
+        return future;
+    }
+
+    private void cache(DirectoryEntry entry) {
+        recent.put(entry.uuid(), entry);
+        recentByName.put(entry.name().toLowerCase(), entry.uuid());
+    }
+
+    private DirectoryEntry cacheIfAbsent(DirectoryEntry entry) {
+        DirectoryEntry existing = find(entry.uuid(), false);
+        if (existing != null) return existing;
+        cache(entry);
+        return entry;
+    }
+
+    private void buildIndex() {
+        List<IndexedPlayer> loaded = new ArrayList<>();
+        UUID after = null;
+        try {
+            List<IndexedPlayer> page;
+            do {
+                page = gdb.loadDirectoryPage(after, PAGE_SIZE);
+                for (IndexedPlayer player : page) {
+                    if (player.name() != null) loaded.add(player);
+                }
+                if (!page.isEmpty()) after = page.getLast().uuid();
+            } while (page.size() == PAGE_SIZE);
+        } catch (Exception e) {
+            Logger.error("Failed to build the player directory!", e);
+            return;
+        }
+        Index built = Index.build(loaded);
+        index = built;
+        recentNames.removeIf(name -> built.indexOf(name) >= 0);
+        Logger.info("Indexed " + built.names.length + " players.");
+    }
+
+    /**
+     * Every player who had joined when the directory was built. The players are sorted by name, ignoring case, with
+     * the most recently seen first among players sharing a name. Their UUIDs and ranks are stored in parallel arrays,
+     * and {@code byUuid} holds their positions sorted by UUID.
+     */
+    private static final class Index {
+
+        private static final Index EMPTY = new Index(new String[0], new long[0], new long[0], new byte[0], new int[0]);
+
+        private final String[] names;
+        private final long[] mostBits;
+        private final long[] leastBits;
+        private final byte[] ranks;
+        private final int[] byUuid;
+
+        private Index(String[] names, long[] mostBits, long[] leastBits, byte[] ranks, int[] byUuid) {
+            this.names = names;
+            this.mostBits = mostBits;
+            this.leastBits = leastBits;
+            this.ranks = ranks;
+            this.byUuid = byUuid;
+        }
+
+        static Index build(List<IndexedPlayer> players) {
+            players.sort(Comparator.comparing(IndexedPlayer::name, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(Comparator.comparingLong(IndexedPlayer::lastSeen).reversed()));
+            int size = players.size();
+            String[] names = new String[size];
+            long[] mostBits = new long[size];
+            long[] leastBits = new long[size];
+            byte[] ranks = new byte[size];
+            for (int i = 0; i < size; i++) {
+                IndexedPlayer player = players.get(i);
+                names[i] = player.name();
+                mostBits[i] = player.uuid().getMostSignificantBits();
+                leastBits[i] = player.uuid().getLeastSignificantBits();
+                ranks[i] = (byte) player.rank().ordinal();
+            }
+            int[] byUuid = IntStream.range(0, size).boxed()
+                .sorted((a, b) -> compare(mostBits[a], leastBits[a], mostBits[b], leastBits[b]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+            return new Index(names, mostBits, leastBits, ranks, byUuid);
+        }
+
+        @Nullable
+        DirectoryEntry find(UUID uuid) {
+            long most = uuid.getMostSignificantBits();
+            long least = uuid.getLeastSignificantBits();
+            int low = 0;
+            int high = byUuid.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int position = byUuid[mid];
+                int cmp = compare(mostBits[position], leastBits[position], most, least);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return new DirectoryEntry(uuid, names[position], RANKS[ranks[position]]);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Finds the most recently seen player by a name, ignoring case
+         *
+         * @return the position of the player, or a negative number if no player has the name
+         */
+        int indexOf(String name) {
+            int position = Arrays.binarySearch(names, name, String.CASE_INSENSITIVE_ORDER);
+            if (position < 0) return -1;
+            while (position > 0 && names[position - 1].equalsIgnoreCase(name)) position--;
+            return position;
+        }
+
+        UUID uuid(int position) {
+            return new UUID(mostBits[position], leastBits[position]);
+        }
+
+        private static int compare(long mostA, long leastA, long mostB, long leastB) {
+            int cmp = Long.compare(mostA, mostB);
+            return cmp != 0 ? cmp : Long.compare(leastA, leastB);
+        }
+    }
+}
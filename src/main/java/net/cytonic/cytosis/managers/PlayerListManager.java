@@ -1,7 +1,6 @@
 package net.cytonic.cytosis.managers;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
@@ -16,6 +15,7 @@ import net.minestom.server.entity.Player;
 import net.minestom.server.network.packet.server.SendablePacket;
 import net.minestom.server.network.packet.server.play.PlayerInfoRemovePacket;
 import net.minestom.server.network.packet.server.play.PlayerInfoUpdatePacket;
+import net.minestom.server.network.packet.server.play.PlayerInfoUpdatePacket.Action;
 import net.minestom.server.network.packet.server.play.PlayerInfoUpdatePacket.Property;
 import net.minestom.server.timer.TaskSchedule;
 import net.minestom.server.utils.PacketSendingUtils;
@@ -33,16 +33,27 @@ import net.cytonic.cytosis.server.AbstractCytosisServer;
 import net.cytonic.cytosis.server.playerList.PlayerListService;
 
 /**
- * A class that manages the player list
+ * A class that manages the player list. Every cell is reduced to a hash of its name and favicon, and only cells whose
+ * hash differs from the one last sent are updated, so an unchanged cell costs an integer comparison. All changed cells
+ * of a player are sent in as few packets as possible.
  */
 @Setter
 @Getter
 @CytosisComponent
 public class PlayerListManager<P extends CytosisPlayer> implements Bootstrappable {
 
-    private final Map<UUID, Component[][]> playerComponents = new ExpiringMap<>();
-    private final Map<UUID, PlayerInfoUpdatePacket.Property[][]> playerFavicons = new ExpiringMap<>();
+    private static final int ROWS = 20;
+    // a scheduled update is spread over this many ticks, so a full server doesn't update every list in one tick
+    private static final int SPREAD_TICKS = 5;
+    private static final EnumSet<Action> ADD_ACTIONS = EnumSet.of(Action.ADD_PLAYER, Action.UPDATE_LISTED,
+        Action.UPDATE_DISPLAY_NAME);
+    private static final Component EMPTY = Component.empty();
+    private static final Property GREY = PlayerListFavicon.GREY.getProperty();
+
+    // the cells last sent to each player
+    private final Map<UUID, SentCells> sentCells = new ExpiringMap<>();
     private UUID[][] listUuids; // <column, entry>
+    private String[][] listNames; // <column, entry>
     private PlayerlistCreator<P> creator;
     private PlayerListService<P> playerListService;
     private TaskSchedule schedule;
@@ -56,10 +67,12 @@ public class PlayerListManager<P extends CytosisPlayer> implements Bootstrappabl
             schedule = playerListService.schedule();
 
             scheduleUpdate();
-            listUuids = new UUID[creator.getColumnCount()][20];
+            listUuids = new UUID[creator.getColumnCount()][ROWS];
+            listNames = new String[creator.getColumnCount()][ROWS];
             for (int i = 0; i < listUuids.length; i++) {
                 for (int j = 0; j < listUuids[i].length; j++) {
                     listUuids[i][j] = UUID.randomUUID();
+                    listNames[i][j] = "!" + (char) ('A' + i) + "-" + (char) ('a' + j);
                 }
             }
         }
@@ -77,66 +90,37 @@ public class PlayerListManager<P extends CytosisPlayer> implements Bootstrappabl
         }
 
         player.sendPlayerListHeaderAndFooter(creator.header(player), creator.footer(player));
-        PacketSendingUtils.broadcastPlayPacket(new PlayerInfoUpdatePacket(PlayerInfoUpdatePacket.Action.UPDATE_LISTED,
-            new PlayerInfoUpdatePacket.Entry(player.getUuid(), player.getUsername(),
-                player.getSkin() != null ? List.of(new PlayerInfoUpdatePacket.Property("textures",
-                    player.getSkin().textures(), player.getSkin().signature())) : List.of(),
-                false, player.getLatency(), player.getGameMode(),
-                player.getDisplayName(), null, -1, true)));
+        PacketSendingUtils.broadcastPlayPacket(new PlayerInfoUpdatePacket(Action.UPDATE_LISTED, unlisted(player)));
 
         player.sendPackets(createInjectPackets(player));
     }
 
     /**
-     * Creates the player list packets
+     * Creates the player list packets. The fake entries all start out empty and grey.
      *
      * @return the list of packets
      */
     private List<SendablePacket> createInjectPackets(P player) {
-        List<SendablePacket> packets = new ArrayList<>();
-        if (!playerComponents.containsKey(player.getUuid())) {
-            Component[][] components = new Component[creator.getColumnCount()][20];
-            for (int i = 0; i < components.length; i++) {
-                for (int j = 0; j < components[i].length; j++) {
-                    components[i][j] = Component.empty();
-                }
-            }
-            playerComponents.put(player.getUuid(), components);
-        }
-
-        if (!playerFavicons.containsKey(player.getUuid())) {
-            PlayerInfoUpdatePacket.Property[][] prp = new PlayerInfoUpdatePacket.Property[creator.getColumnCount()][20];
-            for (PlayerInfoUpdatePacket.Property[] favicon : prp) {
-                Arrays.fill(favicon, PlayerListFavicon.GREY.getProperty());
-            }
-            playerFavicons.put(player.getUuid(), prp);
-        }
-
-        int order = 0;
+        int cells = creator.getColumnCount() * ROWS;
+        SentCells sent = new SentCells(new int[cells], new int[cells]);
+        List<PlayerInfoUpdatePacket.Entry> entries = new ArrayList<>(cells);
+        int emptyHash = EMPTY.hashCode();
+        int greyHash = GREY.hashCode();
         for (int i = 0; i < listUuids.length; i++) {
-            char col = (char) ('A' + i);
             for (int j = 0; j < listUuids[i].length; j++) {
-                char row = (char) ('a' + j);
-                UUID uuid = listUuids[i][j];
-                packets.add(new PlayerInfoUpdatePacket(
-                    EnumSet.of(PlayerInfoUpdatePacket.Action.ADD_PLAYER, PlayerInfoUpdatePacket.Action.UPDATE_LISTED,
-                        PlayerInfoUpdatePacket.Action.UPDATE_DISPLAY_NAME), List.of(
-                    new PlayerInfoUpdatePacket.Entry(uuid, "!" + col + "-" + row,
-                        List.of(playerFavicons.get(player.getUuid())[i][j]), true, 1, GameMode.CREATIVE,
-                        playerComponents.get(player.getUuid())[i][j], null, order, true))));
-                order++;
+                sent.set(i * ROWS + j, emptyHash, greyHash);
+                entries.add(entry(i, j, EMPTY, GREY));
             }
         }
+        sentCells.put(player.getUuid(), sent);
 
-        // remove online players too
+        // hide online players too
+        List<PlayerInfoUpdatePacket.Entry> unlisted = new ArrayList<>();
         for (Player p : Cytosis.getOnlinePlayers()) {
-            packets.add(new PlayerInfoUpdatePacket(PlayerInfoUpdatePacket.Action.UPDATE_LISTED,
-                new PlayerInfoUpdatePacket.Entry(p.getUuid(), p.getUsername(),
-                    p.getSkin() != null ? List.of(new PlayerInfoUpdatePacket.Property("textures",
-                        p.getSkin().textures(), p.getSkin().signature())) : List.of(),
-                    false, p.getLatency(), p.getGameMode(), p.getDisplayName(), null, -1, true)));
+            unlisted.add(unlisted(p));
         }
-        return packets;
+        return List.of(new PlayerInfoUpdatePacket(ADD_ACTIONS, entries),
+            new PlayerInfoUpdatePacket(EnumSet.of(Action.UPDATE_LISTED), unlisted));
     }
 
     /**
@@ -146,25 +130,54 @@ public class PlayerListManager<P extends CytosisPlayer> implements Bootstrappabl
      */
     public void update(P player) {
         if (!playerListService.supportsPlayerList()) return;
+        SentCells sent = sentCells.get(player.getUuid());
+        if (sent == null) return; // not injected yet
 
         List<Column> columns = creator.createColumns(player);
         if (columns.size() != creator.getColumnCount()) {
             throw new IllegalArgumentException("Column count does not match size of column list");
         }
 
-        columns.forEach(Column::sortEntries);
-        PlayerInfoUpdatePacket.Property[][] updatedFavicons = toFavicons(new ArrayList<>(columns));
-        Component[][] updatedComponents = toComponents(columns);
+        List<UUID> removed = new ArrayList<>();
+        List<PlayerInfoUpdatePacket.Entry> added = new ArrayList<>();
+        List<PlayerInfoUpdatePacket.Entry> renamed = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            RenderedColumn column = RenderedColumn.render(columns.get(i));
+            for (int j = 0; j < ROWS; j++) {
+                int cell = i * ROWS + j;
+                int nameHash = column.nameHashes()[j];
+                int faviconHash = column.faviconHashes()[j];
+                if (faviconHash != sent.faviconHashes()[cell]) {
+                    // the skin of an entry can only be changed by adding it again
+                    removed.add(listUuids[i][j]);
+                    added.add(entry(i, j, column.names()[j], column.favicons()[j]));
+                    sent.set(cell, nameHash, faviconHash);
+                } else if (nameHash != sent.nameHashes()[cell]) {
+                    renamed.add(entry(i, j, column.names()[j], column.favicons()[j]));
+                    sent.set(cell, nameHash, faviconHash);
+                }
+            }
+        }
 
-        player.sendPackets(createUpdatePackets(player.getUuid(), updatedComponents, updatedFavicons, columns));
+        List<SendablePacket> packets = new ArrayList<>(3);
+        if (!removed.isEmpty()) {
+            packets.add(new PlayerInfoRemovePacket(removed));
+            packets.add(new PlayerInfoUpdatePacket(ADD_ACTIONS, added));
+        }
+        if (!renamed.isEmpty()) {
+            packets.add(new PlayerInfoUpdatePacket(EnumSet.of(Action.UPDATE_DISPLAY_NAME), renamed));
+        }
+        if (!packets.isEmpty()) player.sendPackets(packets);
     }
 
     /**
      * Updates all player lists
      */
     public void updateAll() {
-        //noinspection unchecked
-        Cytosis.getOnlinePlayers().forEach(p -> update((P) p));
+        if (!playerListService.supportsPlayerList()) return;
+        for (P player : Cytosis.<P>getOnlinePlayers()) {
+            update(player);
+        }
     }
 
     /**
@@ -172,155 +185,87 @@ public class PlayerListManager<P extends CytosisPlayer> implements Bootstrappabl
      */
     private void scheduleUpdate() {
         MinecraftServer.getSchedulerManager().buildTask(() -> {
-            updateAll();
+            updateSpread();
             scheduleUpdate();
         }).delay(schedule).schedule();
     }
 
     /**
-     * Creates and returns a list of update packets to refresh the player list based on the provided updated components,
-     * updated favicons, and columns. This method compares the current state of the player list data for the specified
-     * player with the provided updated data and generates packets to reflect the changes.
-     *
-     * @param player            the unique identifier of the player whose player list is being updated
-     * @param updatedComponents a 2D array of components representing the updated display names in the player list
-     * @param updatedFavicons   a 2D array of properties representing the updated favicons (player head textures) in the
-     *                          player list
-     * @param columns           a list of column objects representing the data structure of the player list
-     * @return a list of {@code SendablePacket} objects representing the necessary updates to the player list
+     * Updates all player lists, a slice of players per tick
      */
-    private List<SendablePacket> createUpdatePackets(UUID player, Component[][] updatedComponents,
-        Property[][] updatedFavicons,
-        List<Column> columns) {
-        List<SendablePacket> updatePackets = new ArrayList<>();
-        PlayerInfoUpdatePacket.Property[][] favicons = playerFavicons.getOrDefault(player, updatedFavicons);
-        Component[][] components = playerComponents.getOrDefault(player, updatedComponents);
-        int order = 0;
-        for (int i = 0; i < updatedComponents.length; i++) {
-            processColumnEntry(updatePackets, favicons, components, updatedFavicons, updatedComponents,
-                columns, i, 0, order, true);
-
-            for (int j = 1; j < updatedComponents[i].length; j++) {
-                processColumnEntry(updatePackets, favicons, components, updatedFavicons, updatedComponents,
-                    columns, i, j, order, false);
+    private void updateSpread() {
+        List<P> players = new ArrayList<>(Cytosis.<P>getOnlinePlayers());
+        int sliceSize = Math.ceilDiv(players.size(), SPREAD_TICKS);
+        for (int tick = 0; tick * sliceSize < players.size(); tick++) {
+            List<P> slice = players.subList(tick * sliceSize, Math.min(players.size(), (tick + 1) * sliceSize));
+            if (tick == 0) {
+                updateSlice(slice);
+                continue;
             }
+            MinecraftServer.getSchedulerManager().buildTask(() -> updateSlice(slice))
+                .delay(TaskSchedule.tick(tick))
+                .schedule();
         }
-        playerFavicons.put(player, updatedFavicons);
-        playerComponents.put(player, updatedComponents);
-        return updatePackets;
     }
 
-    /**
-     * Processes a single entry in the player list and creates update packets if needed
-     *
-     * @param updatePackets     the list to add update packets to
-     * @param favicons          the current favicons
-     * @param components        the current components
-     * @param updatedFavicons   the updated favicons
-     * @param updatedComponents the updated components
-     * @param columns           the columns to compare with
-     * @param i                 the column index
-     * @param j                 the entry index
-     * @param order             the order value for the entry
-     * @param isHeader          whether this entry is a column header
-     */
-    private void processColumnEntry(List<SendablePacket> updatePackets,
-        PlayerInfoUpdatePacket.Property[][] favicons,
-        Component[][] components,
-        PlayerInfoUpdatePacket.Property[][] updatedFavicons,
-        Component[][] updatedComponents,
-        List<Column> columns,
-        int i, int j, int order, boolean isHeader) {
-        // Check if favicon needs updating
-        if (faviconNotEquals(favicons[i][j], updatedFavicons[i][j])) {
-            updatePackets.add(new PlayerInfoRemovePacket(listUuids[i][j]));
-            updatePackets.add(new PlayerInfoUpdatePacket(
-                EnumSet.of(PlayerInfoUpdatePacket.Action.ADD_PLAYER,
-                    PlayerInfoUpdatePacket.Action.UPDATE_LISTED,
-                    PlayerInfoUpdatePacket.Action.UPDATE_DISPLAY_NAME),
-                List.of(new PlayerInfoUpdatePacket.Entry(listUuids[i][j],
-                    "!" + (char) ('A' + i) + "-" + (char) ('a' + j),
-                    List.of(updatedFavicons[i][j]), true, 1, GameMode.CREATIVE, updatedComponents[i][j], null,
-                    order, true)
-                )));
+    private void updateSlice(List<P> players) {
+        for (P player : players) {
+            if (player.isOnline()) update(player);
         }
+    }
 
-        // Check if component needs updating
-        boolean componentNeedsUpdate = isHeader
-            ? !components[i][j].equals(columns.get(i).getName())
-            : !components[i][j].equals(updatedComponents[i][j]);
+    private PlayerInfoUpdatePacket.Entry entry(int column, int row, Component name, Property favicon) {
+        return new PlayerInfoUpdatePacket.Entry(listUuids[column][row], listNames[column][row], List.of(favicon), true,
+            1, GameMode.CREATIVE, name, null, column * ROWS + row, true);
+    }
 
-        if (componentNeedsUpdate) {
-            if (!isHeader) {
-                components[i][j] = updatedComponents[i][j];
-            }
-            updatePackets.add(new PlayerInfoUpdatePacket(
-                PlayerInfoUpdatePacket.Action.UPDATE_DISPLAY_NAME,
-                new PlayerInfoUpdatePacket.Entry(listUuids[i][j],
-                    "!" + (char) ('A' + i) + "-" + (char) ('a' + j),
-                    List.of(updatedFavicons[i][j]), true, 1, GameMode.CREATIVE, updatedComponents[i][j], null,
-                    order, true)
-            ));
-        }
+    private static PlayerInfoUpdatePacket.Entry unlisted(Player p) {
+        return new PlayerInfoUpdatePacket.Entry(p.getUuid(), p.getUsername(),
+            p.getSkin() != null ? List.of(new PlayerInfoUpdatePacket.Property("textures",
+                p.getSkin().textures(), p.getSkin().signature())) : List.of(),
+            false, p.getLatency(), p.getGameMode(), p.getDisplayName(), null, -1, true);
     }
 
-    private Component[][] toComponents(List<Column> columns) {
-        Component[][] components = new Component[creator.getColumnCount()][20];
-        for (int i = 0; i < components.length; i++) {
-            components[i][0] = columns.get(i).getName();
+    /**
+     * The hashes of the cells last sent to a player, indexed by {@code column * 20 + row}
+     */
+    private record SentCells(int[] nameHashes, int[] faviconHashes) {
 
-            for (int j = 1; j < components[i].length; j++) {
-                Column column = columns.get(i);
-                if (column.getEntries().size() < j) {
-                    components[i][j] = Component.empty();
-                    continue;
-                }
-                components[i][j] = column.getEntries().get(j - 1).getName();
-            }
+        void set(int cell, int nameHash, int faviconHash) {
+            nameHashes[cell] = nameHash;
+            faviconHashes[cell] = faviconHash;
         }
-        return components;
     }
 
     /**
-     * Converts a list of columns to the favicons
-     *
-     * @param columns the columns to convert
-     * @return an array with the favicons
+     * The cells of a column, with the header on row zero
      */
-    private PlayerInfoUpdatePacket.Property[][] toFavicons(List<Column> columns) {
-        PlayerInfoUpdatePacket.Property[][] favicon = new PlayerInfoUpdatePacket.Property[creator.getColumnCount()][20];
-        for (int i = 0; i < favicon.length; i++) {
-            favicon[i][0] = columns.get(i).getFavicon().getProperty();
-            Column column = columns.get(i);
-            for (int j = 1; j < favicon[i].length; j++) {
-                List<PlayerListEntry> entries = new ArrayList<>(column.getEntries());
+    private record RenderedColumn(Component[] names, Property[] favicons, int[] nameHashes, int[] faviconHashes) {
+
+        static RenderedColumn render(Column column) {
+            column.sortEntries();
+            Component[] names = new Component[ROWS];
+            Property[] favicons = new Property[ROWS];
+            names[0] = column.getName();
+            favicons[0] = column.getFavicon().getProperty();
+            List<PlayerListEntry> entries = column.getEntries();
+            for (int j = 1; j < ROWS; j++) {
                 if (entries.size() < j) {
-                    favicon[i][j] = PlayerListFavicon.GREY.getProperty();
+                    names[j] = EMPTY;
+                    favicons[j] = GREY;
                     continue;
                 }
-                favicon[i][j] = entries.get(j - 1).getFavicon();
+                names[j] = entries.get(j - 1).getName();
+                favicons[j] = entries.get(j - 1).getFavicon();
             }
-        }
-        return favicon;
-    }
 
-    /**
-     * A custom equals method for PlayerInfoUpdatePacket.Property
-     *
-     * @param p1 the first property
-     * @param p2 the second property
-     * @return true if the properties are not equal, indicating an update is needed
-     */
-    private boolean faviconNotEquals(PlayerInfoUpdatePacket.Property p1, PlayerInfoUpdatePacket.Property p2) {
-        if (!p1.name().equals(p2.name())) {
-            return true;
-        }
-        if (p1.signature() == null || p2.signature() == null) {
-            return true;
-        }
-        if (!p1.signature().equals(p2.signature())) {
-            return true;
+            int[] nameHashes = new int[ROWS];
+            int[] faviconHashes = new int[ROWS];
+            for (int j = 0; j < ROWS; j++) {
+                nameHashes[j] = names[j].hashCode();
+                faviconHashes[j] = favicons[j].hashCode();
+            }
+            return new RenderedColumn(names, favicons, nameHashes, faviconHashes);
         }
-        return !p1.value().equals(p2.value());
     }
 }
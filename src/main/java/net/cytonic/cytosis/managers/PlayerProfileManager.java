@@ -0,0 +1,329 @@
+package net.cytonic.cytosis.managers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.NoArgsConstructor;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.entity.Player;
+import net.minestom.server.network.ConnectionManager;
+import net.minestom.server.timer.TaskSchedule;
+import org.jetbrains.annotations.Blocking;
+import org.jetbrains.annotations.Nullable;
+
+import net.cytonic.cytosis.Bootstrappable;
+import net.cytonic.cytosis.CytonicNetwork;
+import net.cytonic.cytosis.Cytosis;
+import net.cytonic.cytosis.bootstrap.annotations.CytosisComponent;
+import net.cytonic.cytosis.data.GlobalDatabase;
+import net.cytonic.cytosis.data.GlobalDatabase.ProfileEntry;
+import net.cytonic.cytosis.data.RedisDatabase;
+import net.cytonic.cytosis.data.enums.PlayerRank;
+import net.cytonic.cytosis.data.objects.BanData;
+import net.cytonic.cytosis.data.objects.PlayerProfile;
+import net.cytonic.cytosis.data.objects.preferences.PreferenceData;
+import net.cytonic.cytosis.logging.Logger;
+
+/**
+ * Hydrates the state of joining players. Every profile requested while a query is in flight is loaded together in the
+ * next batch, so a login storm costs a handful of round trips instead of several per player. The cached rank in Redis
+ * is read concurrently with the SQL batch. Once loaded, the {@link PlayerProfile} is published to the rank,
+ * preference, friend and network caches.
+ * <p>
+ * Players on other servers aren't hydrated when they join the network. Their names and ranks are served by the
+ * {@link PlayerDirectory}. When a local feature needs the rest of their state, like the preferences checked before a
+ * friend request or party invite, it is fetched on demand with {@link #fetch(UUID)} into a bounded cache, which isn't
+ * published to the other managers. The cached profiles expire after a while, and are invalidated by the notify packets
+ * that change them.
+ */
+@NoArgsConstructor
+@CytosisComponent(dependsOn = {GlobalDatabase.class, RedisDatabase.class})
+public class PlayerProfileManager implements Bootstrappable {
+
+    private static final int MAX_BATCH_SIZE = 256;
+    // a profile loaded this recently is reused, e.g. when a player reconnects right after leaving
+    private static final long REUSE_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    // how long a loaded player has to connect before their profile is dropped from the managers again
+    private static final long ARRIVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final int MAX_REMOTE_PROFILES = 4096;
+    private static final long REMOTE_TTL_MINUTES = 5;
+
+    private final LinkedBlockingQueue<UUID> pending = new LinkedBlockingQueue<>();
+    // the loads waiting for the next batch, or in it
+    private final Map<UUID, CompletableFuture<PlayerProfile>> inFlight = new ConcurrentHashMap<>();
+    // the profiles of players on this server
+    private final Map<UUID, LoadingProfile> profiles = new ConcurrentHashMap<>();
+    // the profiles of players elsewhere on the network, fetched on demand
+    private final Cache<UUID, CompletableFuture<PlayerProfile>> remoteProfiles = CacheBuilder.newBuilder()
+        .maximumSize(MAX_REMOTE_PROFILES)
+        .expireAfterWrite(REMOTE_TTL_MINUTES, TimeUnit.MINUTES)
+        .build();
+    private GlobalDatabase gdb;
+    private RedisDatabase redis;
+    private Thread loader;
+
+    @Override
+    public void init() {
+        this.gdb = Cytosis.get(GlobalDatabase.class);
+        this.redis = Cytosis.get(RedisDatabase.class);
+        this.loader = Thread.ofVirtual().name("CytosisProfileLoader").start(this::processBatches);
+    }
+
+    @Override
+    public void shutdown() {
+        loader.interrupt();
+    }
+
+    /**
+     * Loads a player's profile, sharing an in-flight or recently completed load for the same player
+     *
+     * @param uuid the player
+     * @return a future completing with the profile once it has been published to the managers
+     */
+    public CompletableFuture<PlayerProfile> load(UUID uuid) {
+        return profiles.compute(uuid, (_, existing) -> {
+            if (existing != null && existing.isReusable()) return existing;
+            CompletableFuture<PlayerProfile> future = request(uuid).thenApply(profile -> {
+                publish(profile);
+                return profile;
+            });
+            LoadingProfile loading = new LoadingProfile(future, System.currentTimeMillis());
+            // set up once per load, however many callers share it
+            future.whenComplete((_, throwable) -> {
+                if (throwable != null) {
+                    profiles.remove(uuid, loading);
+                    return;
+                }
+                MinecraftServer.getSchedulerManager().buildTask(() -> dropIfAbsent(uuid, loading))
+                    .delay(TaskSchedule.millis(ARRIVAL_MILLIS)).schedule();
+            });
+            return loading;
+        }).future();
+    }
+
+    /**
+     * Drops a published profile from the managers if the player never connected, or already left again
+     */
+    private void dropIfAbsent(UUID uuid, LoadingProfile loading) {
+        if (isConnected(uuid)) return;
+        // a newer load replaced this one, and schedules its own check
+        if (!profiles.remove(uuid, loading)) return;
+        Cytosis.get(RankManager.class).unloadPlayer(uuid);
+        Cytosis.get(PreferenceManager.class).unloadPlayerPreferences(uuid);
+        Cytosis.get(FriendManager.class).unload(uuid);
+    }
+
+    private static boolean isConnected(UUID uuid) {
+        ConnectionManager connections = MinecraftServer.getConnectionManager();
+        if (connections.getOnlinePlayerByUuid(uuid) != null) return true;
+        for (Player player : connections.getConfigPlayers()) {
+            if (player.getUuid().equals(uuid)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Fetches the profile of a player for a local feature, without loading them onto this server. The profile of a
+     * player on this server is returned as is, and other profiles are cached for a few minutes.
+     *
+     * @param uuid the player
+     * @return a future completing with the profile
+     */
+    public CompletableFuture<PlayerProfile> fetch(UUID uuid) {
+        LoadingProfile local = profiles.get(uuid);
+        if (local != null && !local.future().isCompletedExceptionally()) return local.future();
+        CompletableFuture<PlayerProfile> future = remoteProfiles.asMap().computeIfAbsent(uuid, this::request);
+        future.whenComplete((_, throwable) -> {
+            if (throwable != null) remoteProfiles.asMap().remove(uuid, future);
+        });
+        return future;
+    }
+
+    /**
+     * Drops the cached profile of a player on another server, so the next fetch reads it again. Called when a notify
+     * packet changes their rank, friends or punishments, or when they join or leave the network.
+     *
+     * @param uuid the player
+     */
+    public void invalidate(UUID uuid) {
+        remoteProfiles.invalidate(uuid);
+    }
+
+    /**
+     * Queues a player for the next batch, sharing a load already waiting for one
+     */
+    private CompletableFuture<PlayerProfile> request(UUID uuid) {
+        return inFlight.computeIfAbsent(uuid, _ -> {
+            pending.add(uuid);
+            return new CompletableFuture<>();
+        });
+    }
+
+    /**
+     * Loads a player's profile, blocking until it is available
+     *
+     * @param uuid the player
+     * @return the player's profile
+     */
+    @Blocking
+    public PlayerProfile loadNow(UUID uuid) {
+        return load(uuid).join();
+    }
+
+    /**
+     * Gets the last loaded profile of a player
+     *
+     * @param uuid the player
+     * @return the profile, or null if it isn't loaded
+     */
+    @Nullable
+    public PlayerProfile getProfile(UUID uuid) {
+        LoadingProfile loading = profiles.get(uuid);
+        if (loading == null || !loading.future().isDone() || loading.future().isCompletedExceptionally()) {
+            return null;
+        }
+        return loading.future().join();
+    }
+
+    /**
+     * Forgets the profile of a player who left. Loads still in flight are kept so their waiters complete.
+     *
+     * @param uuid the player
+     */
+    public void unload(UUID uuid) {
+        profiles.computeIfPresent(uuid, (_, loading) -> loading.future().isDone() ? null : loading);
+    }
+
+    private void processBatches() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<UUID> batch = new ArrayList<>();
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            pending.drainTo(batch, MAX_BATCH_SIZE - 1);
+            loadBatch(new ArrayList<>(new HashSet<>(batch)));
+        }
+    }
+
+    private void loadBatch(List<UUID> batch) {
+        // the cached ranks are only needed for players without a row, but fetching them alongside the SQL batch keeps
+        // them off the critical path
+        String[] fields = batch.stream().map(UUID::toString).toArray(String[]::new);
+        CompletableFuture<List<String>> cachedRanks = redis.getFromGlobalHashAsync("player_ranks", fields);
+
+        Map<UUID, ProfileEntry> entries;
+        try {
+            entries = gdb.loadProfiles(batch);
+        } catch (Exception e) {
+            Logger.error("Failed to load a batch of " + batch.size() + " player profiles!", e);
+            batch.forEach(uuid -> fail(uuid, e));
+            return;
+        }
+        List<String> ranks = cachedRanks.exceptionally(throwable -> {
+            Logger.error("Failed to load cached ranks!", throwable);
+            return null;
+        }).join();
+
+        // repairs of stale or missing rows are only started once every profile of the batch is handed out
+        List<Runnable> repairs = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            UUID uuid = batch.get(i);
+            try {
+                ProfileEntry entry = Objects.requireNonNull(entries.get(uuid), "Missing profile row");
+                PlayerProfile profile = createProfile(entry, ranks == null ? null : ranks.get(i), repairs);
+                CompletableFuture<PlayerProfile> future = inFlight.remove(uuid);
+                if (future != null) future.complete(profile);
+            } catch (Exception e) {
+                Logger.error("Failed to hydrate the profile of " + uuid, e);
+                fail(uuid, e);
+            }
+        }
+        for (Runnable repair : repairs) {
+            try {
+                repair.run();
+            } catch (Exception e) {
+                Logger.error("Failed to repair a player profile!", e);
+            }
+        }
+    }
+
+    /**
+     * Builds a player's profile from their rows. Rows that are missing or expired are corrected in the profile, and the
+     * writes fixing them are added to {@code repairs} rather than made here.
+     */
+    private PlayerProfile createProfile(ProfileEntry entry, @Nullable String cachedRank, List<Runnable> repairs) {
+        UUID uuid = entry.uuid();
+        PlayerRank rank = entry.rank();
+        if (rank == null) {
+            PlayerRank initial = cachedRank == null ? PlayerRank.DEFAULT : PlayerRank.valueOf(cachedRank);
+            repairs.add(() -> gdb.setPlayerRank(uuid, initial));
+            rank = initial;
+        } else if (!rank.name().equals(cachedRank)) {
+            String name = rank.name();
+            repairs.add(() -> redis.addToGlobalHashAsync("player_ranks", uuid.toString(), name)
+                .exceptionally(throwable -> {
+                    Logger.error("Failed to cache the rank of " + uuid + "!", throwable);
+                    return null;
+                }));
+        }
+
+        BanData banData = entry.banData();
+        if (banData == null) {
+            banData = new BanData(null, null, false);
+        } else if (banData.expiry() != null && banData.expiry().isBefore(Instant.now())) {
+            banData = new BanData(null, null, false);
+            repairs.add(() -> gdb.unbanPlayer(uuid));
+        }
+
+        boolean muted = entry.muteExpiry() != null;
+        if (muted && entry.muteExpiry().isBefore(Instant.now())) {
+            muted = false;
+            repairs.add(() -> gdb.unmutePlayer(uuid));
+        }
+
+        PreferenceData preferences = entry.preferences();
+        if (preferences == null) {
+            PreferenceData initial = new PreferenceData(new ArrayList<>());
+            repairs.add(() -> gdb.addNewPlayerPreferences(uuid, initial));
+            preferences = initial;
+        }
+
+        Set<UUID> friends = entry.friends() == null ? new HashSet<>() : new HashSet<>(entry.friends());
+        friends.remove(uuid);
+        return new PlayerProfile(uuid, rank, banData, muted, friends, preferences);
+    }
+
+    private void publish(PlayerProfile profile) {
+        Cytosis.get(RankManager.class).applyProfile(profile);
+        Cytosis.get(PreferenceManager.class).applyProfile(profile);
+        Cytosis.get(FriendManager.class).applyProfile(profile);
+        Cytosis.get(CytonicNetwork.class).applyProfile(profile);
+    }
+
+    private void fail(UUID uuid, Throwable throwable) {
+        CompletableFuture<PlayerProfile> future = inFlight.remove(uuid);
+        if (future != null) future.completeExceptionally(throwable);
+    }
+
+    private record LoadingProfile(CompletableFuture<PlayerProfile> future, long createdAt) {
+
+        boolean isReusable() {
+            if (!future.isDone()) return true;
+            return !future.isCompletedExceptionally() && System.currentTimeMillis() - createdAt < REUSE_MILLIS;
+        }
+    }
+}
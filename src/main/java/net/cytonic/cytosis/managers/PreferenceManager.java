@@ -17,17 +17,18 @@ import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.bootstrap.annotations.CytosisComponent;
 import net.cytonic.cytosis.data.EnvironmentDatabase;
 import net.cytonic.cytosis.data.GlobalDatabase;
+import net.cytonic.cytosis.data.objects.PlayerProfile;
 import net.cytonic.cytosis.data.objects.preferences.Preference;
 import net.cytonic.cytosis.data.objects.preferences.PreferenceData;
 import net.cytonic.cytosis.data.objects.preferences.PreferenceRegistry;
 import net.cytonic.cytosis.logging.Logger;
+import net.cytonic.cytosis.metrics.Metrics;
+import net.cytonic.cytosis.metrics.MetricsManager;
 import net.cytonic.cytosis.utils.Msg;
 import net.cytonic.cytosis.utils.Preferences;
 
 /**
- * A manager class holding preference data for users. An example is if they are accepting friend requests. Since
- * preferences are pretty small, every online player has their preference data stored here, no matter which server they
- * are connected to.
+ * A manager class holding preference data for users. An example is if they are accepting friend requests.
  */
 @CytosisComponent(dependsOn = {EnvironmentDatabase.class})
 public class PreferenceManager implements Bootstrappable {
@@ -66,6 +67,20 @@ public class PreferenceManager implements Bootstrappable {
             db.addNewPlayerPreferences(uuid, data);
         }
         preferenceData.put(uuid, data);
+        validateSnoops(uuid, data);
+    }
+
+    /**
+     * Seeds the preference cache from a freshly loaded profile
+     *
+     * @param profile the player's profile
+     */
+    public void applyProfile(PlayerProfile profile) {
+        preferenceData.put(profile.uuid(), profile.preferences());
+        validateSnoops(profile.uuid(), profile.preferences());
+    }
+
+    private void validateSnoops(UUID uuid, PreferenceData data) {
         data.get(Preferences.LISTENING_SNOOPS).snoops().forEach(s -> {
             if (Cytosis.get(SnooperManager.class).getChannel(Key.key(s)) == null) {
                 // big problem if null
@@ -87,14 +102,39 @@ public class PreferenceManager implements Bootstrappable {
     }
 
     /**
-     * Writes the players preferences to the database and removes them from memory
+     * Determines if a player's preferences are loaded on this server
+     *
+     * @param uuid the player
+     * @return if the preferences are loaded
+     */
+    public boolean isLoaded(UUID uuid) {
+        return preferenceData.containsKey(uuid);
+    }
+
+    /**
+     * Writes the player's pending preference changes to the database and removes them from memory. Players whose
+     * preferences didn't change aren't written at all.
      *
      * @param uuid the player
      */
     public void unloadPlayerPreferences(UUID uuid) {
-        if (!preferenceData.containsKey(uuid)) return;
-        db.persistPlayerPreferences(uuid, preferenceData.get(uuid));
-        preferenceData.remove(uuid);
+        if (preferenceData.remove(uuid) == null) return;
+        if (db.hasPendingPreferences(uuid)) {
+            db.flushPlayerPreferences(uuid);
+        } else {
+            Cytosis.get(MetricsManager.class).addToLongCounter(Metrics.PREFERENCE_WRITES_SAVED, 1);
+        }
+    }
+
+    /**
+     * Marks a player's preferences as dirty, to be written after a short debounce window
+     */
+    private void markDirty(UUID uuid, PreferenceData data) {
+        if (db.hasPendingPreferences(uuid)) {
+            // the pending write is replaced, so it never happens
+            Cytosis.get(MetricsManager.class).addToLongCounter(Metrics.PREFERENCE_WRITES_SAVED, 1);
+        }
+        db.persistPlayerPreferences(uuid, data);
     }
 
 
@@ -129,7 +169,7 @@ public class PreferenceManager implements Bootstrappable {
         }
 
         preferenceData.get(uuid).set(safe);
-        db.persistPlayerPreferences(uuid, preferenceData.get(uuid));
+        markDirty(uuid, preferenceData.get(uuid));
     }
 
     @SneakyThrows
@@ -144,7 +184,7 @@ public class PreferenceManager implements Bootstrappable {
             return;
         }
         preferenceData.get(uuid).set(preference);
-        db.persistPlayerPreferences(uuid, preferenceData.get(uuid));
+        markDirty(uuid, preferenceData.get(uuid));
     }
 
     /**
@@ -22,6 +22,7 @@ import net.cytonic.cytosis.data.GlobalDatabase;
 import net.cytonic.cytosis.data.RedisDatabase;
 import net.cytonic.cytosis.data.enums.PlayerRank;
 import net.cytonic.cytosis.data.objects.ExpiringMap;
+import net.cytonic.cytosis.data.objects.PlayerProfile;
 import net.cytonic.cytosis.logging.Logger;
 import net.cytonic.cytosis.player.CytosisPlayer;
 
@@ -35,7 +36,6 @@ public class RankManager implements Bootstrappable {
     private final ConcurrentHashMap<UUID, PlayerRank> rankMap = new ExpiringMap<>();
     private final ConcurrentHashMap<PlayerRank, Team> teamMap = new ConcurrentHashMap<>();
     private RedisDatabase redis;
-    private GlobalDatabase gdb;
 
     /**
      * Creates the teams for cosmetic ranks
@@ -43,7 +43,6 @@ public class RankManager implements Bootstrappable {
     @Override
     public void init() {
         this.redis = Cytosis.get(RedisDatabase.class);
-        this.gdb = Cytosis.get(GlobalDatabase.class);
         for (PlayerRank value : PlayerRank.values()) {
             Team team = new TeamBuilder(value.ordinal() + value.name(), MinecraftServer.getTeamManager()).collisionRule(
                     TeamsPacket.CollisionRule.NEVER)
@@ -54,47 +53,46 @@ public class RankManager implements Bootstrappable {
         }
     }
 
+    /**
+     * Seeds the rank cache from a freshly loaded profile
+     *
+     * @param profile the player's profile
+     */
+    public void applyProfile(PlayerProfile profile) {
+        rankMap.put(profile.uuid(), profile.rank());
+    }
+
+    /**
+     * Loads this player's rank, blocking until it is available
+     *
+     * @param uuid the player whose rank to load
+     */
     @Blocking
     public void loadPlayerNow(UUID uuid) {
-        PlayerRank rank = PlayerRank.DEFAULT;
-        String cachedRank = redis.getFromGlobalHash("player_ranks", uuid.toString());
-        if (cachedRank != null) {
-            rank = PlayerRank.valueOf(cachedRank);
-        } else {
-            // we need to load it for next time!
-            gdb.getPlayerRank(uuid).thenAccept(playerRank -> {
-                rankMap.put(uuid, playerRank);
-                Cytosis.get(CytonicNetwork.class).updateCachedPlayerRank(uuid, playerRank);
-                redis
-                    .addToGlobalHash("player_ranks", uuid.toString(), playerRank.name());
-            });
-        }
-        rankMap.put(uuid, rank);
+        Cytosis.get(PlayerProfileManager.class).loadNow(uuid);
+    }
+
+    /**
+     * Loads this player's rank
+     *
+     * @param player the player whose rank to load
+     */
+    public void loadPlayer(UUID player) {
+        Cytosis.get(PlayerProfileManager.class).load(player);
     }
 
     /**
-     * Adds a player to the rank manager
+     * Adds a player to the rank manager. Their rank has already been hydrated by the {@link PlayerProfileManager}.
      *
      * @param player the player
      */
     public void addPlayer(CytosisPlayer player) {
-        // cache the rank
-        gdb.getPlayerRank(player.getUuid()).whenComplete((playerRank, throwable) -> {
-            if (throwable != null) {
-                Logger.error("An error occured whilst fetching " + player.getUsername() + "'s rank!", throwable);
-                return;
-            }
-            player.setRankUnsafe(playerRank);
-            rankMap.put(player.getUuid(), playerRank);
-            Cytosis.get(CytonicNetwork.class).updateCachedPlayerRank(player.getUuid(), playerRank);
-            Thread.ofVirtual().start(() -> redis
-                .addToGlobalHash("player_ranks", player.getUuid()
-                    .toString(), playerRank.name()));
-            if (player.isNicked()) {
-                return; // don't setup cosmetics for nicked players
-            }
-            setupCosmetics(player, playerRank);
-        });
+        PlayerRank playerRank = player.getTrueRank();
+        rankMap.put(player.getUuid(), playerRank);
+        if (player.isNicked()) {
+            return; // don't setup cosmetics for nicked players
+        }
+        setupCosmetics(player, playerRank);
     }
 
     /**
@@ -114,8 +112,11 @@ public class RankManager implements Bootstrappable {
         setupCosmetics(player, rank);
         Cytosis.get(CytonicNetwork.class).updateCachedPlayerRank(player.getUuid(), rank);
         player.refreshCommands();
-        Thread.ofVirtual().start(() -> redis
-            .addToGlobalHash("player_ranks", player.getUuid().toString(), rank.name()));
+        redis.addToGlobalHashAsync("player_ranks", player.getUuid().toString(), rank.name())
+            .exceptionally(throwable -> {
+                Logger.error("Failed to cache the rank of " + player.getUsername() + "!", throwable);
+                return null;
+            });
     }
 
     /**
@@ -145,21 +146,21 @@ public class RankManager implements Bootstrappable {
     }
 
     /**
-     * Loads this player's rank from the redis cache
+     * Gets a player's rank
      *
-     * @param player the player whose rank to load
+     * @param uuid The uuid of the player
+     * @return the player's Rank, if it exists
      */
-    public void loadPlayer(UUID player) {
-        Thread.ofVirtual().start(() -> loadPlayerNow(player));
+    public Optional<PlayerRank> getPlayerRank(UUID uuid) {
+        return Optional.ofNullable(rankMap.get(uuid));
     }
 
     /**
-     * Gets a player's rank
+     * Forgets the rank of a player whose profile was loaded, but who never connected to this server
      *
      * @param uuid The uuid of the player
-     * @return the player's Rank, if it exists
      */
-    public Optional<PlayerRank> getPlayerRank(UUID uuid) {
-        return Optional.ofNullable(rankMap.get(uuid));
+    public void unloadPlayer(UUID uuid) {
+        rankMap.remove(uuid);
     }
 }
\ No newline at end of file
@@ -1,11 +1,15 @@
 package net.cytonic.cytosis.managers;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import net.kyori.adventure.text.Component;
 import net.minestom.server.MinecraftServer;
 import net.minestom.server.timer.Task;
 import net.minestom.server.timer.TaskSchedule;
@@ -21,6 +25,8 @@ import net.cytonic.cytosis.server.AbstractCytosisServer;
 import net.cytonic.cytosis.server.sideboard.SideboardService;
 import net.cytonic.cytosis.sideboard.Sideboard;
 import net.cytonic.cytosis.sideboard.SideboardCreator;
+import net.cytonic.cytosis.sideboard.SideboardLayout;
+import net.cytonic.cytosis.sideboard.SideboardLine;
 
 /**
  * A manager class for sideboards
@@ -30,6 +36,8 @@ import net.cytonic.cytosis.sideboard.SideboardCreator;
 public class SideboardManager<P extends CytosisPlayer> implements Bootstrappable {
 
     private final Map<UUID, Sideboard> sideboards = new ExpiringMap<>();
+    // what was last rendered for each player when the creator supplies a layout
+    private final Map<UUID, RenderedBoard> rendered = new ExpiringMap<>();
     @Getter
     @Nullable
     private Task task = null;
@@ -58,6 +66,7 @@ public class SideboardManager<P extends CytosisPlayer> implements Bootstrappable
      */
     public void addPlayer(P player) {
         if (!sideboardService.supportsSideboard()) return;
+        rendered.remove(player.getUuid());
         sideboards.put(player.getUuid(), sideboardCreator.sideboard(player));
     }
 
@@ -70,18 +79,46 @@ public class SideboardManager<P extends CytosisPlayer> implements Bootstrappable
 
     public void updatePlayersNow() {
         if (!sideboardService.supportsSideboard()) return;
+        SideboardLayout<P> layout = sideboardCreator.layout();
+        Component[] shared = layout == null ? null : renderShared(layout);
         sideboards.forEach((uuid, sideboard) -> {
             Optional<P> player = Cytosis.getPlayer(uuid);
             if (player.isEmpty()) {
                 sideboard.delete();
                 sideboards.remove(uuid);
+                rendered.remove(uuid);
                 return;
             }
-            sideboard.updateLines(sideboardCreator.lines(player.get()));
-            sideboard.updateTitle(sideboardCreator.title(player.get()));
+            if (layout == null) {
+                sideboard.update(sideboardCreator.title(player.get()), sideboardCreator.lines(player.get()));
+                return;
+            }
+            RenderedBoard board = rendered.computeIfAbsent(uuid, _ -> new RenderedBoard(layout.lines().size()));
+            if (board.render(layout, shared, player.get())) {
+                sideboard.update(board.texts[0], Arrays.asList(board.texts).subList(1, board.texts.length));
+            }
         });
     }
 
+    /**
+     * Computes the shared lines of a layout, once for every player
+     *
+     * @return the text of the shared lines, with the title first, and null for the per-player lines
+     */
+    private Component[] renderShared(SideboardLayout<P> layout) {
+        List<SideboardLine<P>> lines = layout.lines();
+        Component[] shared = new Component[lines.size() + 1];
+        if (layout.title() instanceof SideboardLine.Shared<P> title) {
+            shared[0] = title.text().get();
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i) instanceof SideboardLine.Shared<P> line) {
+                shared[i + 1] = line.text().get();
+            }
+        }
+        return shared;
+    }
+
     /**
      * Shuts down the repeating task. It can be enabled with {@link SideboardManager#autoUpdateBoards(TaskSchedule)}
      */
@@ -90,4 +127,51 @@ public class SideboardManager<P extends CytosisPlayer> implements Bootstrappable
         task.cancel();
         task = null;
     }
+
+    /**
+     * The title and lines last rendered for a player, along with the keys the per-player lines were rendered with
+     */
+    private static final class RenderedBoard {
+
+        private static final Object UNSET = new Object();
+        // the title, then the lines
+        private final Component[] texts;
+        private final Object[] keys;
+
+        private RenderedBoard(int lines) {
+            this.texts = new Component[lines + 1];
+            this.keys = new Object[lines + 1];
+            Arrays.fill(keys, UNSET);
+        }
+
+        /**
+         * Renders the lines of the layout whose inputs changed
+         *
+         * @return if any text changed
+         */
+        private <P extends CytosisPlayer> boolean render(SideboardLayout<P> layout, Component[] shared, P player) {
+            boolean changed = render(0, layout.title(), shared, player);
+            for (int i = 0; i < layout.lines().size(); i++) {
+                changed |= render(i + 1, layout.lines().get(i), shared, player);
+            }
+            return changed;
+        }
+
+        private <P extends CytosisPlayer> boolean render(int index, SideboardLine<P> line, Component[] shared,
+            P player) {
+            Component text;
+            switch (line) {
+                case SideboardLine.Shared<P> _ -> text = shared[index];
+                case SideboardLine.PerPlayer<P> perPlayer -> {
+                    Object key = perPlayer.key().apply(player);
+                    if (keys[index] != UNSET && Objects.equals(keys[index], key)) return false;
+                    keys[index] = key;
+                    text = perPlayer.text().apply(player);
+                }
+            }
+            if (Objects.equals(texts[index], text)) return false;
+            texts[index] = text;
+            return true;
+        }
+    }
 }
\ No newline at end of file
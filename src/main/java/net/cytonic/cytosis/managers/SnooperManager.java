@@ -22,6 +22,7 @@ import net.cytonic.cytosis.data.RedisDatabase;
 import net.cytonic.cytosis.data.containers.SnoopsContainer;
 import net.cytonic.cytosis.logging.Logger;
 import net.cytonic.cytosis.messaging.NatsManager;
+import net.cytonic.cytosis.messaging.OverflowPolicy;
 import net.cytonic.cytosis.metrics.Metrics;
 import net.cytonic.cytosis.metrics.MetricsManager;
 import net.cytonic.cytosis.player.CytosisPlayer;
@@ -31,6 +32,7 @@ import net.cytonic.cytosis.snooper.SnooperReceiveEvent;
 import net.cytonic.cytosis.utils.Msg;
 import net.cytonic.cytosis.utils.Preferences;
 import net.cytonic.protocol.impl.notify.SnooperNotifyPacket;
+import net.cytonic.protocol.serializer.WireNegotiator;
 
 @CytosisComponent(dependsOn = {EnvironmentDatabase.class, NatsManager.class})
 public class SnooperManager implements Bootstrappable {
@@ -83,8 +85,8 @@ public class SnooperManager implements Bootstrappable {
         }
 
         natsManager.subscribe(channel.channel(), message -> {
-            SnooperNotifyPacket.Packet packet = new SnooperNotifyPacket().deserializeFromString(
-                new String(message.getData()));
+            SnooperNotifyPacket.Packet packet = new SnooperNotifyPacket().deserializeFromBytes(
+                message.getData(), WireNegotiator.observe(message));
 
             for (CytosisPlayer player : Cytosis.getOnlinePlayers()) {
                 if (!player.isStaff()) {
@@ -111,7 +113,7 @@ public class SnooperManager implements Bootstrappable {
                 }
             });
 
-        });
+        }, OverflowPolicy.DROP);
     }
 
     /**
@@ -0,0 +1,213 @@
+package net.cytonic.cytosis.messaging;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import io.nats.client.Connection;
+import io.nats.client.Dispatcher;
+import io.nats.client.Message;
+import org.jetbrains.annotations.Nullable;
+
+import net.cytonic.cytosis.logging.Logger;
+
+/**
+ * A fixed pool of dispatchers that subscriptions are sharded across by subject, instead of one dispatcher per
+ * subscription. Each shard has a bounded queue drained by its own thread, so a slow handler only holds back the
+ * subjects sharing its shard, and a burst on one subject can't grow memory without limit. Messages of a subject are
+ * always handled in order, on the same thread.
+ */
+final class DispatcherPool {
+
+    // how long a blocking subject waits for room before its message is dropped
+    private static final long BLOCK_TIMEOUT_MILLIS = 5_000;
+    // the messages the nats client holds for a shard before it drops them and reports a slow consumer
+    private static final long CLIENT_PENDING_MESSAGES = 65_536;
+    private static final long CLIENT_PENDING_BYTES = 64L * 1024 * 1024;
+
+    private final Shard[] shards;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder slowConsumers = new LongAdder();
+    @Nullable
+    private Connection connection;
+
+    /**
+     * Creates a pool of dispatchers, starting their threads
+     *
+     * @param size          the number of dispatchers
+     * @param queueCapacity the number of messages each dispatcher queues
+     */
+    DispatcherPool(int size, int queueCapacity) {
+        if (size < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("A dispatcher pool needs at least one dispatcher and a queue capacity");
+        }
+        this.shards = new Shard[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard(i, queueCapacity);
+        }
+    }
+
+    /**
+     * Subscribes to a subject. If the pool isn't attached to a connection yet, the subscription is made once it is.
+     *
+     * @param subject the prefixed subject
+     * @param handler the handler of the messages
+     * @param policy  what to do with messages when the queue of the subject's dispatcher is full
+     */
+    synchronized void subscribe(String subject, Consumer<Message> handler, OverflowPolicy policy) {
+        Subscription subscription = new Subscription(subject, handler, policy, shardOf(subject));
+        subscriptions.add(subscription);
+        if (connection != null) {
+            subscription.shard.dispatcher.subscribe(subject, subscription::offer);
+        }
+    }
+
+    /**
+     * Attaches the pool to a connection, making the subscriptions that were waiting for it. The nats client restores
+     * the subscriptions of a connection itself when it reconnects, so attaching the same connection again does nothing.
+     *
+     * @param connection the connection
+     */
+    synchronized void attach(Connection connection) {
+        if (this.connection == connection) return;
+        this.connection = connection;
+        for (Shard shard : shards) {
+            shard.dispatcher = connection.createDispatcher();
+            shard.dispatcher.setPendingLimits(CLIENT_PENDING_MESSAGES, CLIENT_PENDING_BYTES);
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.shard.dispatcher.subscribe(subscription.subject, subscription::offer);
+        }
+    }
+
+    /**
+     * Stops the threads of the dispatchers. Messages still queued are discarded.
+     */
+    void shutdown() {
+        for (Shard shard : shards) {
+            shard.thread.interrupt();
+        }
+    }
+
+    /**
+     * Records that the nats client dropped messages because a dispatcher fell behind
+     */
+    void slowConsumerDetected() {
+        slowConsumers.increment();
+    }
+
+    private Shard shardOf(String subject) {
+        return shards[Math.floorMod(subject.hashCode(), shards.length)];
+    }
+
+    /**
+     * Gets the number of messages waiting to be handled, including the ones still held by the nats client
+     *
+     * @return the number of pending messages
+     */
+    long pending() {
+        long pending = 0;
+        for (Shard shard : shards) {
+            pending += shard.queue.size();
+            Dispatcher dispatcher = shard.dispatcher;
+            if (dispatcher != null) pending += dispatcher.getPendingMessageCount();
+        }
+        return pending;
+    }
+
+    /**
+     * Gets the number of messages dropped because a queue was full
+     *
+     * @return the number of dropped messages
+     */
+    long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Gets the number of times a dispatcher couldn't keep up, either because a blocking subject had to wait for room
+     * or because the nats client dropped messages
+     *
+     * @return the number of slow consumer events
+     */
+    long slowConsumers() {
+        return slowConsumers.sum();
+    }
+
+    private record Delivery(Subscription subscription, Message message) {
+
+    }
+
+    private static final class Shard {
+
+        private final BlockingQueue<Delivery> queue;
+        private final Thread thread;
+        // the intake of the shard, set once the pool is attached
+        private volatile Dispatcher dispatcher;
+
+        private Shard(int index, int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = Thread.ofPlatform().name("nats-dispatcher-" + index).daemon().start(this::run);
+        }
+
+        private void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                Delivery delivery;
+                try {
+                    delivery = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    delivery.subscription().handler.accept(delivery.message());
+                } catch (Throwable t) {
+                    Logger.error("Exception handling a NATS message on " + delivery.subscription().subject + ": ", t);
+                }
+            }
+        }
+    }
+
+    private final class Subscription {
+
+        private final String subject;
+        private final Consumer<Message> handler;
+        private final OverflowPolicy policy;
+        private final Shard shard;
+        private final AtomicLong dropped = new AtomicLong();
+
+        private Subscription(String subject, Consumer<Message> handler, OverflowPolicy policy, Shard shard) {
+            this.subject = subject;
+            this.handler = handler;
+            this.policy = policy;
+            this.shard = shard;
+        }
+
+        /**
+         * Queues a message, called on the thread of the nats dispatcher
+         */
+        private void offer(Message message) {
+            Delivery delivery = new Delivery(this, message);
+            if (shard.queue.offer(delivery)) return;
+            if (policy == OverflowPolicy.BLOCK) {
+                slowConsumers.increment();
+                try {
+                    if (shard.queue.offer(delivery, BLOCK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            DispatcherPool.this.dropped.increment();
+            // only log the first drop of a burst, and every thousandth after it
+            if (dropped.getAndIncrement() % 1000 == 0) {
+                Logger.warn("Dropping NATS messages on %s, its dispatcher is full (%d dropped so far)", subject,
+                    dropped.get());
+            }
+        }
+    }
+}
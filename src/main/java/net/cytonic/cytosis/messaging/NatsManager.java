@@ -2,7 +2,10 @@ package net.cytonic.cytosis.messaging;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -12,8 +15,11 @@ import io.nats.client.ErrorListener;
 import io.nats.client.Message;
 import io.nats.client.Nats;
 import io.nats.client.Options;
+import io.nats.client.impl.Headers;
 import lombok.SneakyThrows;
 import net.minestom.server.MinecraftServer;
+import net.minestom.server.timer.TaskSchedule;
+import org.jetbrains.annotations.Nullable;
 
 import net.cytonic.cytosis.Bootstrappable;
 import net.cytonic.cytosis.CytonicNetwork;
@@ -32,23 +38,41 @@ import static io.nats.client.ConnectionListener.Events.CONNECTED;
 import static io.nats.client.ConnectionListener.Events.RECONNECTED;
 import static io.nats.client.ConnectionListener.Events.RESUBSCRIBED;
 
+/**
+ * Manages the connection to NATS. Subscriptions are sharded across a fixed {@link DispatcherPool}, and publishes and
+ * requests made while disconnected are held in a bounded buffer until the connection is made, or they expire.
+ */
 @CytosisComponent(dependsOn = {CytonicNetwork.class})
 public class NatsManager implements Bootstrappable {
 
-    private final ConcurrentLinkedDeque<PublishContainer> publishQueue = new ConcurrentLinkedDeque<>();
-    private final ConcurrentLinkedDeque<RequestContainer> requestQueue = new ConcurrentLinkedDeque<>();
-    private final ConcurrentLinkedDeque<SubscribeContainer> subscribeQueue = new ConcurrentLinkedDeque<>();
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(20);
+
+    // publishes and requests waiting for a connection, oldest first, guarded by itself
+    private final Deque<Parked> parked = new ArrayDeque<>();
+    private final LongAdder parkedDropped = new LongAdder();
     private volatile Connection connection;
+    private DispatcherPool dispatchers;
+    private int bufferSize;
+    private long bufferNanos;
     private boolean started = false;
 
     @Override
     public void init() {
+        NatsConfig natsConfig = Cytosis.get(CytosisConfig.class).nats();
+        dispatchers = new DispatcherPool(natsConfig.dispatchers(), natsConfig.queueCapacity());
+        bufferSize = natsConfig.bufferSize();
+        bufferNanos = Duration.ofSeconds(natsConfig.bufferSeconds()).toNanos();
+
         //this needs to be here since NatsAPIImpl depends on NatsManager
         ProtocolHelper.init();
 
         setup();
         fetchServers();
 
+        // expire what was parked even if the connection never comes
+        MinecraftServer.getSchedulerManager().buildTask(this::expireParked).repeat(TaskSchedule.seconds(1))
+            .schedule();
+
         MinecraftServer.getSchedulerManager().scheduleNextTick(() -> {
             Logger.info("Registering server with Cydian!");
             sendServerStatusPacket(true);
@@ -60,6 +84,7 @@ public class NatsManager implements Bootstrappable {
     public void shutdown() {
         sendServerStatusPacket(false);
         connection.close();
+        dispatchers.shutdown();
     }
 
     private void sendServerStatusPacket(boolean isStartup) {
@@ -100,6 +125,11 @@ public class NatsManager implements Bootstrappable {
                     Logger.error("An error occurred in a NATS action: %s in connection %s", error,
                         conn.getServerInfo().getClientId());
                 }
+
+                @Override
+                public void slowConsumerDetected(Connection conn, io.nats.client.Consumer consumer) {
+                    dispatchers.slowConsumerDetected();
+                }
             }).build();
         Nats.connectAsynchronously(options, true);
     }
@@ -108,23 +138,16 @@ public class NatsManager implements Bootstrappable {
         return (conn, type) -> {
 
             if (type == CONNECTED || type == RESUBSCRIBED || type == RECONNECTED) {
-                connection = conn;
                 Logger.info("Connected asynchronously to NATS server!");
-
-                PublishContainer publish;
-                while ((publish = publishQueue.poll()) != null) {
-                    connection.publish(publish.channel, publish.data);
-                }
-
-                RequestContainer request;
-                while ((request = requestQueue.poll()) != null) {
-                    connection.requestWithTimeout(request.channel, request.data, Duration.ofSeconds(20))
-                        .whenComplete(request.consumer);
-                }
-
-                SubscribeContainer subscribe;
-                while ((subscribe = subscribeQueue.poll()) != null) {
-                    connection.createDispatcher(subscribe.consumer::accept).subscribe(subscribe.channel);
+                dispatchers.attach(conn);
+
+                synchronized (parked) {
+                    connection = conn;
+                    expireParked();
+                    Parked next;
+                    while ((next = parked.poll()) != null) {
+                        next.send(conn);
+                    }
                 }
 
                 if (!started) {
@@ -144,47 +167,149 @@ public class NatsManager implements Bootstrappable {
      * @param data    The data to publish
      */
     public void publish(String channel, byte[] data) {
-        channel = Subjects.applyPrefix(channel);
-        Connection conn = connection;
-        if (conn != null) {
-            conn.publish(channel, data);
-            return;
-        }
+        publish(channel, data, null);
+    }
 
-        publishQueue.add(new PublishContainer(channel, data));
+    /**
+     * Queues publishing until the nats connection is completed.
+     *
+     * @param channel The channel to publish on
+     * @param data    The data to publish
+     * @param headers The headers to send with the message
+     */
+    public void publish(String channel, byte[] data, @Nullable Headers headers) {
+        sendOrPark(new PublishContainer(Subjects.applyPrefix(channel), data, headers, System.nanoTime()));
     }
 
     public void request(String channel, byte[] data, BiConsumer<Message, Throwable> consumer) {
-        channel = Subjects.applyPrefix(channel);
+        sendOrPark(new RequestContainer(Subjects.applyPrefix(channel), data, consumer, System.nanoTime()));
+    }
+
+    /**
+     * Subscribes to a subject, waiting for room when the dispatcher of the subject falls behind
+     *
+     * @param channel  the subject
+     * @param consumer the handler of the messages
+     */
+    public void subscribe(String channel, Consumer<Message> consumer) {
+        subscribe(channel, consumer, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Subscribes to a subject. The subscription is made once connected if the connection isn't made yet.
+     *
+     * @param channel  the subject
+     * @param consumer the handler of the messages
+     * @param policy   what to do with messages when the dispatcher of the subject falls behind
+     */
+    public void subscribe(String channel, Consumer<Message> consumer, OverflowPolicy policy) {
+        dispatchers.subscribe(Subjects.applyPrefix(channel), consumer, policy);
+    }
+
+    private void sendOrPark(Parked message) {
         Connection conn = connection;
         if (conn != null) {
-            conn.requestWithTimeout(channel, data, Duration.ofSeconds(20)).whenComplete(consumer);
+            message.send(conn);
             return;
         }
+        synchronized (parked) {
+            // the connection may have been made while waiting for the lock
+            conn = connection;
+            if (conn != null) {
+                message.send(conn);
+                return;
+            }
+            expireParked();
+            if (parked.size() >= bufferSize) {
+                Parked oldest = parked.poll();
+                if (oldest != null) drop(oldest, "the buffer is full");
+            }
+            parked.add(message);
+        }
+    }
 
-        requestQueue.add(new RequestContainer(channel, data, consumer));
+    private void expireParked() {
+        synchronized (parked) {
+            long now = System.nanoTime();
+            Parked oldest;
+            while ((oldest = parked.peek()) != null && now - oldest.parkedAt() > bufferNanos) {
+                parked.poll();
+                drop(oldest, "it expired");
+            }
+        }
     }
 
-    public void subscribe(String channel, Consumer<Message> consumer) {
-        channel = Subjects.applyPrefix(channel);
-        Connection conn = connection;
-        if (conn != null) {
-            conn.createDispatcher(consumer::accept).subscribe(channel);
-            return;
+    private void drop(Parked message, String reason) {
+        parkedDropped.increment();
+        Logger.warn("Dropped a NATS message on %s while disconnected, because %s", message.channel(), reason);
+        if (message instanceof RequestContainer request) {
+            request.consumer().accept(null, new TimeoutException("NATS request on " + request.channel()
+                + " was dropped before connecting, because " + reason));
         }
+    }
 
-        subscribeQueue.add(new SubscribeContainer(channel, consumer));
+    /**
+     * Gets the number of messages waiting to be handled by the subscriptions
+     *
+     * @return the number of pending messages
+     */
+    public long getPendingMessages() {
+        return dispatchers.pending();
     }
 
-    private record PublishContainer(String channel, byte[] data) {
+    /**
+     * Gets the number of messages dropped, either by a dispatcher or while waiting for the connection
+     *
+     * @return the number of dropped messages
+     */
+    public long getDroppedMessages() {
+        return dispatchers.dropped() + parkedDropped.sum();
+    }
 
+    /**
+     * Gets the number of times a dispatcher fell behind
+     *
+     * @return the number of slow consumer events
+     */
+    public long getSlowConsumers() {
+        return dispatchers.slowConsumers();
     }
 
-    private record RequestContainer(String channel, byte[] data, BiConsumer<Message, Throwable> consumer) {
+    /**
+     * Gets the number of publishes and requests waiting for the connection
+     *
+     * @return the number of parked messages
+     */
+    public int getParkedMessages() {
+        synchronized (parked) {
+            return parked.size();
+        }
+    }
 
+    private sealed interface Parked {
+
+        String channel();
+
+        long parkedAt();
+
+        void send(Connection connection);
+    }
+
+    private record PublishContainer(String channel, byte[] data, @Nullable Headers headers, long parkedAt)
+        implements Parked {
+
+        @Override
+        public void send(Connection connection) {
+            connection.publish(channel, headers, data);
+        }
     }
 
-    private record SubscribeContainer(String channel, Consumer<Message> consumer) {
+    private record RequestContainer(String channel, byte[] data, BiConsumer<Message, Throwable> consumer,
+        long parkedAt) implements Parked {
 
+        @Override
+        public void send(Connection connection) {
+            connection.requestWithTimeout(channel, data, REQUEST_TIMEOUT).whenComplete(consumer);
+        }
     }
 }
@@ -0,0 +1,16 @@
+package net.cytonic.cytosis.messaging;
+
+/**
+ * What a dispatcher does with a message for a subject when its queue is full
+ */
+public enum OverflowPolicy {
+    /**
+     * Drop the message. Used for subjects where a burst is better lost than delayed, like snoops.
+     */
+    DROP,
+    /**
+     * Wait for room in the queue, holding back the messages of every subject on the same dispatcher. The message is
+     * only dropped if no room frees up in time.
+     */
+    BLOCK
+}
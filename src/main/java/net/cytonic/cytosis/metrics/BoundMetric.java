@@ -0,0 +1,91 @@
+package net.cytonic.cytosis.metrics;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleCounter;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+
+import net.cytonic.cytosis.Cytosis;
+
+/**
+ * A counter or histogram bound to a fixed set of attributes. The instrument and the attributes, including the base
+ * ones, are resolved on first use, so recording a value is a field read rather than a map lookup and an attribute
+ * merge. Values recorded before the instrument is created are dropped, like with the {@link MetricsManager} methods.
+ */
+public final class BoundMetric {
+
+    private final String name;
+    private final Attributes attributes;
+    // written before the instrument, so it's visible to everyone who sees the instrument
+    private Attributes resolved;
+    private volatile Object instrument;
+
+    /**
+     * Creates a new bound metric
+     *
+     * @param name       the name of the counter or histogram
+     * @param attributes the attributes to record with, without the base attributes
+     */
+    public BoundMetric(String name, Attributes attributes) {
+        this.name = name;
+        this.attributes = attributes;
+    }
+
+    /**
+     * Creates a new bound metric without extra attributes
+     *
+     * @param name the name of the counter or histogram
+     */
+    public BoundMetric(String name) {
+        this(name, Attributes.empty());
+    }
+
+    /**
+     * Adds to a long counter. Values that aren't positive are ignored.
+     *
+     * @param value the value to add
+     */
+    public void add(long value) {
+        if (value > 0 && resolve() instanceof LongCounter counter) counter.add(value, resolved);
+    }
+
+    /**
+     * Adds to a double counter. Values that aren't positive are ignored.
+     *
+     * @param value the value to add
+     */
+    public void add(double value) {
+        if (value > 0 && resolve() instanceof DoubleCounter counter) counter.add(value, resolved);
+    }
+
+    /**
+     * Records to a long histogram. Negative values are ignored.
+     *
+     * @param value the value to record
+     */
+    public void record(long value) {
+        if (value >= 0 && resolve() instanceof LongHistogram histogram) histogram.record(value, resolved);
+    }
+
+    /**
+     * Records to a double histogram. Negative values are ignored.
+     *
+     * @param value the value to record
+     */
+    public void record(double value) {
+        if (value >= 0 && resolve() instanceof DoubleHistogram histogram) histogram.record(value, resolved);
+    }
+
+    private Object resolve() {
+        Object bound = instrument;
+        if (bound != null) return bound;
+        if (!Cytosis.CONTEXT.isMetricsEnabled()) return null;
+        MetricsManager metrics = Cytosis.get(MetricsManager.class);
+        Object found = metrics.getInstrument(name);
+        if (found == null) return null;
+        resolved = metrics.withBase(attributes);
+        instrument = found;
+        return found;
+    }
+}
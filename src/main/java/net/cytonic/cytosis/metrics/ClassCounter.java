@@ -0,0 +1,66 @@
+package net.cytonic.cytosis.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.ObservableLongMeasurement;
+
+/**
+ * A counter split by the class of the counted objects, like packets. Each class gets its own {@link LongAdder}, found
+ * through a {@link ClassValue}, so counting neither allocates nor contends. The sums are only read when the metrics are
+ * collected.
+ */
+public final class ClassCounter {
+
+    private final AttributeKey<String> key;
+    private final Map<Class<?>, Entry> entries = new ConcurrentHashMap<>();
+    private final ClassValue<Entry> byClass = new ClassValue<>() {
+        @Override
+        protected Entry computeValue(Class<?> type) {
+            // the map keeps a single entry per class, even if two threads race to compute it
+            return entries.computeIfAbsent(type, _ -> new Entry(Attributes.of(key, type.getSimpleName())));
+        }
+    };
+
+    ClassCounter(AttributeKey<String> key) {
+        this.key = key;
+    }
+
+    /**
+     * Counts an object under its class
+     *
+     * @param object the object to count
+     */
+    public void increment(Object object) {
+        byClass.get(object.getClass()).count.increment();
+    }
+
+    /**
+     * Records the sum of every class
+     *
+     * @param measurement the measurement to record to
+     * @param withBase    adds the base attributes to those of a class
+     */
+    void observe(ObservableLongMeasurement measurement, UnaryOperator<Attributes> withBase) {
+        for (Entry entry : entries.values()) {
+            if (entry.resolved == null) entry.resolved = withBase.apply(entry.attributes);
+            measurement.record(entry.count.sum(), entry.resolved);
+        }
+    }
+
+    private static final class Entry {
+
+        private final Attributes attributes;
+        private final LongAdder count = new LongAdder();
+        // only touched while collecting
+        private Attributes resolved;
+
+        private Entry(Attributes attributes) {
+            this.attributes = attributes;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package net.cytonic.cytosis.metrics;
 
+import io.opentelemetry.api.common.AttributeKey;
+
 public class Metrics {
 
     // players
@@ -20,12 +22,19 @@ public class Metrics {
     // networking
     public static final String NETWORK_PACKETS_IN = "network.packets.in";
     public static final String NETWORK_PACKETS_OUT = "network.packets.out";
+    public static final AttributeKey<String> PACKET_TYPE = AttributeKey.stringKey("packet_type");
 
     // commands
     public static final String UNKNOWN_COMMANDS = "commands.unknown";
     public static final String COMMANDS_EXECUTED = "commands.executed";
     public static final String MESSAGES_SENT = "chat.messages";
 
+    // message templates
+    public static final String MESSAGE_TEMPLATE_HITS = "messages.templates.hits";
+    public static final String MESSAGE_TEMPLATE_MISSES = "messages.templates.misses";
+    public static final String MESSAGE_RENDER_HITS = "messages.rendered.hits";
+    public static final String MESSAGE_RENDER_MISSES = "messages.rendered.misses";
+
     //reports
     public static final String REPORTS_SUBMITTED = "reports.submitted";
 
@@ -37,4 +46,24 @@ public class Metrics {
     public static final String POLICIES_DECLINED = "policies.declined";
     public static final String POLICIES_ACCEPTED = "policies.accepted";
 
+    // database
+    public static final String GLOBAL_DATABASE_QUEUE = "database.global.queued";
+    public static final String ENVIRONMENT_DATABASE_QUEUE = "database.environment.queued";
+    public static final String DATABASE_QUEUE_WAIT = "database.queue.wait";
+    public static final String DATABASE_EXECUTION_TIME = "database.execution";
+    public static final String DATABASE_WRITES_COALESCED = "database.writes.coalesced";
+    public static final String DATABASE_BATCH_SIZE = "database.batch.size";
+    public static final String PREFERENCE_WRITES_SAVED = "database.preferences.writes.saved";
+
+    // redis
+    public static final String REDIS_ROUND_TRIP = "redis.round_trip";
+    public static final String REDIS_PIPELINE_SIZE = "redis.pipeline.size";
+    public static final String REDIS_COMMANDS = "redis.commands";
+
+    // nats
+    public static final String NATS_PENDING = "nats.pending";
+    public static final String NATS_DROPPED = "nats.dropped";
+    public static final String NATS_SLOW_CONSUMERS = "nats.slow_consumers";
+    public static final String NATS_PARKED = "nats.parked";
+
 }
@@ -6,15 +6,34 @@ import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.common.Attributes;
 
 import net.cytonic.cytosis.Cytosis;
+import net.cytonic.cytosis.data.EnvironmentDatabase;
+import net.cytonic.cytosis.data.GlobalDatabase;
 import net.cytonic.cytosis.events.ServerEventListeners;
+import net.cytonic.cytosis.messaging.NatsManager;
+import net.cytonic.cytosis.utils.MessageTemplate;
 
 import static net.cytonic.cytosis.metrics.Metrics.COMMANDS_EXECUTED;
 import static net.cytonic.cytosis.metrics.Metrics.CPU_USAGE;
+import static net.cytonic.cytosis.metrics.Metrics.DATABASE_BATCH_SIZE;
+import static net.cytonic.cytosis.metrics.Metrics.DATABASE_EXECUTION_TIME;
+import static net.cytonic.cytosis.metrics.Metrics.DATABASE_QUEUE_WAIT;
+import static net.cytonic.cytosis.metrics.Metrics.DATABASE_WRITES_COALESCED;
+import static net.cytonic.cytosis.metrics.Metrics.ENVIRONMENT_DATABASE_QUEUE;
+import static net.cytonic.cytosis.metrics.Metrics.GLOBAL_DATABASE_QUEUE;
 import static net.cytonic.cytosis.metrics.Metrics.MEMORY_PERCENTAGE;
 import static net.cytonic.cytosis.metrics.Metrics.MESSAGES_SENT;
+import static net.cytonic.cytosis.metrics.Metrics.MESSAGE_RENDER_HITS;
+import static net.cytonic.cytosis.metrics.Metrics.MESSAGE_RENDER_MISSES;
+import static net.cytonic.cytosis.metrics.Metrics.MESSAGE_TEMPLATE_HITS;
+import static net.cytonic.cytosis.metrics.Metrics.MESSAGE_TEMPLATE_MISSES;
+import static net.cytonic.cytosis.metrics.Metrics.NATS_DROPPED;
+import static net.cytonic.cytosis.metrics.Metrics.NATS_PARKED;
+import static net.cytonic.cytosis.metrics.Metrics.NATS_PENDING;
+import static net.cytonic.cytosis.metrics.Metrics.NATS_SLOW_CONSUMERS;
 import static net.cytonic.cytosis.metrics.Metrics.NETWORK_PACKETS_IN;
 import static net.cytonic.cytosis.metrics.Metrics.NETWORK_PACKETS_OUT;
 import static net.cytonic.cytosis.metrics.Metrics.ONLINE_PLAYERS;
+import static net.cytonic.cytosis.metrics.Metrics.PACKET_TYPE;
 import static net.cytonic.cytosis.metrics.Metrics.PLAYER_BANS;
 import static net.cytonic.cytosis.metrics.Metrics.PLAYER_JOINS;
 import static net.cytonic.cytosis.metrics.Metrics.PLAYER_KICKS;
@@ -22,6 +41,10 @@ import static net.cytonic.cytosis.metrics.Metrics.PLAYER_MUTES;
 import static net.cytonic.cytosis.metrics.Metrics.POLICIES_ACCEPTED;
 import static net.cytonic.cytosis.metrics.Metrics.POLICIES_DECLINED;
 import static net.cytonic.cytosis.metrics.Metrics.POLICIES_SHOWN;
+import static net.cytonic.cytosis.metrics.Metrics.PREFERENCE_WRITES_SAVED;
+import static net.cytonic.cytosis.metrics.Metrics.REDIS_COMMANDS;
+import static net.cytonic.cytosis.metrics.Metrics.REDIS_PIPELINE_SIZE;
+import static net.cytonic.cytosis.metrics.Metrics.REDIS_ROUND_TRIP;
 import static net.cytonic.cytosis.metrics.Metrics.REPORTS_SUBMITTED;
 import static net.cytonic.cytosis.metrics.Metrics.SERVER_MSPT;
 import static net.cytonic.cytosis.metrics.Metrics.SERVER_TPS;
@@ -66,8 +89,8 @@ public class MetricsHooks {
             _ -> ManagementFactory.getOperatingSystemMXBean()
                 .getSystemLoadAverage(), Attributes.of(AttributeKey.stringKey("service"), "cytosis"));
 
-        mm.createLongCounter(NETWORK_PACKETS_IN, "The number of packets received", "packets");
-        mm.createLongCounter(NETWORK_PACKETS_OUT, "The number of packets sent", "packets");
+        mm.createClassCounter(NETWORK_PACKETS_IN, "The number of packets received", "packets", PACKET_TYPE);
+        mm.createClassCounter(NETWORK_PACKETS_OUT, "The number of packets sent", "packets", PACKET_TYPE);
 
         mm.createLongCounter(UNKNOWN_COMMANDS, "The number of unknown commands run", "commands");
         mm.createLongCounter(COMMANDS_EXECUTED, "The number of commands executed", "commands");
@@ -83,5 +106,44 @@ public class MetricsHooks {
         mm.createLongCounter(POLICIES_ACCEPTED, "The number of players who accepted the policies", "players");
         mm.createLongCounter(POLICIES_DECLINED, "The number of players who declined the policies", "players");
 
+        // database
+        mm.createLongGauge(GLOBAL_DATABASE_QUEUE, "Queued global database work", "tasks",
+            _ -> (long) Cytosis.get(GlobalDatabase.class).getQueueDepth(), Attributes.empty());
+        mm.createLongGauge(ENVIRONMENT_DATABASE_QUEUE, "Queued environment database work", "tasks",
+            _ -> (long) Cytosis.get(EnvironmentDatabase.class).getQueueDepth(), Attributes.empty());
+        mm.createDoubleHistogram(DATABASE_QUEUE_WAIT, "Time database work waited for a worker", "ms");
+        mm.createDoubleHistogram(DATABASE_EXECUTION_TIME, "Time spent executing database work", "ms");
+        mm.createLongCounter(DATABASE_WRITES_COALESCED, "The number of writes replaced before being flushed",
+            "writes");
+        mm.createLongHistogram(DATABASE_BATCH_SIZE, "The number of rows per write-behind batch", "rows");
+        mm.createLongCounter(PREFERENCE_WRITES_SAVED,
+            "The number of preference writes skipped because nothing changed or a later change replaced them",
+            "writes");
+
+        // message templates, read from the cache statistics so formatting a message never touches the meter
+        mm.createLongGauge(MESSAGE_TEMPLATE_HITS, "Message formats that were already compiled", "lookups",
+            _ -> MessageTemplate.templateStats().hitCount(), Attributes.empty());
+        mm.createLongGauge(MESSAGE_TEMPLATE_MISSES, "Message formats that had to be compiled", "lookups",
+            _ -> MessageTemplate.templateStats().missCount(), Attributes.empty());
+        mm.createLongGauge(MESSAGE_RENDER_HITS, "Fully parsed messages served from the cache", "lookups",
+            _ -> MessageTemplate.renderedStats().hitCount(), Attributes.empty());
+        mm.createLongGauge(MESSAGE_RENDER_MISSES, "Messages that had to be parsed in full", "lookups",
+            _ -> MessageTemplate.renderedStats().missCount(), Attributes.empty());
+
+        // redis
+        mm.createDoubleHistogram(REDIS_ROUND_TRIP, "Time spent waiting for a redis round trip", "ms");
+        mm.createLongHistogram(REDIS_PIPELINE_SIZE, "The number of commands per redis round trip", "commands");
+        mm.createLongHistogram(REDIS_COMMANDS, "The number of redis commands per round trip, by command",
+            "commands");
+
+        // nats
+        mm.createLongGauge(NATS_PENDING, "NATS messages waiting for a dispatcher", "messages",
+            _ -> Cytosis.get(NatsManager.class).getPendingMessages(), Attributes.empty());
+        mm.createLongGauge(NATS_DROPPED, "NATS messages dropped because a dispatcher or the buffer was full",
+            "messages", _ -> Cytosis.get(NatsManager.class).getDroppedMessages(), Attributes.empty());
+        mm.createLongGauge(NATS_SLOW_CONSUMERS, "The number of times a NATS dispatcher fell behind", "events",
+            _ -> Cytosis.get(NatsManager.class).getSlowConsumers(), Attributes.empty());
+        mm.createLongGauge(NATS_PARKED, "NATS publishes and requests waiting for the connection", "messages",
+            _ -> (long) Cytosis.get(NatsManager.class).getParkedMessages(), Attributes.empty());
     }
 }
\ No newline at end of file
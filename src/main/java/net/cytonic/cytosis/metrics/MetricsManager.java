@@ -3,6 +3,7 @@ package net.cytonic.cytosis.metrics;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 
 import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.common.Attributes;
@@ -20,18 +21,28 @@ import net.cytonic.cytosis.environments.Environment;
 import net.cytonic.cytosis.logging.Logger;
 
 /**
- * The base cytosis metrics collecting utility. It supports counters and histograms
+ * The base cytosis metrics collecting utility. It supports counters and histograms. Names are only validated when an
+ * instrument is created, and the merged attributes are cached, so recording doesn't run a regex or rebuild the base
+ * attributes. Hot paths should use a {@link BoundMetric} or a {@link ClassCounter} instead of looking instruments up
+ * by name.
  */
 @CytosisComponent(dependsOn = CytosisOpenTelemetry.class)
 @SuppressWarnings("unused")
 public class MetricsManager implements Bootstrappable {
 
+    private static final Pattern NAME = Pattern.compile("[a-z_][a-z0-9_.]*");
+    // the merged attributes are only cached up to this many sets, in case a caller records unbounded values
+    private static final int MAX_RESOLVED = 1024;
+
     // counters
     private final Map<String, DoubleCounter> doublesCounters = new ConcurrentHashMap<>();
     private final Map<String, LongCounter> longsCounters = new ConcurrentHashMap<>();
     // histograms
     private final Map<String, DoubleHistogram> doubleHistograms = new ConcurrentHashMap<>();
     private final Map<String, LongHistogram> longHistograms = new ConcurrentHashMap<>();
+    private final Map<String, ClassCounter> classCounters = new ConcurrentHashMap<>();
+    // extra attributes -> extra attributes with the base attributes
+    private final Map<Attributes, Attributes> resolved = new ConcurrentHashMap<>();
     private Meter meter;
     private CytosisContext cytosisContext;
 
@@ -62,6 +73,18 @@ public class MetricsManager implements Bootstrappable {
         this.meter = meter;
     }
 
+    /**
+     * Creates a metrics manager that is ready to use without being initialized, for benchmarks
+     *
+     * @param meter       the meter to follow
+     * @param baseAttribs the attributes recorded with every value
+     */
+    MetricsManager(Meter meter, Attributes baseAttribs) {
+        this.meter = meter;
+        this.baseAttribs = baseAttribs;
+        this.cytosisContext = Cytosis.CONTEXT;
+    }
+
     /**
      * Creates a new metrics manager with the meter identified by the given string
      *
@@ -109,7 +132,7 @@ public class MetricsManager implements Bootstrappable {
         }
         if (meter == null) throw new IllegalStateException(
             "A meter must be specified upon creation of the metrics manager, or after the initialization of the metrics manager.");
-        if (!name.matches("[a-z_][a-z0-9_.]*")) {
+        if (!NAME.matcher(name).matches()) {
             throw new IllegalArgumentException("Metric name must match pattern [a-z_][a-z0-9_]*");
         }
     }
@@ -137,16 +160,16 @@ public class MetricsManager implements Bootstrappable {
      */
     public void addToLongCounter(String counterName, long value, Attributes extraAttributes) {
         if (!Cytosis.CONTEXT.isMetricsEnabled()) return;
-        validateState(counterName);
         if (value <= 0) {
             Logger.warn("A negative value cannot be added to a counter. Skipping.");
             return; // no negative values, adding 0 does nothing
         }
-        if (!longsCounters.containsKey(counterName)) {
+        LongCounter counter = longsCounters.get(counterName);
+        if (counter == null) {
             Logger.warn("Attempted to add a value to an unknown counter: " + counterName);
             return;
         }
-        longsCounters.get(counterName).add(value, baseAttribs.toBuilder().putAll(extraAttributes).build());
+        counter.add(value, withBase(extraAttributes));
     }
 
     public void addToLongCounter(String counterName, long value) {
@@ -164,12 +187,12 @@ public class MetricsManager implements Bootstrappable {
      */
     public void addToDoubleCounter(String counterName, double value, Attributes extraAttributes) {
         if (!Cytosis.CONTEXT.isMetricsEnabled()) return;
-        validateState(counterName);
         if (value <= 0) {
             return; // no negative values
         }
-        if (!doublesCounters.containsKey(counterName)) return;
-        doublesCounters.get(counterName).add(value, baseAttribs.toBuilder().putAll(extraAttributes).build());
+        DoubleCounter counter = doublesCounters.get(counterName);
+        if (counter == null) return;
+        counter.add(value, withBase(extraAttributes));
     }
 
     // guages
@@ -192,7 +215,7 @@ public class MetricsManager implements Bootstrappable {
         validateState(gaugeName);
         meter.gaugeBuilder(gaugeName).setDescription(description).setUnit(unit).buildWithCallback(
             observableDoubleMeasurement -> observableDoubleMeasurement.record(function.apply(null),
-                baseAttribs.toBuilder().putAll(extraAttributes).build()));
+                withBase(extraAttributes)));
     }
 
     /**
@@ -212,7 +235,7 @@ public class MetricsManager implements Bootstrappable {
         if (!Cytosis.CONTEXT.isMetricsEnabled()) return;
         validateState(gaugeName);
         meter.gaugeBuilder(gaugeName).setDescription(description).setUnit(unit).ofLongs().buildWithCallback(
-            call -> call.record(function.apply(null), baseAttribs.toBuilder().putAll(extraAttributes).build()));
+            call -> call.record(function.apply(null), withBase(extraAttributes)));
     }
 
     // histograms
@@ -259,11 +282,10 @@ public class MetricsManager implements Bootstrappable {
      */
     public void recordDouble(String histogram, double value, Attributes extraAttributes) {
         if (!Cytosis.CONTEXT.isMetricsEnabled()) return;
-
-        validateState(histogram);
         if (value < 0) return;
-        if (!doubleHistograms.containsKey(histogram)) return;
-        doubleHistograms.get(histogram).record(value, baseAttribs.toBuilder().putAll(extraAttributes).build());
+        DoubleHistogram instrument = doubleHistograms.get(histogram);
+        if (instrument == null) return;
+        instrument.record(value, withBase(extraAttributes));
     }
 
     /**
@@ -278,10 +300,71 @@ public class MetricsManager implements Bootstrappable {
      */
     public void recordLong(String histogram, long value, Attributes extraAttributes) {
         if (!Cytosis.CONTEXT.isMetricsEnabled()) return;
-
-        validateState(histogram);
         if (value < 0) return;
-        if (!longHistograms.containsKey(histogram)) return;
-        longHistograms.get(histogram).record(value, baseAttribs.toBuilder().putAll(extraAttributes).build());
+        LongHistogram instrument = longHistograms.get(histogram);
+        if (instrument == null) return;
+        instrument.record(value, withBase(extraAttributes));
+    }
+
+    // class counters
+
+    /**
+     * Creates a counter split by the class of the counted objects. The counts are kept by the {@link ClassCounter} and
+     * read when the metrics are collected.
+     *
+     * @param counterName the name of the counter
+     * @param description the description of it
+     * @param unit        the unit counted
+     * @param key         the attribute holding the simple name of the class
+     */
+    public void createClassCounter(String counterName, String description, String unit, AttributeKey<String> key) {
+        if (!Cytosis.CONTEXT.isMetricsEnabled()) return;
+        validateState(counterName);
+        ClassCounter counter = getClassCounter(counterName, key);
+        meter.counterBuilder(counterName).setDescription(description).setUnit(unit)
+            .buildWithCallback(measurement -> counter.observe(measurement, this::withBase));
+    }
+
+    /**
+     * Gets a counter split by the class of the counted objects. Counts made before the counter is created with
+     * {@link #createClassCounter(String, String, String, AttributeKey)} are kept, and reported once it is.
+     *
+     * @param counterName the name of the counter
+     * @param key         the attribute holding the simple name of the class
+     * @return the counter
+     */
+    public ClassCounter getClassCounter(String counterName, AttributeKey<String> key) {
+        ClassCounter counter = classCounters.get(counterName);
+        if (counter != null) return counter;
+        return classCounters.computeIfAbsent(counterName, _ -> new ClassCounter(key));
+    }
+
+    /**
+     * Gets a counter or histogram by name
+     *
+     * @param name the name of the instrument
+     * @return the instrument, or null if it doesn't exist
+     */
+    Object getInstrument(String name) {
+        Object instrument = longsCounters.get(name);
+        if (instrument == null) instrument = doublesCounters.get(name);
+        if (instrument == null) instrument = longHistograms.get(name);
+        if (instrument == null) instrument = doubleHistograms.get(name);
+        return instrument;
+    }
+
+    /**
+     * Adds the base attributes to a set of attributes
+     *
+     * @param extraAttributes the attributes, without the base attributes
+     * @return the attributes with the base attributes
+     */
+    Attributes withBase(Attributes extraAttributes) {
+        if (extraAttributes.isEmpty()) return baseAttribs;
+        Attributes merged = resolved.get(extraAttributes);
+        if (merged != null) return merged;
+        merged = baseAttribs.toBuilder().putAll(extraAttributes).build();
+        if (resolved.size() < MAX_RESOLVED) resolved.put(extraAttributes, merged);
+        return merged;
     }
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import java.util.Objects;
 import java.util.Set;
 
 import com.google.common.collect.Iterables;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import net.minestom.server.adventure.audience.PacketGroupingAudience;
 import net.minestom.server.entity.Player;
@@ -19,12 +20,22 @@ import org.jspecify.annotations.NonNull;
 
 import net.cytonic.cytosis.player.CytosisPlayer;
 
-@AllArgsConstructor
+/**
+ * The players a particle effect is shown to. Particles sent to an audience on an instance with a
+ * {@link ParticleEngine} are sent at the end of the tick, bundled with the other particles of the tick. A
+ * {@link ParticleSendEvent} is only called for audiences created with {@link #withEvents()}.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class ParticleAudience implements PacketGroupingAudience {
 
     @Nullable
     private final Set<CytosisPlayer> players;
     Instance instance;
+    private final boolean events;
+
+    private ParticleAudience(@Nullable Set<CytosisPlayer> players, Instance instance) {
+        this(players, instance, false);
+    }
 
     /**
      * A single player audience
@@ -85,11 +96,34 @@ public class ParticleAudience implements PacketGroupingAudience {
         return players;
     }
 
+    /**
+     * Gets a copy of this audience that calls a {@link ParticleSendEvent} for every particle, letting listeners cancel
+     * them
+     *
+     * @return the audience calling events
+     */
+    public ParticleAudience withEvents() {
+        return new ParticleAudience(players, instance, true);
+    }
+
     @Override
     public void sendGroupedPacket(@NonNull ServerPacket packet) {
         if (!(packet instanceof ParticlePacket p))
             throw new IllegalArgumentException("Particle audiences should only be used for Particle Packets.");
+        if (!events) {
+            send(packet);
+            return;
+        }
         ParticleSendEvent e = new ParticleSendEvent(p, instance, players);
-        EventDispatcher.callCancellable(e, () -> PacketGroupingAudience.super.sendGroupedPacket(packet));
+        EventDispatcher.callCancellable(e, () -> send(packet));
+    }
+
+    private void send(ServerPacket packet) {
+        ParticleEngine engine = instance.getTag(ParticleEngine.TAG);
+        if (engine == null) {
+            PacketGroupingAudience.super.sendGroupedPacket(packet);
+            return;
+        }
+        engine.queue(this, packet);
     }
 }
@@ -1,13 +1,24 @@
 package net.cytonic.cytosis.particles;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
-
-import lombok.AllArgsConstructor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import net.minestom.server.entity.Player;
 import net.minestom.server.instance.Instance;
+import net.minestom.server.network.packet.server.CachedPacket;
+import net.minestom.server.network.packet.server.SendablePacket;
+import net.minestom.server.network.packet.server.ServerPacket;
+import net.minestom.server.network.packet.server.play.BundlePacket;
 import net.minestom.server.tag.Tag;
+import net.minestom.server.timer.ExecutionType;
+import net.minestom.server.timer.Task;
+import net.minestom.server.timer.TaskSchedule;
 import org.jetbrains.annotations.ApiStatus.Internal;
 
 import net.cytonic.cytosis.particles.effects.fixed.StaticEffect;
@@ -16,14 +27,49 @@ import net.cytonic.cytosis.particles.effects.looping.LoopingEffect;
 
 /**
  * The class that handles all the interactions with the particle api. It's the primary entrypoint.
+ * <p>
+ * Effects are driven by the scheduler of the instance, so they play on its tick. The particles sent during a tick are
+ * queued, then sent at the end of the tick as one bundle per viewer.
  */
-@AllArgsConstructor
 public class ParticleEngine {
 
     public static final Tag<ParticleEngine> TAG = Tag.Transient("cytosis:particle-engine");
-    public static final int THREAD_POOL_SIZE = 1;
+    // the client rejects bundles of more packets, including the delimiters
+    private static final int MAX_BUNDLE_SIZE = 4094;
     private final Instance instance;
-    private final ScheduledExecutorService SCHEDULER = Executors.newScheduledThreadPool(THREAD_POOL_SIZE);
+    private final Queue<QueuedPacket> queued = new ConcurrentLinkedQueue<>();
+    private final Task flushTask;
+
+    public ParticleEngine(Instance instance) {
+        this.instance = instance;
+        this.flushTask = instance.scheduler().buildTask(this::flush)
+            .repeat(TaskSchedule.nextTick())
+            .executionType(ExecutionType.TICK_END)
+            .schedule();
+    }
+
+    /**
+     * Removes the particle engine of an instance, stopping it
+     *
+     * @param instance the instance
+     * @return if the instance had a particle engine
+     */
+    public static boolean remove(Instance instance) {
+        ParticleEngine engine = instance.getTag(TAG);
+        if (engine == null) return false;
+        instance.removeTag(TAG);
+        engine.close();
+        return true;
+    }
+
+    /**
+     * Stops this engine from sending particles, dropping any that are queued. Effects that are still playing have to
+     * be cancelled through their own tasks.
+     */
+    public void close() {
+        flushTask.cancel();
+        queued.clear();
+    }
 
     private ParticleAudience getAudience() {
         return ParticleAudience.of(instance);
@@ -54,16 +100,21 @@ public class ParticleEngine {
      * {@link #playKeyframed(KeyframedEffect)}
      *
      * @param effect the keyframed effect to play
-     * @param delay  the delay in milliseconds before the effect starts playing
+     * @param delay  the delay in milliseconds before the effect starts playing, rounded up to the next tick
      */
     public void playKeyframed(ParticleAudience audience, KeyframedEffect effect, int delay) {
         if (delay == 0) {
             playKeyFramedInternal(audience, effect);
             return;
         }
-        SCHEDULER.schedule(() -> playKeyFramedInternal(audience, effect), delay, TimeUnit.MILLISECONDS);
+        instance.scheduler().buildTask(() -> playKeyFramedInternal(audience, effect))
+            .delay(TaskSchedule.millis(delay))
+            .schedule();
     }
 
+    /**
+     * Schedules the keyframes of an effect. The time of a keyframe is in ticks.
+     */
     @Internal
     private void playKeyFramedInternal(ParticleAudience audience, KeyframedEffect effect) {
         effect.getKeyframeEffects().forEach((time, effectsToPlay) -> {
@@ -71,22 +122,35 @@ public class ParticleEngine {
                 effectsToPlay.forEach(eff -> eff.play(audience));
                 return;
             }
-            SCHEDULER.schedule(() -> effectsToPlay.forEach(eff -> eff.play(audience)), time, TimeUnit.MILLISECONDS);
+            instance.scheduler().buildTask(() -> effectsToPlay.forEach(eff -> eff.play(audience)))
+                .delay(TaskSchedule.tick(time))
+                .schedule();
         });
     }
 
-    public ScheduledFuture<?> playLooping(LoopingEffect effect, int period) {
+    public Task playLooping(LoopingEffect effect, int period) {
         return playLooping(effect, period, getAudience());
     }
 
-    public ScheduledFuture<?> playLooping(LoopingEffect effect, int period, ParticleAudience audience) {
+    public Task playLooping(LoopingEffect effect, int period, ParticleAudience audience) {
         return playLooping(effect, period, audience, 0);
     }
 
-    public ScheduledFuture<?> playLooping(LoopingEffect effect, int period, ParticleAudience audience,
+    /**
+     * Plays a looping effect until the returned task is cancelled
+     *
+     * @param effect   the effect
+     * @param period   the period between frames in milliseconds, rounded up to whole ticks
+     * @param audience the audience to play it for
+     * @param delay    the delay in milliseconds before the first frame
+     * @return the task playing the effect
+     */
+    public Task playLooping(LoopingEffect effect, int period, ParticleAudience audience,
         int delay) {
-        return SCHEDULER.scheduleAtFixedRate(() -> effect.playNextTick(audience, this), delay, period,
-            TimeUnit.MILLISECONDS);
+        return instance.scheduler().buildTask(() -> effect.playNextTick(audience, this))
+            .delay(delay == 0 ? TaskSchedule.immediate() : TaskSchedule.millis(delay))
+            .repeat(TaskSchedule.millis(period))
+            .schedule();
     }
 
     public void playStatic(StaticEffect effect) {
@@ -102,6 +166,63 @@ public class ParticleEngine {
             effect.play(audience);
             return;
         }
-        SCHEDULER.schedule(() -> effect.play(audience), delay, TimeUnit.MILLISECONDS);
+        instance.scheduler().buildTask(() -> effect.play(audience))
+            .delay(TaskSchedule.millis(delay))
+            .schedule();
+    }
+
+    /**
+     * Queues a packet to be sent to an audience at the end of the tick
+     */
+    @Internal
+    void queue(ParticleAudience audience, ServerPacket packet) {
+        queued.add(new QueuedPacket(audience, packet));
+    }
+
+    /**
+     * Sends the particles queued during this tick, one bundle per viewer. Packets shown to more than one viewer are
+     * only serialized once.
+     */
+    private void flush() {
+        if (queued.isEmpty()) return;
+
+        Map<ParticleAudience, List<ServerPacket>> byAudience = new IdentityHashMap<>();
+        QueuedPacket next;
+        while ((next = queued.poll()) != null) {
+            byAudience.computeIfAbsent(next.audience(), _ -> new ArrayList<>()).add(next.packet());
+        }
+
+        Map<Player, List<SendablePacket>> byViewer = new HashMap<>();
+        byAudience.forEach((audience, packets) -> {
+            Collection<? extends Player> viewers = audience.getPlayers();
+            if (viewers.isEmpty()) return;
+            List<SendablePacket> sendable = new ArrayList<>(packets.size());
+            for (ServerPacket packet : packets) {
+                sendable.add(viewers.size() > 1 ? new CachedPacket(packet) : packet);
+            }
+            for (Player viewer : viewers) {
+                byViewer.computeIfAbsent(viewer, _ -> new ArrayList<>()).addAll(sendable);
+            }
+        });
+
+        byViewer.forEach(ParticleEngine::sendBundled);
+    }
+
+    private static void sendBundled(Player viewer, List<SendablePacket> packets) {
+        if (packets.size() == 1) {
+            viewer.sendPacket(packets.getFirst());
+            return;
+        }
+        for (int start = 0; start < packets.size(); start += MAX_BUNDLE_SIZE) {
+            List<SendablePacket> bundle = new ArrayList<>(Math.min(packets.size() - start, MAX_BUNDLE_SIZE) + 2);
+            bundle.add(new BundlePacket());
+            bundle.addAll(packets.subList(start, Math.min(packets.size(), start + MAX_BUNDLE_SIZE)));
+            bundle.add(new BundlePacket());
+            viewer.sendPackets(bundle);
+        }
+    }
+
+    private record QueuedPacket(ParticleAudience audience, ServerPacket packet) {
+
     }
 }
@@ -22,10 +22,18 @@ public class LineEffect extends StaticEffect {
         this.pos1 = pos1;
         this.pos2 = pos2;
         this.density = density;
-        this.positions = computePositions();
+        this.positions = computePositions(pos1, pos2, density);
     }
 
-    private List<Point> computePositions() {
+    /**
+     * Computes the positions of the particles of a line
+     *
+     * @param pos1    the start of the line
+     * @param pos2    the end of the line
+     * @param density the number of particles per block
+     * @return the positions
+     */
+    public static List<Point> computePositions(Point pos1, Point pos2, double density) {
         double dist = pos1.distance(pos2);
         int steps = (int) (density * dist);
         double increment = dist / steps;
@@ -4,31 +4,51 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
-import lombok.AllArgsConstructor;
 import net.minestom.server.coordinate.Pos;
-import net.minestom.server.network.packet.server.play.ParticlePacket;
 
 import net.cytonic.cytosis.particles.ParticleAudience;
 import net.cytonic.cytosis.particles.util.ParticleSupplier;
 
-@AllArgsConstructor
 public class PatternedEffect extends StaticEffect {
 
-    private double particleWidth;
-    private double particleHeight;
-    private char[][] pattern;
-    private Map<Character, ParticleSupplier> patternDictionary;
-    private Pos pos;
+    private final double particleWidth;
+    private final double particleHeight;
+    private final char[][] pattern;
+    private final Map<Character, ParticleSupplier> patternDictionary;
+    private final Pos pos;
+    // the layout of the pattern, computed on first play
+    private Pos[] positions;
+    private ParticleSupplier[] suppliers;
+
+    public PatternedEffect(double particleWidth, double particleHeight, char[][] pattern,
+        Map<Character, ParticleSupplier> patternDictionary, Pos pos) {
+        this.particleWidth = particleWidth;
+        this.particleHeight = particleHeight;
+        this.pattern = pattern;
+        this.patternDictionary = patternDictionary;
+        this.pos = pos;
+    }
 
     @Override
     public void play(ParticleAudience audience) {
+        if (positions == null) {
+            computeLayout();
+        }
+        for (int i = 0; i < positions.length; i++) {
+            audience.sendGroupedPacket(suppliers[i].get().getPacket(positions[i]));
+        }
+    }
+
+    private void computeLayout() {
         if (pattern.length == 0 || pattern[0].length == 0) {
             throw new IllegalArgumentException("Pattern must be at least 1x1");
         }
 
         double totalHeight = pattern.length * particleHeight;
 
-        List<ParticlePacket> packets = new ArrayList<>(); // deffer sendind until complete computation
+        // validate the whole pattern before playing any of it
+        List<Pos> positions = new ArrayList<>();
+        List<ParticleSupplier> suppliers = new ArrayList<>();
         double y = totalHeight / 2;
         for (char[] chars : pattern) {
             y -= particleHeight;
@@ -44,10 +64,11 @@ public class PatternedEffect extends StaticEffect {
                     throw new IllegalArgumentException("Pattern does not contain mapping: " + aChar);
                 }
 
-                Pos p = pos.add(0, y, x);
-                packets.add(patternDictionary.get(aChar).get().getPacket(p));
+                positions.add(pos.add(0, y, x));
+                suppliers.add(patternDictionary.get(aChar));
             }
         }
-        packets.forEach(audience::sendGroupedPacket);
+        this.suppliers = suppliers.toArray(ParticleSupplier[]::new);
+        this.positions = positions.toArray(Pos[]::new);
     }
 }
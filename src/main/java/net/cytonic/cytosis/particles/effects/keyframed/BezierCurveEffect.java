@@ -110,8 +110,12 @@ public class BezierCurveEffect extends KeyframedEffect {
         }
         List<Pos> pts = new ArrayList<>(resolution);
         double dt = 1.0 / (resolution - 1);
+        // scratch space for de Casteljau's algorithm, shared by every sample
+        double[] x = new double[ctrl.size()];
+        double[] y = new double[ctrl.size()];
+        double[] z = new double[ctrl.size()];
         for (int i = 0; i < resolution; i++) {
-            pts.add(evaluate(i * dt, ctrl));
+            pts.add(evaluate(i * dt, ctrl, x, y, z));
         }
         return pts;
     }
@@ -120,14 +124,22 @@ public class BezierCurveEffect extends KeyframedEffect {
         return a.mul(1 - t).add(b.mul(t));
     }
 
-    private Pos evaluate(double t, List<Pos> ctrl) {
-        List<Pos> tmp = new ArrayList<>(ctrl);
+    private Pos evaluate(double t, List<Pos> ctrl, double[] x, double[] y, double[] z) {
+        for (int i = 0; i < ctrl.size(); i++) {
+            Pos p = ctrl.get(i);
+            x[i] = p.x();
+            y[i] = p.y();
+            z[i] = p.z();
+        }
+        double u = 1 - t;
         for (int k = ctrl.size() - 1; k > 0; k--) {
             for (int i = 0; i < k; i++) {
-                tmp.set(i, lerp(tmp.get(i), tmp.get(i + 1), t));
+                x[i] = x[i] * u + x[i + 1] * t;
+                y[i] = y[i] * u + y[i + 1] * t;
+                z[i] = z[i] * u + z[i + 1] * t;
             }
         }
-        return tmp.getFirst();
+        return new Pos(x[0], y[0], z[0]);
     }
 
     @Override
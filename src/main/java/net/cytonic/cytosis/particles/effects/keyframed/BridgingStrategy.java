@@ -72,6 +72,16 @@ public interface BridgingStrategy {
     @ApiStatus.Internal
     StaticEffect render(ParticleSupplier supplier, Point start, Point end);
 
+    /**
+     * Gets the positions of the particles bridging two points, for effects that cache the geometry of their shape
+     *
+     * @param start the first point
+     * @param end   the second point
+     * @return the positions the particles are played at
+     */
+    @ApiStatus.Internal
+    Point[] positions(Point start, Point end);
+
     @ApiStatus.Internal
     record Line(int density) implements BridgingStrategy {
 
@@ -79,6 +89,11 @@ public interface BridgingStrategy {
         public StaticEffect render(ParticleSupplier supplier, Point start, Point end) {
             return new LineEffect(supplier, start, end, density);
         }
+
+        @Override
+        public Point[] positions(Point start, Point end) {
+            return LineEffect.computePositions(start, end, density).toArray(Point[]::new);
+        }
     }
 
     @ApiStatus.Internal
@@ -88,6 +103,11 @@ public interface BridgingStrategy {
         public StaticEffect render(ParticleSupplier supplier, Point start, Point end) {
             return new SingleParticleEffect(supplier, start);
         }
+
+        @Override
+        public Point[] positions(Point start, Point end) {
+            return new Point[]{start};
+        }
     }
 
     @ApiStatus.Internal
@@ -97,6 +117,11 @@ public interface BridgingStrategy {
         public StaticEffect render(ParticleSupplier supplier, Point start, Point end) {
             return new SingleParticleEffect(supplier, end);
         }
+
+        @Override
+        public Point[] positions(Point start, Point end) {
+            return new Point[]{end};
+        }
     }
 
     @ApiStatus.Internal
@@ -104,13 +129,18 @@ public interface BridgingStrategy {
 
         @Override
         public StaticEffect render(ParticleSupplier supplier, Point start, Point end) {
+            return new SingleParticleEffect(supplier, positions(start, end)[0]);
+        }
+
+        @Override
+        public Point[] positions(Point start, Point end) {
             double x;
             double y;
             double z;
             x = (start.x() + end.x()) / 2;
             y = (start.y() + end.y()) / 2;
             z = (start.z() + end.z()) / 2;
-            return new SingleParticleEffect(supplier, new Pos(x, y, z));
+            return new Point[]{new Pos(x, y, z)};
         }
     }
 
@@ -126,5 +156,10 @@ public interface BridgingStrategy {
                 }
             }; // an empty effect
         }
+
+        @Override
+        public Point[] positions(Point start, Point end) {
+            return new Point[0];
+        }
     }
 }
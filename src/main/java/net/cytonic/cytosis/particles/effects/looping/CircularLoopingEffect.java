@@ -22,12 +22,15 @@ public class CircularLoopingEffect extends LoopingEffect {
     private final Phase phase;
     private final BridgingStrategy bridge;
     private final Point[] cachedPositions;
+    // the bridge ending at each position, relative to the center, computed on first use
+    private final Point[][] cachedSegments;
     private final double phaseShift;
     private double radius;
     private Point offset;
     private int currentTick = 0;
     private double currentAngle = 0;
     private Point last;
+    private Point lastCenter;
 
     /**
      * Creates a looping effect which results in a circle
@@ -66,6 +69,7 @@ public class CircularLoopingEffect extends LoopingEffect {
         this.offset = offsetFunc.apply(currentAngle);
         this.radius = radiusFunc.apply(currentAngle);
         cachedPositions = new Pos[resolution];
+        cachedSegments = new Point[resolution][];
         cachePositions();
     }
 
@@ -130,9 +134,27 @@ public class CircularLoopingEffect extends LoopingEffect {
         Point center = getPosSupplier().get().add(offset);
         Point loc = getPos(center);
         if (last != null) {
-            bridge.render(particleSupplier, loc, last).play(audience);
+            if (center.samePoint(lastCenter)) {
+                // the center didn't move, so the bridge is the same as last loop, just translated
+                for (Point point : getSegment(currentTick - 1)) {
+                    audience.sendGroupedPacket(particleSupplier.get().getPacket(center.add(point)));
+                }
+            } else {
+                bridge.render(particleSupplier, loc, last).play(audience);
+            }
         }
         last = loc;
+        lastCenter = center;
+    }
+
+    private Point[] getSegment(int index) {
+        Point[] segment = cachedSegments[index];
+        if (segment == null) {
+            Point previous = cachedPositions[(index - 1 + resolution) % resolution];
+            segment = bridge.positions(cachedPositions[index], previous);
+            cachedSegments[index] = segment;
+        }
+        return segment;
     }
 
     private Point getPos(Point center) {
@@ -1,5 +1,6 @@
 package net.cytonic.cytosis.parties;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -17,14 +18,16 @@ import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.bootstrap.annotations.CytosisComponent;
 import net.cytonic.cytosis.data.enums.PlayerRank;
 import net.cytonic.cytosis.logging.Logger;
+import net.cytonic.cytosis.managers.PlayerDirectory;
 import net.cytonic.cytosis.messaging.NatsManager;
 import net.cytonic.cytosis.messaging.Subjects;
 import net.cytonic.cytosis.protocol.publishers.PartyPacketsPublisher;
 import net.cytonic.cytosis.utils.Msg;
 import net.cytonic.cytosis.utils.Players;
-import net.cytonic.cytosis.utils.Utils;
 import net.cytonic.protocol.data.objects.Party;
 import net.cytonic.protocol.impl.responses.GenericResponse;
+import net.cytonic.protocol.serializer.Serializable;
+import net.cytonic.protocol.serializer.WireFormat;
 
 @CytosisComponent(dependsOn = {NatsManager.class, CytonicNetwork.class})
 public class PartyManager implements Bootstrappable {
@@ -32,10 +35,13 @@ public class PartyManager implements Bootstrappable {
     public static final String LINE = "<#83cae4><st>                                                                               </st></#83cae4>";
     @Getter
     private final Map<UUID, Party> parties = new ConcurrentHashMap<>();
+    // player -> the id of their party. Every track* method keeps this in sync with the party contents
+    private final Map<UUID, UUID> playerParties = new ConcurrentHashMap<>();
     private final CytonicNetwork cn = Cytosis.get(CytonicNetwork.class);
 
     public void trackParty(Party party) {
         parties.put(party.getId(), party);
+        index(party);
 
         // track invites included too!
         party.getActiveInvites().forEach((_, invite) -> trackInviteSent(invite, true));
@@ -43,7 +49,7 @@ public class PartyManager implements Bootstrappable {
 
     public void trackPlayerJoin(UUID partyID, UUID player) {
         if (!parties.containsKey(partyID)) {
-            Logger.warn("STATE MISMATCH-- %s joined non-existent party '%s'", player.toString(), partyID.toString());
+            stateMismatch("STATE MISMATCH-- %s joined non-existent party '%s'", player.toString(), partyID.toString());
             return;
         }
         Party party = parties.get(partyID);
@@ -54,18 +60,20 @@ public class PartyManager implements Bootstrappable {
                     Msg.mm("%s\n%s <white>joined the party!\n%s", LINE, Players.trueMiniName(player), LINE)));
         }
         party.getMembers().add(player);
+        playerParties.put(player, partyID);
         Cytosis.getPlayer(player)
             .ifPresent(p -> p.sendMessage(Msg.mm("%s\nYou joined the party!\n%s", LINE, LINE)));
     }
 
     public void trackPlayerLeave(UUID partyID, UUID player) {
         if (!parties.containsKey(partyID)) {
-            Logger.warn("STATE MISMATCH-- %s left non-existent party '%s'", player.toString(), partyID.toString());
+            stateMismatch("STATE MISMATCH-- %s left non-existent party '%s'", player.toString(), partyID.toString());
             return;
         }
         Party party = parties.get(partyID);
 
         party.getMembers().remove(player);
+        playerParties.remove(player, partyID);
         for (UUID member : party.getAllPlayers()) {
             Cytosis.getPlayer(member).ifPresent(
                 p -> p.sendMessage(
@@ -77,13 +85,14 @@ public class PartyManager implements Bootstrappable {
 
     public void trackPlayerLeaveDisconnect(UUID partyID, UUID player) {
         if (!parties.containsKey(partyID)) {
-            Logger.warn("STATE MISMATCH-- %s disconnected from a non-existent party '%s'", player.toString(),
+            stateMismatch("STATE MISMATCH-- %s disconnected from a non-existent party '%s'", player.toString(),
                 partyID.toString());
             return;
         }
         Party party = parties.get(partyID);
 
         party.getMembers().remove(player);
+        playerParties.remove(player, partyID);
         for (UUID member : party.getAllPlayers()) {
             Cytosis.getPlayer(member).ifPresent(
                 p -> p.sendMessage(
@@ -98,7 +107,7 @@ public class PartyManager implements Bootstrappable {
 
     public void notifyPlayerDisconnect(UUID partyID, UUID player) {
         if (!parties.containsKey(partyID)) {
-            Logger.warn("STATE MISMATCH-- %s disconnected from a non-existent party '%s'", player.toString(),
+            stateMismatch("STATE MISMATCH-- %s disconnected from a non-existent party '%s'", player.toString(),
                 partyID.toString());
             return;
         }
@@ -117,7 +126,7 @@ public class PartyManager implements Bootstrappable {
 
     public void notifyPlayerReconnect(UUID partyID, UUID player) {
         if (!parties.containsKey(partyID)) {
-            Logger.warn("STATE MISMATCH-- %s reconnected to a non-existent party '%s'", player.toString(),
+            stateMismatch("STATE MISMATCH-- %s reconnected to a non-existent party '%s'", player.toString(),
                 partyID.toString());
             return;
         }
@@ -132,7 +141,7 @@ public class PartyManager implements Bootstrappable {
 
     public void trackDemotionToMember(UUID partyId, UUID sender, UUID recipient) {
         if (!parties.containsKey(partyId)) {
-            Logger.warn("STATE MISMATCH-- %s was demoted in a non-existent party '%s'", recipient.toString(),
+            stateMismatch("STATE MISMATCH-- %s was demoted in a non-existent party '%s'", recipient.toString(),
                 partyId.toString());
             return;
         }
@@ -160,7 +169,7 @@ public class PartyManager implements Bootstrappable {
 
     public void trackPromotionToModerator(UUID partyId, UUID sender, UUID recipient) {
         if (!parties.containsKey(partyId)) {
-            Logger.warn("STATE MISMATCH-- %s was promoted in a non-existent party '%s'", recipient.toString(),
+            stateMismatch("STATE MISMATCH-- %s was promoted in a non-existent party '%s'", recipient.toString(),
                 partyId.toString());
             return;
         }
@@ -188,7 +197,7 @@ public class PartyManager implements Bootstrappable {
 
     public void trackPromotionToLeader(UUID partyId, UUID sender, UUID recipient) {
         if (!parties.containsKey(partyId)) {
-            Logger.warn("STATE MISMATCH-- %s was promoted in a non-existent party '%s'", recipient.toString(),
+            stateMismatch("STATE MISMATCH-- %s was promoted in a non-existent party '%s'", recipient.toString(),
                 partyId.toString());
             return;
         }
@@ -220,13 +229,14 @@ public class PartyManager implements Bootstrappable {
 
     public void trackKick(UUID partyId, UUID sender, UUID recipient) {
         if (!parties.containsKey(partyId)) {
-            Logger.warn("STATE MISMATCH-- %s was kicked from a non-existent party '%s'", recipient.toString(),
+            stateMismatch("STATE MISMATCH-- %s was kicked from a non-existent party '%s'", recipient.toString(),
                 partyId.toString());
             return;
         }
         Party party = parties.get(partyId);
         party.getModerators().remove(recipient);
         party.getMembers().remove(recipient);
+        playerParties.remove(recipient, partyId);
 
         Cytosis.getPlayer(recipient).ifPresent(cp -> cp.sendMessage(Msg.mm(
             "%s\n%s <white>kicked you from the party.\n%s", LINE, Players.trueMiniName(sender), LINE)));
@@ -247,7 +257,7 @@ public class PartyManager implements Bootstrappable {
 
     public void trackTransferCommand(UUID partyId, UUID sender, UUID recipient) {
         if (!parties.containsKey(partyId)) {
-            Logger.warn("STATE MISMATCH-- %s was transferred leadership to a non-existent party '%s'",
+            stateMismatch("STATE MISMATCH-- %s was transferred leadership to a non-existent party '%s'",
                 recipient.toString(),
                 partyId.toString());
             return;
@@ -281,7 +291,7 @@ public class PartyManager implements Bootstrappable {
 
     public void trackTransferLeft(UUID partyId, UUID sender, UUID recipient) {
         if (!parties.containsKey(partyId)) {
-            Logger.warn("STATE MISMATCH-- %s was transferred leadership a to non-existent party '%s'",
+            stateMismatch("STATE MISMATCH-- %s was transferred leadership a to non-existent party '%s'",
                 recipient.toString(), partyId.toString());
             return;
         }
@@ -290,6 +300,7 @@ public class PartyManager implements Bootstrappable {
         party.setLeader(recipient);
         party.getModerators().remove(recipient);
         party.getMembers().remove(recipient);
+        playerParties.remove(sender, partyId);
 
         Cytosis.getPlayer(sender).ifPresent(cp -> cp.sendMessage(
             Msg.mm("%s\n<white>The party was transferred to %s <white>because you left.\n%s",
@@ -310,7 +321,7 @@ public class PartyManager implements Bootstrappable {
 
     public void trackTransferDisconnected(UUID partyId, UUID sender, UUID recipient) {
         if (!parties.containsKey(partyId)) {
-            Logger.warn("STATE MISMATCH-- %s was transferred leadership to a non-existent party '%s'",
+            stateMismatch("STATE MISMATCH-- %s was transferred leadership to a non-existent party '%s'",
                 recipient.toString(),
                 partyId.toString());
             return;
@@ -344,7 +355,7 @@ public class PartyManager implements Bootstrappable {
 
     public void trackPartyMuteChange(UUID partyId, UUID sender, boolean state) {
         if (!parties.containsKey(partyId)) {
-            Logger.warn("STATE MISMATCH-- %s updated the state of a non-existent party '%s'",
+            stateMismatch("STATE MISMATCH-- %s updated the state of a non-existent party '%s'",
                 sender.toString(),
                 partyId.toString());
             return;
@@ -368,7 +379,7 @@ public class PartyManager implements Bootstrappable {
 
     public void trackPartyOpenChange(UUID partyId, UUID sender, boolean state) {
         if (!parties.containsKey(partyId)) {
-            Logger.warn("STATE MISMATCH-- %s updated the state of a non-existent party '%s'",
+            stateMismatch("STATE MISMATCH-- %s updated the state of a non-existent party '%s'",
                 sender.toString(),
                 partyId.toString());
             return;
@@ -390,7 +401,7 @@ public class PartyManager implements Bootstrappable {
 
     public void trackPartyOpenInviteChange(UUID partyId, UUID sender, boolean state) {
         if (!parties.containsKey(partyId)) {
-            Logger.warn("STATE MISMATCH-- %s updated the state of a non-existent party '%s'",
+            stateMismatch("STATE MISMATCH-- %s updated the state of a non-existent party '%s'",
                 sender.toString(),
                 partyId.toString());
             return;
@@ -413,12 +424,13 @@ public class PartyManager implements Bootstrappable {
 
     public void trackYoink(UUID partyId, UUID sender) {
         if (!parties.containsKey(partyId)) {
-            Logger.warn("STATE MISMATCH-- %s updated the state of a non-existent party '%s'",
+            stateMismatch("STATE MISMATCH-- %s updated the state of a non-existent party '%s'",
                 sender.toString(),
                 partyId.toString());
             return;
         }
-        if (!cn.getCachedPlayerRanks().get(sender).isHigherOrEqualTo(PlayerRank.ADMIN)) {
+        PlayerRank rank = Cytosis.get(PlayerDirectory.class).getRank(sender);
+        if (rank == null || !rank.isHigherOrEqualTo(PlayerRank.ADMIN)) {
             Logger.warn("Non admin player %s attempted to yoink a party", sender.toString());
         }
 
@@ -427,6 +439,7 @@ public class PartyManager implements Bootstrappable {
         party.setLeader(sender);
         party.getModerators().remove(sender);
         party.getMembers().remove(sender);
+        playerParties.put(sender, partyId);
 
         for (UUID p : party.getAllPlayers()) {
             if (p.equals(sender)) {
@@ -445,12 +458,12 @@ public class PartyManager implements Bootstrappable {
 
     public void trackEmptyPartyDisband(UUID partyId) {
         if (!parties.containsKey(partyId)) {
-            Logger.warn("STATE MISMATCH-- empty disbanded a non-existent party '%s'", partyId.toString());
+            stateMismatch("STATE MISMATCH-- empty disbanded a non-existent party '%s'", partyId.toString());
             return;
         }
 
-        Party party = parties.get(partyId);
-        parties.remove(partyId);
+        Party party = parties.remove(partyId);
+        unindex(party);
 
         for (UUID player : party.getAllPlayers()) {
             Cytosis.getPlayer(player).ifPresent(p -> p.sendMessage(
@@ -461,13 +474,13 @@ public class PartyManager implements Bootstrappable {
 
     public void trackPartyDisband(UUID partyId, UUID playerId) {
         if (!parties.containsKey(partyId)) {
-            Logger.warn("STATE MISMATCH-- %s disbanded a non-existent party '%s'", playerId.toString(),
+            stateMismatch("STATE MISMATCH-- %s disbanded a non-existent party '%s'", playerId.toString(),
                 partyId.toString());
             return;
         }
 
-        Party party = parties.get(partyId);
-        parties.remove(partyId);
+        Party party = parties.remove(partyId);
+        unindex(party);
 
         for (UUID player : party.getAllPlayers()) {
             if (player.equals(playerId)) {
@@ -482,7 +495,7 @@ public class PartyManager implements Bootstrappable {
 
     public void trackInviteSent(net.cytonic.protocol.data.objects.PartyInvite invite, boolean skipTrack) {
         if (!skipTrack && !parties.containsKey(invite.partyId())) {
-            Logger.warn("STATE MISMATCH-- a player was invited to a non-existent party '%s'",
+            stateMismatch("STATE MISMATCH-- a player was invited to a non-existent party '%s'",
                 invite.partyId().toString());
             return;
         }
@@ -519,7 +532,7 @@ public class PartyManager implements Bootstrappable {
 
     public void trackInviteExpired(UUID invite, UUID partyId, UUID sender, UUID recipient) {
         if (!parties.containsKey(partyId)) {
-            Logger.warn("STATE MISMATCH-- a player's invite to a non-existent party expired '%s'",
+            stateMismatch("STATE MISMATCH-- a player's invite to a non-existent party expired '%s'",
                 partyId.toString());
             return;
         }
@@ -672,11 +685,56 @@ public class PartyManager implements Bootstrappable {
 
     @Nullable
     public Party getPlayerParty(UUID player) {
-        for (Party party : parties.values()) {
-            if (party.getAllPlayers().contains(player))
-                return party;
+        UUID partyId = playerParties.get(player);
+        if (partyId == null) return null;
+        Party party = parties.get(partyId);
+        if (party == null) {
+            // the party is gone, so the entry is stale
+            playerParties.remove(player, partyId);
+        }
+        return party;
+    }
+
+    /**
+     * Compares the player to party index against the contents of the tracked parties, and repairs any differences
+     *
+     * @return the number of players whose entry was wrong
+     */
+    public int verifyIndex() {
+        Map<UUID, UUID> expected = new HashMap<>();
+        parties.values().forEach(party -> party.getAllPlayers().forEach(p -> expected.put(p, party.getId())));
+
+        int mismatches = 0;
+        for (Map.Entry<UUID, UUID> entry : expected.entrySet()) {
+            if (!entry.getValue().equals(playerParties.put(entry.getKey(), entry.getValue()))) mismatches++;
+        }
+        for (UUID player : playerParties.keySet()) {
+            if (!expected.containsKey(player)) {
+                playerParties.remove(player);
+                mismatches++;
+            }
+        }
+        if (mismatches > 0) {
+            Logger.warn("Repaired %d stale entries in the party index", mismatches);
+        }
+        return mismatches;
+    }
+
+    private void stateMismatch(String message, Object... args) {
+        Logger.warn(message, args);
+        verifyIndex();
+    }
+
+    private void index(Party party) {
+        for (UUID player : party.getAllPlayers()) {
+            playerParties.put(player, party.getId());
+        }
+    }
+
+    private void unindex(Party party) {
+        for (UUID player : party.getAllPlayers()) {
+            playerParties.remove(player, party.getId());
         }
-        return null;
     }
 
     @Override
@@ -688,8 +746,10 @@ public class PartyManager implements Bootstrappable {
                     Logger.error("Failed to fetch active party list: ", throwable);
                     return;
                 }
-                List<Party> partyList = Utils.parseJson(new String(message.getData()), Party.CODEC.list());
+                Serializable<List<Party>> serializer = Party.CODEC::list;
+                List<Party> partyList = serializer.deserializeFromBytes(message.getData(), WireFormat.of(message));
                 parties.putAll(partyList.stream().collect(Collectors.toMap(Party::getId, Function.identity())));
+                partyList.forEach(this::index);
                 Logger.info("Loaded active parties");
             });
     }
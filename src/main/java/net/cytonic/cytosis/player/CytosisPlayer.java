@@ -36,11 +36,12 @@ import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.data.enums.ChatChannel;
 import net.cytonic.cytosis.data.enums.PlayerRank;
 import net.cytonic.cytosis.data.objects.CytonicServer;
+import net.cytonic.cytosis.data.objects.PlayerProfile;
 import net.cytonic.cytosis.logging.Logger;
 import net.cytonic.cytosis.managers.ActionBarManager;
 import net.cytonic.cytosis.managers.ChatManager;
 import net.cytonic.cytosis.managers.FriendManager;
-import net.cytonic.cytosis.managers.PreferenceManager;
+import net.cytonic.cytosis.managers.PlayerProfileManager;
 import net.cytonic.cytosis.managers.RankManager;
 import net.cytonic.cytosis.managers.VanishManager;
 import net.cytonic.cytosis.metrics.Metrics;
@@ -81,15 +82,23 @@ public class CytosisPlayer extends CombatPlayerImpl implements NetworkPlayer, Pr
 
     public CytosisPlayer(@NotNull PlayerConnection playerConnection, GameProfile gameProfile) {
         super(playerConnection, gameProfile);
-        RankManager rm = Cytosis.get(RankManager.class);
-        UUID uuid = gameProfile.uuid();
-        rm.loadPlayerNow(uuid);
-        Cytosis.get(PreferenceManager.class).loadPlayerPreferencesNow(uuid, false);
-
-        rank = rm.getPlayerRank(uuid).orElseGet(() -> {
-            Logger.warn("The rank manager does not have a rank for " + uuid + ". Using default rank instead.");
-            return PlayerRank.DEFAULT;
-        });
+        // rank, ban, mute, friends and preferences are all hydrated together before login, so this only reads them
+        PlayerProfileManager profiles = Cytosis.get(PlayerProfileManager.class);
+        PlayerProfile profile = profiles.getProfile(gameProfile.uuid());
+        if (profile != null) {
+            rank = profile.rank();
+        } else {
+            // the preload failed, so the profile is retried in the background without holding up the login
+            rank = PlayerRank.DEFAULT;
+            profiles.load(gameProfile.uuid()).whenComplete((loaded, throwable) -> {
+                if (throwable != null) {
+                    Logger.error("Failed to load the profile of " + gameProfile.name() + " (" + gameProfile.uuid()
+                        + ")", throwable);
+                    return;
+                }
+                rank = loaded.rank();
+            });
+        }
     }
 
     public PlayerRank getRank() {
@@ -2,8 +2,13 @@ package net.cytonic.cytosis.player;
 
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
+import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.data.enums.PlayerRank;
+import net.cytonic.cytosis.data.objects.preferences.Preference;
+import net.cytonic.cytosis.managers.PlayerProfileManager;
+import net.cytonic.cytosis.managers.PreferenceManager;
 import net.cytonic.cytosis.player.trait.Cooldownable;
 import net.cytonic.cytosis.player.trait.Preferable;
 
@@ -26,4 +31,18 @@ public record OfflinePlayer(UUID uuid, String username, PlayerRank rank) impleme
     public UUID getUuid() {
         return uuid;
     }
+
+    /**
+     * Fetches one of this player's preferences. The preferences of a player on this server are read as they are, while
+     * anyone else's are fetched on demand through the {@link PlayerProfileManager}, as they aren't loaded here.
+     *
+     * @param preference the preference
+     * @param <T>        the type of the preference
+     * @return a future completing with the value of the preference
+     */
+    public <T> CompletableFuture<T> fetchPreference(Preference<T> preference) {
+        if (Cytosis.get(PreferenceManager.class).isLoaded(uuid)) return CompletableFuture.completedFuture(getPreference(preference));
+        return Cytosis.get(PlayerProfileManager.class).fetch(uuid)
+            .thenApply(profile -> profile.preferences().get(preference));
+    }
 }
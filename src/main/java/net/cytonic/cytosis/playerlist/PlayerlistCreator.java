@@ -71,7 +71,7 @@ public interface PlayerlistCreator<P extends CytosisPlayer> {
         if (players.size() >= 19) {
             int extra = players.size() - 19;
             players = new ArrayList<>(players.subList(0, 18));
-            players.add(new PlayerListEntry(Msg.mm("<italic> + " + extra + " more"), 100));
+            players.add(new PlayerListEntry(Msg.mm("<italic> + %s more", extra), 100));
         } else {
             playerCol.setEntries(new ArrayList<>(players));
             players.clear();
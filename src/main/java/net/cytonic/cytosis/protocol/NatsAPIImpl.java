@@ -1,46 +1,63 @@
 package net.cytonic.cytosis.protocol;
 
+import java.nio.charset.StandardCharsets;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import io.nats.client.Message;
+import io.nats.client.impl.Headers;
+import org.jetbrains.annotations.Nullable;
 
 import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.bootstrap.annotations.CytosisComponent;
 import net.cytonic.cytosis.logging.Logger;
 import net.cytonic.cytosis.messaging.NatsManager;
+import net.cytonic.cytosis.messaging.Subjects;
 import net.cytonic.protocol.utils.NatsAPI;
 
 @CytosisComponent(dependsOn = NatsManager.class)
 public class NatsAPIImpl implements NatsAPI {
 
+    private static final boolean DEBUG = Boolean.getBoolean("nats_debug");
+
     private static void log(String message, Object... args) {
-        if (Boolean.getBoolean("nats_debug")) {
+        if (DEBUG) {
             Logger.debug(message, args);
         }
     }
 
+    // only decode the body for logging when debugging, so the hot path never copies it into a String
+    private static String body(@Nullable byte[] data) {
+        if (!DEBUG || data == null) return "";
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
     @Override
     public void subscribe(String channel, Consumer<Message> consumer) {
         log("Subscribing to channel %s", channel);
         Cytosis.get(NatsManager.class).subscribe(channel, message -> {
-            log("Received Nats Message from sub %s %s", channel, new String(message.getData()));
+            log("Received Nats Message from sub %s %s", channel, body(message.getData()));
             consumer.accept(message);
         });
     }
 
     @Override
-    public void publish(String channel, String data) {
-        log("Publishing to channel %s %s", channel, data);
-        Cytosis.get(NatsManager.class).publish(channel, data.getBytes());
+    public void publish(String channel, byte[] data, @Nullable Headers headers) {
+        log("Publishing to channel %s %s", channel, body(data));
+        Cytosis.get(NatsManager.class).publish(channel, data, headers);
     }
 
     @Override
-    public void request(String channel, String data, BiConsumer<byte[], Throwable> consumer) {
-        log("Requesting on channel %s %s", channel, data);
-        Cytosis.get(NatsManager.class).request(channel, data.getBytes(), ((message, throwable) -> {
-            log("Received Nats request from request %s %s", channel, new String(message.getData()));
-            consumer.accept(message.getData(), throwable);
+    public void request(String channel, byte[] data, BiConsumer<byte[], Throwable> consumer) {
+        log("Requesting on channel %s %s", channel, body(data));
+        Cytosis.get(NatsManager.class).request(channel, data, ((message, throwable) -> {
+            log("Received Nats request from request %s %s", channel, message == null ? "" : body(message.getData()));
+            consumer.accept(message == null ? null : message.getData(), throwable);
         }));
     }
+
+    @Override
+    public String resolveSubject(String channel) {
+        return Subjects.applyPrefix(channel);
+    }
 }
@@ -2,7 +2,7 @@ package net.cytonic.cytosis.protocol.listeners;
 
 import com.google.errorprone.annotations.Keep;
 
-import net.cytonic.cytosis.Cytosis;
+import net.cytonic.cytosis.utils.Broadcast;
 import net.cytonic.protocol.NotifyData;
 import net.cytonic.protocol.impl.notify.BroadcastNotifyPacket.Packet;
 import net.cytonic.protocol.notify.NotifyListener;
@@ -12,6 +12,6 @@ public class BroadcastNotifyListener implements NotifyListener<Packet> {
 
     @Override
     public void onMessage(Packet message, NotifyData notifyData) {
-        Cytosis.getOnlinePlayers().forEach(player -> player.sendMessage(message.message()));
+        Broadcast.sendMessage(message.message(), _ -> true);
     }
 }
@@ -1,8 +1,10 @@
 package net.cytonic.cytosis.protocol.listeners;
 
+import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
 
 import com.google.errorprone.annotations.Keep;
 import net.kyori.adventure.sound.Sound;
@@ -13,6 +15,7 @@ import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.data.enums.ChatChannel;
 import net.cytonic.cytosis.managers.ChatManager;
 import net.cytonic.cytosis.player.CytosisPlayer;
+import net.cytonic.cytosis.utils.Broadcast;
 import net.cytonic.cytosis.utils.Preferences;
 import net.cytonic.protocol.NotifyData;
 import net.cytonic.protocol.impl.notify.ChatMessageNotifyPacket.Packet;
@@ -21,34 +24,40 @@ import net.cytonic.protocol.notify.NotifyListener;
 @Keep
 public class ChatMessageNotifyListener implements NotifyListener<Packet> {
 
+    private static final Sound PING = Sound.sound(SoundEvent.ENTITY_EXPERIENCE_ORB_PICKUP, Sound.Source.PLAYER, .7f,
+        1.0F);
+
     @Override
     public void onMessage(Packet message, NotifyData notifyData) {
         ChatChannel channel = ChatChannel.valueOf(message.channel());
 
         Component component = message.message();
 
-        Set<UUID> recipients;
+        Predicate<CytosisPlayer> filter = player -> player.canReceiveFromChannel(channel)
+            && !player.getPreference(Preferences.IGNORED_CHAT_CHANNELS).getForChannel(channel);
+        // relayed player chat is hidden from players who only show system messages, everything else is shown to them
+        boolean playerChat = message.sender() != null && channel != ChatChannel.PRIVATE_MESSAGE
+            && channel != ChatChannel.INTERNAL_MESSAGE;
+        List<CytosisPlayer> recipients;
         if (channel.isSupportsSelectiveRecipients()) {
-            recipients = message.recipients();
+            Set<UUID> uuids = Objects.requireNonNull(message.recipients());
+            recipients = playerChat ? Broadcast.chatting(uuids, filter) : Broadcast.online(uuids, filter);
         } else {
-            recipients = Cytosis.getOnlinePlayers().stream().map(CytosisPlayer::getUuid).collect(Collectors.toSet());
+            recipients = playerChat ? Broadcast.chatting(filter) : Broadcast.online(filter);
         }
-
-        assert recipients != null;
         if (recipients.isEmpty()) return;
 
-        Sound sound = Sound.sound(SoundEvent.ENTITY_EXPERIENCE_ORB_PICKUP, Sound.Source.PLAYER, .7f, 1.0F);
-        recipients.forEach(uuid -> Cytosis.getPlayer(uuid).ifPresent(player -> {
-            if (!player.canReceiveFromChannel(channel)) return;
-            if (player.getPreference(Preferences.IGNORED_CHAT_CHANNELS).getForChannel(channel)) return;
-
+        // the message is the same for everyone, only the ping sound differs between recipients
+        for (CytosisPlayer player : recipients) {
             if (player.getPreference(Preferences.CHAT_MESSAGE_PING)) {
-                player.playSound(sound);
-            }
-            player.sendMessage(component);
-            if (channel == ChatChannel.PRIVATE_MESSAGE) {
-                Cytosis.get(ChatManager.class).openPrivateMessage(player, message.sender());
+                player.playSound(PING);
             }
-        }));
+        }
+        Broadcast.sendMessage(recipients, component);
+
+        if (channel == ChatChannel.PRIVATE_MESSAGE) {
+            ChatManager chat = Cytosis.get(ChatManager.class);
+            recipients.forEach(player -> chat.openPrivateMessage(player, message.sender()));
+        }
     }
 }
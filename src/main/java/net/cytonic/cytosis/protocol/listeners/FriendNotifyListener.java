@@ -5,9 +5,9 @@ import java.util.UUID;
 import net.kyori.adventure.text.Component;
 import net.minestom.server.entity.Player;
 
-import net.cytonic.cytosis.CytonicNetwork;
 import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.managers.FriendManager;
+import net.cytonic.cytosis.managers.PlayerProfileManager;
 import net.cytonic.cytosis.messaging.Subjects;
 import net.cytonic.cytosis.player.CytosisPlayer;
 import net.cytonic.cytosis.utils.Msg;
@@ -22,6 +22,7 @@ public class FriendNotifyListener {
 
     @NotifyHandler(subject = Subjects.FRIEND_ACCEPTANCE_NOTIFY)
     private void handleFriendAccept(FriendNotifyPacket.Packet packet) {
+        invalidateProfiles(packet);
         FriendManager fm = Cytosis.get(FriendManager.class);
         Component target = createComponent(packet.recipient());
         Component sender = createComponent(packet.sender());
@@ -109,7 +110,8 @@ public class FriendNotifyListener {
 
     @NotifyHandler(subject = Subjects.FRIEND_REMOVE)
     private void handleFriendRemove(FriendNotifyPacket.Packet packet) {
-        CytonicNetwork network = Cytosis.get(CytonicNetwork.class);
+        invalidateProfiles(packet);
+        Cytosis.get(FriendManager.class).removeCachedFriend(packet.sender(), packet.recipient());
 
         for (CytosisPlayer player : Cytosis.getOnlinePlayers()) {
             if (player.getUuid().equals(packet.recipient())) {
@@ -126,7 +128,13 @@ public class FriendNotifyListener {
         }
     }
 
+    private void invalidateProfiles(FriendNotifyPacket.Packet packet) {
+        PlayerProfileManager profiles = Cytosis.get(PlayerProfileManager.class);
+        profiles.invalidate(packet.sender());
+        profiles.invalidate(packet.recipient());
+    }
+
     private Component createComponent(UUID player) {
-        return Msg.mm(Players.trueMiniName(player));
+        return Msg.parse(Players.trueMiniName(player));
     }
 }
@@ -6,6 +6,7 @@ import net.kyori.adventure.text.Component;
 import net.cytonic.cytosis.CytonicNetwork;
 import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.data.enums.PlayerRank;
+import net.cytonic.cytosis.managers.PlayerProfileManager;
 import net.cytonic.cytosis.managers.RankManager;
 import net.cytonic.cytosis.utils.Msg;
 import net.cytonic.cytosis.utils.Utils;
@@ -30,6 +31,7 @@ public class PlayerRankUpdateNotifyListener implements NotifyListener<Packet> {
         }, () -> {
             rankManager.changeRankSilently(message.player(), rank);
             Cytosis.get(CytonicNetwork.class).updateCachedPlayerRank(message.player(), rank);
+            Cytosis.get(PlayerProfileManager.class).invalidate(message.player());
         });
     }
 }
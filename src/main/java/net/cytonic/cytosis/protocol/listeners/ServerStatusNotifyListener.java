@@ -4,6 +4,8 @@ import net.cytonic.cytosis.CytonicNetwork;
 import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.data.objects.CytonicServer;
 import net.cytonic.cytosis.logging.Logger;
+import net.cytonic.cytosis.player.CytosisPlayer;
+import net.cytonic.cytosis.utils.Broadcast;
 import net.cytonic.cytosis.utils.Msg;
 import net.cytonic.cytosis.utils.Preferences;
 import net.cytonic.protocol.impl.notify.ServerStatusNotifyPacket;
@@ -17,15 +19,8 @@ public class ServerStatusNotifyListener {
         Cytosis.get(CytonicNetwork.class).getServers().put(packet.id(), server);
         Logger.info("Registered server: " + packet.id());
 
-        Cytosis.getOnlinePlayers().forEach(player -> {
-            if (!player.isAdmin()) {
-                return;
-            }
-            if (player.getPreference(Preferences.SERVER_ALERTS)) {
-                player.sendMessage(
-                    Msg.network("Server %s of type %s has been started!", packet.id(), server.type().asString()));
-            }
-        });
+        Broadcast.sendMessage(Msg.network("Server %s of type %s has been started!", packet.id(),
+            server.type().asString()), ServerStatusNotifyListener::receivesAlerts);
     }
 
     @NotifyHandler(subject = "servers.shutdown")
@@ -34,18 +29,16 @@ public class ServerStatusNotifyListener {
         Cytosis.get(CytonicNetwork.class).getServers().put(packet.id(), server);
         Logger.info("Shutdown server: " + packet.id());
 
-        Cytosis.getOnlinePlayers().forEach(player -> {
-            if (!player.isAdmin()) {
-                return;
-            }
-            if (player.getPreference(Preferences.SERVER_ALERTS)) {
-                player.network("Server %s of type %s has been shut down!", packet.id(), server.type());
-            }
-        });
+        Broadcast.sendMessage(Msg.network("Server %s of type %s has been shut down!", packet.id(), server.type()),
+            ServerStatusNotifyListener::receivesAlerts);
     }
 
     @NotifyHandler(subject = "servers.proxy.shutdown.notify")
     public static void serverProxyShutdown(ServerStatusNotifyPacket.Packet packet) {
         Cytosis.get(CytonicNetwork.class).getServers().remove(packet.id());
     }
+
+    private static boolean receivesAlerts(CytosisPlayer player) {
+        return player.isAdmin() && player.getPreference(Preferences.SERVER_ALERTS);
+    }
 }
@@ -0,0 +1,119 @@
+package net.cytonic.cytosis.raytracing;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minestom.server.collision.BoundingBox;
+import net.minestom.server.coordinate.Pos;
+import net.minestom.server.entity.Entity;
+import net.minestom.server.instance.Instance;
+import net.minestom.server.tag.Tag;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A snapshot of the entities of an instance, bucketed into a uniform grid of chunk section sized cells. It is built
+ * at most once per tick of the instance, so every ray traced in a tick only tests the entities in the cells it passes
+ * through, rather than every entity of the instance.
+ */
+public final class EntityBroadphase {
+
+    static final int CELL_SHIFT = 4;
+    static final double CELL_SIZE = 1 << CELL_SHIFT;
+    private static final int COORD_BITS = 21;
+    private static final long COORD_MASK = (1L << COORD_BITS) - 1;
+
+    // stored on the instance, so the snapshot goes away with it
+    static final Tag<EntityBroadphase> TAG = Tag.Transient("cytosis:entity-broadphase");
+
+    private final long worldAge;
+    private final Entity[] entities;
+    // minX, minY, minZ, maxX, maxY, maxZ of each entity
+    private final double[] bounds;
+    private final Long2ObjectOpenHashMap<int[]> cells;
+
+    private EntityBroadphase(Instance instance) {
+        this.worldAge = instance.getWorldAge();
+        this.entities = instance.getEntities().toArray(Entity[]::new);
+        this.bounds = new double[entities.length * 6];
+
+        Long2ObjectOpenHashMap<IntArrayList> building = new Long2ObjectOpenHashMap<>();
+        for (int i = 0; i < entities.length; i++) {
+            Pos position = entities[i].getPosition();
+            BoundingBox box = entities[i].getBoundingBox();
+            int offset = i * 6;
+            bounds[offset] = position.x() + box.relativeStart().x();
+            bounds[offset + 1] = position.y() + box.relativeStart().y();
+            bounds[offset + 2] = position.z() + box.relativeStart().z();
+            bounds[offset + 3] = bounds[offset] + box.width();
+            bounds[offset + 4] = bounds[offset + 1] + box.height();
+            bounds[offset + 5] = bounds[offset + 2] + box.depth();
+
+            int minX = cell(bounds[offset]);
+            int minY = cell(bounds[offset + 1]);
+            int minZ = cell(bounds[offset + 2]);
+            int maxX = cell(bounds[offset + 3]);
+            int maxY = cell(bounds[offset + 4]);
+            int maxZ = cell(bounds[offset + 5]);
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        building.computeIfAbsent(key(x, y, z), _ -> new IntArrayList(4)).add(i);
+                    }
+                }
+            }
+        }
+
+        this.cells = new Long2ObjectOpenHashMap<>(building.size());
+        building.long2ObjectEntrySet().fastForEach(entry -> cells.put(entry.getLongKey(),
+            entry.getValue().toIntArray()));
+    }
+
+    /**
+     * Gets the snapshot of the entities of an instance for the current tick, building it if it doesn't exist yet
+     *
+     * @param instance the instance
+     * @return the snapshot
+     */
+    public static EntityBroadphase of(Instance instance) {
+        EntityBroadphase snapshot = instance.getTag(TAG);
+        if (snapshot == null || snapshot.worldAge != instance.getWorldAge()) {
+            // threads racing here build equal snapshots, so whichever is stored last is fine
+            snapshot = new EntityBroadphase(instance);
+            instance.setTag(TAG, snapshot);
+        }
+        return snapshot;
+    }
+
+    static int cell(double coordinate) {
+        return (int) Math.floor(coordinate) >> CELL_SHIFT;
+    }
+
+    private static long key(int x, int y, int z) {
+        return ((x & COORD_MASK) << (COORD_BITS * 2)) | ((y & COORD_MASK) << COORD_BITS) | (z & COORD_MASK);
+    }
+
+    /**
+     * Gets the entities overlapping a cell
+     *
+     * @return the indices of the entities, or null if there are none
+     */
+    int @Nullable [] candidates(int cellX, int cellY, int cellZ) {
+        return cells.get(key(cellX, cellY, cellZ));
+    }
+
+    Entity entity(int index) {
+        return entities[index];
+    }
+
+    double[] bounds() {
+        return bounds;
+    }
+
+    /**
+     * Gets the number of entities in the snapshot
+     *
+     * @return the number of entities
+     */
+    public int size() {
+        return entities.length;
+    }
+}
@@ -0,0 +1,9 @@
+package net.cytonic.cytosis.raytracing;
+
+import net.minestom.server.coordinate.Point;
+import net.minestom.server.coordinate.Vec;
+import org.jetbrains.annotations.NotNull;
+
+public record Ray(@NotNull Point origin, @NotNull Vec direction, double range) {
+
+}
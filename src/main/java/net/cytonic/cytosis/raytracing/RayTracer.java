@@ -1,9 +1,8 @@
 package net.cytonic.cytosis.raytracing;
 
-import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 import net.minestom.server.collision.BoundingBox;
 import net.minestom.server.collision.Shape;
@@ -15,23 +14,13 @@ import net.minestom.server.entity.Entity;
 import net.minestom.server.instance.Instance;
 import net.minestom.server.instance.block.Block;
 
-import net.cytonic.cytosis.utils.Utils;
-
 @SuppressWarnings("unused")
 public class RayTracer {
 
-    private static final double RAY_BOX_SIZE = 0.001;
+    private static final BoundingBox RAY_BOX = new BoundingBox(0.001, 0.001, 0.001);
     private static final double EPSILON = 1e-8;
-
-    private static Field sweepResultResField;
-
-    static {
-        try {
-            sweepResultResField = SweepResult.class.getDeclaredField("res");
-            sweepResultResField.setAccessible(true);
-        } catch (NoSuchFieldException ignored) {
-        }
-    }
+    // the precision of hits on blocks that aren't a single box, like stairs
+    private static final double REFINE_PRECISION = 1e-4;
 
     // Public convenience methods
     public static Optional<RayTraceResult> rayTraceFromEntity(Entity entity, double range, boolean ignoreFluids) {
@@ -42,12 +31,38 @@ public class RayTracer {
 
     public static Optional<RayTraceResult> rayTrace(Instance instance, Point origin, Vec direction, double range,
         boolean ignoreFluids, Entity... exclude) {
-        Vec normalizedDirection = direction.normalize();
+        return Optional.ofNullable(rayTrace(instance, EntityBroadphase.of(instance), origin, direction.normalize(),
+            range, ignoreFluids, exclude));
+    }
 
-        RayTraceResult blockResult = rayTraceBlocks(instance, origin, normalizedDirection, range, ignoreFluids);
-        RayTraceResult entityResult = rayTraceEntities(instance, origin, normalizedDirection, range, exclude);
+    /**
+     * Traces many rays against the same snapshot of the entities of the instance
+     *
+     * @param instance     the instance to trace in
+     * @param rays         the rays
+     * @param ignoreFluids if rays pass through fluids
+     * @param exclude      the entities rays pass through
+     * @return the result of each ray, in the same order
+     */
+    public static List<Optional<RayTraceResult>> rayTrace(Instance instance, List<Ray> rays, boolean ignoreFluids,
+        Entity... exclude) {
+        EntityBroadphase broadphase = EntityBroadphase.of(instance);
+        List<Optional<RayTraceResult>> results = new ArrayList<>(rays.size());
+        for (Ray ray : rays) {
+            results.add(Optional.ofNullable(rayTrace(instance, broadphase, ray.origin(), ray.direction().normalize(),
+                ray.range(), ignoreFluids, exclude)));
+        }
+        return results;
+    }
+
+    private static RayTraceResult rayTrace(Instance instance, EntityBroadphase broadphase, Point origin,
+        Vec direction, double range, boolean ignoreFluids, Entity... exclude) {
+        RayTraceResult blockResult = rayTraceBlocks(instance, origin, direction, range, ignoreFluids);
+        // entities behind the block that was hit can't be hit
+        double entityRange = blockResult == null ? range : origin.distance(blockResult.hitPosition());
+        RayTraceResult entityResult = rayTraceEntities(broadphase, origin, direction, entityRange, exclude);
 
-        return Optional.ofNullable(getClosestResult(origin, blockResult, entityResult));
+        return getClosestResult(origin, blockResult, entityResult);
     }
 
     public static Optional<RayTraceResult> rayTraceBlocks(Instance instance, Vec direction, Point origin, double range,
@@ -56,67 +71,76 @@ public class RayTracer {
     }
 
     /**
-     * Ray trace against blocks using DDA algorithm with collision shape support
+     * Ray trace against blocks using DDA algorithm with collision shape support. Voxels are visited in order of
+     * distance, so tracing stops once the next voxel starts past the closest hit.
      */
     private static RayTraceResult rayTraceBlocks(Instance instance, Point origin, Vec direction, double range,
         boolean ignoreFluids) {
-        DdaRayTracer ddaTracer = new DdaRayTracer(origin, direction, range);
-        RayTraceResult closestResult = null;
+        DdaRayTracer ddaTracer = new DdaRayTracer(origin.x(), origin.y(), origin.z(), direction, range);
+        double[] span = new double[2];
+        Block closestBlock = null;
         double closestDistance = Double.MAX_VALUE;
 
         while (ddaTracer.hasNext()) {
-            DdaRayTracer.VoxelPosition voxel = ddaTracer.next();
-            Block block = instance.getBlock(voxel.x, voxel.y, voxel.z);
+            ddaTracer.next();
+            if (ddaTracer.entry > closestDistance) break;
+            Block block = instance.getBlock(ddaTracer.x, ddaTracer.y, ddaTracer.z);
 
             if (shouldCheckBlock(block, ignoreFluids)) {
-                RayTraceResult hitResult = checkBlockCollision(origin, direction, voxel, block, range);
-
-                if (hitResult != null) {
-                    double distance = origin.distance(hitResult.hitPosition());
-                    if (distance < closestDistance) {
-                        closestDistance = distance;
-                        closestResult = hitResult;
-                    }
+                double distance = blockIntersection(origin, direction, ddaTracer, block, range, span);
+                if (distance >= 0 && distance < closestDistance) {
+                    closestDistance = distance;
+                    closestBlock = block;
                 }
             }
         }
 
-        return closestResult;
+        return closestBlock == null ? null
+            : new RayTraceResult(pointAt(origin, direction, closestDistance), null, closestBlock);
     }
 
     public static Optional<RayTraceResult> rayTraceEntities(Instance instance, Vec direction, Point origin,
         double range, Entity... ignore) {
-        return Optional.ofNullable(rayTraceEntities(instance, origin, direction.normalize(), range, ignore));
+        return Optional.ofNullable(rayTraceEntities(EntityBroadphase.of(instance), origin, direction.normalize(),
+            range, ignore));
     }
 
     /**
-     * Ray trace against entities using bounding box intersection
+     * Ray trace against entities, walking the cells of the broadphase grid along the ray and testing the bounding boxes
+     * of the entities in them. Cells are visited in order of distance, so tracing stops once the next cell starts past
+     * the closest hit.
      */
-    private static RayTraceResult rayTraceEntities(Instance instance, Point origin, Vec direction, double range,
-        Entity... excludeEntities) {
-        Set<Entity> entities = instance.getEntities();
-        List<Entity> toExclude = Utils.list(excludeEntities);
-
-        RayTraceResult closestResult = null;
+    private static RayTraceResult rayTraceEntities(EntityBroadphase broadphase, Point origin, Vec direction,
+        double range, Entity... excludeEntities) {
+        double scale = EntityBroadphase.CELL_SIZE;
+        DdaRayTracer cells = new DdaRayTracer(origin.x() / scale, origin.y() / scale, origin.z() / scale,
+            direction, range / scale);
+        double[] bounds = broadphase.bounds();
+
+        Entity closestEntity = null;
         double closestDistance = Double.MAX_VALUE;
 
-        for (Entity entity : entities) {
-            if (toExclude.contains(entity)) {
-                continue;
-            }
-
-            Optional<Pos> intersection = rayEntityIntersection(origin, direction, entity, range);
-
-            if (intersection.isPresent()) {
-                double distance = origin.distance(intersection.get());
-                if (distance < closestDistance) {
+        while (cells.hasNext()) {
+            cells.next();
+            if (cells.entry * scale > closestDistance) break;
+            int[] candidates = broadphase.candidates(cells.x, cells.y, cells.z);
+            if (candidates == null) continue;
+
+            for (int index : candidates) {
+                Entity entity = broadphase.entity(index);
+                if (isExcluded(entity, excludeEntities)) continue;
+                int offset = index * 6;
+                double distance = rayBoxIntersection(origin, direction, bounds[offset], bounds[offset + 1],
+                    bounds[offset + 2], bounds[offset + 3], bounds[offset + 4], bounds[offset + 5], range);
+                if (distance >= 0 && distance < closestDistance) {
                     closestDistance = distance;
-                    closestResult = new RayTraceResult(intersection.get(), entity, null);
+                    closestEntity = entity;
                 }
             }
         }
 
-        return closestResult;
+        return closestEntity == null ? null
+            : new RayTraceResult(pointAt(origin, direction, closestDistance), closestEntity, null);
     }
 
     private static RayTraceResult getClosestResult(Point origin, RayTraceResult... results) {
@@ -141,35 +165,58 @@ public class RayTracer {
         return !block.air() && (!ignoreFluids || !isFluid(block));
     }
 
-    /**
-     * Check ray intersection with a block's collision shape
-     */
-    private static RayTraceResult checkBlockCollision(Point origin, Vec direction, DdaRayTracer.VoxelPosition voxel,
-        Block block, double maxRange) {
-        Shape collisionShape = block.collisionShape();
-
-        BoundingBox rayBox = new BoundingBox(RAY_BOX_SIZE, RAY_BOX_SIZE, RAY_BOX_SIZE);
-        Point blockWorldPos = new Pos(voxel.x, voxel.y, voxel.z);
-        SweepResult sweepResult = createEmptySweepResult();
-        Point rayEnd = origin.add(direction.mul(maxRange));
-
-        boolean hit = collisionShape.intersectBoxSwept(origin, rayEnd, blockWorldPos, rayBox, sweepResult);
-        double resolution = getSweepResultResolution(sweepResult);
-
-        if (hit && isValidResolution(resolution)) {
-            Point hitPoint = origin.add(direction.mul(maxRange * resolution));
-            return new RayTraceResult(hitPoint.asPos(), null, block);
+    private static boolean isExcluded(Entity entity, Entity[] exclude) {
+        for (Entity excluded : exclude) {
+            if (excluded == entity) return true;
         }
+        return false;
+    }
 
-        return null;
+    private static Pos pointAt(Point origin, Vec direction, double distance) {
+        return new Pos(origin.x() + direction.x() * distance, origin.y() + direction.y() * distance,
+            origin.z() + direction.z() * distance);
     }
 
     /**
-     * Check ray intersection with an entity
+     * Check ray intersection with a block's collision shape. The bounds of the shape reject most misses and give the
+     * hit of shapes filling their bounds. Other shapes, like stairs, are tested against their boxes by sweeping a tiny
+     * box along the ray, narrowing down the distance of the hit.
+     *
+     * @return the distance of the hit, or -1 if there is none
      */
-    private static Optional<Pos> rayEntityIntersection(Point origin, Vec direction, Entity entity, double range) {
-        BoundingBox entityBox = createWorldSpaceBoundingBox(entity);
-        return rayBoxIntersection(origin, direction, entityBox, range);
+    private static double blockIntersection(Point origin, Vec direction, DdaRayTracer voxel, Block block,
+        double maxRange, double[] span) {
+        Shape shape = block.collisionShape();
+        Point start = shape.relativeStart();
+        Point end = shape.relativeEnd();
+        if (!raySlabs(origin, direction, voxel.x + start.x(), voxel.y + start.y(), voxel.z + start.z(),
+            voxel.x + end.x(), voxel.y + end.y(), voxel.z + end.z(), maxRange, span)) {
+            return -1;
+        }
+
+        Vec blockPosition = new Vec(voxel.x, voxel.y, voxel.z);
+        double enter = span[0];
+        double exit = span[1];
+        if (!sweepHits(shape, origin, direction, exit, blockPosition)) return -1;
+        if (sweepHits(shape, origin, direction, enter + REFINE_PRECISION, blockPosition)) return enter;
+
+        // the hit is somewhere between entering the bounds and the first distance known to hit
+        double low = enter;
+        double high = exit;
+        while (high - low > REFINE_PRECISION) {
+            double mid = (low + high) / 2;
+            if (sweepHits(shape, origin, direction, mid, blockPosition)) {
+                high = mid;
+            } else {
+                low = mid;
+            }
+        }
+        return high;
+    }
+
+    private static boolean sweepHits(Shape shape, Point origin, Vec direction, double distance, Point blockPosition) {
+        return shape.intersectBoxSwept(origin, direction.mul(distance), blockPosition, RAY_BOX,
+            createEmptySweepResult());
     }
 
     private static boolean isFluid(Block block) {
@@ -181,64 +228,30 @@ public class RayTracer {
         return new SweepResult(Double.MAX_VALUE, 0, 0, 0, null, 0, 0, 0, 0, 0, 0);
     }
 
-    /**
-     * Get the resolution from SweepResult using cached reflection
-     */
-    private static double getSweepResultResolution(SweepResult result) {
-        if (sweepResultResField == null) {
-            return Double.MAX_VALUE;
-        }
-
-        try {
-            return sweepResultResField.getDouble(result);
-        } catch (IllegalAccessException e) {
-            return Double.MAX_VALUE;
-        }
-    }
-
-    private static boolean isValidResolution(double resolution) {
-        return resolution >= 0 && resolution <= 1.0;
-    }
-
-    /**
-     * Create world-space bounding box for an entity
-     */
-    private static BoundingBox createWorldSpaceBoundingBox(Entity entity) {
-        BoundingBox boundingBox = entity.getBoundingBox();
-        Pos entityPos = entity.getPosition();
-
-        return new BoundingBox(boundingBox.width(), boundingBox.height(), boundingBox.depth(),
-            new Pos(entityPos.x() + boundingBox.relativeStart()
-                .x(), entityPos.y() + boundingBox.relativeStart()
-                .y(), entityPos.z() + boundingBox.relativeStart()
-                .z()));
-    }
-
     /**
      * Calculate ray-box intersection using the slab method
+     *
+     * @return the distance of the hit, or -1 if there is none. A ray starting inside the box hits where it leaves.
      */
-    private static Optional<Pos> rayBoxIntersection(Point origin, Vec direction, BoundingBox box, double maxDistance) {
-        Pos boxCenter = box.relativeStart().add(box.relativeEnd()).mul(0.5).asPos();
-        Pos boxMin = boxCenter.sub(box.width() / 2, box.height() / 2, box.depth() / 2);
-        Pos boxMax = boxMin.add(box.width(), box.height(), box.depth());
-
+    private static double rayBoxIntersection(Point origin, Vec direction, double minX, double minY, double minZ,
+        double maxX, double maxY, double maxZ, double maxDistance) {
         double min = 0.0;
         double max = maxDistance;
 
         // Check each axis (X, Y, Z)
-        double[] origins = {origin.x(), origin.y(), origin.z()};
-        double[] directions = {direction.x(), direction.y(), direction.z()};
-        double[] mins = {boxMin.x(), boxMin.y(), boxMin.z()};
-        double[] maxes = {boxMax.x(), boxMax.y(), boxMax.z()};
-
         for (int i = 0; i < 3; i++) {
-            if (Math.abs(directions[i]) < EPSILON) {
-                if (origins[i] < mins[i] || origins[i] > maxes[i]) {
-                    return Optional.empty();
+            double o = i == 0 ? origin.x() : i == 1 ? origin.y() : origin.z();
+            double d = i == 0 ? direction.x() : i == 1 ? direction.y() : direction.z();
+            double lo = i == 0 ? minX : i == 1 ? minY : minZ;
+            double hi = i == 0 ? maxX : i == 1 ? maxY : maxZ;
+
+            if (Math.abs(d) < EPSILON) {
+                if (o < lo || o > hi) {
+                    return -1;
                 }
             } else {
-                double t1 = (mins[i] - origins[i]) / directions[i];
-                double t2 = (maxes[i] - origins[i]) / directions[i];
+                double t1 = (lo - o) / d;
+                double t2 = (hi - o) / d;
 
                 if (t1 > t2) {
                     double temp = t1;
@@ -250,22 +263,48 @@ public class RayTracer {
                 max = Math.min(max, t2);
 
                 if (min > max) {
-                    return Optional.empty();
+                    return -1;
                 }
             }
         }
 
         double t = min > 0 ? min : max;
-        if (t >= 0 && t <= maxDistance) {
-            Pos hitPos = origin.asPos().add(direction.mul(t));
-            return Optional.of(hitPos);
-        }
+        return t >= 0 && t <= maxDistance ? t : -1;
+    }
+
+    /**
+     * Calculate the distances a ray enters and leaves a box at, clamped to the ray
+     *
+     * @return if the ray passes through the box
+     */
+    private static boolean raySlabs(Point origin, Vec direction, double minX, double minY, double minZ, double maxX,
+        double maxY, double maxZ, double maxDistance, double[] span) {
+        double min = 0.0;
+        double max = maxDistance;
+        for (int i = 0; i < 3; i++) {
+            double o = i == 0 ? origin.x() : i == 1 ? origin.y() : origin.z();
+            double d = i == 0 ? direction.x() : i == 1 ? direction.y() : direction.z();
+            double lo = i == 0 ? minX : i == 1 ? minY : minZ;
+            double hi = i == 0 ? maxX : i == 1 ? maxY : maxZ;
 
-        return Optional.empty();
+            if (Math.abs(d) < EPSILON) {
+                if (o < lo || o > hi) return false;
+                continue;
+            }
+            double t1 = (lo - o) / d;
+            double t2 = (hi - o) / d;
+            min = Math.max(min, Math.min(t1, t2));
+            max = Math.min(max, Math.max(t1, t2));
+            if (min > max) return false;
+        }
+        span[0] = min;
+        span[1] = max;
+        return true;
     }
 
     /**
-     * Encapsulates DDA ray tracing logic for cleaner code
+     * Walks the voxels a ray passes through, in order. The current voxel and the distance the ray enters it at are
+     * exposed as fields, so stepping doesn't allocate.
      */
     private static class DdaRayTracer {
 
@@ -275,17 +314,20 @@ public class RayTracer {
         private double sideDistX, sideDistY, sideDistZ;
         private int voxelX, voxelY, voxelZ;
         private double totalDistance;
+        // the current voxel, set by next()
+        private int x, y, z;
+        private double entry;
 
-        public DdaRayTracer(Point origin, Vec direction, double maxRange) {
+        public DdaRayTracer(double x, double y, double z, Vec direction, double maxRange) {
             this.maxRange = maxRange;
 
             double dx = direction.x();
             double dy = direction.y();
             double dz = direction.z();
 
-            voxelX = (int) Math.floor(origin.x());
-            voxelY = (int) Math.floor(origin.y());
-            voxelZ = (int) Math.floor(origin.z());
+            voxelX = (int) Math.floor(x);
+            voxelY = (int) Math.floor(y);
+            voxelZ = (int) Math.floor(z);
 
             stepX = dx > 0 ? 1 : -1;
             stepY = dy > 0 ? 1 : -1;
@@ -295,42 +337,41 @@ public class RayTracer {
             deltaDistY = Math.abs(1.0 / dy);
             deltaDistZ = Math.abs(1.0 / dz);
 
-            double x = origin.x();
-            double y = origin.y();
-            double z = origin.z();
+            sideDistX = sideDist(dx, x, voxelX, deltaDistX);
+            sideDistY = sideDist(dy, y, voxelY, deltaDistY);
+            sideDistZ = sideDist(dz, z, voxelZ, deltaDistZ);
+        }
 
-            sideDistX = dx < 0 ? (x - voxelX) * deltaDistX : (voxelX + 1.0 - x) * deltaDistX;
-            sideDistY = dy < 0 ? (y - voxelY) * deltaDistY : (voxelY + 1.0 - y) * deltaDistY;
-            sideDistZ = dz < 0 ? (z - voxelZ) * deltaDistZ : (voxelZ + 1.0 - z) * deltaDistZ;
+        private static double sideDist(double d, double position, int voxel, double deltaDist) {
+            // a ray parallel to the axis never crosses it
+            if (d == 0) return Double.POSITIVE_INFINITY;
+            return d < 0 ? (position - voxel) * deltaDist : (voxel + 1.0 - position) * deltaDist;
         }
 
         public boolean hasNext() {
             return totalDistance < maxRange;
         }
 
-        public VoxelPosition next() {
-            VoxelPosition current = new VoxelPosition(voxelX, voxelY, voxelZ);
+        public void next() {
+            x = voxelX;
+            y = voxelY;
+            z = voxelZ;
+            entry = totalDistance;
 
             // Move to next voxel
             if (sideDistX < sideDistY && sideDistX < sideDistZ) {
+                totalDistance = sideDistX;
                 sideDistX += deltaDistX;
                 voxelX += stepX;
-                totalDistance = sideDistX;
             } else if (sideDistY < sideDistZ) {
+                totalDistance = sideDistY;
                 sideDistY += deltaDistY;
                 voxelY += stepY;
-                totalDistance = sideDistY;
             } else {
+                totalDistance = sideDistZ;
                 sideDistZ += deltaDistZ;
                 voxelZ += stepZ;
-                totalDistance = sideDistZ;
             }
-
-            return current;
-        }
-
-        public record VoxelPosition(int x, int y, int z) {
-
         }
     }
-}
\ No newline at end of file
+}
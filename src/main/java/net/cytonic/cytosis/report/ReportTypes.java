@@ -63,11 +63,11 @@ interface ReportTypes {
                             p.closeBook();
                             if (t.getCause() instanceof NoContextException) {
                                 p.sendMessage(
-                                    Msg.whoops(user + " has not sent any messages in the Public channel recently."));
+                                    Msg.whoops("%s has not sent any messages in the Public channel recently.", user));
                                 return null;
                             }
                             Logger.error("An error occurred whilst reporting a public chat message: ", t.getCause());
-                            p.whoops("An unknown error occurred whilst reporting " + user + ".");
+                            p.whoops("An unknown error occurred whilst reporting %s.", user);
                             return null;
                         }).thenAccept(book -> {
                             if (book != null) p.openBook(book);
@@ -78,7 +78,7 @@ interface ReportTypes {
                         .exceptionally(t -> {
                             p.closeBook();
                             if (t.getCause() instanceof NoContextException) {
-                                p.whoops(user + " has not sent any messages in the Party channel recently.");
+                                p.whoops("%s has not sent any messages in the Party channel recently.", user);
                                 return null;
                             }
 
@@ -6,6 +6,7 @@ import net.cytonic.cytosis.Cytosis;
 import net.cytonic.cytosis.data.enums.PlayerRank;
 import net.cytonic.cytosis.managers.ChatManager;
 import net.cytonic.cytosis.player.CytosisPlayer;
+import net.cytonic.cytosis.utils.Broadcast;
 import net.cytonic.cytosis.utils.Msg;
 import net.cytonic.cytosis.utils.Preferences;
 
@@ -18,10 +19,7 @@ public class DefaultChatServiceImpl<P extends CytosisPlayer> implements ChatServ
 
         String msg = manager.translateEmojis(originalMessage, r);
         msg = r.getChatColor() + ": " + msg;
-        Component message = player.formattedName().append(Msg.mm(msg));
-        Cytosis.getOnlinePlayers().forEach((p) -> {
-            if (p.getPreference(Preferences.IGNORED_CHAT_CHANNELS).all()) return;
-            p.sendMessage(message);
-        });
+        Component message = player.formattedName().append(Msg.parse(msg));
+        Broadcast.sendChat(message, p -> !p.getPreference(Preferences.IGNORED_CHAT_CHANNELS).all());
     }
 }
\ No newline at end of file
@@ -33,11 +33,14 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ThreadLocalRandom;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import net.kyori.adventure.text.Component;
 import net.minestom.server.color.TeamColor;
 import net.minestom.server.entity.Player;
+import net.minestom.server.network.packet.server.SendablePacket;
 import net.minestom.server.network.packet.server.ServerPacket;
+import net.minestom.server.network.packet.server.play.BundlePacket;
 import net.minestom.server.network.packet.server.play.DisplayScoreboardPacket;
 import net.minestom.server.network.packet.server.play.ResetScorePacket;
 import net.minestom.server.network.packet.server.play.ScoreboardObjectivePacket;
@@ -64,6 +67,9 @@ public class Sideboard {
         "\u00A76", "\u00A77", "\u00A78", "\u00A79", "\u00A7a", "\u00A7b", "\u00A7c", "\u00A7d", "\u00A7e", "\u00A7f"};
     private Component title = emptyLine();
     private boolean deleted = false;
+    // the packets of the update in progress, sent as one bundle once it is done
+    @Getter(AccessLevel.NONE)
+    private List<ServerPacket> pending = null;
 
     /**
      * Creates a new Sideboard.
@@ -110,11 +116,59 @@ public class Sideboard {
         if (this.deleted) {
             throw new IllegalStateException("This Sideboard has been deleted");
         }
+        if (this.pending != null) {
+            this.pending.add(packet);
+            return;
+        }
         if (this.player.isOnline()) {
             player.sendPacket(packet);
         }
     }
 
+    /**
+     * Runs an update, sending every packet it produces to the player in a single bundle
+     *
+     * @param update the update
+     */
+    private synchronized void bundled(Runnable update) {
+        if (this.pending != null) {
+            update.run();
+            return;
+        }
+        this.pending = new ArrayList<>();
+        List<ServerPacket> packets;
+        try {
+            update.run();
+        } finally {
+            packets = this.pending;
+            this.pending = null;
+        }
+        if (packets.isEmpty() || !this.player.isOnline()) return;
+        if (packets.size() == 1) {
+            player.sendPacket(packets.getFirst());
+            return;
+        }
+        List<SendablePacket> bundle = new ArrayList<>(packets.size() + 2);
+        bundle.add(new BundlePacket());
+        bundle.addAll(packets);
+        bundle.add(new BundlePacket());
+        player.sendPackets(bundle);
+    }
+
+    /**
+     * Updates the title and the lines of the scoreboard, sending every change in a single bundle.
+     *
+     * @param title the new scoreboard title
+     * @param lines the new scoreboard lines
+     * @throws IllegalStateException if {@link #delete()} was called before
+     */
+    public synchronized void update(@NotNull Component title, Collection<Component> lines) {
+        bundled(() -> {
+            updateLines(lines);
+            updateTitle(title);
+        });
+    }
+
     /**
      * Update the scoreboard title.
      *
@@ -272,6 +326,10 @@ public class Sideboard {
      * @throws IllegalStateException    if {@link #delete()} was call before
      */
     public synchronized void updateLines(Collection<Component> lines, Collection<Component> scores) {
+        bundled(() -> applyLines(lines, scores));
+    }
+
+    private void applyLines(Collection<Component> lines, Collection<Component> scores) {
         Objects.requireNonNull(lines, "lines");
         checkLineNumber(lines.size(), false, true);
 
@@ -401,6 +459,10 @@ public class Sideboard {
      * @throws IllegalStateException    if {@link #delete()} was call before
      */
     public synchronized void updateScores(Collection<Component> texts) {
+        bundled(() -> applyScores(texts));
+    }
+
+    private void applyScores(Collection<Component> texts) {
         Objects.requireNonNull(texts, "texts");
 
         if (this.scores.size() != this.lines.size()) {
@@ -434,12 +496,13 @@ public class Sideboard {
      * @throws IllegalStateException if this was already called before
      */
     public void delete() {
+        bundled(() -> {
+            for (int i = 0; i < this.lines.size(); i++) {
+                sendTeamPacket(i, TeamMode.REMOVE);
+            }
 
-        for (int i = 0; i < this.lines.size(); i++) {
-            sendTeamPacket(i, TeamMode.REMOVE);
-        }
-
-        sendObjectivePacket(ObjectiveMode.REMOVE);
+            sendObjectivePacket(ObjectiveMode.REMOVE);
+        });
         this.deleted = true;
     }
 
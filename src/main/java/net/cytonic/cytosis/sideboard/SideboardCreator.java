@@ -3,6 +3,7 @@ package net.cytonic.cytosis.sideboard;
 import java.util.List;
 
 import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.Nullable;
 
 import net.cytonic.cytosis.player.CytosisPlayer;
 
@@ -34,4 +35,17 @@ public interface SideboardCreator<P extends CytosisPlayer> {
      * @return The title in Component form
      */
     Component title(P player);
+
+    /**
+     * The layout of the sideboards. If one is supplied, it is used to update the sideboards instead of
+     * {@link #lines(CytosisPlayer)} and {@link #title(CytosisPlayer)}, so lines are only recomputed when their inputs
+     * change.
+     *
+     * @return the layout, or null to call {@link #lines(CytosisPlayer)} and {@link #title(CytosisPlayer)} for every
+     * player on every update
+     */
+    @Nullable
+    default SideboardLayout<P> layout() {
+        return null;
+    }
 }
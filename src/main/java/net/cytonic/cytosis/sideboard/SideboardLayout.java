@@ -0,0 +1,24 @@
+package net.cytonic.cytosis.sideboard;
+
+import java.util.List;
+
+import net.cytonic.cytosis.player.CytosisPlayer;
+
+/**
+ * The declared structure of a sideboard. Unlike {@link SideboardCreator#lines(CytosisPlayer)}, which is called for
+ * every player on every update, a layout lets the shared lines be computed once per update and the per-player lines
+ * only when their inputs change.
+ *
+ * @param title the title of the sideboard
+ * @param lines the lines of the sideboard, from top to bottom
+ * @param <P>   the type of player the sideboard is shown to
+ */
+public record SideboardLayout<P extends CytosisPlayer>(SideboardLine<P> title, List<SideboardLine<P>> lines) {
+
+    public SideboardLayout {
+        if (lines.size() > 16) {
+            throw new IllegalArgumentException("A sideboard can have at most 16 lines, got " + lines.size());
+        }
+        lines = List.copyOf(lines);
+    }
+}
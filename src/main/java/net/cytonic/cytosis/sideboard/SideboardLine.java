@@ -0,0 +1,72 @@
+package net.cytonic.cytosis.sideboard;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.Nullable;
+
+import net.cytonic.cytosis.player.CytosisPlayer;
+
+/**
+ * A line of a sideboard layout. Lines are either shared, which are computed once per update for every viewer, or
+ * per-player, which are only recomputed for a player when their invalidation key changes.
+ *
+ * @param <P> the type of player the line is rendered for
+ * @see SideboardLayout
+ */
+public sealed interface SideboardLine<P extends CytosisPlayer> {
+
+    /**
+     * A line that never changes
+     *
+     * @param text the text of the line
+     * @return the line
+     */
+    static <P extends CytosisPlayer> SideboardLine<P> fixed(Component text) {
+        return new Shared<>(() -> text);
+    }
+
+    /**
+     * A line that is the same for every viewer, computed once per update
+     *
+     * @param text the supplier of the text of the line
+     * @return the line
+     */
+    static <P extends CytosisPlayer> SideboardLine<P> shared(Supplier<Component> text) {
+        return new Shared<>(text);
+    }
+
+    /**
+     * A line that depends on the player. The text is only recomputed when the key returned for the player isn't
+     * equal to the key it was last computed with, so the key should capture every input of the text.
+     *
+     * @param key  the function supplying the invalidation key of the player, such as their rank or coin count
+     * @param text the function supplying the text of the line
+     * @return the line
+     */
+    static <P extends CytosisPlayer> SideboardLine<P> perPlayer(Function<P, @Nullable Object> key,
+        Function<P, Component> text) {
+        return new PerPlayer<>(key, text);
+    }
+
+    /**
+     * A line computed once per update for every viewer
+     *
+     * @param text the supplier of the text
+     */
+    record Shared<P extends CytosisPlayer>(Supplier<Component> text) implements SideboardLine<P> {
+
+    }
+
+    /**
+     * A line computed for each player, only when its key changes
+     *
+     * @param key  the invalidation key of the player
+     * @param text the text for the player
+     */
+    record PerPlayer<P extends CytosisPlayer>(Function<P, @Nullable Object> key, Function<P, Component> text)
+        implements SideboardLine<P> {
+
+    }
+}
@@ -46,7 +46,7 @@ public class SnooperMenu extends View {
         .layoutTarget('1')
         .itemFactory((builder, snoop) -> {
             List<Component> lore = new ArrayList<>();
-            lore.add(Msg.mm("<yellow>Channel: '<light_purple>" + snoop.getChannel() + "</light_purple>'"));
+            lore.add(Msg.mm("<yellow>Channel: '<light_purple>%s</light_purple>'", snoop.getChannel()));
             lore.add(Msg.mm("<yellow>Content:</yellow>"));
             lore.addAll(Msg.wrap(snoop.getContent()));
             lore.add(Msg.mm(""));
@@ -57,7 +57,7 @@ public class SnooperMenu extends View {
 
             ItemStack item = ItemStack.builder(Material.PAPER)
                 .hideExtraTooltip()
-                .customName(Msg.mm("Snoop #" + snoop.getId()))
+                .customName(Msg.mm("Snoop #%s", snoop.getId()))
                 .lore(lore)
                 .build();
             builder.withItem(item);
@@ -160,11 +160,11 @@ public class SnooperMenu extends View {
             for (DateRange value : DateRange.values()) {
                 String formatted = Utils.captializeFirstLetters(value.name().toLowerCase().replace("_", " "));
                 if (value == dateState.get(slotRenderContext)) {
-                    lore.add(Msg.mm("<aqua>» " + formatted));
+                    lore.add(Msg.mm("<aqua>» %s", formatted));
                     continue;
                 }
 
-                lore.add(Msg.mm("<dark_aqua>" + formatted));
+                lore.add(Msg.mm("<dark_aqua>%s", formatted));
             }
             lore.add(Msg.mm(""));
             lore.add(Msg.mm("<yellow>Click to cycle!"));
@@ -0,0 +1,141 @@
+package net.cytonic.cytosis.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+import lombok.experimental.UtilityClass;
+import net.kyori.adventure.text.Component;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.entity.Player;
+import net.minestom.server.message.ChatMessageType;
+import net.minestom.server.network.ConnectionManager;
+import net.minestom.server.network.packet.server.play.SystemChatPacket;
+import net.minestom.server.utils.PacketSendingUtils;
+
+import net.cytonic.cytosis.player.CytosisPlayer;
+
+/**
+ * Utilities for sending the same message to many players. {@link Player#sendMessage(Component)} encodes the message
+ * into a new packet for every recipient, while these encode it once and share the framed packet between all of them.
+ * The grouped packet skips the client's chat settings, so they are applied when picking the recipients instead: players
+ * who hid chat get nothing, and players who only show commands still get system messages but not relayed player chat.
+ */
+@UtilityClass
+public class Broadcast {
+
+    /**
+     * Gets the players on this server that see system messages and match a filter, in a single pass over the connected
+     * players
+     *
+     * @param filter the filter the players must match
+     * @param <P>    the type of player
+     * @return the matching players
+     */
+    public static <P extends CytosisPlayer> List<P> online(Predicate<? super P> filter) {
+        return online(filter, false);
+    }
+
+    /**
+     * Gets the given players that are on this server, see system messages and match a filter
+     *
+     * @param uuids  the players
+     * @param filter the filter the players must match
+     * @param <P>    the type of player
+     * @return the matching players
+     */
+    public static <P extends CytosisPlayer> List<P> online(Collection<UUID> uuids, Predicate<? super P> filter) {
+        return online(uuids, filter, false);
+    }
+
+    /**
+     * Gets the players on this server that see player chat and match a filter, in a single pass over the connected
+     * players
+     *
+     * @param filter the filter the players must match
+     * @param <P>    the type of player
+     * @return the matching players
+     */
+    public static <P extends CytosisPlayer> List<P> chatting(Predicate<? super P> filter) {
+        return online(filter, true);
+    }
+
+    /**
+     * Gets the given players that are on this server, see player chat and match a filter
+     *
+     * @param uuids  the players
+     * @param filter the filter the players must match
+     * @param <P>    the type of player
+     * @return the matching players
+     */
+    public static <P extends CytosisPlayer> List<P> chatting(Collection<UUID> uuids, Predicate<? super P> filter) {
+        return online(uuids, filter, true);
+    }
+
+    private static <P extends CytosisPlayer> List<P> online(Predicate<? super P> filter, boolean playerChat) {
+        Collection<Player> players = MinecraftServer.getConnectionManager().getOnlinePlayers();
+        List<P> recipients = new ArrayList<>(players.size());
+        for (Player player : players) {
+            //noinspection unchecked
+            P p = (P) player;
+            if (sees(p, playerChat) && filter.test(p)) recipients.add(p);
+        }
+        return recipients;
+    }
+
+    private static <P extends CytosisPlayer> List<P> online(Collection<UUID> uuids, Predicate<? super P> filter,
+        boolean playerChat) {
+        ConnectionManager connections = MinecraftServer.getConnectionManager();
+        List<P> recipients = new ArrayList<>(uuids.size());
+        for (UUID uuid : uuids) {
+            //noinspection unchecked
+            P p = (P) connections.getOnlinePlayerByUuid(uuid);
+            if (p != null && sees(p, playerChat) && filter.test(p)) recipients.add(p);
+        }
+        return recipients;
+    }
+
+    private static boolean sees(Player player, boolean playerChat) {
+        ChatMessageType type = player.getSettings().chatMessageType();
+        return playerChat ? type == ChatMessageType.FULL : type != ChatMessageType.NONE;
+    }
+
+    /**
+     * Sends a system message to every player on this server that matches a filter
+     *
+     * @param message the message
+     * @param filter  the filter the players must match
+     */
+    public static void sendMessage(Component message, Predicate<? super CytosisPlayer> filter) {
+        sendMessage(online(filter), message);
+    }
+
+    /**
+     * Sends a player's chat message to every player on this server that sees player chat and matches a filter
+     *
+     * @param message the message
+     * @param filter  the filter the players must match
+     */
+    public static void sendChat(Component message, Predicate<? super CytosisPlayer> filter) {
+        sendMessage(chatting(filter), message);
+    }
+
+    /**
+     * Sends a message to every recipient, encoding it once for all of them
+     *
+     * @param recipients the players to send the message to
+     * @param message    the message
+     */
+    public static void sendMessage(Collection<? extends Player> recipients, Component message) {
+        if (recipients.isEmpty()) return;
+        if (recipients.size() == 1) {
+            recipients.iterator().next().sendMessage(message);
+            return;
+        }
+        // the collection is only read, so widening it is safe
+        //noinspection unchecked
+        PacketSendingUtils.sendGroupedPacket((Collection<Player>) recipients, new SystemChatPacket(message, false));
+    }
+}
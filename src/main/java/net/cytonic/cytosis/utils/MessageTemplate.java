@@ -0,0 +1,300 @@
+package net.cytonic.cytosis.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Formattable;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.TextDecoration;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+
+/**
+ * A {@link String#format(String, Object...)} style MiniMessage format, parsed once. Placeholders become slots in the
+ * parsed component tree, so formatting only copies the nodes that hold a slot and shares every other node. This only
+ * works for plain text arguments; arguments holding MiniMessage tags can change how the whole message parses, so those
+ * messages are parsed in full and cached by their final text instead.
+ */
+public final class MessageTemplate {
+
+    private static final int CACHE_SIZE = 4096;
+    // private use characters that mark the slots in the parsed tree. A marker is followed by the slot index.
+    private static final char MARKER = '\uE000';
+    private static final char INDEX_BASE = '\uE100';
+    private static final int MAX_SLOTS = 256;
+
+    private static final Cache<String, MessageTemplate> TEMPLATES = CacheBuilder.newBuilder()
+        .maximumSize(CACHE_SIZE)
+        .recordStats()
+        .build();
+    private static final Cache<String, Component> RENDERED = CacheBuilder.newBuilder()
+        .maximumSize(CACHE_SIZE)
+        .recordStats()
+        .build();
+
+    private final String format;
+    // null if the format can't be handled without String#format
+    private final String[] literals;
+    private final String[] slots;
+    // null if the slots can't be filled in the parsed tree
+    private final Component parsed;
+    private final Set<Component> slotted;
+
+    private MessageTemplate(String format, String[] literals, String[] slots, Component parsed,
+        Set<Component> slotted) {
+        this.format = format;
+        this.literals = literals;
+        this.slots = slots;
+        this.parsed = parsed;
+        this.slotted = slotted;
+    }
+
+    /**
+     * Gets the template of a format, compiling it if it isn't cached
+     *
+     * @param format the format, in MiniMessage with {@link java.util.Formatter} placeholders
+     * @return the template
+     */
+    public static MessageTemplate of(String format) {
+        MessageTemplate template = TEMPLATES.getIfPresent(format);
+        if (template != null) return template;
+        template = compile(format);
+        TEMPLATES.put(format, template);
+        return template;
+    }
+
+    /**
+     * Gets the statistics of the template cache
+     *
+     * @return the statistics
+     */
+    public static CacheStats templateStats() {
+        return TEMPLATES.stats();
+    }
+
+    /**
+     * Gets the statistics of the cache of messages that had to be parsed in full
+     *
+     * @return the statistics
+     */
+    public static CacheStats renderedStats() {
+        return RENDERED.stats();
+    }
+
+    private static MessageTemplate compile(String format) {
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int length = format.length();
+        int i = 0;
+        while (i < length) {
+            char c = format.charAt(i);
+            if (c != '%') {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            int end = specifierEnd(format, i);
+            if (end < 0) return new MessageTemplate(format, null, null, null, null);
+            String specifier = format.substring(i, end);
+            if (specifier.equals("%%")) {
+                literal.append('%');
+            } else if (specifier.equals("%n")) {
+                literal.append(System.lineSeparator());
+            } else {
+                literals.add(literal.toString());
+                literal.setLength(0);
+                slots.add(specifier);
+            }
+            i = end;
+        }
+        literals.add(literal.toString());
+
+        String[] literalArray = literals.toArray(String[]::new);
+        String[] slotArray = slots.toArray(String[]::new);
+        Component parsed = null;
+        Set<Component> slotted = null;
+        if (slotArray.length <= MAX_SLOTS && canSlot(literalArray)) {
+            StringBuilder marked = new StringBuilder(literalArray[0]);
+            for (int s = 0; s < slotArray.length; s++) {
+                marked.append(MARKER).append((char) (INDEX_BASE + s)).append(literalArray[s + 1]);
+            }
+            try {
+                Component component = parse(marked.toString());
+                Set<Component> found = Collections.newSetFromMap(new IdentityHashMap<>());
+                boolean[] seen = new boolean[slotArray.length];
+                collectSlots(component, found, seen);
+                if (allSeen(seen)) {
+                    parsed = component;
+                    slotted = found;
+                }
+            } catch (RuntimeException _) {
+                // left for the full parse to report when the template is used
+            }
+        }
+        return new MessageTemplate(format, literalArray, slotArray, parsed, slotted);
+    }
+
+    /**
+     * Finds the end of a format specifier, rejecting explicit argument indices
+     */
+    private static int specifierEnd(String format, int start) {
+        int i = start + 1;
+        int length = format.length();
+        while (i < length && "-#+ 0,(".indexOf(format.charAt(i)) >= 0) i++;
+        while (i < length && Character.isDigit(format.charAt(i))) i++;
+        if (i < length && format.charAt(i) == '.') {
+            i++;
+            while (i < length && Character.isDigit(format.charAt(i))) i++;
+        }
+        if (i >= length) return -1;
+        char conversion = format.charAt(i);
+        if (conversion == 't' || conversion == 'T') return i + 2 <= length ? i + 2 : -1;
+        if (conversion == '%' || conversion == 'n') return i == start + 1 ? i + 1 : -1;
+        return "bBhHsScCdoxXeEfgGaA".indexOf(conversion) >= 0 ? i + 1 : -1;
+    }
+
+    /**
+     * Determines if every slot is in plain text, rather than inside a tag or right after an escape
+     */
+    private static boolean canSlot(String[] literals) {
+        boolean inTag = false;
+        for (int l = 0; l < literals.length; l++) {
+            String literal = literals[l];
+            for (int i = 0; i < literal.length(); i++) {
+                char c = literal.charAt(i);
+                if (c == MARKER || c >= INDEX_BASE && c < INDEX_BASE + MAX_SLOTS) return false;
+                if (c == '\\') {
+                    if (i == literal.length() - 1) return false;
+                    i++;
+                } else if (c == '<') {
+                    inTag = true;
+                } else if (c == '>') {
+                    inTag = false;
+                }
+            }
+            if (inTag && l < literals.length - 1) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records the nodes on the path to each slot. Markers outside of text content, or split apart by a tag that styles
+     * each character on its own, are never seen, which leaves the template unslotted.
+     */
+    private static boolean collectSlots(Component component, Set<Component> found, boolean[] seen) {
+        boolean holds = false;
+        if (component instanceof TextComponent text) {
+            String content = text.content();
+            for (int i = content.indexOf(MARKER); i >= 0; i = content.indexOf(MARKER, i + 1)) {
+                int slot = i + 1 < content.length() ? content.charAt(i + 1) - INDEX_BASE : -1;
+                if (slot < 0 || slot >= seen.length) continue;
+                seen[slot] = true;
+                holds = true;
+            }
+        }
+        for (Component child : component.children()) {
+            holds |= collectSlots(child, found, seen);
+        }
+        if (holds) found.add(component);
+        return holds;
+    }
+
+    private static boolean allSeen(boolean[] seen) {
+        for (boolean b : seen) {
+            if (!b) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parses a message in full, without caching it. Italics are disabled unless the message sets them.
+     *
+     * @param message the MiniMessage to parse
+     * @return the parsed component
+     */
+    public static Component parse(String message) {
+        return MiniMessage.miniMessage().deserialize(message)
+            .decorationIfAbsent(TextDecoration.ITALIC, TextDecoration.State.FALSE);
+    }
+
+    private static Component render(String message) {
+        Component component = RENDERED.getIfPresent(message);
+        if (component != null) return component;
+        component = parse(message);
+        RENDERED.put(message, component);
+        return component;
+    }
+
+    private static boolean isPlain(String value) {
+        return value.indexOf('<') < 0 && value.indexOf('\\') < 0;
+    }
+
+    private static String value(String specifier, Object arg) {
+        if (specifier.equals("%s") && !(arg instanceof Formattable)) return String.valueOf(arg);
+        return String.format(specifier, arg);
+    }
+
+    /**
+     * Formats this template. Italics are disabled unless the message sets them.
+     *
+     * @param args the arguments, like {@link String#format(String, Object...)}
+     * @return the formatted component
+     */
+    public Component format(Object... args) {
+        // too few arguments are left for String#format to reject
+        if (literals == null || args.length < slots.length) return render(String.format(format, args));
+        if (slots.length == 0 && parsed != null) return parsed;
+
+        String[] values = new String[slots.length];
+        boolean plain = true;
+        for (int i = 0; i < slots.length; i++) {
+            values[i] = value(slots[i], args[i]);
+            plain &= isPlain(values[i]);
+        }
+        if (plain && parsed != null) return fill(parsed, values);
+
+        StringBuilder message = new StringBuilder(literals[0]);
+        for (int i = 0; i < values.length; i++) {
+            message.append(values[i]).append(literals[i + 1]);
+        }
+        return render(message.toString());
+    }
+
+    private Component fill(Component component, String[] values) {
+        if (!slotted.contains(component)) return component;
+        List<Component> children = component.children();
+        List<Component> filled = new ArrayList<>(children.size());
+        for (Component child : children) {
+            filled.add(fill(child, values));
+        }
+        if (component instanceof TextComponent text) {
+            return text.content(replace(text.content(), values)).children(filled);
+        }
+        return component.children(filled);
+    }
+
+    private static String replace(String content, String[] values) {
+        StringBuilder builder = new StringBuilder(content.length() + 16);
+        int length = content.length();
+        for (int i = 0; i < length; i++) {
+            char c = content.charAt(i);
+            if (c == MARKER && i + 1 < length) {
+                int slot = content.charAt(i + 1) - INDEX_BASE;
+                if (slot >= 0 && slot < values.length) {
+                    builder.append(values[slot]);
+                    i++;
+                    continue;
+                }
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
@@ -6,7 +6,6 @@ import java.util.function.Consumer;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.event.ClickEvent;
 import net.kyori.adventure.text.format.TextColor;
-import net.kyori.adventure.text.format.TextDecoration;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 import net.kyori.adventure.text.serializer.json.JSONComponentSerializer;
 import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
@@ -27,19 +26,26 @@ public interface Msg {
     Holder<SplashProvider> PROVIDER = new Holder<>(SplashProvider.DEFAULT);
 
     static List<Component> wrap(String minimessage) {
-        return ComponentWrapper.wrap(mm(minimessage), 36);
+        return ComponentWrapper.wrap(parse(minimessage), 36);
     }
 
     static List<Component> wrap(String minimessage, int width) {
-        return ComponentWrapper.wrap(mm(minimessage), width);
+        return ComponentWrapper.wrap(parse(minimessage), width);
     }
 
     /**
-     * Parses MiniMessage into a Component
+     * Parses MiniMessage into a Component. The message is used as a {@link MessageTemplate}, so repeated formats are
+     * only parsed once.
      */
     static Component mm(String message, Object... args) {
-        return MiniMessage.miniMessage().deserialize(String.format(message, args))
-            .decorationIfAbsent(TextDecoration.ITALIC, TextDecoration.State.FALSE);
+        return MessageTemplate.of(message).format(args);
+    }
+
+    /**
+     * Parses MiniMessage into a Component without caching it, for messages that are different every time, like chat.
+     */
+    static Component parse(String message) {
+        return MessageTemplate.parse(message);
     }
 
     static Component whoops(String str, Object... args) {
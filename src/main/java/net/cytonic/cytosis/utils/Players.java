@@ -1,14 +1,16 @@
 package net.cytonic.cytosis.utils;
 
+import java.util.Objects;
 import java.util.UUID;
 
 import lombok.experimental.UtilityClass;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import net.cytonic.cytosis.CytonicNetwork;
 import net.cytonic.cytosis.Cytosis;
+import net.cytonic.cytosis.data.GlobalDatabase.DirectoryEntry;
 import net.cytonic.cytosis.data.enums.PlayerRank;
+import net.cytonic.cytosis.managers.PlayerDirectory;
 import net.cytonic.cytosis.nicknames.NicknameManager;
 import net.cytonic.cytosis.nicknames.NicknameManager.NicknameData;
 import net.cytonic.cytosis.player.OfflinePlayer;
@@ -21,14 +23,13 @@ public class Players {
      *
      * @param target the UUID of the target player
      * @return the readonly player object with accessors for preferences and cooldowns
-     * @throws NullPointerException if {@code target} is null, or points to a player who has never logged in.
+     * @throws NullPointerException if {@code target} is null, or points to a player who has never logged in or isn't
+     *                              in the {@link PlayerDirectory} yet.
      */
     @NotNull
     public static OfflinePlayer offline(UUID target) {
-        return new OfflinePlayer(target,
-            network().getLifetimePlayers().getByKey(target),
-            network().getCachedPlayerRanks().get(target)
-        );
+        DirectoryEntry entry = Objects.requireNonNull(directory().find(target), "Unknown player " + target);
+        return new OfflinePlayer(target, entry.name(), entry.rank());
     }
 
     /**
@@ -61,8 +62,9 @@ public class Players {
             rank = data.rank();
             name = data.nickname();
         } else {
-            rank = network().getCachedPlayerRanks().get(player);
-            name = network().getLifetimePlayers().getByKey(player);
+            DirectoryEntry entry = directory().findOrUnknown(player);
+            rank = entry.rank();
+            name = entry.name();
         }
 
         String color = rank.getTeamColor().toString();
@@ -73,8 +75,9 @@ public class Players {
      * Just like {@link #miniName(UUID)}, but it always returns the player's real identity.
      */
     public static String trueMiniName(UUID player) {
-        PlayerRank rank = network().getCachedPlayerRanks().get(player);
-        String name = network().getLifetimePlayers().getByKey(player);
+        DirectoryEntry entry = directory().findOrUnknown(player);
+        PlayerRank rank = entry.rank();
+        String name = entry.name();
 
         String color = rank.getTeamColor().toString();
         return Msg.toMini(rank.getPrefix()) + String.format("<%s>%s</%s>", color, name, color);
@@ -107,8 +110,10 @@ public class Players {
         } else {
             uuid = resolveUnickedUuid(input);
             if (uuid == null) return null;
-            rank = network().getCachedPlayerRanks().get(uuid);
-            name = network().getLifetimePlayers().getByKey(uuid);
+            DirectoryEntry entry = directory().find(uuid);
+            if (entry == null) return null;
+            rank = entry.rank();
+            name = entry.name();
         }
 
         String color = rank.getTeamColor().toString();
@@ -131,8 +136,7 @@ public class Players {
         } catch (IllegalArgumentException ignored) {
         }
 
-        UUID local = network().getLifetimeFlattened()
-            .getByValue(input.toLowerCase());
+        UUID local = directory().getUuid(input);
         if (local != null) return local;
         return nickname().deanonymizePlayer(input);
     }
@@ -154,7 +158,7 @@ public class Players {
      * @return The resolved UUID, if and only if the player is NOT nicknamed, potentially null.
      */
     public static @Nullable UUID resolveUnickedUuid(String playerName) {
-        return network().getLifetimeFlattened().getByValue(playerName.toLowerCase());
+        return directory().getUuid(playerName);
     }
 
     /**
@@ -178,11 +182,11 @@ public class Players {
      * @return the player's name, or null if the player could not be resolved.
      */
     public static @Nullable String resolveTrueName(UUID uuid) {
-        return network().getLifetimePlayers().getByKey(uuid);
+        return directory().getName(uuid);
     }
 
-    private static CytonicNetwork network() {
-        return Cytosis.get(CytonicNetwork.class);
+    private static PlayerDirectory directory() {
+        return Cytosis.get(PlayerDirectory.class);
     }
 
     private static NicknameManager nickname() {
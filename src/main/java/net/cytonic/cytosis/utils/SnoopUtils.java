@@ -4,14 +4,14 @@ import java.util.UUID;
 
 import net.kyori.adventure.text.Component;
 
-import net.cytonic.cytosis.CytonicNetwork;
 import net.cytonic.cytosis.Cytosis;
+import net.cytonic.cytosis.data.GlobalDatabase.DirectoryEntry;
+import net.cytonic.cytosis.managers.PlayerDirectory;
 
 public class SnoopUtils {
 
     public static Component toTarget(UUID uuid) {
-        CytonicNetwork network = Cytosis.get(CytonicNetwork.class);
-        return network.getCachedPlayerRanks().get(uuid).getPrefix()
-            .append(Component.text(network.getLifetimePlayers().getByKey(uuid)));
+        DirectoryEntry entry = Cytosis.get(PlayerDirectory.class).findOrUnknown(uuid);
+        return entry.rank().getPrefix().append(Component.text(entry.name()));
     }
 }
\ No newline at end of file
@@ -4,12 +4,14 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.util.Map;
 import java.util.concurrent.locks.ReentrantLock;
 
-import it.unimi.dsi.fastutil.booleans.BooleanArrayList;
-import it.unimi.dsi.fastutil.booleans.BooleanList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import net.kyori.adventure.nbt.BinaryTagIO;
 import net.kyori.adventure.nbt.CompoundBinaryTag;
 import net.minestom.server.coordinate.CoordConversion;
@@ -21,6 +23,10 @@ import org.jetbrains.annotations.Nullable;
  * THIS CODE HAS BEEN CREATED BY THE MINESTOM CONTRIBUTORS AND HAS BEEN MODIFIED FOR CYTOSIS. ALL CREDIT GOES TO THE
  * HARDING WORKING INDIVIDUALS THAT HAVE CONTRIBUTED TO MINESTOM. Implements a thread-safe reader and writer for
  * Minecraft region files.
+ * <p>
+ * Writes only update the header in memory. It is written by {@link #flush()}, which should be called once per save
+ * rather than once per chunk, and on close. The sectors of a replaced chunk are only reused once the header no longer
+ * points at them, so the file on disk stays readable until then.
  *
  * @see <a href="https://minecraft.wiki/w/Region_file_format">Region file format</a>
  * @see <a
@@ -42,14 +48,43 @@ final class AccessibleRegionFile implements AutoCloseable {
     private static final BinaryTagIO.Writer TAG_WRITER = BinaryTagIO.writer();
     private final ReentrantLock lock = new ReentrantLock();
     private final RandomAccessFile file;
+    // the whole file, mapped once for read-only files. Absolute reads on it don't need the lock.
+    private final @Nullable MappedByteBuffer mapped;
     private final int[] locations = new int[MAX_ENTRY_COUNT];
     private final int[] timestamps = new int[MAX_ENTRY_COUNT];
-    private final BooleanList freeSectors = new BooleanArrayList(2);
+    // null for read-only files
+    private SectorBitmap sectors;
+    // locations of replaced chunks, freed once the header is flushed
+    private final IntArrayList pendingFree = new IntArrayList();
+    private boolean headerDirty = false;
 
     public AccessibleRegionFile(@NotNull Path path) throws IOException {
-        this.file = new RandomAccessFile(path.toFile(), "rw");
+        this(path, false);
+    }
 
-        readHeader();
+    /**
+     * Opens a region file. Read-only files are memory mapped, so reading a chunk is a copy out of the mapping rather
+     * than a seek and a read on the file. The mapping is taken at open time, so a read-only file must not be written
+     * to while it is open.
+     *
+     * @param path     the path of the region file
+     * @param readOnly if the file is only read from
+     * @throws IOException if the file can't be opened
+     */
+    public AccessibleRegionFile(@NotNull Path path, boolean readOnly) throws IOException {
+        this.file = new RandomAccessFile(path.toFile(), readOnly ? "r" : "rw");
+        try {
+            if (readOnly) {
+                this.mapped = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+                readMappedHeader();
+            } else {
+                this.mapped = null;
+                readHeader();
+            }
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
     }
 
     public static @NotNull String getFileName(int regionX, int regionZ) {
@@ -67,16 +102,17 @@ final class AccessibleRegionFile implements AutoCloseable {
 
         final long totalSectors =
             ((file.length() - 1) / SECTOR_SIZE) + 1; // Round up, last sector does not need to be full size
-        for (int i = 0; i < totalSectors; i++) {
-            freeSectors.add(true);
-        }
-        freeSectors.set(0, false); // First sector is locations
-        freeSectors.set(1, false); // Second sector is timestamps
+        sectors = new SectorBitmap((int) totalSectors);
+        sectors.set(0, 2, false); // First sector is locations, second sector is timestamps
 
-        // Read locations
+        byte[] header = new byte[HEADER_LENGTH];
         file.seek(0);
+        file.readFully(header);
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+
+        // Read locations
         for (int i = 0; i < MAX_ENTRY_COUNT; i++) {
-            int location = locations[i] = file.readInt();
+            int location = locations[i] = buffer.getInt();
             if (location != 0) {
                 markLocation(location, false);
             }
@@ -84,20 +120,28 @@ final class AccessibleRegionFile implements AutoCloseable {
 
         // Read timestamps
         for (int i = 0; i < MAX_ENTRY_COUNT; i++) {
-            timestamps[i] = file.readInt();
+            timestamps[i] = buffer.getInt();
         }
     }
 
-    private void markLocation(int location, boolean free) {
-        int sectorCount = location & 0xFF;
-        int sectorStart = location >> 8;
-        Check.stateCondition(sectorStart + sectorCount > freeSectors.size(), "Invalid sector count");
-        for (int i = sectorStart; i < sectorStart + sectorCount; i++) {
-            freeSectors.set(i, free);
+    private void readMappedHeader() {
+        // a file too short for a header holds no chunks
+        if (mapped.capacity() < HEADER_LENGTH) return;
+        for (int i = 0; i < MAX_ENTRY_COUNT; i++) {
+            locations[i] = mapped.getInt(i * 4);
+            timestamps[i] = mapped.getInt((MAX_ENTRY_COUNT + i) * 4);
         }
     }
 
+    private void markLocation(int location, boolean free) {
+        sectors.set(location >> 8, location & 0xFF, free);
+    }
+
     public @Nullable CompoundBinaryTag readChunkData(int chunkX, int chunkZ) throws IOException {
+        if (mapped != null) {
+            int location = locations[getChunkIndex(chunkX, chunkZ)];
+            return location == 0 ? null : readMappedChunk(location);
+        }
         lock.lock();
         try {
             if (!hasChunkData(chunkX, chunkZ)) {
@@ -105,19 +149,17 @@ final class AccessibleRegionFile implements AutoCloseable {
             }
 
             int location = locations[getChunkIndex(chunkX, chunkZ)];
-            file.seek((long) (location >> 8) * SECTOR_SIZE); // Move to start of first sector
+            long start = (long) (location >> 8) * SECTOR_SIZE;
+            if (start + CHUNK_HEADER_LENGTH > file.length()) {
+                throw new IOException("Chunk starts past the end of the region file");
+            }
+            file.seek(start); // Move to start of first sector
             int length = file.readInt();
-            int compressionType = file.readByte();
-            BinaryTagIO.Compression compression = switch (compressionType) {
-                case 1 -> BinaryTagIO.Compression.GZIP;
-                case COMPRESSION_ZLIB -> BinaryTagIO.Compression.ZLIB;
-                case 3 -> BinaryTagIO.Compression.NONE;
-                default -> throw new IOException("Unsupported compression type: " + compressionType);
-            };
+            BinaryTagIO.Compression compression = compression(file.readByte());
 
             // Read the raw content
-            byte[] data = new byte[length - 1];
-            file.read(data);
+            byte[] data = new byte[dataLength(location, length, file.length() - start)];
+            file.readFully(data);
 
             // Parse it as a compound tag
             return TAG_READER.read(new ByteArrayInputStream(data), compression);
@@ -126,6 +168,48 @@ final class AccessibleRegionFile implements AutoCloseable {
         }
     }
 
+    private CompoundBinaryTag readMappedChunk(int location) throws IOException {
+        long start = (long) (location >> 8) * SECTOR_SIZE;
+        if (start + CHUNK_HEADER_LENGTH > mapped.capacity()) {
+            throw new IOException("Chunk starts past the end of the region file");
+        }
+        int offset = (int) start;
+        int length = mapped.getInt(offset);
+        BinaryTagIO.Compression compression = compression(mapped.get(offset + 4));
+
+        byte[] data = new byte[dataLength(location, length, mapped.capacity() - start)];
+        mapped.get(offset + CHUNK_HEADER_LENGTH, data);
+        return TAG_READER.read(new ByteArrayInputStream(data), compression);
+    }
+
+    /**
+     * Gets the number of compressed bytes to read for a chunk. Files written before the length field was fixed count
+     * the length field itself too, so the length is clamped to the sectors allocated to the chunk and to the end of the
+     * file, like the reader always did.
+     *
+     * @param location  the location of the chunk
+     * @param length    the length field of the chunk
+     * @param remaining the number of bytes from the start of the chunk to the end of the file
+     * @return the number of bytes following the compression type
+     * @throws IOException if the length is invalid
+     */
+    private static int dataLength(int location, int length, long remaining) throws IOException {
+        if (length < 1) throw new IOException("Invalid chunk length: " + length);
+        long allocated = (long) (location & 0xFF) * SECTOR_SIZE;
+        long available = Math.min(allocated, remaining) - CHUNK_HEADER_LENGTH;
+        if (available < 0) throw new IOException("Chunk is larger than its allocation: " + location);
+        return (int) Math.min(length - 1, available);
+    }
+
+    private static BinaryTagIO.Compression compression(int compressionType) throws IOException {
+        return switch (compressionType) {
+            case 1 -> BinaryTagIO.Compression.GZIP;
+            case COMPRESSION_ZLIB -> BinaryTagIO.Compression.ZLIB;
+            case 3 -> BinaryTagIO.Compression.NONE;
+            default -> throw new IOException("Unsupported compression type: " + compressionType);
+        };
+    }
+
     public boolean hasChunkData(int chunkX, int chunkZ) {
         lock.lock();
         try {
@@ -140,6 +224,7 @@ final class AccessibleRegionFile implements AutoCloseable {
     }
 
     public void writeChunkData(int chunkX, int chunkZ, @NotNull CompoundBinaryTag data) throws IOException {
+        Check.stateCondition(mapped != null, "Cannot write to a read-only region file");
         // Write the data (compressed)
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         TAG_WRITER.writeNamed(Map.entry("", data), out, BinaryTagIO.Compression.ZLIB);
@@ -156,72 +241,134 @@ final class AccessibleRegionFile implements AutoCloseable {
             int oldLocation = locations[chunkIndex];
 
             // Find a new location
-            int firstSector = findFreeSectors(sectorCount);
+            int firstSector = sectors.findFree(sectorCount);
             if (firstSector == -1) {
                 firstSector = allocSectors(sectorCount);
             }
-            int newLocation = (firstSector << 8) | sectorCount;
-
-            // Mark the sectors as used & free the old sectors
-            markLocation(oldLocation, true);
-            markLocation(newLocation, false);
+            sectors.set(firstSector, sectorCount, false);
 
             // Write the chunk data
+            ByteBuffer chunk = ByteBuffer.allocate(chunkLength);
+            chunk.putInt(dataBytes.length + 1); // the length counts the compression type, but not itself
+            chunk.put((byte) COMPRESSION_ZLIB);
+            chunk.put(dataBytes);
             file.seek((long) firstSector * SECTOR_SIZE);
-            file.writeInt(chunkLength);
-            file.writeByte(COMPRESSION_ZLIB);
-            file.write(dataBytes);
+            file.write(chunk.array());
 
-            // Update the header and write it
-            locations[chunkIndex] = newLocation;
+            // Update the header, keeping the old sectors until it is flushed
+            if (oldLocation != 0) {
+                pendingFree.add(oldLocation);
+            }
+            locations[chunkIndex] = (firstSector << 8) | sectorCount;
             timestamps[chunkIndex] = (int) (System.currentTimeMillis() / 1000);
-            writeHeader();
+            headerDirty = true;
         } finally {
             lock.unlock();
         }
     }
 
-    private int findFreeSectors(int length) {
-        for (int start = 0; start < freeSectors.size() - length; start++) {
-            boolean found = true;
-            for (int i = 0; i < length; i++) {
-                if (!freeSectors.getBoolean(start++)) {
-                    found = false;
-                    break;
-                }
-            }
-            if (found) {
-                return start - length;
+    /**
+     * Writes the header if any chunk was written since it was last written, then frees the sectors of the chunks that
+     * were replaced.
+     *
+     * @throws IOException if the header can't be written
+     */
+    public void flush() throws IOException {
+        if (mapped != null) return;
+        lock.lock();
+        try {
+            if (!headerDirty) return;
+            writeHeader();
+            headerDirty = false;
+            for (int i = 0; i < pendingFree.size(); i++) {
+                markLocation(pendingFree.getInt(i), true);
             }
+            pendingFree.clear();
+        } finally {
+            lock.unlock();
         }
-        return -1;
     }
 
-    private int allocSectors(int count) throws IOException {
-        var eof = file.length();
-        file.seek(eof);
+    /**
+     * Moves chunks into free space earlier in the file, then truncates the free sectors at its end. Chunks are moved
+     * one at a time and the header is flushed after each, so the file stays readable if compaction is interrupted.
+     *
+     * @return the number of sectors the file shrank by
+     * @throws IOException if the file can't be read or written
+     */
+    public int compact() throws IOException {
+        Check.stateCondition(mapped != null, "Cannot compact a read-only region file");
+        lock.lock();
+        try {
+            flush();
+            int before = sectors.size();
+
+            IntArrayList chunks = new IntArrayList();
+            for (int i = 0; i < MAX_ENTRY_COUNT; i++) {
+                if (locations[i] != 0) chunks.add(i);
+            }
+            chunks.sort((a, b) -> Integer.compare(locations[a] >> 8, locations[b] >> 8));
+
+            for (int i = 0; i < chunks.size(); i++) {
+                int chunkIndex = chunks.getInt(i);
+                int location = locations[chunkIndex];
+                int start = location >> 8;
+                int count = location & 0xFF;
+                int target = sectors.findFree(count, start);
+                if (target == -1) continue;
+
+                // the last sector of the file may not be full size
+                int length = (int) Math.min((long) count * SECTOR_SIZE, file.length() - (long) start * SECTOR_SIZE);
+                if (length <= 0) continue;
+                byte[] data = new byte[length];
+                file.seek((long) start * SECTOR_SIZE);
+                file.readFully(data);
+                file.seek((long) target * SECTOR_SIZE);
+                file.write(data);
+
+                sectors.set(target, count, false);
+                pendingFree.add(location);
+                locations[chunkIndex] = (target << 8) | count;
+                headerDirty = true;
+                flush();
+            }
 
-        byte[] emptySector = new byte[SECTOR_SIZE];
-        for (int i = 0; i < count; i++) {
-            freeSectors.add(true);
-            file.write(emptySector);
+            int used = Math.max(2, sectors.usedLength());
+            if (used < before) {
+                file.setLength((long) used * SECTOR_SIZE);
+                sectors.truncate(used);
+            }
+            return before - sectors.size();
+        } finally {
+            lock.unlock();
         }
+    }
 
-        return (int) (eof / SECTOR_SIZE);
+    private int allocSectors(int count) throws IOException {
+        int first = sectors.size();
+        file.setLength((long) (first + count) * SECTOR_SIZE);
+        sectors.grow(count);
+        return first;
     }
 
     private void writeHeader() throws IOException {
-        file.seek(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
         for (int location : locations) {
-            file.writeInt(location);
+            header.putInt(location);
         }
         for (int timestamp : timestamps) {
-            file.writeInt(timestamp);
+            header.putInt(timestamp);
         }
+        file.seek(0);
+        file.write(header.array());
     }
 
     @Override
     public void close() throws IOException {
-        file.close();
+        try {
+            flush();
+        } finally {
+            file.close();
+        }
     }
 }
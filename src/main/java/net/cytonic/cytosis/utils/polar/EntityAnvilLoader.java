@@ -1,6 +1,5 @@
 package net.cytonic.cytosis.utils.polar;
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 
@@ -13,13 +12,14 @@ import net.kyori.adventure.nbt.ListBinaryTag;
 import net.kyori.adventure.nbt.StringBinaryTag;
 import net.minestom.server.MinecraftServer;
 import net.minestom.server.component.DataComponents;
-import net.minestom.server.coordinate.CoordConversion;
 import net.minestom.server.coordinate.Pos;
 import net.minestom.server.entity.Entity;
 import net.minestom.server.entity.EntityType;
 import net.minestom.server.entity.metadata.other.ItemFrameMeta;
 import net.minestom.server.entity.metadata.other.PaintingMeta;
 import net.minestom.server.entity.metadata.other.PaintingVariant;
+import net.minestom.server.event.EventListener;
+import net.minestom.server.event.instance.InstanceUnregisterEvent;
 import net.minestom.server.instance.Chunk;
 import net.minestom.server.instance.Instance;
 import net.minestom.server.instance.anvil.AnvilLoader;
@@ -33,28 +33,55 @@ import net.cytonic.cytosis.logging.Logger;
 
 public class EntityAnvilLoader extends AnvilLoader {
 
+    private static final int MAX_OPEN_REGIONS = 64;
+
     Path entitiesPath;
+    private final RegionFileCache regionFiles;
 
     public EntityAnvilLoader(@NotNull Path path) {
+        this(path, true);
+    }
+
+    /**
+     * Creates a loader for a world, also loading the entities it holds
+     *
+     * @param path     the path of the world
+     * @param readOnly if the entity region files are never written to while loaded, which memory maps them
+     */
+    public EntityAnvilLoader(@NotNull Path path, boolean readOnly) {
         super(path, Key.key("overworld"));
         this.entitiesPath = path.resolve("entities");
+        this.regionFiles = new RegionFileCache(entitiesPath, readOnly, MAX_OPEN_REGIONS);
     }
 
     public EntityAnvilLoader(@NotNull String path) {
         this(Path.of(path));
     }
 
+    @Override
+    public void loadInstance(@NotNull Instance instance) {
+        super.loadInstance(instance);
+        MinecraftServer.getGlobalEventHandler().addListener(EventListener.builder(InstanceUnregisterEvent.class)
+            .filter(event -> event.getInstance() == instance)
+            .handler(_ -> closeRegionFiles())
+            .expireCount(1)
+            .build());
+    }
+
+    /**
+     * Closes the entity region files held open by this loader. This is done when the instance is unregistered.
+     */
+    public void closeRegionFiles() {
+        regionFiles.close();
+    }
+
     @Override
     public @NotNull Chunk loadChunk(@NotNull Instance instance, int chunkX, int chunkZ) {
         Chunk future = super.loadChunk(instance, chunkX, chunkZ);
 
-        final int regionX = CoordConversion.chunkToRegion(chunkX);
-        final int regionZ = CoordConversion.chunkToRegion(chunkZ);
-
-        File entityFile = entitiesPath.resolve("r." + regionX + "." + regionZ + ".mca").toFile();
-        if (!entityFile.exists()) return future;
-        try (AccessibleRegionFile regionFile = new AccessibleRegionFile(entityFile.toPath())) {
-            CompoundBinaryTag data = regionFile.readChunkData(chunkX, chunkZ);
+        try (RegionFileCache.Lease lease = regionFiles.acquire(chunkX, chunkZ)) {
+            if (lease == null) return future;
+            CompoundBinaryTag data = lease.file().readChunkData(chunkX, chunkZ);
             if (data != null) {
                 ListBinaryTag entitiesList = data.getList("Entities");
                 entitiesList.forEach(entityTag -> {
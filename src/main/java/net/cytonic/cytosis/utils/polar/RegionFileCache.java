@@ -0,0 +1,156 @@
+package net.cytonic.cytosis.utils.polar;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import net.minestom.server.coordinate.CoordConversion;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import net.cytonic.cytosis.logging.Logger;
+
+/**
+ * A bounded cache of open region files, keyed by region coordinates. Files are reference counted, so a file evicted
+ * while a chunk is still being read from it is only closed once that read releases it. The least recently used files
+ * are evicted once more than the capacity are open.
+ */
+final class RegionFileCache implements AutoCloseable {
+
+    private final Path directory;
+    private final boolean readOnly;
+    private final int capacity;
+    // in access order, guarded by this
+    private final Long2ObjectLinkedOpenHashMap<Entry> open = new Long2ObjectLinkedOpenHashMap<>();
+
+    /**
+     * Creates a cache of the region files in a directory
+     *
+     * @param directory the directory holding the region files
+     * @param readOnly  if the files are only read from, which memory maps them
+     * @param capacity  the number of files to keep open
+     */
+    RegionFileCache(@NotNull Path directory, boolean readOnly, int capacity) {
+        this.directory = directory;
+        this.readOnly = readOnly;
+        this.capacity = capacity;
+    }
+
+    private static long key(int regionX, int regionZ) {
+        return ((long) regionX << 32) | (regionZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Acquires the region file holding a chunk, opening it if it isn't open yet. Files are opened outside the lock, so
+     * two threads may open the same file at once; the first to insert it wins and the other copy is closed. The lease
+     * must be closed once done with the file.
+     *
+     * @param chunkX the chunk x coordinate
+     * @param chunkZ the chunk z coordinate
+     * @return the lease of the file, or null if there is no region file for the chunk
+     * @throws IOException if the file can't be opened
+     */
+    @Nullable
+    Lease acquire(int chunkX, int chunkZ) throws IOException {
+        int regionX = CoordConversion.chunkToRegion(chunkX);
+        int regionZ = CoordConversion.chunkToRegion(chunkZ);
+        long key = key(regionX, regionZ);
+
+        Lease lease = lease(key);
+        if (lease != null) return lease;
+
+        Path path = directory.resolve(AccessibleRegionFile.getFileName(regionX, regionZ));
+        if (!Files.exists(path)) return null;
+        Entry opened = new Entry(new AccessibleRegionFile(path, readOnly));
+        Entry entry;
+        synchronized (this) {
+            entry = open.getAndMoveToLast(key);
+            if (entry == null) entry = opened;
+            entry.references++;
+            if (entry == opened) {
+                open.putAndMoveToLast(key, entry);
+                evict();
+            }
+        }
+        if (entry != opened) opened.close();
+        return new Lease(entry);
+    }
+
+    @Nullable
+    private synchronized Lease lease(long key) {
+        Entry entry = open.getAndMoveToLast(key);
+        if (entry == null) return null;
+        entry.references++;
+        return new Lease(entry);
+    }
+
+    private void evict() {
+        while (open.size() > capacity) {
+            Entry eldest = open.removeFirst();
+            eldest.evicted = true;
+            if (eldest.references == 0) eldest.close();
+        }
+    }
+
+    private synchronized void release(Entry entry) {
+        entry.references--;
+        if (entry.evicted && entry.references == 0) entry.close();
+    }
+
+    /**
+     * Closes every open file. Files still in use are closed once they are released, and files acquired later are
+     * opened again.
+     */
+    @Override
+    public synchronized void close() {
+        for (Entry entry : open.values()) {
+            entry.evicted = true;
+            if (entry.references == 0) entry.close();
+        }
+        open.clear();
+    }
+
+    private static final class Entry {
+
+        private final AccessibleRegionFile file;
+        private int references;
+        private boolean evicted;
+
+        private Entry(AccessibleRegionFile file) {
+            this.file = file;
+        }
+
+        private void close() {
+            try {
+                file.close();
+            } catch (IOException e) {
+                Logger.error("Failed to close region file", e);
+            }
+        }
+    }
+
+    /**
+     * A reference to an open region file, released on close
+     */
+    final class Lease implements AutoCloseable {
+
+        private final Entry entry;
+        private boolean released = false;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        AccessibleRegionFile file() {
+            return entry.file;
+        }
+
+        @Override
+        public void close() {
+            if (released) return;
+            released = true;
+            release(entry);
+        }
+    }
+}
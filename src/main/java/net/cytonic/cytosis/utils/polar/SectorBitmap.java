@@ -0,0 +1,178 @@
+package net.cytonic.cytosis.utils.polar;
+
+import java.util.Arrays;
+
+/**
+ * Tracks the free sectors of a region file, one bit per sector. Free space is found by skipping whole words of used
+ * sectors and measuring runs of free ones, instead of testing every sector for every candidate start.
+ */
+final class SectorBitmap {
+
+    // a set bit is a free sector
+    private long[] words;
+    private int size;
+
+    SectorBitmap(int size) {
+        this.words = new long[Math.max(1, wordCount(size))];
+        this.size = 0;
+        grow(size);
+    }
+
+    private static int wordCount(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    /**
+     * Gets the number of sectors tracked
+     *
+     * @return the number of sectors in the file
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds free sectors to the end
+     *
+     * @param count the number of sectors to add
+     */
+    void grow(int count) {
+        int newSize = size + count;
+        if (wordCount(newSize) > words.length) {
+            words = Arrays.copyOf(words, Math.max(wordCount(newSize), words.length * 2));
+        }
+        set(size, count, true, newSize);
+        size = newSize;
+    }
+
+    /**
+     * Removes the sectors past a new size
+     *
+     * @param newSize the number of sectors to keep
+     */
+    void truncate(int newSize) {
+        if (newSize >= size) return;
+        set(newSize, size - newSize, false, size);
+        size = newSize;
+    }
+
+    /**
+     * Marks a range of sectors as free or used
+     *
+     * @param start the first sector
+     * @param count the number of sectors
+     * @param free  if the sectors are free
+     * @throws IllegalStateException if the range is past the end of the file
+     */
+    void set(int start, int count, boolean free) {
+        set(start, count, free, size);
+    }
+
+    private void set(int start, int count, boolean free, int limit) {
+        if (count == 0) return;
+        if (start < 0 || start + count > limit) {
+            throw new IllegalStateException("Invalid sector range " + start + "+" + count + " of " + limit);
+        }
+        int end = start + count;
+        int firstWord = start >>> 6;
+        int lastWord = (end - 1) >>> 6;
+        long firstMask = -1L << start;
+        long lastMask = -1L >>> -end;
+        if (firstWord == lastWord) {
+            apply(firstWord, firstMask & lastMask, free);
+            return;
+        }
+        apply(firstWord, firstMask, free);
+        for (int i = firstWord + 1; i < lastWord; i++) {
+            words[i] = free ? -1L : 0L;
+        }
+        apply(lastWord, lastMask, free);
+    }
+
+    private void apply(int word, long mask, boolean free) {
+        if (free) {
+            words[word] |= mask;
+        } else {
+            words[word] &= ~mask;
+        }
+    }
+
+    /**
+     * Determines if a sector is free
+     *
+     * @param sector the sector
+     * @return if it is free
+     */
+    boolean isFree(int sector) {
+        return sector < size && (words[sector >>> 6] & (1L << sector)) != 0;
+    }
+
+    /**
+     * Finds the first run of free sectors long enough to hold a chunk
+     *
+     * @param length the number of sectors needed
+     * @param before the sector the run has to end at or before
+     * @return the first sector of the run, or -1 if there is none
+     */
+    int findFree(int length, int before) {
+        int limit = Math.min(before, size);
+        int start = nextFree(0, limit);
+        while (start >= 0 && start + length <= limit) {
+            int end = nextUsed(start, limit);
+            if (end - start >= length) return start;
+            start = nextFree(end, limit);
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first run of free sectors long enough to hold a chunk
+     *
+     * @param length the number of sectors needed
+     * @return the first sector of the run, or -1 if there is none
+     */
+    int findFree(int length) {
+        return findFree(length, size);
+    }
+
+    /**
+     * Finds the number of sectors up to and including the last used one
+     *
+     * @return the length of the file without the free sectors at its end
+     */
+    int usedLength() {
+        for (int i = wordCount(size) - 1; i >= 0; i--) {
+            long used = ~words[i];
+            if (i == wordCount(size) - 1 && (size & 63) != 0) used &= -1L >>> -size;
+            if (used != 0) return (i << 6) + 64 - Long.numberOfLeadingZeros(used);
+        }
+        return 0;
+    }
+
+    private int nextFree(int from, int limit) {
+        if (from >= limit) return -1;
+        int word = from >>> 6;
+        long bits = words[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                int sector = (word << 6) + Long.numberOfTrailingZeros(bits);
+                return sector < limit ? sector : -1;
+            }
+            if (++word >= wordCount(limit)) return -1;
+            bits = words[word];
+        }
+    }
+
+    private int nextUsed(int from, int limit) {
+        if (from >= limit) return limit;
+        int word = from >>> 6;
+        long bits = ~words[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return Math.min((word << 6) + Long.numberOfTrailingZeros(bits), limit);
+            }
+            if (++word >= wordCount(limit)) return limit;
+            bits = ~words[word];
+        }
+    }
+}
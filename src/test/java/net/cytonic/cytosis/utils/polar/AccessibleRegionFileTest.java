@@ -0,0 +1,130 @@
+package net.cytonic.cytosis.utils.polar;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import net.kyori.adventure.nbt.BinaryTagIO;
+import net.kyori.adventure.nbt.CompoundBinaryTag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessibleRegionFileTest {
+
+    private static final int SECTOR_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsRandomWrites() throws IOException {
+        Path path = directory.resolve(AccessibleRegionFile.getFileName(0, 0));
+        Random random = new Random(7);
+        Map<Integer, CompoundBinaryTag> model = new HashMap<>();
+
+        AccessibleRegionFile file = new AccessibleRegionFile(path);
+        for (int op = 0; op < 2000; op++) {
+            int chunk = random.nextInt(64);
+            switch (random.nextInt(20)) {
+                case 0 -> file.flush();
+                case 1 -> {
+                    file.close();
+                    file = new AccessibleRegionFile(path);
+                    assertMatches(file, model);
+                }
+                case 2 -> {
+                    file.compact();
+                    assertMatches(file, model);
+                }
+                default -> {
+                    CompoundBinaryTag tag = randomChunk(random, op);
+                    file.writeChunkData(chunk & 31, chunk >> 5, tag);
+                    model.put(chunk, tag);
+                }
+            }
+        }
+        assertMatches(file, model);
+        file.compact();
+        file.close();
+
+        try (AccessibleRegionFile readOnly = new AccessibleRegionFile(path, true)) {
+            assertMatches(readOnly, model);
+        }
+        try (AccessibleRegionFile reopened = new AccessibleRegionFile(path)) {
+            assertMatches(reopened, model);
+        }
+    }
+
+    @Test
+    void compactionShrinksTheFile() throws IOException {
+        Path path = directory.resolve(AccessibleRegionFile.getFileName(0, 0));
+        Random random = new Random(11);
+        Map<Integer, CompoundBinaryTag> model = new HashMap<>();
+        try (AccessibleRegionFile file = new AccessibleRegionFile(path)) {
+            for (int i = 0; i < 32; i++) {
+                CompoundBinaryTag tag = randomChunk(random, i);
+                file.writeChunkData(i, 0, tag);
+                model.put(i, tag);
+            }
+            file.flush();
+            // rewriting every chunk leaves the first half of the file free
+            for (int i = 0; i < 32; i++) {
+                file.writeChunkData(i, 0, model.get(i));
+            }
+            assertTrue(file.compact() > 0);
+            assertMatches(file, model);
+        }
+        try (AccessibleRegionFile readOnly = new AccessibleRegionFile(path, true)) {
+            assertMatches(readOnly, model);
+        }
+    }
+
+    @Test
+    void readsLegacyLengthAtEndOfFile() throws IOException {
+        // the old writer counted the length field in the chunk length, and didn't pad the last sector
+        CompoundBinaryTag tag = CompoundBinaryTag.builder().putString("id", "minecraft:painting").build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryTagIO.writer().writeNamed(Map.entry("", tag), out, BinaryTagIO.Compression.ZLIB);
+        byte[] data = out.toByteArray();
+
+        ByteBuffer buffer = ByteBuffer.allocate(2 * SECTOR_SIZE + 5 + data.length);
+        buffer.putInt(0, (2 << 8) | 1);
+        buffer.position(2 * SECTOR_SIZE);
+        buffer.putInt(5 + data.length);
+        buffer.put((byte) 2);
+        buffer.put(data);
+        Path path = directory.resolve(AccessibleRegionFile.getFileName(0, 0));
+        Files.write(path, buffer.array());
+
+        try (AccessibleRegionFile readOnly = new AccessibleRegionFile(path, true)) {
+            assertEquals(tag, readOnly.readChunkData(0, 0));
+        }
+        try (AccessibleRegionFile writable = new AccessibleRegionFile(path)) {
+            assertEquals(tag, writable.readChunkData(0, 0));
+            assertNull(writable.readChunkData(1, 0));
+        }
+    }
+
+    private static CompoundBinaryTag randomChunk(Random random, int id) {
+        // random bytes don't compress, so chunks span a random number of sectors
+        byte[] payload = new byte[random.nextInt(3 * SECTOR_SIZE)];
+        random.nextBytes(payload);
+        return CompoundBinaryTag.builder().putInt("id", id).putByteArray("payload", payload).build();
+    }
+
+    private static void assertMatches(AccessibleRegionFile file, Map<Integer, CompoundBinaryTag> model)
+        throws IOException {
+        for (int chunk = 0; chunk < 64; chunk++) {
+            assertEquals(model.get(chunk), file.readChunkData(chunk & 31, chunk >> 5), "chunk " + chunk);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package net.cytonic.cytosis.utils.polar;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SectorBitmapTest {
+
+    @Test
+    void matchesModelUnderRandomAllocation() {
+        Random random = new Random(1);
+        for (int round = 0; round < 50; round++) {
+            int size = 2 + random.nextInt(300);
+            SectorBitmap bitmap = new SectorBitmap(size);
+            boolean[] model = new boolean[4096];
+            for (int i = 0; i < size; i++) model[i] = true;
+            int modelSize = size;
+
+            for (int op = 0; op < 500; op++) {
+                int length = 1 + random.nextInt(8);
+                switch (random.nextInt(4)) {
+                    case 0, 1 -> {
+                        int start = bitmap.findFree(length);
+                        assertEquals(firstRun(model, modelSize, length, modelSize), start);
+                        if (start == -1) {
+                            start = bitmap.size();
+                            bitmap.grow(length);
+                            modelSize += length;
+                            for (int i = start; i < modelSize; i++) model[i] = true;
+                        }
+                        bitmap.set(start, length, false);
+                        for (int i = start; i < start + length; i++) model[i] = false;
+                    }
+                    case 2 -> {
+                        int start = random.nextInt(modelSize);
+                        int count = Math.min(length, modelSize - start);
+                        bitmap.set(start, count, true);
+                        for (int i = start; i < start + count; i++) model[i] = true;
+                    }
+                    default -> {
+                        int before = random.nextInt(modelSize + 1);
+                        assertEquals(firstRun(model, modelSize, length, before), bitmap.findFree(length, before));
+                    }
+                }
+                assertEquals(modelSize, bitmap.size());
+                assertEquals(usedLength(model, modelSize), bitmap.usedLength());
+            }
+            for (int i = 0; i < modelSize; i++) {
+                assertEquals(model[i], bitmap.isFree(i), "sector " + i);
+            }
+        }
+    }
+
+    @Test
+    void truncateDropsTrailingSectors() {
+        SectorBitmap bitmap = new SectorBitmap(130);
+        bitmap.set(0, 2, false);
+        bitmap.set(70, 3, false);
+        assertEquals(73, bitmap.usedLength());
+        bitmap.truncate(73);
+        assertEquals(73, bitmap.size());
+        assertEquals(-1, bitmap.findFree(69));
+        bitmap.grow(80);
+        assertTrue(bitmap.isFree(152));
+        assertEquals(73, bitmap.findFree(69));
+    }
+
+    private static int firstRun(boolean[] model, int size, int length, int before) {
+        int limit = Math.min(before, size);
+        for (int start = 0; start + length <= limit; start++) {
+            int end = start;
+            while (end < limit && model[end]) end++;
+            if (end - start >= length) return start;
+            start = end;
+        }
+        return -1;
+    }
+
+    private static int usedLength(boolean[] model, int size) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (!model[i]) return i + 1;
+        }
+        return 0;
+    }
+}